@@ -59,8 +59,15 @@ import org.cytoscape.ding.customgraphics.NullCustomGraphics;
 import org.cytoscape.ding.customgraphics.bitmap.MissingImageCustomGraphics;
 import org.cytoscape.ding.customgraphics.bitmap.URLImageCustomGraphics;
 import org.cytoscape.ding.impl.DGraphView;
+import org.cytoscape.ding.internal.charts.AbstractChartLayer;
 import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.graph.render.immed.SpriteCache;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNode;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.model.events.RowsSetListener;
 import org.cytoscape.property.CyProperty;
 import org.cytoscape.session.CySession;
 import org.cytoscape.session.events.SessionAboutToBeSavedEvent;
@@ -89,7 +96,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class CustomGraphicsManagerImpl implements CustomGraphicsManager, CyShutdownListener,
-		SessionAboutToBeSavedListener, SessionLoadedListener {
+		SessionAboutToBeSavedListener, SessionLoadedListener, RowsSetListener {
 
 	private static final Logger logger = LoggerFactory.getLogger(CustomGraphicsManagerImpl.class);
 
@@ -115,6 +122,7 @@ public final class CustomGraphicsManagerImpl implements CustomGraphicsManager, C
 
 	private final VisualMappingManager vmm;
 	private final CyApplicationManager applicationManager;
+	private SpriteCache spriteCache = SpriteCache.getShared();
 	private static CustomGraphicsManagerImpl instance = null;
 
 	/**
@@ -423,6 +431,37 @@ public final class CustomGraphicsManagerImpl implements CustomGraphicsManager, C
 		}
 	}
 
+	/**
+	 * Drops the cached chart images of the nodes and edges whose values have changed; selection changes are
+	 * ignored, since charts do not show them.
+	 */
+	@Override
+	public void handleEvent(final RowsSetEvent e) {
+		final SpriteCache sprites = spriteCache;
+		
+		if (sprites == null)
+			return;
+		
+		final Set<Long> suids = new HashSet<>();
+		
+		for (final RowSetRecord record : e.getPayloadCollection()) {
+			if (CyNetwork.SELECTED.equals(record.getColumn()))
+				continue;
+			
+			final Object suid = record.getRow().getRaw(CyIdentifiable.SUID);
+			
+			if (suid instanceof Long)
+				suids.add((Long) suid);
+		}
+		
+		AbstractChartLayer.invalidateImages(sprites, suids);
+	}
+
+	// package scoped for unit testing
+	void setSpriteCache(final SpriteCache spriteCache) {
+		this.spriteCache = spriteCache;
+	}
+
 	@Override
 	public Long getNextAvailableID() {
 		
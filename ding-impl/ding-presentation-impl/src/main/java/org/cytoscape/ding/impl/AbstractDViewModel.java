@@ -71,8 +71,9 @@ public abstract class AbstractDViewModel<M extends CyIdentifiable> implements Vi
 		this.lexicon = lexicon;
 		this.eventHelper = eventHelper;
 
-		// All access to these maps should go through "lock" field
-		this.visualProperties = Collections.synchronizedMap(new IdentityHashMap<VisualProperty<?>, Object>());
+		// All access to these maps should go through "lock" field; the lock
+		// states are also read without it, so those maps synchronize as well
+		this.visualProperties = new IdentityHashMap<VisualProperty<?>, Object>();
 		this.directLocks = Collections.synchronizedMap(new IdentityHashMap<VisualProperty<?>, Object>());
 		allLocks = Collections.synchronizedMap(new IdentityHashMap<VisualProperty<?>, Object>());
 	}
@@ -89,25 +90,61 @@ public abstract class AbstractDViewModel<M extends CyIdentifiable> implements Vi
 
 	@Override
 	public <T, V extends T> void setVisualProperty(final VisualProperty<? extends T> vp, V value) {
+		final boolean applied;
+
+		synchronized (getDGraphView().m_lock) {
+			applied = storeVisualProperty(vp, value);
+		}
+
+		if (applied)
+			fireViewChangedEvent(vp, value, false);
+	}
+
+	/**
+	 * Sets several visual properties, in iteration order, just like calling
+	 * {@link #setVisualProperty(VisualProperty, Object)} for each of them,
+	 * but taking the network view lock only once for the whole batch.
+	 * 
+	 * @param values the values to set, null values clearing the properties
+	 */
+	public void setVisualProperties(final Map<? extends VisualProperty<?>, ?> values) {
+		final boolean[] applied = new boolean[values.size()];
+		int i = 0;
+
 		synchronized (getDGraphView().m_lock) {
-			if (value == null)
-				visualProperties.remove(vp);
-			else
-				visualProperties.put(vp, value);
+			for (final Entry<? extends VisualProperty<?>, ?> entry : values.entrySet())
+				applied[i++] = storeVisualProperty(entry.getKey(), entry.getValue());
+		}
+
+		i = 0;
+
+		for (final Entry<? extends VisualProperty<?>, ?> entry : values.entrySet()) {
+			if (applied[i++])
+				fireViewChangedEvent(entry.getKey(), entry.getValue(), false);
 		}
+	}
+
+	/**
+	 * Stores a visual property value and applies it unless it is locked.  The
+	 * caller must hold the network view lock.
+	 * 
+	 * @return false for selection properties, for which no event must be fired
+	 */
+	private boolean storeVisualProperty(final VisualProperty<?> vp, final Object value) {
+		if (value == null)
+			visualProperties.remove(vp);
+		else
+			visualProperties.put(vp, value);
 
 		// Ding has it's own listener for selection events.  If we
 		// don't do this, we might get into a deadlock state
 		if (vp == BasicVisualLexicon.NODE_SELECTED || vp == BasicVisualLexicon.EDGE_SELECTED)
-			return;
+			return false;
 
-		if (!isValueLocked(vp)) {
-			synchronized (getDGraphView().m_lock) {
-				applyVisualProperty(vp, value);
-			}
-		}
-		
-		fireViewChangedEvent(vp, value, false);
+		if (!isValueLocked(vp))
+			applyVisualProperty(vp, value);
+
+		return true;
 	}
 	
 	@SuppressWarnings({ "rawtypes", "unchecked" })
@@ -0,0 +1,65 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import org.cytoscape.graph.render.stateful.GraphLOD;
+
+/**
+ * Level of detail for the first frame of progressive rendering: it makes the
+ * same edge decisions as its source but always renders at low detail, so the
+ * frame costs little more than the spatial index query.
+ */
+class CoarseGraphLOD extends GraphLOD {
+	private final GraphLOD source;
+
+	public CoarseGraphLOD(GraphLOD source) {
+		this.source = source;
+	}
+
+	public boolean getDrawEdges() { 
+		return source.getDrawEdges(); 
+	}
+
+	public void setDrawEdges(boolean drawEdges) { 
+		source.setDrawEdges(drawEdges); 
+	}
+
+	public byte renderEdges(final int visibleNodeCount, final int totalNodeCount, final int totalEdgeCount) {
+		return source.renderEdges(visibleNodeCount, totalNodeCount, totalEdgeCount);
+	}
+
+	public int aggregate(final int visibleNodeCount, final int visibleEdgeCount) {
+		return source.aggregate(visibleNodeCount, visibleEdgeCount);
+	}
+
+	public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
+		return false;
+	}
+
+	public double getNestedNetworkImageScaleFactor() {
+		return source.getNestedNetworkImageScaleFactor();
+	}
+}
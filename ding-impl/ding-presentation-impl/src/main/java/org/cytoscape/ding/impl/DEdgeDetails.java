@@ -26,6 +26,10 @@ package org.cytoscape.ding.impl;
 
 import static org.cytoscape.ding.DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT;
 import static org.cytoscape.ding.DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT;
+import static org.cytoscape.ding.impl.DetailsStore.DOUBLE;
+import static org.cytoscape.ding.impl.DetailsStore.FLOAT;
+import static org.cytoscape.ding.impl.DetailsStore.INT;
+import static org.cytoscape.ding.impl.DetailsStore.OBJECT;
 import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_COLOR;
 import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_FONT_FACE;
 import static org.cytoscape.view.presentation.property.BasicVisualLexicon.EDGE_LABEL_TRANSPARENCY;
@@ -44,7 +48,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.ding.DArrowShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -75,35 +78,41 @@ final class DEdgeDetails extends EdgeDetails {
 	private static final float DEFAULT_ARROW_SIZE = 6.0f;
 
 	private final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues; 
 
-	// Mapped Values
-	// If value found in these map objects, the value will be used by the renderer.
+	// Mapped Values, stored per edge for the properties below.
+	// If an edge has a value for a property, it will be used by the renderer.
 	// Otherwise, default value will be used.
-	Map<CyEdge, Object> m_colorsLowDetail = new ConcurrentHashMap<CyEdge, Object>(16, 0.75f, 2);
-	Map<CyEdge, Object> m_selectedColorsLowDetail = new ConcurrentHashMap<CyEdge, Object>(16, 0.75f, 2);
-	Map<CyEdge, Float> m_segmentThicknesses = new ConcurrentHashMap<CyEdge, Float>(16, 0.75f, 2);
-	Map<CyEdge, Stroke> m_segmentStrokes = new ConcurrentHashMap<CyEdge, Stroke>(16, 0.75f, 2);
-	Map<CyEdge, Byte> m_sourceArrows = new ConcurrentHashMap<CyEdge, Byte>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_sourceArrowPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_sourceArrowSelectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Byte> m_targetArrows = new ConcurrentHashMap<CyEdge, Byte>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_targetArrowPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_targetArrowSelectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_labelCounts = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
-	Map<CyEdge, String> m_labelTexts = new ConcurrentHashMap<CyEdge, String>(16, 0.75f, 2);
-	Map<CyEdge, Font> m_labelFonts = new ConcurrentHashMap<CyEdge, Font>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_labelPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Double> m_labelWidths = new ConcurrentHashMap<CyEdge, Double>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_unselectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Paint> m_selectedPaints = new ConcurrentHashMap<CyEdge, Paint>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_lineCurved = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
-	Map<CyEdge, Bend> m_edgeBends = new ConcurrentHashMap<CyEdge, Bend>(16, 0.75f, 2);
-	Map<CyEdge, String> m_edgeTooltips = new ConcurrentHashMap<CyEdge, String>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_edgeTansparencies = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
-	Map<CyEdge, Integer> m_edgeLabelTansparencies = new ConcurrentHashMap<CyEdge, Integer>(16, 0.75f, 2);
+	private static final int COLOR_LOW_DETAIL = 0;
+	private static final int SELECTED_COLOR_LOW_DETAIL = 1;
+	private static final int SEGMENT_THICKNESS = 2;
+	private static final int SEGMENT_STROKE = 3;
+	private static final int SOURCE_ARROW = 4;
+	private static final int SOURCE_ARROW_PAINT = 5;
+	private static final int SOURCE_ARROW_SELECTED_PAINT = 6;
+	private static final int TARGET_ARROW = 7;
+	private static final int TARGET_ARROW_PAINT = 8;
+	private static final int TARGET_ARROW_SELECTED_PAINT = 9;
+	private static final int LABEL_COUNT = 10;
+	private static final int LABEL_TEXT = 11;
+	private static final int LABEL_FONT = 12;
+	private static final int LABEL_PAINT = 13;
+	private static final int LABEL_WIDTH = 14;
+	private static final int UNSELECTED_PAINT = 15;
+	private static final int SELECTED_PAINT = 16;
+	private static final int LINE_CURVED = 17;
+	private static final int BEND = 18;
+	private static final int TOOLTIP = 19;
+	private static final int TRANSPARENCY = 20;
+	private static final int LABEL_TRANSPARENCY = 21;
+
+	private final DetailsStore m_values = new DetailsStore(
+			OBJECT, OBJECT, FLOAT, OBJECT,
+			INT, OBJECT, OBJECT, INT, OBJECT, OBJECT,
+			INT, OBJECT, OBJECT, OBJECT, DOUBLE,
+			OBJECT, OBJECT, INT, OBJECT, OBJECT,
+			INT, INT);
 
 	// Default Values
 	Byte m_sourceArrowDefault;
@@ -139,60 +148,14 @@ final class DEdgeDetails extends EdgeDetails {
 		if (isCleared)
 			return;
 
-		m_segmentThicknesses = new ConcurrentHashMap<CyEdge, Float>();
-		m_segmentStrokes = new ConcurrentHashMap<CyEdge, Stroke>();
-		m_sourceArrows = new ConcurrentHashMap<CyEdge, Byte>();
-		m_sourceArrowPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_targetArrows = new ConcurrentHashMap<CyEdge, Byte>();
-		m_targetArrowPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_targetArrowSelectedPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_labelCounts = new ConcurrentHashMap<CyEdge, Integer>();
-		m_labelTexts = new ConcurrentHashMap<CyEdge, String>();
-		m_labelFonts = new ConcurrentHashMap<CyEdge, Font>();
-		m_labelPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_labelWidths = new ConcurrentHashMap<CyEdge, Double>();
-		m_unselectedPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_selectedPaints = new ConcurrentHashMap<CyEdge, Paint>();
-		m_colorsLowDetail = new ConcurrentHashMap<CyEdge, Object>();
-		m_selectedColorsLowDetail = new ConcurrentHashMap<CyEdge, Object>();
-		m_lineCurved = new ConcurrentHashMap<CyEdge, Integer>();
-		m_edgeBends = new ConcurrentHashMap<CyEdge, Bend>();
-		m_edgeTooltips = new ConcurrentHashMap<CyEdge, String>();
-		m_edgeTansparencies = new ConcurrentHashMap<CyEdge, Integer>();
-		m_edgeLabelTansparencies = new ConcurrentHashMap<CyEdge, Integer>();
+		m_values.clear();
 
 		isCleared = true;
 	}
 
 	void unregisterEdge(final CyEdge edgeIdx) {
-		final Object colorDetail = m_colorsLowDetail.get(edgeIdx);
-		if ((colorDetail != null) && (colorDetail != m_deletedEntry))
-			m_colorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		final Object selectedColorDetail = m_selectedColorsLowDetail.get(edgeIdx);
-		if ((selectedColorDetail != null) && (selectedColorDetail != m_deletedEntry))
-			m_selectedColorsLowDetail.put(edgeIdx, m_deletedEntry);
-
-		m_segmentThicknesses.remove(edgeIdx);
-		m_segmentStrokes.remove(edgeIdx);
-		m_sourceArrows.remove(edgeIdx);
-		m_sourceArrowPaints.remove(edgeIdx);
-		m_targetArrows.remove(edgeIdx);
-		m_targetArrowPaints.remove(edgeIdx);
-		m_targetArrowSelectedPaints.remove(edgeIdx);
-		m_labelCounts.remove(edgeIdx);
-		m_labelTexts.remove(edgeIdx);
-		m_labelFonts.remove(edgeIdx);
-		m_labelPaints.remove(edgeIdx);
-		m_labelWidths.remove(edgeIdx);
-		m_selectedPaints.remove(edgeIdx);
-		m_unselectedPaints.remove(edgeIdx);
-		m_lineCurved.remove(edgeIdx);
-		m_edgeBends.remove(edgeIdx);
+		m_values.remove(edgeIdx.getSUID());
 		selected.remove(edgeIdx);
-		m_edgeTooltips.remove(edgeIdx);
-		m_edgeTansparencies.remove(edgeIdx);
-		m_edgeLabelTansparencies.remove(edgeIdx);
 	}
 	
 	public <V> void setDefaultValue(final VisualProperty<V> vp, V value) {
@@ -215,9 +178,9 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT);
 
-		final Object o = m_colorsLowDetail.get(edge);
+		final Object o = m_values.getObject(m_values.slotOf(edge.getSUID()), COLOR_LOW_DETAIL);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
@@ -232,9 +195,9 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT))
 			return (Color) dev.getVisualProperty(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(edge);
+		final Object o = m_values.getObject(m_values.slotOf(edge.getSUID()), SELECTED_COLOR_LOW_DETAIL);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return super.getColorLowDetail(edge);
 			else
@@ -265,14 +228,14 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_sourceArrows.get(edge);
-		if (arrow == null)
+		final int slot = m_values.slotOf(edge.getSUID());
+		if (!m_values.isSet(slot, SOURCE_ARROW))
 			if (m_sourceArrowDefault == null)
 				return super.getSourceArrowShape(edge);
 			else
 				return m_sourceArrowDefault.byteValue();
 
-		return arrow;
+		return (byte) m_values.getInt(slot, SOURCE_ARROW);
 	}
 
 	void setSourceArrowDefault(byte arrow) {
@@ -286,9 +249,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSourceArrow(final CyEdge edge, final byte arrowType) {
 		if ((arrowType >= 0) || (arrowType == super.getSourceArrowShape(edge)))
-			m_sourceArrows.remove(edge);
+			m_values.unset(edge.getSUID(), SOURCE_ARROW);
 		else {
-			m_sourceArrows.put(edge, arrowType);
+			m_values.setInt(edge.getSUID(), SOURCE_ARROW, arrowType);
 			isCleared = false;
 		}
 	}
@@ -309,7 +272,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_sourceArrowPaints.get(edge);
+		final Paint paint = (Paint) m_values.getObject(m_values.slotOf(edge.getSUID()), SOURCE_ARROW_PAINT);
 		if (paint == null) {
 			if (m_sourceArrowPaintDefault == null)
 				return DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT.getDefault();
@@ -329,18 +292,18 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSourceArrowPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			m_sourceArrowPaints.remove(edge);
+			m_values.unset(edge.getSUID(), SOURCE_ARROW_PAINT);
 		else {
-			m_sourceArrowPaints.put(edge, paint);
+			m_values.setObject(edge.getSUID(), SOURCE_ARROW_PAINT, paint);
 			isCleared = false;
 		}
 	}
 
 	void overrideSourceArrowSelectedPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getSourceArrowPaint(edge)))
-			this.m_sourceArrowSelectedPaints.remove(edge);
+			m_values.unset(edge.getSUID(), SOURCE_ARROW_SELECTED_PAINT);
 		else {
-			m_sourceArrowSelectedPaints.put(edge, paint);
+			m_values.setObject(edge.getSUID(), SOURCE_ARROW_SELECTED_PAINT, paint);
 			isCleared = false;
 		}
 	}
@@ -355,14 +318,14 @@ final class DEdgeDetails extends EdgeDetails {
 			return DArrowShape.parseArrowText(shapeID).getRendererTypeID();
 		}
 
-		final Byte arrow = m_targetArrows.get(edge);
-		if (arrow == null)
+		final int slot = m_values.slotOf(edge.getSUID());
+		if (!m_values.isSet(slot, TARGET_ARROW))
 			if (m_targetArrowDefault == null)
 				return super.getTargetArrowShape(edge);
 			else
 				return m_targetArrowDefault.byteValue();
 
-		return arrow;
+		return (byte) m_values.getInt(slot, TARGET_ARROW);
 	}
 
 	void setTargetArrowDefault(final byte arrow) {
@@ -376,9 +339,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrow(final CyEdge edge, final byte arrowType) {
 		if ((arrowType >= 0) || (arrowType == super.getTargetArrowShape(edge)))
-			m_targetArrows.remove(edge);
+			m_values.unset(edge.getSUID(), TARGET_ARROW);
 		else {
-			m_targetArrows.put(edge, arrowType);
+			m_values.setInt(edge.getSUID(), TARGET_ARROW, arrowType);
 			isCleared = false;
 		}
 	}
@@ -402,7 +365,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT);
 
-		final Paint paint = m_targetArrowPaints.get(edge);
+		final Paint paint = (Paint) m_values.getObject(m_values.slotOf(edge.getSUID()), TARGET_ARROW_PAINT);
 
 		if (paint == null) {
 			if (m_targetArrowPaintDefault == null)
@@ -423,9 +386,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrowPaint(final CyEdge edge, final Paint paint) {
 		if (paint == null)
-			m_targetArrowPaints.remove(edge);
+			m_values.unset(edge.getSUID(), TARGET_ARROW_PAINT);
 		else {
-			m_targetArrowPaints.put(edge, paint);
+			m_values.setObject(edge.getSUID(), TARGET_ARROW_PAINT, paint);
 			isCleared = false;
 		}
 	}
@@ -435,9 +398,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideTargetArrowSelectedPaint(final CyEdge edge, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getTargetArrowPaint(edge)))
-			this.m_targetArrowSelectedPaints.remove(edge);
+			m_values.unset(edge.getSUID(), TARGET_ARROW_SELECTED_PAINT);
 		else {
-			m_targetArrowSelectedPaints.put(edge, paint);
+			m_values.setObject(edge.getSUID(), TARGET_ARROW_SELECTED_PAINT, paint);
 			isCleared = false;
 		}
 	}
@@ -451,13 +414,13 @@ final class DEdgeDetails extends EdgeDetails {
 		if (edv.isValueLocked(DVisualLexicon.EDGE_WIDTH)) {
 			w = edv.getVisualProperty(DVisualLexicon.EDGE_WIDTH).floatValue();
 		} else {
-			w = m_segmentThicknesses.get(edge);
-			if (w == null) {
-				if (m_segmentThicknessDefault == null)
-					w = super.getWidth(edge);
-				else
-					w = m_segmentThicknessDefault.floatValue();
-			}
+			final int slot = m_values.slotOf(edge.getSUID());
+			if (m_values.isSet(slot, SEGMENT_THICKNESS))
+				w = m_values.getFloat(slot, SEGMENT_THICKNESS);
+			else if (m_segmentThicknessDefault == null)
+				w = super.getWidth(edge);
+			else
+				w = m_segmentThicknessDefault.floatValue();
 		}
 
 		return w;
@@ -474,9 +437,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSegmentThickness(final CyEdge edge, final float thickness) {
 		if ((thickness < 0.0f) || (thickness == super.getWidth(edge)))
-			m_segmentThicknesses.remove(edge);
+			m_values.unset(edge.getSUID(), SEGMENT_THICKNESS);
 		else {
-			m_segmentThicknesses.put(edge, thickness);
+			m_values.setFloat(edge.getSUID(), SEGMENT_THICKNESS, thickness);
 			isCleared = false;
 		}
 	}
@@ -495,13 +458,13 @@ final class DEdgeDetails extends EdgeDetails {
 
 			// We need to handle animated edges with some care...
 			if (stroke instanceof AnimatedStroke) {
-				Stroke oldStroke = m_segmentStrokes.get(edge);
+				Stroke oldStroke = (Stroke) m_values.getObject(m_values.slotOf(edge.getSUID()), SEGMENT_STROKE);
 				if (oldStroke != null && oldStroke.getClass().equals(stroke.getClass())) {
 					stroke = ((WidthStroke)oldStroke).newInstanceForWidth(getWidth(edge));
 				}
 			}
 		} else {
-			stroke = m_segmentStrokes.get(edge);
+			stroke = (Stroke) m_values.getObject(m_values.slotOf(edge.getSUID()), SEGMENT_STROKE);
 
 			if (stroke == null) {
 				if (m_segmentStrokeDefault == null)
@@ -529,9 +492,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideSegmentStroke(final CyEdge edge, final Stroke stroke) {
 		if ((stroke == null) || stroke.equals(super.getStroke(edge))) {
-			m_segmentStrokes.remove(edge);
+			m_values.unset(edge.getSUID(), SEGMENT_STROKE);
 		} else {
-			m_segmentStrokes.put(edge, stroke);
+			m_values.setObject(edge.getSUID(), SEGMENT_STROKE, stroke);
 			isCleared = false;
 		}
 	}
@@ -569,7 +532,7 @@ final class DEdgeDetails extends EdgeDetails {
 		} else if (dev.isValueLocked(DVisualLexicon.EDGE_UNSELECTED_PAINT)) {
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_UNSELECTED_PAINT);
 		} else {
-			paint = m_unselectedPaints.get(edge);
+			paint = (Paint) m_values.getObject(m_values.slotOf(edge.getSUID()), UNSELECTED_PAINT);
 
 			if (paint == null) {
 				if (m_unselectedPaintDefault == null)
@@ -598,7 +561,7 @@ final class DEdgeDetails extends EdgeDetails {
 		} else if (dev.isValueLocked(DVisualLexicon.EDGE_SELECTED_PAINT)) {
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_SELECTED_PAINT);
 		} else {
-			paint = m_selectedPaints.get(edge);
+			paint = (Paint) m_values.getObject(m_values.slotOf(edge.getSUID()), SELECTED_PAINT);
 
 			if (paint == null) {
 				if (m_selectedPaintDefault == null)
@@ -629,16 +592,16 @@ final class DEdgeDetails extends EdgeDetails {
 	}
 
 	void setUnselectedPaint(final CyEdge edge, final Paint paint) {
-		m_unselectedPaints.put(edge, paint);
+		m_values.setObject(edge.getSUID(), UNSELECTED_PAINT, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(edge, paint);
+			m_values.setObject(edge.getSUID(), COLOR_LOW_DETAIL, paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyEdge edge, final Paint paint) {
-		m_selectedPaints.put(edge, paint);
+		m_values.setObject(edge.getSUID(), SELECTED_PAINT, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(edge, paint);
+			m_values.setObject(edge.getSUID(), SELECTED_COLOR_LOW_DETAIL, paint);
 
 		isCleared = false;
 	}
@@ -651,18 +614,17 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL) && !dev.getVisualProperty(DVisualLexicon.EDGE_LABEL).isEmpty())
 			return 1;
 		
-		Integer count = m_labelCounts.get(edge);
+		final int slot = m_values.slotOf(edge.getSUID());
 		
-		if (count == null) {
-			try {
-				String defLabel = (String) defaultValues.get(DVisualLexicon.EDGE_LABEL);
-				count = (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(edge) : 1;
-			} catch (ClassCastException e) {
-				count = 0;
-			}
+		if (m_values.isSet(slot, LABEL_COUNT))
+			return m_values.getInt(slot, LABEL_COUNT);
+
+		try {
+			String defLabel = (String) defaultValues.get(DVisualLexicon.EDGE_LABEL);
+			return (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(edge) : 1;
+		} catch (ClassCastException e) {
+			return 0;
 		}
-		
-		return count;
 	}
 
 	/*
@@ -670,9 +632,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelCount(final CyEdge edge, final int labelCount) {
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(edge))) {
-			m_labelCounts.remove(edge);
+			m_values.unset(edge.getSUID(), LABEL_COUNT);
 		} else {
-			m_labelCounts.put(edge, labelCount);
+			m_values.setInt(edge.getSUID(), LABEL_COUNT, labelCount);
 			isCleared = false;
 		}
 	}
@@ -684,7 +646,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL);
 
-		final String text = m_labelTexts.get(edge);
+		final String text = (String) m_values.getObject(m_values.slotOf(edge.getSUID()), LABEL_TEXT);
 		if (text == null)
 			if (m_labelTextDefault == null)
 				return super.getLabelText(edge, labelInx);
@@ -706,9 +668,9 @@ final class DEdgeDetails extends EdgeDetails {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
 
 		if ((text == null) || text.equals(super.getLabelText(edge, labelInx)))
-			m_labelTexts.remove(edge);
+			m_values.unset(edge.getSUID(), LABEL_TEXT);
 		else {
-			m_labelTexts.put(edge, text);
+			m_values.setObject(edge.getSUID(), LABEL_TEXT, text);
 			isCleared = false;
 		}
 	}
@@ -719,7 +681,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TOOLTIP))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TOOLTIP);
 
-		final String text = m_edgeTooltips.get(edge);
+		final String text = (String) m_values.getObject(m_values.slotOf(edge.getSUID()), TOOLTIP);
 		if (text == null)
 			if (m_edgeTooltipDefault == null)
 				return DVisualLexicon.EDGE_TOOLTIP.getDefault();
@@ -736,9 +698,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideTooltipText(final CyEdge edge, final String text) {
 		if ((text == null) || text.equals(""))
-			m_edgeTooltips.remove(edge);
+			m_values.unset(edge.getSUID(), TOOLTIP);
 		else {
-			m_edgeTooltips.put(edge, text);
+			m_values.setObject(edge.getSUID(), TOOLTIP, text);
 			isCleared = false;
 		}
 	}
@@ -749,15 +711,14 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_TRANSPARENCY);
 
-		Integer trans = m_edgeTansparencies.get(edge);
-		if (trans == null) {
-			if (transparencyDefault == null)
-				trans = DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
-			else
-				trans = transparencyDefault;
-		}
-		
-		return trans;
+		final int slot = m_values.slotOf(edge.getSUID());
+		if (m_values.isSet(slot, TRANSPARENCY))
+			return m_values.getInt(slot, TRANSPARENCY);
+
+		if (transparencyDefault == null)
+			return DVisualLexicon.EDGE_TRANSPARENCY.getDefault();
+		else
+			return transparencyDefault;
 	}
 
 	void setTransparencyDefault(Integer transparency) {
@@ -767,9 +728,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideTransparency(final CyEdge edge, final Integer transparency) {
 		if (transparency == null)
-			m_edgeTansparencies.remove(edge);
+			m_values.unset(edge.getSUID(), TRANSPARENCY);
 		else {
-			m_edgeTansparencies.put(edge, transparency);
+			m_values.setInt(edge.getSUID(), TRANSPARENCY, transparency);
 			isCleared = false;
 		}
 	}
@@ -780,15 +741,14 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_TRANSPARENCY))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_edgeLabelTansparencies.get(edge);
-		if (trans == null) {
-			if (labelTransparencyDefault == null)
-				trans = DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
-			else
-				trans = labelTransparencyDefault;
-		}
-		
-		return trans;
+		final int slot = m_values.slotOf(edge.getSUID());
+		if (m_values.isSet(slot, LABEL_TRANSPARENCY))
+			return m_values.getInt(slot, LABEL_TRANSPARENCY);
+
+		if (labelTransparencyDefault == null)
+			return DVisualLexicon.EDGE_LABEL_TRANSPARENCY.getDefault();
+		else
+			return labelTransparencyDefault;
 	}
 
 	void setLabelTransparencyDefault(Integer transparency) {
@@ -798,9 +758,9 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideLabelTransparency(final CyEdge edge, final Integer transparency) {
 		if (transparency == null)
-			m_edgeLabelTansparencies.remove(edge);
+			m_values.unset(edge.getSUID(), LABEL_TRANSPARENCY);
 		else {
-			m_edgeLabelTansparencies.put(edge, transparency);
+			m_values.setInt(edge.getSUID(), LABEL_TRANSPARENCY, transparency);
 			isCleared = false;
 		}
 	}
@@ -818,7 +778,7 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_FONT_FACE)) {
 			font = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(edge);
+			font = (Font) m_values.getObject(m_values.slotOf(edge.getSUID()), LABEL_FONT);
 	
 			if (font == null)
 				font = m_labelFontDefault != null ? m_labelFontDefault : super.getLabelFont(edge, labelInx);
@@ -845,9 +805,9 @@ final class DEdgeDetails extends EdgeDetails {
 		// final long key = (((long) edge) << 32) | ((long) labelInx);
 
 		if ((font == null) || font.equals(super.getLabelFont(edge, labelInx)))
-			m_labelFonts.remove(edge);
+			m_values.unset(edge.getSUID(), LABEL_FONT);
 		else {
-			m_labelFonts.put(edge, font);
+			m_values.setObject(edge.getSUID(), LABEL_FONT, font);
 			isCleared = false;
 		}
 	}
@@ -866,7 +826,7 @@ final class DEdgeDetails extends EdgeDetails {
 			// Check bypass
 			paint = dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(edge);
+			paint = (Paint) m_values.getObject(m_values.slotOf(edge.getSUID()), LABEL_PAINT);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : super.getLabelPaint(edge, labelInx);
@@ -889,9 +849,9 @@ final class DEdgeDetails extends EdgeDetails {
 	void overrideLabelPaint(final CyEdge edge, final int labelInx, final Paint paint) {
 
 		if ((paint == null) || paint.equals(super.getLabelPaint(edge, labelInx)))
-			m_labelPaints.remove(edge);
+			m_values.unset(edge.getSUID(), LABEL_PAINT);
 		else {
-			m_labelPaints.put(edge, paint);
+			m_values.setObject(edge.getSUID(), LABEL_PAINT, paint);
 			isCleared = false;
 		}
 	}
@@ -904,16 +864,16 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_LABEL_WIDTH))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_LABEL_WIDTH);
 		
-		final Double width = m_labelWidths.get(edge);
+		final int slot = m_values.slotOf(edge.getSUID());
 		
-		if (width == null) {
+		if (!m_values.isSet(slot, LABEL_WIDTH)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(edge);
 			else
 				return m_labelWidthDefault.doubleValue();
 		}
 
-		return width;
+		return m_values.getDouble(slot, LABEL_WIDTH);
 	}
 
 	void setLabelWidthDefault(double width) {
@@ -926,9 +886,9 @@ final class DEdgeDetails extends EdgeDetails {
 	 */
 	void overrideLabelWidth(final CyEdge edge, final double width) {
 		if ((width < 0.0) || (width == super.getLabelWidth(edge)))
-			m_labelWidths.remove(edge);
+			m_values.unset(edge.getSUID(), LABEL_WIDTH);
 		else {
-			m_labelWidths.put(edge, width);
+			m_values.setDouble(edge.getSUID(), LABEL_WIDTH, width);
 			isCleared = false;
 		}
 	}
@@ -962,10 +922,10 @@ final class DEdgeDetails extends EdgeDetails {
 
 	void overrideLineCurved(final CyEdge edge, final int type) {
 		if (EdgeView.STRAIGHT_LINES == type || EdgeView.CURVED_LINES == type) {
-			m_lineCurved.put(edge, type);
+			m_values.setInt(edge.getSUID(), LINE_CURVED, type);
 			isCleared = false;
 		} else {
-			m_lineCurved.remove(edge);
+			m_values.unset(edge.getSUID(), LINE_CURVED);
 		}
 	}
 
@@ -981,14 +941,14 @@ final class DEdgeDetails extends EdgeDetails {
 			}
 		}
 
-		final Integer lineType = m_lineCurved.get(edge);
-		if (lineType == null)
+		final int slot = m_values.slotOf(edge.getSUID());
+		if (!m_values.isSet(slot, LINE_CURVED))
 			if (m_lineCurvedDefault == null)
 				return EdgeView.STRAIGHT_LINES;
 			else
 				return m_lineCurvedDefault;
 
-		return lineType;
+		return m_values.getInt(slot, LINE_CURVED);
 	}
 
 	void setLineCurvedDefault(int lineType) {
@@ -1011,11 +971,11 @@ final class DEdgeDetails extends EdgeDetails {
 		if (dev.isValueLocked(DVisualLexicon.EDGE_BEND))
 			return dev.getVisualProperty(DVisualLexicon.EDGE_BEND);
 
-		Bend bend = m_edgeBends.get(edge);
+		Bend bend = (Bend) m_values.getObject(m_values.slotOf(edge.getSUID()), BEND);
 
 		if (bend == null && forceCreate) {
 			bend = new BendImpl();
-			m_edgeBends.put(edge, bend);
+			m_values.setObject(edge.getSUID(), BEND, bend);
 		}
 
 		if (bend == null) {
@@ -1031,6 +991,18 @@ final class DEdgeDetails extends EdgeDetails {
 		return bend;
 	}
 
+	/*
+	 * A null bend has the special meaning to remove overridden bend.
+	 */
+	synchronized void overrideBend(final CyEdge edge, final Bend bend) {
+		if (bend == null)
+			m_values.unset(edge.getSUID(), BEND);
+		else {
+			m_values.setObject(edge.getSUID(), BEND, bend);
+			isCleared = false;
+		}
+	}
+
 	void setEdgeBendDefault(final Bend bend) {
 		this.m_edgeBendDefault = bend;
 		defaultValues.put(DVisualLexicon.EDGE_BEND, m_edgeBendDefault);
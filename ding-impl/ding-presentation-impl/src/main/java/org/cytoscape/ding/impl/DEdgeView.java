@@ -55,6 +55,9 @@ import org.cytoscape.ding.impl.strokes.AnimatedStroke;
  */
 public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, Label, EdgeAnchors {
 
+	// Applies visual property values, see applyVisualProperty()
+	private static final VisualPropertyDispatch<DEdgeView> APPLIERS = createAppliers();
+
 	// Parent network view.  This view exists only in this network view.
 	private final DGraphView graphView;
 	private final HandleFactory handleFacgtory;
@@ -96,6 +99,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	public void setStrokeWidth(final float width) {
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideSegmentThickness(model, width);
+			graphView.markEdgeDirty(model);
 			graphView.setContentChanged();
 		}
 	}
@@ -119,6 +123,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		if ((lineType == EdgeView.CURVED_LINES) || (lineType == EdgeView.STRAIGHT_LINES)) {
 			synchronized (graphView.m_lock) {
 				graphView.m_edgeDetails.overrideLineCurved(model, lineType);
+				graphView.markEdgeDirty(model);
 				graphView.setContentChanged();
 			}
 		} else
@@ -303,6 +308,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	public void setSourceEdgeEnd(final int rendererTypeID) {
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideSourceArrow(model, (byte) rendererTypeID);
+			graphView.markEdgeDirty(model);
 		}
 
 		graphView.setContentChanged();
@@ -312,6 +318,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	public void setTargetEdgeEnd(final int rendererTypeID) {
 		synchronized (graphView.m_lock) {
 			graphView.m_edgeDetails.overrideTargetArrow(model, (byte) rendererTypeID);
+			graphView.markEdgeDirty(model);
 		}
 
 		graphView.setContentChanged();
@@ -322,7 +329,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 	@Override
 	public void setToolTip(String tip) {
 		synchronized (graphView.m_lock) {
-			graphView.m_edgeDetails.m_edgeTooltips.put(model, tip);
+			graphView.m_edgeDetails.overrideTooltipText(model, tip);
 		}
 	}
 
@@ -385,6 +392,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		final Bend bend = graphView.m_edgeDetails.getBend(model);
 		final HandleImpl handle = (HandleImpl) bend.getAllHandles().get(inx);
 		handle.defineHandle(graphView.getViewModel(), this, x, y);
+		graphView.markEdgeDirty(model);
 
 		if (graphView.m_spacialA.delete((model.getSUID() << 6) | inx))
 			graphView.m_spacialA.insert((model.getSUID() << 6) | inx,
@@ -462,6 +470,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 			final Bend bend = graphView.m_edgeDetails.getBend(model);			
 			final Handle handle = handleFacgtory.createHandle(graphView, this, handleLocation.getX(), handleLocation.getY());
 			bend.insertHandleAt(insertInx, handle);
+			graphView.markEdgeDirty(model);
 
 			if (selected) {
 				for (int j = bend.getAllHandles().size() - 1; j > insertInx; j--) {
@@ -491,6 +500,7 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		synchronized (graphView.m_lock) {
 			final Bend bend = graphView.m_edgeDetails.getBend(model);
 			bend.removeHandleAt(inx);
+			graphView.markEdgeDirty(model);
 			//m_anchors.remove(inx);
 
 			if (selected) {
@@ -605,9 +615,10 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		if( !isValueLocked(BasicVisualLexicon.EDGE_BEND) )
 		{
 			synchronized (graphView.m_lock) {
-				graphView.m_edgeDetails.m_edgeBends.put(model, bend);
+				graphView.m_edgeDetails.overrideBend(model, bend);
 			}
 		}
+		graphView.markEdgeDirty(model);
 		graphView.setContentChanged();
 	}
 	
@@ -635,6 +646,8 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 				graphView.edgeViewDefaultSupport.setViewDefault((VisualProperty) vp,
 						graphView.m_edgeDetails.getDefaultValue(vp));
 		}
+
+		graphView.markEdgeDirty(model);
 	}
 	
 	/**
@@ -653,77 +666,83 @@ public class DEdgeView extends AbstractDViewModel<CyEdge> implements EdgeView, L
 		if (value == null)
 			value = (V) vp.getDefault();
 
-		if (vp == DVisualLexicon.EDGE_STROKE_SELECTED_PAINT) {
-			setSelectedPaint((Paint) value);
-		} else if (vp == DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT) {
-			setUnselectedPaint((Paint) value);
-		} else if (vp == DVisualLexicon.EDGE_WIDTH) {
+		APPLIERS.get(vp).apply(this, value);
+	}
+
+	private static VisualPropertyDispatch<DEdgeView> createAppliers() {
+		final VisualPropertyDispatch<DEdgeView> appliers = new VisualPropertyDispatch<DEdgeView>(vp -> null);
+
+		appliers.put(DVisualLexicon.EDGE_STROKE_SELECTED_PAINT, (view, value) -> view.setSelectedPaint((Paint) value));
+		appliers.put(DVisualLexicon.EDGE_STROKE_UNSELECTED_PAINT,
+				(view, value) -> view.setUnselectedPaint((Paint) value));
+		appliers.put(DVisualLexicon.EDGE_WIDTH, (view, value) -> {
 			final float w = ((Number) value).floatValue();
-			setStrokeWidth(w);
-			setStroke(DLineType.getDLineType(lineType).getStroke(w));
-		} else if (vp == DVisualLexicon.EDGE_LINE_TYPE) {
-			lineType = (LineType) value;
-			final Stroke newStroke = DLineType.getDLineType(lineType).getStroke(graphView.m_edgeDetails.getWidth(model));
-			setStroke(newStroke);
-		} else if (vp == DVisualLexicon.EDGE_TRANSPARENCY) {
-			setTransparency(((Number) value).intValue());
-		} else if (vp == DVisualLexicon.EDGE_LABEL_TRANSPARENCY) {
-			final int labelTransparency = ((Number) value).intValue();
-			setLabelTransparency(labelTransparency);
-		} else if (vp == DVisualLexicon.EDGE_SOURCE_ARROW_SELECTED_PAINT) {
-			setSourceEdgeEndSelectedPaint((Paint) value);
-		} else if (vp == DVisualLexicon.EDGE_TARGET_ARROW_SELECTED_PAINT) {
-			setTargetEdgeEndSelectedPaint((Paint) value);
-		} else if (vp == DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT) {
-			setSourceEdgeEndPaint((Paint) value);
-		} else if (vp == DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT) {
-			setTargetEdgeEndPaint((Paint) value);
-		} else if (vp == BasicVisualLexicon.EDGE_SELECTED) {
-			setSelected((Boolean) value);
-		} else if (vp == BasicVisualLexicon.EDGE_TARGET_ARROW_SHAPE) {
-			final ArrowShape shape = (ArrowShape) value;
-			final String shapeID = shape.getSerializableString();
-			setTargetEdgeEnd(DArrowShape.parseArrowText(shapeID).getRendererTypeID());
-		} else if (vp == BasicVisualLexicon.EDGE_SOURCE_ARROW_SHAPE) {
-			final ArrowShape shape = (ArrowShape) value;
-			final String shapeID = shape.getSerializableString();
-			setSourceEdgeEnd(DArrowShape.parseArrowText(shapeID).getRendererTypeID());
-		} else if (vp == BasicVisualLexicon.EDGE_LABEL) {
-			setText(value.toString());
-		} else if (vp == BasicVisualLexicon.EDGE_LABEL_WIDTH) {
-			setLabelWidth(((Number) value).doubleValue());
-		} else if (vp == DVisualLexicon.EDGE_TOOLTIP) {
-			setToolTip(value.toString());
-		} else if (vp == DVisualLexicon.EDGE_LABEL_FONT_FACE) {
+			view.setStrokeWidth(w);
+			view.setStroke(DLineType.getDLineType(view.lineType).getStroke(w));
+		});
+		appliers.put(DVisualLexicon.EDGE_LINE_TYPE, (view, value) -> {
+			view.lineType = (LineType) value;
+			final Stroke newStroke = DLineType.getDLineType(view.lineType).getStroke(
+					view.graphView.m_edgeDetails.getWidth(view.model));
+			view.setStroke(newStroke);
+		});
+		appliers.put(DVisualLexicon.EDGE_TRANSPARENCY,
+				(view, value) -> view.setTransparency(((Number) value).intValue()));
+		appliers.put(DVisualLexicon.EDGE_LABEL_TRANSPARENCY,
+				(view, value) -> view.setLabelTransparency(((Number) value).intValue()));
+		appliers.put(DVisualLexicon.EDGE_SOURCE_ARROW_SELECTED_PAINT,
+				(view, value) -> view.setSourceEdgeEndSelectedPaint((Paint) value));
+		appliers.put(DVisualLexicon.EDGE_TARGET_ARROW_SELECTED_PAINT,
+				(view, value) -> view.setTargetEdgeEndSelectedPaint((Paint) value));
+		appliers.put(DVisualLexicon.EDGE_SOURCE_ARROW_UNSELECTED_PAINT,
+				(view, value) -> view.setSourceEdgeEndPaint((Paint) value));
+		appliers.put(DVisualLexicon.EDGE_TARGET_ARROW_UNSELECTED_PAINT,
+				(view, value) -> view.setTargetEdgeEndPaint((Paint) value));
+		appliers.put(BasicVisualLexicon.EDGE_SELECTED, (view, value) -> view.setSelected((Boolean) value));
+		appliers.put(BasicVisualLexicon.EDGE_TARGET_ARROW_SHAPE, (view, value) -> {
+			final String shapeID = ((ArrowShape) value).getSerializableString();
+			view.setTargetEdgeEnd(DArrowShape.parseArrowText(shapeID).getRendererTypeID());
+		});
+		appliers.put(BasicVisualLexicon.EDGE_SOURCE_ARROW_SHAPE, (view, value) -> {
+			final String shapeID = ((ArrowShape) value).getSerializableString();
+			view.setSourceEdgeEnd(DArrowShape.parseArrowText(shapeID).getRendererTypeID());
+		});
+		appliers.put(BasicVisualLexicon.EDGE_LABEL, (view, value) -> view.setText(value.toString()));
+		appliers.put(BasicVisualLexicon.EDGE_LABEL_WIDTH,
+				(view, value) -> view.setLabelWidth(((Number) value).doubleValue()));
+		appliers.put(DVisualLexicon.EDGE_TOOLTIP, (view, value) -> view.setToolTip(value.toString()));
+		appliers.put(DVisualLexicon.EDGE_LABEL_FONT_FACE, (view, value) -> {
 			Font newFont = (Font) value;
-			final Font f = getFont();
+			final Font f = view.getFont();
 			if (f != null)
 				newFont = f.deriveFont((float)f.getSize());
-			setFont(newFont);
-		} else if (vp == DVisualLexicon.EDGE_LABEL_FONT_SIZE) {
-			float fontSize = ((Number) value).floatValue();
-			final Font f = getFont();
+			view.setFont(newFont);
+		});
+		appliers.put(DVisualLexicon.EDGE_LABEL_FONT_SIZE, (view, value) -> {
+			final float fontSize = ((Number) value).floatValue();
+			final Font f = view.getFont();
 			if (f != null)
-				setFont(f.deriveFont(fontSize));
-		} else if (vp == BasicVisualLexicon.EDGE_LABEL_COLOR) {
-			setTextPaint((Paint) value);
-		} else if (vp == BasicVisualLexicon.EDGE_VISIBLE) {
+				view.setFont(f.deriveFont(fontSize));
+		});
+		appliers.put(BasicVisualLexicon.EDGE_LABEL_COLOR, (view, value) -> view.setTextPaint((Paint) value));
+		appliers.put(BasicVisualLexicon.EDGE_VISIBLE, (view, value) -> {
 			if (((Boolean) value).booleanValue()) {
-				graphView.showGraphObject(this);
-				isVisible = true;
+				view.graphView.showGraphObject(view);
+				view.isVisible = true;
 			} else {
-				graphView.hideGraphObject(this);
-				isVisible = false;
+				view.graphView.hideGraphObject(view);
+				view.isVisible = false;
 			}
-		} else if (vp == DVisualLexicon.EDGE_CURVED) {
-			final Boolean curved = (Boolean) value;
-			if (curved)
-				setLineCurved(EdgeView.CURVED_LINES);
+		});
+		appliers.put(DVisualLexicon.EDGE_CURVED, (view, value) -> {
+			if ((Boolean) value)
+				view.setLineCurved(EdgeView.CURVED_LINES);
 			else
-				setLineCurved(EdgeView.STRAIGHT_LINES);
-		} else if (vp == DVisualLexicon.EDGE_BEND) {
-			setBend((Bend) value);
-		}
+				view.setLineCurved(EdgeView.STRAIGHT_LINES);
+		});
+		appliers.put(DVisualLexicon.EDGE_BEND, (view, value) -> view.setBend((Bend) value));
+
+		return appliers;
 	}
 
 	@Override
@@ -83,9 +83,11 @@ import org.cytoscape.ding.impl.strokes.AnimatedStroke;
 import org.cytoscape.ding.impl.visualproperty.CustomGraphicsVisualProperty;
 import org.cytoscape.ding.internal.util.ViewUtil;
 import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
 import org.cytoscape.graph.render.stateful.GraphLOD;
 import org.cytoscape.graph.render.stateful.GraphRenderer;
+import org.cytoscape.graph.render.stateful.TiledGraphRenderer;
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.model.CyNetwork;
@@ -217,12 +219,39 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	SpacialIndex2D m_spacial;
 
+	/**
+	 * Number of node moves and resizes since m_spacial was last built in bulk.
+	 * Should synchronize around m_lock.
+	 */
+	private int m_spacialUpdates;
+
 	/**
 	 * RTree used for querying Edge Handle positions. Used by DNodeView,
 	 * DEdgeView, and InnerCanvas.
 	 */
 	SpacialIndex2D m_spacialA;
-	
+
+	/**
+	 * RTree of the bounds of visible edges, including their bends, keyed by
+	 * edge SUID.  It lags behind m_spacial; call syncEdgeIndex() before
+	 * querying it.  Should synchronize around m_lock.
+	 */
+	SpacialIndex2D m_spacialEdges;
+
+	/**
+	 * Nodes whose adjacent edges need their bounds recomputed in m_spacialEdges.
+	 */
+	private final LongHash m_dirtyEdgeNodes = new LongHash();
+
+	/**
+	 * Set when every edge bound may be out of date, e.g. after an edge default changes.
+	 */
+	private boolean m_edgeIndexStale = true;
+
+	private final LongHash m_edgeIndexBuff = new LongHash();
+	private final float[] m_edgeExtentsBuff = new float[4];
+	private final float[] m_edgeExtentsBuff2 = new float[4];
+
 	final DNodeDetails m_nodeDetails;
 	final DEdgeDetails m_edgeDetails;
 	final NodeViewDefaultSupport nodeViewDefaultSupport;
@@ -233,6 +262,12 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	PrintLOD m_printLOD;
 
+	/**
+	 * Renders frames in parallel tiles; null unless turned on through
+	 * TiledGraphRenderer.TILED_RENDERING_PROPERTY.
+	 */
+	private final TiledGraphRenderer m_tiledRenderer;
+
 	private final Map<CyNode, NodeView> nodeViewMap;
 	private final Map<CyEdge, EdgeView> edgeViewMap;
 
@@ -448,6 +483,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		this.spacialFactory = spacialFactory;
 		m_spacial = spacialFactory.createSpacialIndex2D();
 		m_spacialA = spacialFactory.createSpacialIndex2D();
+		m_spacialEdges = spacialFactory.createSpacialIndex2D();
 		m_nodeDetails = new DNodeDetails(this);
 		m_edgeDetails = new DEdgeDetails(this);
 		nodeViewDefaultSupport = new NodeViewDefaultSupport(m_nodeDetails, m_lock);
@@ -455,6 +491,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		nodeViewMap = new ConcurrentHashMap<CyNode, NodeView>(16, 0.75f, 2);
 		edgeViewMap = new ConcurrentHashMap<CyEdge, EdgeView>(16, 0.75f, 2);
 		m_printLOD = new PrintLOD();
+		m_tiledRenderer = TiledGraphRenderer.fromSystemProperties();
 		m_defaultNodeXMin = 0.0f;
 		m_defaultNodeYMin = 0.0f;
 		m_defaultNodeXMax = m_defaultNodeXMin + DNodeView.DEFAULT_WIDTH;
@@ -473,9 +510,35 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 
 		this.title = model.getRow(model).get(CyNetwork.NAME, String.class);
 
-		// Create view model / presentations for the graph
-		for (final CyNode nn : model.getNodeList())
-			addNodeView(nn);
+		// Create view model / presentations for the graph; the nodes are indexed all at once,
+		// which is much faster than inserting them one by one
+		synchronized (m_lock) {
+			final List<CyNode> nodes = model.getNodeList();
+			final long[] nodeKeys = new long[nodes.size()];
+			final double[] zOrders = new double[nodes.size()];
+			int nodeCount = 0;
+
+			for (final CyNode nn : nodes) {
+				final DNodeView nv = addNodeViewInternal(nn, false);
+
+				if (nv != null) {
+					nodeKeys[nodeCount] = nn.getSUID();
+					zOrders[nodeCount++] = nv.getZPosition();
+				}
+			}
+
+			final float[] extents = new float[4 * nodeCount];
+
+			for (int i = 0; i < nodeCount; i++) {
+				extents[4 * i] = m_defaultNodeXMin;
+				extents[4 * i + 1] = m_defaultNodeYMin;
+				extents[4 * i + 2] = m_defaultNodeXMax;
+				extents[4 * i + 3] = m_defaultNodeYMax;
+			}
+
+			m_spacial.bulkLoad(nodeKeys, extents, zOrders, nodeCount);
+			setContentChanged();
+		}
 
 		for (final CyEdge ee : model.getEdgeList())
 			addEdgeView(ee);
@@ -783,6 +846,14 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 * Should synchronize around m_lock.
 	 */
 	private final DNodeView addNodeViewInternal(final CyNode node) {
+		return addNodeViewInternal(node, true);
+	}
+
+	/**
+	 * Should synchronize around m_lock.
+	 * @param index if false, the caller is responsible for adding the node to the spacial index.
+	 */
+	private final DNodeView addNodeViewInternal(final CyNode node, final boolean index) {
 		final long nodeInx = node.getSUID();
 		final NodeView oldView = nodeViewMap.get(node);
 
@@ -799,8 +870,9 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		//	dNodeView.select();
 
 		nodeViewMap.put(node, dNodeView);
-		m_spacial.insert(nodeInx, m_defaultNodeXMin, m_defaultNodeYMin, 
-		                  m_defaultNodeXMax, m_defaultNodeYMax, dNodeView.getZPosition());
+		if (index)
+			m_spacial.insert(nodeInx, m_defaultNodeXMin, m_defaultNodeYMin, 
+			                  m_defaultNodeXMax, m_defaultNodeYMax, dNodeView.getZPosition());
 		
 		cyEventHelper.addEventPayload((CyNetworkView) this, (View<CyNode>) dNodeView, AddedNodeViewsEvent.class);
 		return dNodeView;
@@ -837,6 +909,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			dEdgeView = new DEdgeView(this, edge, handleFactory, lexicon, cyEventHelper);
 
 			edgeViewMap.put(edge, dEdgeView);
+			markEdgeDirty(edge);
 			setContentChanged();
 		}
 
@@ -1079,6 +1152,8 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		edgeViewMap.remove(edge);
 		m_drawPersp.removeEdges(Collections.singletonList(edge)); 
 		m_edgeDetails.unregisterEdge(edge);
+		m_spacialEdges.delete(edge.getSUID());
+		markEdgeDirty(edge);
 
 		return returnThis;
 	}
@@ -1103,6 +1178,8 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	 */
 	@Override
 	public void setZoom(final double zoom) {
+		m_networkCanvas.cancelRefinement();
+
 		synchronized (m_lock) {
 			m_networkCanvas.m_scaleFactor = checkZoom(zoom, m_networkCanvas.m_scaleFactor);
 			setViewportChanged();
@@ -1113,6 +1190,8 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		cyEventHelper.flushPayloadEvents();
 
 		ViewUtil.invokeOnEDT(() -> {
+			m_networkCanvas.cancelRefinement();
+
 			synchronized (m_lock) {
 				if (m_spacial.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
 				                           Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
@@ -1175,6 +1254,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	
 	private void updateView(final boolean forceRedraw) {
 		cyEventHelper.flushPayloadEvents();
+		packSpacialIndex();
 		
 		if (forceRedraw)
 			setContentChanged();
@@ -1192,6 +1272,171 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		cyEventHelper.fireEvent(new UpdateNetworkPresentationEvent(this));
 	}
 
+	/**
+	 * Changes the extents of a node in m_spacial.  Should synchronize around m_lock.
+	 */
+	final void updateNodeExtents(final long nodeInx, final float xMin, final float yMin,
+			final float xMax, final float yMax, final double z) {
+		m_spacial.delete(nodeInx);
+		m_spacial.insert(nodeInx, xMin, yMin, xMax, yMax, z);
+		m_spacialUpdates++;
+
+		if (!m_edgeIndexStale)
+			m_dirtyEdgeNodes.put(nodeInx);
+	}
+
+	/**
+	 * Notes that the bounds of an edge may have changed, e.g. because its bends or width did.
+	 * The edges sharing its endpoints are refreshed too, since the offsets given to parallel
+	 * edges depend on each other.
+	 */
+	final void markEdgeDirty(final CyEdge edge) {
+		synchronized (m_lock) {
+			if (m_edgeIndexStale)
+				return;
+
+			m_dirtyEdgeNodes.put(edge.getSource().getSUID());
+			m_dirtyEdgeNodes.put(edge.getTarget().getSUID());
+		}
+	}
+
+	/**
+	 * Brings m_spacialEdges up to date with node positions and edge bends.  Edges adjacent to
+	 * moved nodes are reinserted one at a time; if more than a quarter of the nodes have moved,
+	 * or the whole index is stale, it is rebuilt in bulk instead.  Should synchronize around
+	 * m_lock.
+	 */
+	final void syncEdgeIndex() {
+		final int dirtyCount = m_dirtyEdgeNodes.size();
+
+		if (!m_edgeIndexStale && dirtyCount == 0)
+			return;
+
+		if (m_edgeIndexStale || dirtyCount > m_spacial.size() / 4) {
+			rebuildEdgeIndex();
+		} else {
+			final LongEnumerator nodes = m_dirtyEdgeNodes.elements();
+			m_edgeIndexBuff.empty();
+
+			while (nodes.numRemaining() > 0) {
+				final CyNode node = model.getNode(nodes.nextLong());
+
+				// Removed nodes take their edges out of the index in removeEdgeViewInternal().
+				if (node == null)
+					continue;
+
+				for (final CyEdge edge : model.getAdjacentEdgeIterable(node, CyEdge.Type.ANY)) {
+					final long edgeInx = edge.getSUID();
+
+					if (m_edgeIndexBuff.put(edgeInx) >= 0)
+						continue; // Already done from its other endpoint.
+
+					m_spacialEdges.delete(edgeInx);
+
+					if (computeEdgeExtents(edge, m_edgeExtentsBuff))
+						m_spacialEdges.insert(edgeInx, m_edgeExtentsBuff[0], m_edgeExtentsBuff[1],
+								m_edgeExtentsBuff[2], m_edgeExtentsBuff[3], 0.0);
+				}
+			}
+		}
+
+		m_dirtyEdgeNodes.empty();
+		m_edgeIndexStale = false;
+	}
+
+	private void rebuildEdgeIndex() {
+		final int edgeCount = m_drawPersp.getEdgeCount();
+		final long[] edgeKeys = new long[edgeCount];
+		final float[] extents = new float[4 * edgeCount];
+		int count = 0;
+
+		for (final CyEdge edge : m_drawPersp.getEdgeList()) {
+			if (count == edgeCount)
+				break;
+
+			if (computeEdgeExtents(edge, m_edgeExtentsBuff)) {
+				edgeKeys[count] = edge.getSUID();
+				System.arraycopy(m_edgeExtentsBuff, 0, extents, 4 * count, 4);
+				count++;
+			}
+		}
+
+		m_spacialEdges.bulkLoad(edgeKeys, extents, new double[count], count);
+	}
+
+	/**
+	 * Computes a box enclosing everything drawn for an edge other than its labels: the extents
+	 * of both endpoints, its anchors (including the implicit ones of self and parallel edges),
+	 * and its width and arrows.  Returns false if the edge is not visible.
+	 */
+	private boolean computeEdgeExtents(final CyEdge edge, final float[] extents) {
+		if (!m_drawPersp.containsEdge(edge) || getDEdgeView(edge) == null)
+			return false;
+
+		if (!m_spacial.exists(edge.getSource().getSUID(), extents, 0)
+				|| !m_spacial.exists(edge.getTarget().getSUID(), m_edgeExtentsBuff2, 0))
+			return false;
+
+		float xMin = Math.min(extents[0], m_edgeExtentsBuff2[0]);
+		float yMin = Math.min(extents[1], m_edgeExtentsBuff2[1]);
+		float xMax = Math.max(extents[2], m_edgeExtentsBuff2[2]);
+		float yMax = Math.max(extents[3], m_edgeExtentsBuff2[3]);
+
+		final EdgeAnchors anchors = m_edgeDetails.getAnchors(edge);
+		final int numAnchors = anchors.numAnchors();
+
+		for (int k = 0; k < numAnchors; k++) {
+			anchors.getAnchor(k, m_edgeExtentsBuff2, 0);
+			xMin = Math.min(xMin, m_edgeExtentsBuff2[0]);
+			yMin = Math.min(yMin, m_edgeExtentsBuff2[1]);
+			xMax = Math.max(xMax, m_edgeExtentsBuff2[0]);
+			yMax = Math.max(yMax, m_edgeExtentsBuff2[1]);
+		}
+
+		final byte srcArrow = m_edgeDetails.getSourceArrowShape(edge);
+		final byte trgArrow = m_edgeDetails.getTargetArrowShape(edge);
+		final float pad = (m_edgeDetails.getWidth(edge) / 2.0f)
+				+ Math.max(srcArrow == GraphGraphics.ARROW_NONE ? 0.0f : m_edgeDetails.getSourceArrowSize(edge),
+				           trgArrow == GraphGraphics.ARROW_NONE ? 0.0f : m_edgeDetails.getTargetArrowSize(edge));
+
+		extents[0] = xMin - pad;
+		extents[1] = yMin - pad;
+		extents[2] = xMax + pad;
+		extents[3] = yMax + pad;
+
+		return true;
+	}
+
+	/**
+	 * Rebuilds m_spacial in bulk once there have been at least as many node updates as there
+	 * are nodes, as after a layout.  Incremental updates leave the tree shaped by the order in
+	 * which the nodes happened to move, while a packed tree is faster to query.
+	 */
+	private void packSpacialIndex() {
+		synchronized (m_lock) {
+			final int size = m_spacial.size();
+
+			if (m_spacialUpdates < size || size == 0)
+				return;
+
+			final long[] nodeKeys = new long[size];
+			final float[] extents = new float[4 * size];
+			final double[] zOrders = new double[size];
+			final SpacialEntry2DEnumerator entries = m_spacial.queryOverlap(Float.NEGATIVE_INFINITY,
+					Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, null, 0, false);
+			int count = 0;
+
+			while (entries.numRemaining() > 0) {
+				nodeKeys[count] = entries.nextExtents(extents, 4 * count);
+				zOrders[count] = m_spacial.getZOrder(nodeKeys[count]);
+				count++;
+			}
+
+			m_spacial.bulkLoad(nodeKeys, extents, zOrders, count);
+			m_spacialUpdates = 0;
+		}
+	}
+
 	/**
 	 * Returns an iterator of all node views, including those that are currently hidden.
 	 */
@@ -1344,6 +1589,8 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 				if (!m_drawPersp.removeEdges(Collections.singletonList(edge)))
 					return false;
 
+				m_spacialEdges.delete(edge.getSUID());
+				markEdgeDirty(edge);
 				eView.unselectInternal();
 				setContentChanged();
 			}
@@ -1466,6 +1713,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 				if (!m_drawPersp.addEdge(newEdge))
 					return false;
 
+				markEdgeDirty(newEdge);
 				setContentChanged();
 			}
 
@@ -1499,6 +1747,8 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	
 	@Override
 	public void setCenter(double x, double y) {
+		m_networkCanvas.cancelRefinement();
+
 		synchronized (m_lock) {
             m_networkCanvas.setCenter(x,y);
 			setViewportChanged();
@@ -1520,6 +1770,7 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 	@Override
 	public void fitSelected() {
 		cyEventHelper.flushPayloadEvents();
+		m_networkCanvas.cancelRefinement();
 		
 		synchronized (m_lock) {
 			LongEnumerator selectedElms = m_selectedNodes.searchRange(Integer.MIN_VALUE, Integer.MAX_VALUE, false);
@@ -1903,15 +2154,28 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 			synchronized (m_lock) {
 				final Set<VisualPropertyDependency<?>> dependencies =
 						vmm.getVisualStyle(this).getAllVisualPropertyDependencies();
+				syncEdgeIndex();
 				
-				lastRenderDetail = GraphRenderer.renderGraph(this,
-				  						     m_spacial, lod,
-				  						     m_nodeDetails,
-				  						     m_edgeDetails, hash,
-				  						     graphics, bgColor, xCenter,
-				  						     yCenter, scale, haveZOrder,
-				  						     dependencies);
+				if (m_tiledRenderer != null)
+					lastRenderDetail = m_tiledRenderer.renderGraph(this,
+					                                               m_spacial, m_spacialEdges, lod,
+					                                               m_nodeDetails,
+					                                               m_edgeDetails, hash,
+					                                               graphics, bgColor, xCenter,
+					                                               yCenter, scale, haveZOrder,
+					                                               dependencies);
+				else
+					lastRenderDetail = GraphRenderer.renderGraph(this,
+					  						     m_spacial, m_spacialEdges, lod,
+					  						     m_nodeDetails,
+					  						     m_edgeDetails, hash,
+					  						     graphics, bgColor, xCenter,
+					  						     yCenter, scale, haveZOrder,
+					  						     dependencies);
 			}
+		} catch (InterruptibleGraphGraphics.RenderCancelledException e) {
+			// Leave the view dirty; the cancelled frame is only partially drawn.
+			throw e;
 		} catch (Exception e) {e.printStackTrace();}
 		
 		setContentChanged(false);
@@ -2674,6 +2938,11 @@ public class DGraphView extends AbstractDViewModel<CyNetwork> implements CyNetwo
 		} else if (targetType == CyEdge.class) {
 			// XXX: Why do we have to clear the edge details?
 			m_edgeDetails.clear();
+
+			synchronized (m_lock) {
+				m_edgeIndexStale = true;
+			}
+
 			edgeViewDefaultSupport.setViewDefault((VisualProperty<V>)vp, defaultValue);
 		} else if (targetType == CyNetwork.class) {
 			// For networks, just set as regular visual property value.  (No defaults)
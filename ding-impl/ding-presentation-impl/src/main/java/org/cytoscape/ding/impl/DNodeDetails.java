@@ -24,6 +24,11 @@ package org.cytoscape.ding.impl;
  * #L%
  */
 
+import static org.cytoscape.ding.impl.DetailsStore.DOUBLE;
+import static org.cytoscape.ding.impl.DetailsStore.FLOAT;
+import static org.cytoscape.ding.impl.DetailsStore.INT;
+import static org.cytoscape.ding.impl.DetailsStore.OBJECT;
+
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Paint;
@@ -34,7 +39,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.cytoscape.ding.DNodeShape;
 import org.cytoscape.ding.DVisualLexicon;
@@ -59,35 +63,43 @@ public class DNodeDetails extends NodeDetails {
 
 	// Parent Network View
 	protected final DGraphView dGraphView;
-	private final Object m_deletedEntry = new Object();
 	
 	private final Map<VisualProperty<?>, Object> defaultValues;
 
-	// Mapped Values
-	Map<CyNode, Object> m_colorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-	Map<CyNode, Object> m_selectedColorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-	Map<CyNode, NodeShape> m_shapes = new ConcurrentHashMap<CyNode, NodeShape>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_unselectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_selectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Float> m_borderWidths = new ConcurrentHashMap<CyNode, Float>(16, 0.75f, 2);
-	Map<CyNode, Stroke> m_borderStrokes = new ConcurrentHashMap<CyNode, Stroke>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_borderPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelCounts = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, String> m_labelTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-	Map<CyNode, String> m_tooltipTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-	Map<CyNode, Font> m_labelFonts = new ConcurrentHashMap<CyNode, Font>(16, 0.75f, 2);
-	Map<CyNode, Paint> m_labelPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelWidths = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelTextAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelNodeAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_labelJustifys = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelOffsetXs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Double> m_labelOffsetYs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeBorderTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Integer> m_nodeLabelTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-	Map<CyNode, Double> m_nodeZ = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-	Map<CyNode, Boolean> m_nestedNetworkImgVisible = new ConcurrentHashMap<CyNode, Boolean>(16, 0.75f, 2);
+	// Mapped Values, stored per node for the properties below.
+	// If a node has a value for a property, it will be used by the renderer.
+	// Otherwise, default value will be used.
+	private static final int COLOR_LOW_DETAIL = 0;
+	private static final int SELECTED_COLOR_LOW_DETAIL = 1;
+	private static final int SHAPE = 2;
+	private static final int UNSELECTED_PAINT = 3;
+	private static final int SELECTED_PAINT = 4;
+	private static final int BORDER_WIDTH = 5;
+	private static final int BORDER_STROKE = 6;
+	private static final int BORDER_PAINT = 7;
+	private static final int LABEL_COUNT = 8;
+	private static final int LABEL_TEXT = 9;
+	private static final int TOOLTIP_TEXT = 10;
+	private static final int LABEL_FONT = 11;
+	private static final int LABEL_PAINT = 12;
+	private static final int LABEL_WIDTH = 13;
+	private static final int LABEL_TEXT_ANCHOR = 14;
+	private static final int LABEL_NODE_ANCHOR = 15;
+	private static final int LABEL_JUSTIFY = 16;
+	private static final int LABEL_OFFSET_X = 17;
+	private static final int LABEL_OFFSET_Y = 18;
+	private static final int TRANSPARENCY = 19;
+	private static final int BORDER_TRANSPARENCY = 20;
+	private static final int LABEL_TRANSPARENCY = 21;
+	private static final int NESTED_NETWORK_IMG_VISIBLE = 22;
+
+	private final DetailsStore m_values = new DetailsStore(
+			OBJECT, OBJECT, OBJECT, OBJECT, OBJECT,
+			FLOAT, OBJECT, OBJECT,
+			INT, OBJECT, OBJECT, OBJECT, OBJECT,
+			DOUBLE, INT, INT, INT, DOUBLE, DOUBLE,
+			INT, INT, INT,
+			INT);
 
 	private final Set<CyNode> selected = new HashSet<CyNode>();
 	
@@ -127,70 +139,17 @@ public class DNodeDetails extends NodeDetails {
 		if (isCleared)
 			return;
 
-		m_colorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-		m_selectedColorsLowDetail = new ConcurrentHashMap<CyNode, Object>(16, 0.75f, 2);
-		m_shapes = new ConcurrentHashMap<CyNode, NodeShape>(16, 0.75f, 2);
-		m_unselectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		m_borderWidths = new ConcurrentHashMap<CyNode, Float>(16, 0.75f, 2);
-		m_borderStrokes = new ConcurrentHashMap<CyNode, Stroke>(16, 0.75f, 2);
-		m_borderPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		m_labelCounts = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-		m_tooltipTexts = new ConcurrentHashMap<CyNode, String>(16, 0.75f, 2);
-		m_labelFonts = new ConcurrentHashMap<CyNode, Font>(16, 0.75f, 2);
-		m_labelPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		m_labelWidths = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_labelTextAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelNodeAnchors = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelJustifys = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_labelOffsetXs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_labelOffsetYs = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_selectedPaints = new ConcurrentHashMap<CyNode, Paint>(16, 0.75f, 2);
-		this.m_nodeTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		this.m_nodeBorderTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		this.m_nodeLabelTansparencies = new ConcurrentHashMap<CyNode, Integer>(16, 0.75f, 2);
-		m_nodeZ = new ConcurrentHashMap<CyNode, Double>(16, 0.75f, 2);
-		m_nestedNetworkImgVisible = new ConcurrentHashMap<CyNode, Boolean>(16, 0.75f, 2);
+		m_values.clear();
 
 		isCleared = true;
 	}
 
 	void unregisterNode(final CyNode nodeIdx) {
-		final Object o = m_colorsLowDetail.get(nodeIdx);
-		if ((o != null) && (o != m_deletedEntry))
-			m_colorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		final Object os = m_selectedColorsLowDetail.get(nodeIdx);
-		if ((os != null) && (os != m_deletedEntry))
-			m_selectedColorsLowDetail.put(nodeIdx, m_deletedEntry);
-
-		m_shapes.remove(nodeIdx);
-		m_unselectedPaints.remove(nodeIdx);
-		m_borderWidths.remove(nodeIdx);
-		m_borderStrokes.remove(nodeIdx);
-		m_borderPaints.remove(nodeIdx);
-		m_labelWidths.remove(nodeIdx);
-		m_labelTextAnchors.remove(nodeIdx);
-		m_labelNodeAnchors.remove(nodeIdx);
-		m_labelJustifys.remove(nodeIdx);
-		m_labelOffsetXs.remove(nodeIdx);
-		m_labelOffsetYs.remove(nodeIdx);
-		m_selectedPaints.remove(nodeIdx);
-		m_tooltipTexts.remove(nodeIdx);
-		
+		m_values.remove(nodeIdx.getSUID());
+
 		synchronized (lock) {
 			selected.remove(nodeIdx);
 		}
-		
-		m_labelCounts.remove(nodeIdx);
-		m_labelTexts.remove(nodeIdx);
-		m_labelFonts.remove(nodeIdx);
-		m_labelPaints.remove(nodeIdx);
-		m_nodeTansparencies.remove(nodeIdx);
-		m_nodeBorderTansparencies.remove(nodeIdx);
-		m_nodeLabelTansparencies.remove(nodeIdx);
-		m_nodeZ.remove(nodeIdx);
-		m_nestedNetworkImgVisible.remove(nodeIdx);
 	}
 
 	public <V> void setDefaultValue(final VisualProperty<V> vp, V value) {
@@ -217,9 +176,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_FILL_COLOR))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 
-		final Object o = m_colorsLowDetail.get(node);
+		final Object o = m_values.getObject(m_values.slotOf(node.getSUID()), COLOR_LOW_DETAIL);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_colorLowDetailDefault == null)
 				return super.getColorLowDetail(node);
 			else
@@ -240,9 +199,9 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return (Color) dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Object o = m_selectedColorsLowDetail.get(node);
+		final Object o = m_values.getObject(m_values.slotOf(node.getSUID()), SELECTED_COLOR_LOW_DETAIL);
 
-		if ((o == null) || (o == m_deletedEntry))
+		if (o == null)
 			if (m_selectedColorLowDetailDefault == null)
 				return (Color) DNodeView.DEFAULT_NODE_SELECTED_PAINT;
 			else
@@ -262,7 +221,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SELECTED_PAINT))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_SELECTED_PAINT);
 
-		final Paint o = m_selectedPaints.get(node);
+		final Paint o = (Paint) m_values.getObject(m_values.slotOf(node.getSUID()), SELECTED_PAINT);
 
 		if (o == null)
 			if (m_selectedPaintDefault == null)
@@ -285,7 +244,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_SHAPE))
 			return DNodeShape.getDShape(dnv.getVisualProperty(DVisualLexicon.NODE_SHAPE)).getNativeShape();
 
-		final NodeShape originaShape = m_shapes.get(node);
+		final NodeShape originaShape = (NodeShape) m_values.getObject(m_values.slotOf(node.getSUID()), SHAPE);
 
 		if (originaShape == null) {
 			if (m_shapeDefault == null)
@@ -308,9 +267,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideShape(CyNode node, NodeShape shape) {
 		if (shape == null)
-			m_shapes.remove(node);
+			m_values.unset(node.getSUID(), SHAPE);
 		else {
-			m_shapes.put(node, shape);
+			m_values.setObject(node.getSUID(), SHAPE, shape);
 			isCleared = false;
 		}
 	}
@@ -330,7 +289,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dev.isValueLocked(DVisualLexicon.NODE_FILL_COLOR)) {
 			paint = dev.getVisualProperty(DVisualLexicon.NODE_FILL_COLOR);
 		} else {
-			paint = m_unselectedPaints.get(node);
+			paint = (Paint) m_values.getObject(m_values.slotOf(node.getSUID()), UNSELECTED_PAINT);
 
 			if (paint == null) {
 				// Mapped Value does not exist; use default
@@ -354,16 +313,16 @@ public class DNodeDetails extends NodeDetails {
 	}
 
 	void setUnselectedPaint(final CyNode node, final Paint paint) {
-		m_unselectedPaints.put(node, paint);
+		m_values.setObject(node.getSUID(), UNSELECTED_PAINT, paint);
 		if (paint instanceof Color)
-			m_colorsLowDetail.put(node, paint);
+			m_values.setObject(node.getSUID(), COLOR_LOW_DETAIL, paint);
 		isCleared = false;
 	}
 
 	void setSelectedPaint(final CyNode node, final Paint paint) {
-		m_selectedPaints.put(node, paint);
+		m_values.setObject(node.getSUID(), SELECTED_PAINT, paint);
 		if (paint instanceof Color)
-			m_selectedColorsLowDetail.put(node, paint);
+			m_values.setObject(node.getSUID(), SELECTED_COLOR_LOW_DETAIL, paint);
 
 		isCleared = false;
 	}
@@ -417,15 +376,15 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_WIDTH).floatValue();
 
-		final Float o = m_borderWidths.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 		
-		if (o == null)
+		if (!m_values.isSet(slot, BORDER_WIDTH))
 			if (m_borderWidthDefault == null)
 				return DVisualLexicon.NODE_BORDER_WIDTH.getDefault().floatValue();
 			else
 				return m_borderWidthDefault.floatValue();
 
-		return o;
+		return m_values.getFloat(slot, BORDER_WIDTH);
 	}
 
 	void setBorderWidthDefault(float width) {
@@ -438,9 +397,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideBorderWidth(final CyNode node, final float width) {
 		if ((width < 0.0f) || (width == super.getBorderWidth(node)))
-			m_borderWidths.remove(node);
+			m_values.unset(node.getSUID(), BORDER_WIDTH);
 		else {
-			m_borderWidths.put(node, width);
+			m_values.setFloat(node.getSUID(), BORDER_WIDTH, width);
 			isCleared = false;
 		}
 	}
@@ -455,7 +414,7 @@ public class DNodeDetails extends NodeDetails {
 			return DLineType.getDLineType(lockedLineType).getStroke(borderWidth);
 		}
 
-		final Stroke stroke = m_borderStrokes.get(node);
+		final Stroke stroke = (Stroke) m_values.getObject(m_values.slotOf(node.getSUID()), BORDER_STROKE);
 		
 		if (stroke == null) {
 			if (m_borderStrokeDefault == null) {
@@ -477,9 +436,9 @@ public class DNodeDetails extends NodeDetails {
 	
 	void overrideBorderStroke(final CyNode node, final Stroke stroke) {
 		if (stroke == null)
-			m_borderStrokes.remove(node);
+			m_values.unset(node.getSUID(), BORDER_STROKE);
 		else {
-			m_borderStrokes.put(node, stroke);
+			m_values.setObject(node.getSUID(), BORDER_STROKE, stroke);
 			isCleared = false;
 		}
 	}
@@ -501,7 +460,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_PAINT)) {
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_PAINT);
 		} else {
-			paint = m_borderPaints.get(node);
+			paint = (Paint) m_values.getObject(m_values.slotOf(node.getSUID()), BORDER_PAINT);
 
 			if (paint == null)
 				paint = m_borderPaintDefault != null ? m_borderPaintDefault : super.getBorderPaint(node);
@@ -526,9 +485,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideBorderPaint(final CyNode node, final Paint paint) {
 		if ((paint == null) || paint.equals(super.getBorderPaint(node)))
-			m_borderPaints.remove(node);
+			m_values.unset(node.getSUID(), BORDER_PAINT);
 		else {
-			m_borderPaints.put(node, paint);
+			m_values.setObject(node.getSUID(), BORDER_PAINT, paint);
 			isCleared = false;
 		}
 	}
@@ -541,18 +500,17 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL) && !dnv.getVisualProperty(DVisualLexicon.NODE_LABEL).isEmpty())
 			return 1;
 		
-		Integer count = m_labelCounts.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 		
-		if (count == null) {
-			try {
-				String defLabel = (String) defaultValues.get(DVisualLexicon.NODE_LABEL);
-				count = (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(node) : 1;
-			} catch (ClassCastException e) {
-				count = 0;
-			}
+		if (m_values.isSet(slot, LABEL_COUNT))
+			return m_values.getInt(slot, LABEL_COUNT);
+
+		try {
+			String defLabel = (String) defaultValues.get(DVisualLexicon.NODE_LABEL);
+			return (defLabel == null || defLabel.isEmpty()) ? super.getLabelCount(node) : 1;
+		} catch (ClassCastException e) {
+			return 0;
 		}
-
-		return count;
 	}
 
 	/**
@@ -560,9 +518,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelCount(final CyNode node, final int labelCount) {
 		if ((labelCount < 0) || (labelCount == super.getLabelCount(node)))
-			m_labelCounts.remove(node);
+			m_values.unset(node.getSUID(), LABEL_COUNT);
 		else {
-			m_labelCounts.put(node, labelCount);
+			m_values.setInt(node.getSUID(), LABEL_COUNT, labelCount);
 			isCleared = false;
 		}
 	}
@@ -575,7 +533,7 @@ public class DNodeDetails extends NodeDetails {
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL);
 
 		// final long key = (((long) node) << 32) | ((long) labelInx);
-		final String o = m_labelTexts.get(node);
+		final String o = (String) m_values.getObject(m_values.slotOf(node.getSUID()), LABEL_TEXT);
 
 		if (o == null)
 			if (m_labelTextDefault == null)
@@ -598,9 +556,9 @@ public class DNodeDetails extends NodeDetails {
 		// final long key = (((long) node) << 32) | ((long) labelInx);
 
 		if ((text == null) || text.equals(super.getLabelText(node, labelInx)))
-			m_labelTexts.remove(node);
+			m_values.unset(node.getSUID(), LABEL_TEXT);
 		else {
-			m_labelTexts.put(node, text);
+			m_values.setObject(node.getSUID(), LABEL_TEXT, text);
 			isCleared = false;
 		}
 	}
@@ -611,7 +569,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TOOLTIP))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TOOLTIP);
 
-		final String o = m_tooltipTexts.get(node);
+		final String o = (String) m_values.getObject(m_values.slotOf(node.getSUID()), TOOLTIP_TEXT);
 
 		if (o == null)
 			if (m_tooltipTextDefault == null)
@@ -633,9 +591,9 @@ public class DNodeDetails extends NodeDetails {
 	void overrideTooltipText(final CyNode node, final String text) {
 
 		if ((text == null) || text.equals(""))
-			m_tooltipTexts.remove(node);
+			m_values.unset(node.getSUID(), TOOLTIP_TEXT);
 		else {
-			m_tooltipTexts.put(node, text);
+			m_values.setObject(node.getSUID(), TOOLTIP_TEXT, text);
 			isCleared = false;
 		}
 	}
@@ -653,7 +611,7 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_FONT_FACE)) {
 			font = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_FONT_FACE);
 		} else {
-			font = m_labelFonts.get(node);
+			font = (Font) m_values.getObject(m_values.slotOf(node.getSUID()), LABEL_FONT);
 	
 			if (font == null) {
 				font = m_labelFontDefault != null ? 
@@ -680,9 +638,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelFont(final CyNode node, final Font font) {
 		if (font == null) {
-			m_labelFonts.remove(node);
+			m_values.unset(node.getSUID(), LABEL_FONT);
 		} else {
-			m_labelFonts.put(node, font);
+			m_values.setObject(node.getSUID(), LABEL_FONT, font);
 			isCleared = false;
 		}
 	}
@@ -701,7 +659,7 @@ public class DNodeDetails extends NodeDetails {
 			// Check bypass
 			paint = dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_COLOR);
 		} else {
-			paint = m_labelPaints.get(node);
+			paint = (Paint) m_values.getObject(m_values.slotOf(node.getSUID()), LABEL_PAINT);
 
 			if (paint == null)
 				paint = m_labelPaintDefault != null ? m_labelPaintDefault : DVisualLexicon.NODE_LABEL_COLOR.getDefault();
@@ -723,9 +681,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelPaint(CyNode node, int labelInx, Paint paint) {
 		if (paint == null)
-			m_labelPaints.remove(node);
+			m_values.unset(node.getSUID(), LABEL_PAINT);
 		else {
-			m_labelPaints.put(node, paint);
+			m_values.setObject(node.getSUID(), LABEL_PAINT, paint);
 			isCleared = false;
 		}
 	}
@@ -748,15 +706,15 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer p = m_labelTextAnchors.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 
-		if (p == null)
+		if (!m_values.isSet(slot, LABEL_TEXT_ANCHOR))
 			if (m_labelTextAnchorDefault == null)
 				return super.getLabelTextAnchor(node, labelInx);
 			else
 				return m_labelTextAnchorDefault.byteValue();
 
-		return convertG2ND(p);
+		return convertG2ND(m_values.getInt(slot, LABEL_TEXT_ANCHOR));
 	}
 
 	void setLabelTextAnchorDefault(int anchor) {
@@ -770,12 +728,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The anchor is different altogether
 		if (m_labelTextAnchorDefault == null &&
 				convertG2ND(anchor) == super.getLabelTextAnchor(node, inx))
-			m_labelTextAnchors.remove(node);
+			m_values.unset(node.getSUID(), LABEL_TEXT_ANCHOR);
 		else if (m_labelTextAnchorDefault != null &&
 		         convertG2ND(anchor) == m_labelTextAnchorDefault.byteValue())
-			m_labelTextAnchors.remove(node);
+			m_values.unset(node.getSUID(), LABEL_TEXT_ANCHOR);
 		else {
-			m_labelTextAnchors.put(node, Integer.valueOf(anchor));
+			m_values.setInt(node.getSUID(), LABEL_TEXT_ANCHOR, anchor);
 			isCleared = false;
 		}
 	}
@@ -790,15 +748,15 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(anchor.getConversionConstant());
 		}
 
-		final Integer o = m_labelNodeAnchors.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 
-		if (o == null)
+		if (!m_values.isSet(slot, LABEL_NODE_ANCHOR))
 			if (m_labelNodeAnchorDefault == null)
 				return super.getLabelNodeAnchor(node, labelInx);
 			else
 				return m_labelNodeAnchorDefault.byteValue();
 
-		return convertG2ND(o);
+		return convertG2ND(m_values.getInt(slot, LABEL_NODE_ANCHOR));
 	}
 
 	void setLabelNodeAnchorDefault(int anchor) {
@@ -812,12 +770,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The anchor is different altogether
 		if (m_labelNodeAnchorDefault == null &&
 				convertG2ND(anchor) == super.getLabelNodeAnchor(node, inx))
-			m_labelNodeAnchors.remove(node);
+			m_values.unset(node.getSUID(), LABEL_NODE_ANCHOR);
 		else if (m_labelNodeAnchorDefault != null &&
 		         convertG2ND(anchor) == m_labelNodeAnchorDefault.byteValue())
-			m_labelNodeAnchors.remove(node);
+			m_values.unset(node.getSUID(), LABEL_NODE_ANCHOR);
 		else {
-			m_labelNodeAnchors.put(node, Integer.valueOf(anchor));
+			m_values.setInt(node.getSUID(), LABEL_NODE_ANCHOR, anchor);
 			isCleared = false;
 		}
 	}
@@ -831,15 +789,15 @@ public class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetX();
 		}
 
-		final Object o = m_labelOffsetXs.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 
-		if (o == null)
+		if (!m_values.isSet(slot, LABEL_OFFSET_X))
 			if (m_labelOffsetVectorXDefault == null)
 				return super.getLabelOffsetVectorX(node, labelInx);
 			else
 				return m_labelOffsetVectorXDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) m_values.getDouble(slot, LABEL_OFFSET_X);
 	}
 
 	void setLabelOffsetVectorXDefault(double x) {
@@ -853,12 +811,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The offset is different altogether
 		if (m_labelOffsetVectorXDefault == null &&
 		    ((float) x) == super.getLabelOffsetVectorX(node, inx))
-			m_labelOffsetXs.remove(node);
+			m_values.unset(node.getSUID(), LABEL_OFFSET_X);
 		else if (m_labelOffsetVectorXDefault != null &&
 		         ((float) x) == m_labelOffsetVectorXDefault.floatValue())
-			m_labelOffsetXs.remove(node);
+			m_values.unset(node.getSUID(), LABEL_OFFSET_X);
 		else {
-			m_labelOffsetXs.put(node, new Double(x));
+			m_values.setDouble(node.getSUID(), LABEL_OFFSET_X, x);
 			isCleared = false;
 		}
 	}
@@ -872,15 +830,15 @@ public class DNodeDetails extends NodeDetails {
 			return (float) lp.getOffsetY();
 		}
 
-		final Object o = m_labelOffsetYs.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 
-		if (o == null)
+		if (!m_values.isSet(slot, LABEL_OFFSET_Y))
 			if (m_labelOffsetVectorYDefault == null)
 				return super.getLabelOffsetVectorY(node, labelInx);
 			else
 				return m_labelOffsetVectorYDefault.floatValue();
 
-		return ((Double) o).floatValue();
+		return (float) m_values.getDouble(slot, LABEL_OFFSET_Y);
 	}
 
 	void setLabelOffsetVectorYDefault(double y) {
@@ -894,12 +852,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The offset is different altogether
 		if (m_labelOffsetVectorYDefault == null &&
 		    ((float) y) == super.getLabelOffsetVectorY(node, inx))
-			m_labelOffsetXs.remove(node);
+			m_values.unset(node.getSUID(), LABEL_OFFSET_Y);
 		else if (m_labelOffsetVectorYDefault != null &&
 		         ((float) y) == m_labelOffsetVectorYDefault.floatValue())
-			m_labelOffsetYs.remove(node);
+			m_values.unset(node.getSUID(), LABEL_OFFSET_Y);
 		else {
-			m_labelOffsetYs.put(node, new Double(y));
+			m_values.setDouble(node.getSUID(), LABEL_OFFSET_Y, y);
 			isCleared = false;
 		}
 	}
@@ -914,15 +872,15 @@ public class DNodeDetails extends NodeDetails {
 			return convertG2ND(justify.getConversionConstant());
 		}
 
-		Integer o = m_labelJustifys.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 
-		if (o == null)
+		if (!m_values.isSet(slot, LABEL_JUSTIFY))
 			if (m_labelJustifyDefault == null)
 				return super.getLabelJustify(node, labelInx);
 			else
 				return m_labelJustifyDefault.byteValue();
 
-		return convertG2ND(o);
+		return convertG2ND(m_values.getInt(slot, LABEL_JUSTIFY));
 	}
 
 	void setLabelJustifyDefault(int justify) {
@@ -936,12 +894,12 @@ public class DNodeDetails extends NodeDetails {
 		//  3) The offset is different altogether
 		if (m_labelJustifyDefault == null &&
 		    convertG2ND(justify) == super.getLabelJustify(node, inx))
-			m_labelJustifys.remove(node);
+			m_values.unset(node.getSUID(), LABEL_JUSTIFY);
 		else if (m_labelJustifyDefault != null &&
 		    convertG2ND(justify) == m_labelJustifyDefault)
-			m_labelJustifys.remove(node);
+			m_values.unset(node.getSUID(), LABEL_JUSTIFY);
 		else {
-			m_labelJustifys.put(node, Integer.valueOf(justify));
+			m_values.setInt(node.getSUID(), LABEL_JUSTIFY, justify);
 			isCleared = false;
 		}
 	}
@@ -954,16 +912,16 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_WIDTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_WIDTH);
 		
-		final Double o = m_labelWidths.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 
-		if (o == null) {
+		if (!m_values.isSet(slot, LABEL_WIDTH)) {
 			if (m_labelWidthDefault == null)
 				return super.getLabelWidth(node);
 			else
 				return m_labelWidthDefault.doubleValue();
 		}
 
-		return o;
+		return m_values.getDouble(slot, LABEL_WIDTH);
 	}
 
 	void setLabelWidthDefault(double width) {
@@ -976,9 +934,9 @@ public class DNodeDetails extends NodeDetails {
 	 */
 	void overrideLabelWidth(final CyNode node, final double width) {
 		if ((width < 0.0) || (width == super.getLabelWidth(node)))
-			m_labelWidths.remove(node);
+			m_values.unset(node.getSUID(), LABEL_WIDTH);
 		else {
-			m_labelWidths.put(node, width);
+			m_values.setDouble(node.getSUID(), LABEL_WIDTH, width);
 			isCleared = false;
 		}
 	}
@@ -991,12 +949,11 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_TRANSPARENCY);
 
-		Integer trans = m_nodeTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		final int slot = m_values.slotOf(node.getSUID());
+		if (m_values.isSet(slot, TRANSPARENCY))
+			return m_values.getInt(slot, TRANSPARENCY);
+
+		return transparencyDefault != null ? transparencyDefault : DVisualLexicon.NODE_TRANSPARENCY.getDefault();
 	}
 
 	void setTransparencyDefault(Integer transparency) {
@@ -1006,9 +963,9 @@ public class DNodeDetails extends NodeDetails {
 
 	void overrideTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeTansparencies.remove(node);
+			m_values.unset(node.getSUID(), TRANSPARENCY);
 		else {
-			m_nodeTansparencies.put(node, transparency);
+			m_values.setInt(node.getSUID(), TRANSPARENCY, transparency);
 			isCleared = false;
 		}
 	}
@@ -1019,13 +976,12 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_LABEL_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_LABEL_TRANSPARENCY);
 
-		Integer trans = m_nodeLabelTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyLabelDefault != null ? 
-					transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		final int slot = m_values.slotOf(node.getSUID());
+		if (m_values.isSet(slot, LABEL_TRANSPARENCY))
+			return m_values.getInt(slot, LABEL_TRANSPARENCY);
+
+		return transparencyLabelDefault != null ? 
+				transparencyLabelDefault : DVisualLexicon.NODE_LABEL_TRANSPARENCY.getDefault();
 	}
 
 	void setLabelTransparencyDefault(Integer transparency) {
@@ -1035,9 +991,9 @@ public class DNodeDetails extends NodeDetails {
 
 	void overrideLabelTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeLabelTansparencies.remove(node);
+			m_values.unset(node.getSUID(), LABEL_TRANSPARENCY);
 		else {
-			m_nodeLabelTansparencies.put(node, transparency);
+			m_values.setInt(node.getSUID(), LABEL_TRANSPARENCY, transparency);
 			isCleared = false;
 		}
 	}
@@ -1048,13 +1004,12 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_BORDER_TRANSPARENCY))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_BORDER_TRANSPARENCY);
 
-		Integer trans = m_nodeBorderTansparencies.get(node);
-		if (trans == null) {
-			trans = transparencyBorderDefault != null ? 
-					transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
-		}
-		
-		return trans;
+		final int slot = m_values.slotOf(node.getSUID());
+		if (m_values.isSet(slot, BORDER_TRANSPARENCY))
+			return m_values.getInt(slot, BORDER_TRANSPARENCY);
+
+		return transparencyBorderDefault != null ? 
+				transparencyBorderDefault : DVisualLexicon.NODE_BORDER_TRANSPARENCY.getDefault();
 	}
 
 	void setBorderTransparencyDefault(Integer transparency) {
@@ -1064,9 +1019,9 @@ public class DNodeDetails extends NodeDetails {
 
 	void overrideBorderTransparency(final CyNode node, final Integer transparency) {
 		if (transparency == null)
-			m_nodeBorderTansparencies.remove(node);
+			m_values.unset(node.getSUID(), BORDER_TRANSPARENCY);
 		else {
-			m_nodeBorderTansparencies.put(node, transparency);
+			m_values.setInt(node.getSUID(), BORDER_TRANSPARENCY, transparency);
 			isCleared = false;
 		}
 	}
@@ -1076,7 +1031,7 @@ public class DNodeDetails extends NodeDetails {
 	}
 	
 	void overrideNestedNetworkImgVisible(final CyNode node, final boolean visible) {
-		m_nestedNetworkImgVisible.put(node, visible);
+		m_values.setInt(node.getSUID(), NESTED_NETWORK_IMG_VISIBLE, visible ? 1 : 0);
 		isCleared = false;
 	}
 	
@@ -1086,10 +1041,10 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE))
 			return dnv.getVisualProperty(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE);
 		
-		Boolean visible = m_nestedNetworkImgVisible.get(node);
+		final int slot = m_values.slotOf(node.getSUID());
 		
-		if (visible != null)
-			return visible;
+		if (m_values.isSet(slot, NESTED_NETWORK_IMG_VISIBLE))
+			return m_values.getInt(slot, NESTED_NETWORK_IMG_VISIBLE) != 0;
 		
 		return getDefaultValue(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE);
 	}
@@ -1099,10 +1054,8 @@ public class DNodeDetails extends NodeDetails {
 		if (dnv.isValueLocked(DVisualLexicon.NODE_DEPTH))
 			return dnv.getVisualProperty(DVisualLexicon.NODE_DEPTH);
 
-		Double depth = m_nodeZ.get(node);
-		if (depth == null)
-			return 0.0;
-		return depth;
+		// Mapped depths are not stored, only bypasses apply
+		return 0.0;
 	}
 
 
@@ -75,6 +75,9 @@ import org.slf4j.LoggerFactory;
 public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, Label {
 	
 	private static Pattern CG_SIZE_PATTERN = Pattern.compile("NODE_CUSTOMGRAPHICS_SIZE_[1-9]");
+
+	// Applies visual property values, see applyVisualProperty()
+	private static final VisualPropertyDispatch<DNodeView> APPLIERS = createAppliers();
 	
 	// Affects size of the nested network image relative to the node size:
 	private static final float NESTED_IMAGE_SCALE_FACTOR = 0.6f;
@@ -366,8 +369,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(xMax > xMin))
 				throw new IllegalArgumentException("width is too small");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
+			graphView.updateNodeExtents(modelIdx, xMin, graphView.m_extentsBuff[1], xMax,
 					graphView.m_extentsBuff[3], m_zOrder);
 			graphView.setContentChanged();
 
@@ -424,8 +426,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 				throw new IllegalArgumentException("height is too small max:" + yMax + " min:" + yMin + " center:"
 						+ yCenter + " height:" + newHeight);
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
+			graphView.updateNodeExtents(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
 			graphView.setContentChanged();
 
 			m_xMin = graphView.m_extentsBuff[0];
@@ -472,8 +473,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 			if (!(yMax > yMin))
 				throw new IllegalStateException("height of node has degenerated to zero after " + "rounding");
 
-			graphView.m_spacial.delete(modelIdx);
-			graphView.m_spacial.insert(modelIdx, xMin, yMin, xMax, yMax, m_zOrder);
+			graphView.updateNodeExtents(modelIdx, xMin, yMin, xMax, yMax, m_zOrder);
 			graphView.setContentChanged();
 			setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION,x);
 			setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION,y);
@@ -518,8 +518,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (isVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3], m_zOrder);
+				graphView.updateNodeExtents(modelIdx, xMin, graphView.m_extentsBuff[1], xMax, graphView.m_extentsBuff[3], m_zOrder);
 				graphView.setContentChanged();
 				m_xMin = xMin;
 				m_yMin = graphView.m_extentsBuff[1];
@@ -596,8 +595,7 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 
 			// If the node is visible, set the extents.
 			if (isVisible) {
-				graphView.m_spacial.delete(modelIdx);
-				graphView.m_spacial.insert(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
+				graphView.updateNodeExtents(modelIdx, graphView.m_extentsBuff[0], yMin, graphView.m_extentsBuff[2], yMax, m_zOrder);
 				graphView.setContentChanged();
 
 				m_xMin = graphView.m_extentsBuff[0];
@@ -1001,75 +999,80 @@ public class DNodeView extends AbstractDViewModel<CyNode> implements NodeView, L
 		if (value == null)
 			value = (V) vp.getDefault();
 
-		if (vp == DVisualLexicon.NODE_SHAPE) {
-			setShape(((NodeShape) value));
-		} else if (vp == DVisualLexicon.NODE_SELECTED_PAINT) {
-			setSelectedPaint((Paint) value);
-		} else if (vp == BasicVisualLexicon.NODE_SELECTED) {
-			setSelected((Boolean) value);
-		} else if (vp == BasicVisualLexicon.NODE_VISIBLE) {
+		APPLIERS.get(vp).apply(this, value);
+	}
+
+	private static VisualPropertyDispatch<DNodeView> createAppliers() {
+		final VisualPropertyDispatch<DNodeView> appliers =
+				new VisualPropertyDispatch<DNodeView>(DNodeView::getCustomGraphicsApplier);
+
+		appliers.put(DVisualLexicon.NODE_SHAPE, (view, value) -> view.setShape((NodeShape) value));
+		appliers.put(DVisualLexicon.NODE_SELECTED_PAINT, (view, value) -> view.setSelectedPaint((Paint) value));
+		appliers.put(BasicVisualLexicon.NODE_SELECTED, (view, value) -> view.setSelected((Boolean) value));
+		appliers.put(BasicVisualLexicon.NODE_VISIBLE, (view, value) -> {
 			if (((Boolean) value).booleanValue()) {
-				graphView.showGraphObject(this);
-				isVisible = true;
+				view.graphView.showGraphObject(view);
+				view.isVisible = true;
 			} else {
-				graphView.hideGraphObject(this);
-				isVisible = false;
+				view.graphView.hideGraphObject(view);
+				view.isVisible = false;
 			}
-		} else if (vp == BasicVisualLexicon.NODE_FILL_COLOR) {
-			setUnselectedPaint((Paint) value);
-		} else if (vp == DVisualLexicon.NODE_BORDER_PAINT) {
-			setBorderPaint((Color)value);
-		} else if (vp == DVisualLexicon.NODE_BORDER_TRANSPARENCY) {
-			final Integer opacity = ((Number) value).intValue();
-			setBorderTransparency(opacity);
-		} else if (vp == DVisualLexicon.NODE_BORDER_WIDTH) {
-			setBorderWidth(((Number) value).floatValue());
-		} else if (vp == DVisualLexicon.NODE_BORDER_LINE_TYPE) {
+		});
+		appliers.put(BasicVisualLexicon.NODE_FILL_COLOR, (view, value) -> view.setUnselectedPaint((Paint) value));
+		appliers.put(DVisualLexicon.NODE_BORDER_PAINT, (view, value) -> view.setBorderPaint((Color) value));
+		appliers.put(DVisualLexicon.NODE_BORDER_TRANSPARENCY,
+				(view, value) -> view.setBorderTransparency(((Number) value).intValue()));
+		appliers.put(DVisualLexicon.NODE_BORDER_WIDTH,
+				(view, value) -> view.setBorderWidth(((Number) value).floatValue()));
+		appliers.put(DVisualLexicon.NODE_BORDER_LINE_TYPE, (view, value) -> {
 			final DLineType dLineType = DLineType.getDLineType((LineType) value);
-			final float currentBorderWidth = graphView.m_nodeDetails.getBorderWidth(model);
-			setBorder(dLineType.getStroke(currentBorderWidth));
-		} else if (vp == DVisualLexicon.NODE_TRANSPARENCY) {
-			setTransparency(((Number) value).intValue());
-		} else if (vp == BasicVisualLexicon.NODE_WIDTH) {
-			setWidth(((Number) value).doubleValue());
-		} else if (vp == BasicVisualLexicon.NODE_HEIGHT) {
-			setHeight(((Number) value).doubleValue());
-		} else if (vp == BasicVisualLexicon.NODE_LABEL) {
-			setText(value.toString());
-		} else if (vp == BasicVisualLexicon.NODE_LABEL_WIDTH) {
-			setLabelWidth(((Number) value).doubleValue());
-		} else if (vp == BasicVisualLexicon.NODE_X_LOCATION) {
-			setXPosition(((Number) value).doubleValue());
-		} else if (vp == BasicVisualLexicon.NODE_Y_LOCATION) {
-			setYPosition(((Number) value).doubleValue());
-		} else if (vp == BasicVisualLexicon.NODE_Z_LOCATION) {
-			setZPosition(((Number) value).doubleValue());
-		} else if (vp == DVisualLexicon.NODE_TOOLTIP) {
-			setToolTip(value.toString());
-		} else if (vp == BasicVisualLexicon.NODE_LABEL_COLOR) {
-			setTextPaint((Color)value);
-		} else if (vp == BasicVisualLexicon.NODE_LABEL_TRANSPARENCY) {
-			final int opacity = ((Number) value).intValue();
-			setLabelTransparency(opacity);
-		} else if (vp == DVisualLexicon.NODE_LABEL_FONT_FACE) {
-			final float currentFontSize = graphView.m_nodeDetails.getLabelFont(model, 0).getSize();
-			final Font newFont = ((Font) value).deriveFont(currentFontSize);
-			setFont(newFont);
-		} else if (vp == DVisualLexicon.NODE_LABEL_FONT_SIZE) {
+			final float currentBorderWidth = view.graphView.m_nodeDetails.getBorderWidth(view.model);
+			view.setBorder(dLineType.getStroke(currentBorderWidth));
+		});
+		appliers.put(DVisualLexicon.NODE_TRANSPARENCY,
+				(view, value) -> view.setTransparency(((Number) value).intValue()));
+		appliers.put(BasicVisualLexicon.NODE_WIDTH, (view, value) -> view.setWidth(((Number) value).doubleValue()));
+		appliers.put(BasicVisualLexicon.NODE_HEIGHT, (view, value) -> view.setHeight(((Number) value).doubleValue()));
+		appliers.put(BasicVisualLexicon.NODE_LABEL, (view, value) -> view.setText(value.toString()));
+		appliers.put(BasicVisualLexicon.NODE_LABEL_WIDTH,
+				(view, value) -> view.setLabelWidth(((Number) value).doubleValue()));
+		appliers.put(BasicVisualLexicon.NODE_X_LOCATION,
+				(view, value) -> view.setXPosition(((Number) value).doubleValue()));
+		appliers.put(BasicVisualLexicon.NODE_Y_LOCATION,
+				(view, value) -> view.setYPosition(((Number) value).doubleValue()));
+		appliers.put(BasicVisualLexicon.NODE_Z_LOCATION,
+				(view, value) -> view.setZPosition(((Number) value).doubleValue()));
+		appliers.put(DVisualLexicon.NODE_TOOLTIP, (view, value) -> view.setToolTip(value.toString()));
+		appliers.put(BasicVisualLexicon.NODE_LABEL_COLOR, (view, value) -> view.setTextPaint((Color) value));
+		appliers.put(BasicVisualLexicon.NODE_LABEL_TRANSPARENCY,
+				(view, value) -> view.setLabelTransparency(((Number) value).intValue()));
+		appliers.put(DVisualLexicon.NODE_LABEL_FONT_FACE, (view, value) -> {
+			final float currentFontSize = view.graphView.m_nodeDetails.getLabelFont(view.model, 0).getSize();
+			view.setFont(((Font) value).deriveFont(currentFontSize));
+		});
+		appliers.put(DVisualLexicon.NODE_LABEL_FONT_SIZE, (view, value) -> {
 			final float newSize = ((Number) value).floatValue();
-			final Font newFont = graphView.m_nodeDetails.getLabelFont(model, 0).deriveFont(newSize);
-			setFont(newFont);
-		} else if (vp == DVisualLexicon.NODE_LABEL_POSITION) {
-			this.setLabelPosition((ObjectPosition) value);
-		} else if (vp == BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE) {
-			setNestedNetworkImgVisible(Boolean.TRUE.equals(value));
-		} else if (vp instanceof CustomGraphicsVisualProperty) {
-			setCustomGraphics((CustomGraphicsVisualProperty) vp, (CyCustomGraphics<CustomGraphicLayer>) value);
-		} else if (vp instanceof ObjectPositionVisualProperty) {
-			setCustomGraphicsPosition(vp, (ObjectPosition) value);
-		} else if (CG_SIZE_PATTERN.matcher(vp.getIdString()).matches()) {
-			setCustomGraphicsSize((VisualProperty<Double>) vp, (Double) value);
-		}
+			view.setFont(view.graphView.m_nodeDetails.getLabelFont(view.model, 0).deriveFont(newSize));
+		});
+		appliers.put(DVisualLexicon.NODE_LABEL_POSITION,
+				(view, value) -> view.setLabelPosition((ObjectPosition) value));
+		appliers.put(BasicVisualLexicon.NODE_NESTED_NETWORK_IMAGE_VISIBLE,
+				(view, value) -> view.setNestedNetworkImgVisible(Boolean.TRUE.equals(value)));
+
+		return appliers;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static VisualPropertyDispatch.Applier<DNodeView> getCustomGraphicsApplier(final VisualProperty<?> vp) {
+		if (vp instanceof CustomGraphicsVisualProperty)
+			return (view, value) -> view.setCustomGraphics((CustomGraphicsVisualProperty) vp,
+					(CyCustomGraphics<CustomGraphicLayer>) value);
+		else if (vp instanceof ObjectPositionVisualProperty)
+			return (view, value) -> view.setCustomGraphicsPosition(vp, (ObjectPosition) value);
+		else if (CG_SIZE_PATTERN.matcher(vp.getIdString()).matches())
+			return (view, value) -> view.setCustomGraphicsSize((VisualProperty<Double>) vp, (Double) value);
+
+		return null;
 	}
 
 	public boolean getExtents(float[] extents, int offset) {
@@ -0,0 +1,358 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.cytoscape.util.intr.IntStack;
+
+/**
+ * Overridden visual property values of the nodes or edges of one view, stored
+ * as one primitive (or Object) array per property.  Each element with at
+ * least one overridden value is given a dense slot, found through an open
+ * addressing SUID index, and a bit mask records which of its properties are
+ * set.  Elements without overrides take no space.
+ * <p>
+ * Writes are serialized on this object.  Reads take no lock: the index and
+ * the columns are replaced, never resized in place, and a key is published
+ * only after its slot, so a reader racing a writer sees the old value or the
+ * new one.
+ */
+final class DetailsStore {
+
+	static final byte OBJECT = 0;
+	static final byte FLOAT = 1;
+	static final byte DOUBLE = 2;
+	static final byte INT = 3;
+
+	private static final long EMPTY = -1L; // SUIDs are never negative
+	private static final long REMOVED = -2L;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final byte[] kinds;
+
+	private volatile Index index;
+	private volatile Columns columns;
+
+	private final IntStack freeSlots = new IntStack();
+	private int nextSlot;
+	private int size;
+
+	/**
+	 * @param kinds the type of each property, one of OBJECT, FLOAT, DOUBLE and
+	 *   INT; properties are then identified by their position in this array.
+	 */
+	DetailsStore(final byte... kinds) {
+		if (kinds.length > Long.SIZE)
+			throw new IllegalArgumentException("at most " + Long.SIZE + " properties are supported");
+
+		this.kinds = kinds.clone();
+		clear();
+	}
+
+	/**
+	 * Drops all values.  The columns keep their capacity, so that a reader
+	 * holding a slot from before the call cannot index past them.
+	 */
+	synchronized void clear() {
+		index = new Index(INITIAL_CAPACITY);
+		columns = new Columns(kinds, columns == null ? INITIAL_CAPACITY : columns.overridden.length);
+		freeSlots.empty();
+		nextSlot = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of elements with at least one overridden value.
+	 */
+	synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the slot of the element, or -1 if none of its properties is set.
+	 * The slot stays valid until the element's last value is unset.
+	 */
+	int slotOf(final long suid) {
+		final Index idx = index;
+		int i = hash(suid) & idx.mask;
+
+		while (true) {
+			final long key = idx.keys.get(i);
+
+			if (key == suid)
+				return idx.slots[i];
+			if (key == EMPTY)
+				return -1;
+
+			i = (i + 1) & idx.mask;
+		}
+	}
+
+	boolean isSet(final int slot, final int property) {
+		return slot >= 0 && (columns.overridden[slot] & (1L << property)) != 0;
+	}
+
+	/**
+	 * Returns the value of an OBJECT property, or null if it is not set.
+	 */
+	Object getObject(final int slot, final int property) {
+		return slot >= 0 ? columns.objects[property][slot] : null;
+	}
+
+	/**
+	 * Returns the value of a FLOAT property; only meaningful if
+	 * {@link #isSet(int, int)}.
+	 */
+	float getFloat(final int slot, final int property) {
+		return columns.floats[property][slot];
+	}
+
+	double getDouble(final int slot, final int property) {
+		return columns.doubles[property][slot];
+	}
+
+	int getInt(final int slot, final int property) {
+		return columns.ints[property][slot];
+	}
+
+	/**
+	 * Sets an OBJECT property; a null value unsets it.
+	 */
+	synchronized void setObject(final long suid, final int property, final Object value) {
+		if (value == null) {
+			unset(suid, property);
+			return;
+		}
+
+		final int slot = slotFor(suid);
+		final Columns c = columns;
+		c.objects[property][slot] = value;
+		c.overridden[slot] |= 1L << property;
+	}
+
+	synchronized void setFloat(final long suid, final int property, final float value) {
+		final int slot = slotFor(suid);
+		final Columns c = columns;
+		c.floats[property][slot] = value;
+		c.overridden[slot] |= 1L << property;
+	}
+
+	synchronized void setDouble(final long suid, final int property, final double value) {
+		final int slot = slotFor(suid);
+		final Columns c = columns;
+		c.doubles[property][slot] = value;
+		c.overridden[slot] |= 1L << property;
+	}
+
+	synchronized void setInt(final long suid, final int property, final int value) {
+		final int slot = slotFor(suid);
+		final Columns c = columns;
+		c.ints[property][slot] = value;
+		c.overridden[slot] |= 1L << property;
+	}
+
+	/**
+	 * Unsets a property of the element, releasing its slot if that was the
+	 * last one set.
+	 */
+	synchronized void unset(final long suid, final int property) {
+		final int slot = slotOf(suid);
+
+		if (slot < 0)
+			return;
+
+		final Columns c = columns;
+		c.overridden[slot] &= ~(1L << property);
+
+		if (kinds[property] == OBJECT)
+			c.objects[property][slot] = null;
+
+		if (c.overridden[slot] == 0)
+			remove(suid);
+	}
+
+	/**
+	 * Unsets all properties of the element.
+	 */
+	synchronized void remove(final long suid) {
+		final Index idx = index;
+		int i = hash(suid) & idx.mask;
+		long key;
+
+		while ((key = idx.keys.get(i)) != suid) {
+			if (key == EMPTY)
+				return;
+
+			i = (i + 1) & idx.mask;
+		}
+
+		final int slot = idx.slots[i];
+		idx.keys.set(i, REMOVED);
+
+		final Columns c = columns;
+		c.overridden[slot] = 0;
+
+		for (final Object[] column : c.objects) {
+			if (column != null)
+				column[slot] = null;
+		}
+
+		freeSlots.push(slot);
+		size--;
+	}
+
+	private int slotFor(final long suid) {
+		int slot = slotOf(suid);
+
+		if (slot >= 0)
+			return slot;
+
+		if (freeSlots.size() > 0) {
+			slot = freeSlots.pop();
+		} else {
+			slot = nextSlot++;
+
+			if (slot == columns.overridden.length)
+				columns = columns.grow(slot * 2);
+		}
+
+		Index idx = index;
+
+		if ((idx.used + 1) * 2 > idx.slots.length) {
+			// Only grow if the table is mostly live keys rather than REMOVED ones
+			idx = idx.rehash(size * 4 > idx.slots.length ? idx.slots.length * 2 : idx.slots.length);
+			index = idx;
+		}
+
+		idx.insert(suid, slot);
+		size++;
+
+		return slot;
+	}
+
+	private static int hash(final long suid) {
+		final int h = (int) (suid ^ (suid >>> 32)) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static final class Index {
+		final AtomicLongArray keys;
+		final int[] slots;
+		final int mask;
+		int used; // live and REMOVED keys
+
+		Index(final int capacity) {
+			keys = new AtomicLongArray(capacity);
+			slots = new int[capacity];
+			mask = capacity - 1;
+
+			for (int i = 0; i < capacity; i++)
+				keys.lazySet(i, EMPTY);
+		}
+
+		/**
+		 * Adds a key that is not in the table.  The slot is written before
+		 * the key, which is what readers probe for.
+		 */
+		void insert(final long suid, final int slot) {
+			int i = hash(suid) & mask;
+			long key;
+
+			while ((key = keys.get(i)) != EMPTY && key != REMOVED)
+				i = (i + 1) & mask;
+
+			slots[i] = slot;
+			keys.set(i, suid);
+
+			if (key == EMPTY)
+				used++;
+		}
+
+		Index rehash(final int capacity) {
+			final Index idx = new Index(capacity);
+
+			for (int i = 0; i < slots.length; i++) {
+				final long key = keys.get(i);
+
+				if (key >= 0)
+					idx.insert(key, slots[i]);
+			}
+
+			return idx;
+		}
+	}
+
+	private static final class Columns {
+		final long[] overridden;
+		final Object[][] objects;
+		final float[][] floats;
+		final double[][] doubles;
+		final int[][] ints;
+
+		Columns(final byte[] kinds, final int capacity) {
+			overridden = new long[capacity];
+			objects = new Object[kinds.length][];
+			floats = new float[kinds.length][];
+			doubles = new double[kinds.length][];
+			ints = new int[kinds.length][];
+
+			for (int p = 0; p < kinds.length; p++) {
+				switch (kinds[p]) {
+				case OBJECT: objects[p] = new Object[capacity]; break;
+				case FLOAT: floats[p] = new float[capacity]; break;
+				case DOUBLE: doubles[p] = new double[capacity]; break;
+				case INT: ints[p] = new int[capacity]; break;
+				default: throw new IllegalArgumentException("unknown property kind: " + kinds[p]);
+				}
+			}
+		}
+
+		private Columns(final Columns source, final int capacity) {
+			overridden = Arrays.copyOf(source.overridden, capacity);
+			objects = new Object[source.objects.length][];
+			floats = new float[source.floats.length][];
+			doubles = new double[source.doubles.length][];
+			ints = new int[source.ints.length][];
+
+			for (int p = 0; p < objects.length; p++) {
+				if (source.objects[p] != null)
+					objects[p] = Arrays.copyOf(source.objects[p], capacity);
+				else if (source.floats[p] != null)
+					floats[p] = Arrays.copyOf(source.floats[p], capacity);
+				else if (source.doubles[p] != null)
+					doubles[p] = Arrays.copyOf(source.doubles[p], capacity);
+				else
+					ints[p] = Arrays.copyOf(source.ints[p], capacity);
+			}
+		}
+
+		Columns grow(final int capacity) {
+			return new Columns(this, capacity);
+		}
+	}
+}
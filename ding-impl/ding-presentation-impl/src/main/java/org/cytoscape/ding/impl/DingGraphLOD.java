@@ -45,6 +45,8 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	protected int nodeLabelThreshold;
 	protected int edgeArrowThreshold;
 	protected int edgeLabelThreshold;
+	protected int aggregateThreshold;
+	protected int aggregateCellSize;
 
 	private final Properties props;
 	private final CyProperty<Properties> cyProp;
@@ -52,6 +54,21 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	private final CyApplicationManager appManager;
 	private boolean drawEdges = true;
 
+	/** Bounds of {@link #detailScale}, relative to the configured thresholds. */
+	private static final double MIN_DETAIL_SCALE = 1.0 / 16.0;
+	private static final double MAX_DETAIL_SCALE = 4.0;
+
+	private boolean progressive;
+	private long targetFrameNanos;
+
+	/**
+	 * Factor applied to all thresholds.  It is only adjusted by
+	 * {@link #frameRendered(long)} when progressive rendering is enabled.
+	 * The LOD registered as a service is shared by all views, so views adapt
+	 * their own copies, see {@link #withDetailScale(double)}.
+	 */
+	private double detailScale = 1.0;
+
 
 	public DingGraphLOD(final CyProperty<Properties> defaultProps, final CyApplicationManager appManager) {
 		if (defaultProps == null)
@@ -74,7 +91,12 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		this.nodeLabelThreshold = source.nodeLabelThreshold;
 		this.edgeArrowThreshold = source.edgeArrowThreshold;
 		this.edgeLabelThreshold = source.edgeLabelThreshold;
+		this.aggregateThreshold = source.aggregateThreshold;
+		this.aggregateCellSize = source.aggregateCellSize;
 		this.drawEdges = source.drawEdges;
+		this.progressive = source.progressive;
+		this.targetFrameNanos = source.targetFrameNanos;
+		this.detailScale = source.detailScale;
 	}
 
 	private void init() {
@@ -84,7 +106,67 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		nodeLabelThreshold = parseInt(props.getProperty("render.nodeLabelThreshold"), 200);
 		edgeArrowThreshold = parseInt(props.getProperty("render.edgeArrowThreshold"), 600);
 		edgeLabelThreshold = parseInt(props.getProperty("render.edgeLabelThreshold"), 200);
+		aggregateThreshold = parseInt(props.getProperty("render.aggregateThreshold"), 0);
+		aggregateCellSize = Math.max(1, parseInt(props.getProperty("render.aggregateCellSize"), 3));
+
+		progressive = Boolean.parseBoolean(props.getProperty("render.progressive"));
+		targetFrameNanos = Math.max(1, parseInt(props.getProperty("render.targetFrameTime"), 150)) * 1000000L;
+	}
+
+	/**
+	 * Whether views should first draw a low detail frame and refine it in the
+	 * background, see the "render.progressive" property.
+	 */
+	public boolean isProgressive() {
+		return progressive;
+	}
+
+	/**
+	 * Reports how long a full detail frame took to render.  With progressive
+	 * rendering enabled the thresholds are scaled so that full detail frames
+	 * converge on the "render.targetFrameTime" budget (in milliseconds):
+	 * slow frames lower them, fast frames raise them again, up to a few times
+	 * the configured values.  Otherwise this does nothing.
+	 * <p>
+	 * This is not thread safe, and a view must only report its own frames to
+	 * a copy of its own, made by {@link #withDetailScale(double)}; otherwise
+	 * one slow view would lower the level of detail of all the others.
+	 *
+	 * @param frameNanos the wall clock time of the frame in nanoseconds.
+	 */
+	public void frameRendered(final long frameNanos) {
+		if (!progressive || frameNanos <= 0)
+			return;
 
+		// Render time is roughly linear in the number of drawn elements; the
+		// square root damps the correction so a single outlier frame cannot
+		// swing the level of detail from one extreme to the other.
+		final double step = Math.sqrt((double) targetFrameNanos / (double) frameNanos);
+		final double scale = detailScale * Math.max(0.5, Math.min(2.0, step));
+		detailScale = Math.max(MIN_DETAIL_SCALE, Math.min(MAX_DETAIL_SCALE, scale));
+	}
+
+	/**
+	 * Returns the factor currently applied to all thresholds.
+	 */
+	public double getDetailScale() {
+		return detailScale;
+	}
+
+	/**
+	 * Returns a copy of this LOD, with the current thresholds, whose
+	 * thresholds are scaled by the given factor.  Views keep the factor
+	 * adapted by {@link #frameRendered(long)} between frames and pass it in
+	 * here, so that property changes still reach them.
+	 */
+	public DingGraphLOD withDetailScale(final double detailScale) {
+		final DingGraphLOD copy = new DingGraphLOD(this);
+		copy.detailScale = detailScale;
+		return copy;
+	}
+
+	private int scaled(final int threshold) {
+		return (int) Math.min(Integer.MAX_VALUE, threshold * detailScale);
 	}
 
 	private int parseInt(final String intString, final int defaultValue) {
@@ -150,11 +232,11 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	 *         are to be rendered.
 	 */
 	public byte renderEdges(final int visibleNodeCount, final int totalNodeCount, final int totalEdgeCount) {
-		if (totalEdgeCount >= Math.min(edgeArrowThreshold, edgeLabelThreshold)) {
+		if (totalEdgeCount >= Math.min(scaled(edgeArrowThreshold), scaled(edgeLabelThreshold))) {
 			// Since we don't know the visible edge count, use visible node count as a proxy
 			// System.out.println("DingGraphLOD: renderEdges("+visibleNodeCount+","+totalNodeCount+","+totalEdgeCount+")");
 			// System.out.println("DingGraphLOD: drawEdges = "+drawEdges);
-			if (drawEdges || visibleNodeCount <= Math.max(edgeArrowThreshold, edgeLabelThreshold)/2 ) {
+			if (drawEdges || visibleNodeCount <= Math.max(scaled(edgeArrowThreshold), scaled(edgeLabelThreshold))/2 ) {
 				return (byte) 0;
 			}
 			return (byte) (-1);
@@ -163,6 +245,21 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 		}
 	}
 
+	/**
+	 * Draws density maps instead of individual nodes and edges once the
+	 * viewport holds at least "render.aggregateThreshold" of them, with cells
+	 * of "render.aggregateCellSize" pixels.  The threshold is zero, which
+	 * disables density maps, unless it is set.
+	 *
+	 * @see GraphLOD#aggregate(int, int)
+	 */
+	public int aggregate(final int visibleNodeCount, final int visibleEdgeCount) {
+		if (aggregateThreshold <= 0 || (long) visibleNodeCount + visibleEdgeCount < aggregateThreshold)
+			return 0;
+
+		return aggregateCellSize;
+	}
+
 	/**
 	 * Determines whether or not to render a graph at full detail. By default
 	 * this method returns true if and only if the sum of rendered nodes and
@@ -212,7 +309,7 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	 * @return true for full detail, false for low detail.
 	 */
 	public boolean detail(final int renderNodeCount, final int renderEdgeCount) {
-		return (renderNodeCount + renderEdgeCount) < coarseDetailThreshold;
+		return (renderNodeCount + renderEdgeCount) < scaled(coarseDetailThreshold);
 	}
 
 	/**
@@ -231,7 +328,7 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	 * @see #detail(int, int)
 	 */
 	public boolean nodeBorders(final int renderNodeCount, final int renderEdgeCount) {
-		return renderNodeCount < nodeBorderThreshold;
+		return renderNodeCount < scaled(nodeBorderThreshold);
 	}
 
 	/**
@@ -249,7 +346,7 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	 * @see #detail(int, int)
 	 */
 	public boolean nodeLabels(final int renderNodeCount, final int renderEdgeCount) {
-		return renderNodeCount < nodeLabelThreshold;
+		return renderNodeCount < scaled(nodeLabelThreshold);
 	}
 
 	/**
@@ -268,7 +365,7 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	 * @see #detail(int, int)
 	 */
 	public boolean customGraphics(final int renderNodeCount, final int renderEdgeCount) {
-		return renderNodeCount < nodeBorderThreshold;
+		return renderNodeCount < scaled(nodeBorderThreshold);
 	}
 
 	/**
@@ -287,7 +384,7 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	 * @see #detail(int, int)
 	 */
 	public boolean edgeArrows(final int renderNodeCount, final int renderEdgeCount) {
-		return renderEdgeCount < edgeArrowThreshold;
+		return renderEdgeCount < scaled(edgeArrowThreshold);
 	}
 
 	/**
@@ -346,7 +443,7 @@ public class DingGraphLOD extends GraphLOD implements PropertyUpdatedListener {
 	 * @see #detail(int, int)
 	 */
 	public boolean edgeLabels(final int renderNodeCount, final int renderEdgeCount) {
-		return renderEdgeCount < edgeLabelThreshold;
+		return renderEdgeCount < scaled(edgeLabelThreshold);
 	}
 
 	/**
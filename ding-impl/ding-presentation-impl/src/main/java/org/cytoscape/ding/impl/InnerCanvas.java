@@ -1,5 +1,6 @@
 package org.cytoscape.ding.impl;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Container;
@@ -30,7 +31,15 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 import javax.swing.JComponent;
 import javax.swing.JLabel;
@@ -44,6 +53,7 @@ import org.cytoscape.ding.impl.events.ViewportChangeListener;
 import org.cytoscape.graph.render.export.ImageImposter;
 import org.cytoscape.graph.render.immed.EdgeAnchors;
 import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.immed.SpriteCache;
 import org.cytoscape.graph.render.stateful.GraphLOD;
 import org.cytoscape.graph.render.stateful.GraphRenderer;
 import org.cytoscape.model.CyEdge;
@@ -60,6 +70,7 @@ import org.cytoscape.util.intr.LongStack;
 import org.cytoscape.util.swing.IconManager;
 import org.cytoscape.util.swing.LookAndFeelUtil;
 import org.cytoscape.view.model.View;
+import org.cytoscape.view.model.VisualProperty;
 import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.view.presentation.property.values.Bend;
 import org.cytoscape.view.presentation.property.values.Handle;
@@ -97,6 +108,33 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 	private final static long serialVersionUID = 1202416511420671L;
 
+	/**
+	 * With progressive rendering, viewport changes are drawn at full detail
+	 * right away as long as the last full detail frame took less than this.
+	 */
+	private static final long INTERACTIVE_FRAME_NANOS = 40000000L;
+
+	/** Runs the full detail pass of progressive rendering for all canvases. */
+	private static final ThreadPoolExecutor REFINE_EXECUTOR =
+		new ThreadPoolExecutor(1, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+		                       new ThreadFactory() {
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "InnerCanvas-refine");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+	static {
+		REFINE_EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Rasterized nodes and labels shared by all canvases, or null if turned
+	 * off; only used for on-screen frames, never for printing.
+	 */
+	private static final SpriteCache SPRITES = SpriteCache.getShared();
+
 	// TODO This is public because BirdsEyeView needs to ensure that it isn't null and that is ridiculous. 
 	public GraphGraphics m_grafx;
 
@@ -152,6 +190,18 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	private AddEdgeStateMonitor addEdgeMode;
 	private Timer hideEdgesTimer;
 	private Cursor moveCursor;
+
+	/** Incremented to abandon the pending full detail pass, if any. */
+	private final AtomicLong m_refineGeneration = new AtomicLong();
+	private volatile boolean m_refinePending;
+	private BufferedImage m_refineImage;
+	private long m_lastFullFrameNanos;
+
+	/**
+	 * This view's factor for the thresholds of a progressive DingGraphLOD,
+	 * which is shared by all views; guarded by m_lock.
+	 */
+	private double m_detailScale = 1.0;
 	
 
 	InnerCanvas(Object lock, DGraphView view, UndoSupport undo, IconManager iconManager) {
@@ -204,7 +254,9 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		if ((width > 0) && (height > 0)) {
 			final Image img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
 			GraphGraphics grafx = new GraphGraphics(img, false, true);
+			grafx.setSpriteCache(SPRITES);
 
+			cancelRefinement();
 			synchronized (m_lock) {
 				m_grafx = grafx;
 				
@@ -229,11 +281,15 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 		m_fontMetrics = g.getFontMetrics();
 
+		// Don't wait on m_lock for a full detail pass of a frame about to be replaced
+		if (m_view.isDirty())
+			cancelRefinement();
+
 		synchronized (m_lock) {
 			if (m_view.isDirty()) {
 				contentChanged = m_view.isContentChanged();
 				viewportChanged = m_view.isViewportChanged();
-				renderGraph(m_grafx,/* setLastRenderDetail = */ true, m_lod[0]);
+				renderFrame(viewportChanged && !contentChanged);
 				xCenter = m_xCenter;
 				yCenter = m_yCenter;
 				scaleFactor = m_scaleFactor;
@@ -338,6 +394,8 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	// TODO: set timer and setDrawEdges to false.  Set back to true when timer expires.
 	@Override
 	public void mouseWheelMoved(MouseWheelEvent e) {
+		cancelRefinement();
+
 		if (!m_view.isValueLocked(BasicVisualLexicon.NETWORK_SCALE_FACTOR)) {
 			setHideEdges();
 			adjustZoom(e.getWheelRotation());
@@ -346,6 +404,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	
 	@Override
 	public void mouseDragged(MouseEvent e) {
+		cancelRefinement();
 		mouseDraggedDelegator.delegateMouseEvent(e);
 	}
 
@@ -373,6 +432,8 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	}
 
 	public void mousePressed(MouseEvent e) {
+		cancelRefinement();
+
 		if ( addEdgeMode.addingEdge() )
 			addEdgeMousePressedDelegator.delegateMouseEvent(e);
 		else
@@ -388,6 +449,8 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	 * @param k The key event that we're listening for.
 	 */
 	public void keyPressed(KeyEvent k) {
+		cancelRefinement();
+
 		final int code = k.getKeyCode();
 		if ( (code == KeyEvent.VK_UP) || (code == KeyEvent.VK_DOWN) || 
 		     (code == KeyEvent.VK_LEFT) || (code == KeyEvent.VK_RIGHT)) {
@@ -727,8 +790,9 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	}
 
 	// Puts [last drawn] edges intersecting onto stack; as RootGraph indices.
-	// Depends on the state of several member variables, such as m_hash.
-	// Clobbers m_stack and m_ptBuff.
+	// Candidates come from the edge index, whose bounds include bends, so
+	// edges passing through the rectangle are found even if neither endpoint
+	// is near it.  Clobbers m_ptBuff.
 	// The rectangle extents are in component coordinate space.
 	// IMPORTANT: Code that calls this method should be holding m_lock.
 	final void computeEdgesIntersecting(final int xMini, final int yMini, final int xMaxi,
@@ -745,133 +809,84 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 		final double xMax = m_ptBuff[0];
 		final double yMax = m_ptBuff[1];
-		LongEnumerator edgeNodesEnum = m_hash.elements(); // Positive.
-		m_stack.empty();
-
-		final int edgeNodesCount = edgeNodesEnum.numRemaining();
-
-		for (int i = 0; i < edgeNodesCount; i++)
-			m_stack.push(edgeNodesEnum.nextLong());
-
-		m_hash.empty();
-		edgeNodesEnum = m_stack.elements();
 		stack.empty();
 
-		final CyNetwork graph = m_view.m_drawPersp;
+		m_view.syncEdgeIndex();
 
-		if ((m_lastRenderDetail & GraphRenderer.LOD_HIGH_DETAIL) == 0) {
-			// We won't need to look up arrows and their sizes.
-			for (int i = 0; i < edgeNodesCount; i++) {
-				final long node = edgeNodesEnum.nextLong(); // Positive.
-				final CyNode nodeObj = graph.getNode(node);
+		final LongEnumerator edgeHits = m_view.m_spacialEdges.queryOverlap((float) xMin,
+				(float) yMin, (float) xMax, (float) yMax, null, 0, false);
+		final CyNetwork graph = m_view.m_drawPersp;
 
-				if (!m_view.m_spacial.exists(node, m_view.m_extentsBuff, 0))
-					continue; // Will happen if e.g. node was removed. 
+		while (edgeHits.numRemaining() > 0) {
+			final long edgeInx = edgeHits.nextLong();
+			final CyEdge edge = graph.getEdge(edgeInx);
 
-				final float nodeX = (m_view.m_extentsBuff[0] + m_view.m_extentsBuff[2]) / 2;
-				final float nodeY = (m_view.m_extentsBuff[1] + m_view.m_extentsBuff[3]) / 2;
-				final Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(nodeObj, CyEdge.Type.ANY);
+			if (edge == null)
+				continue;
 
-				for ( CyEdge e : touchingEdges ) {      
-					final long edge = e.getSUID(); 
-					final long otherNode = node ^ e.getSource().getSUID().longValue() ^ e.getTarget().getSUID().longValue(); 
+			final CyNode srcNode = edge.getSource();
+			final CyNode trgNode = edge.getTarget();
 
-					if (m_hash.get(otherNode) < 0) {
-						m_view.m_spacial.exists(otherNode, m_view.m_extentsBuff, 0);
+			if (!m_view.m_spacial.exists(srcNode.getSUID(), m_view.m_extentsBuff, 0)
+			    || !m_view.m_spacial.exists(trgNode.getSUID(), m_extentsBuff2, 0))
+				continue; // Will happen if e.g. node was removed.
 
-						final float otherNodeX = (m_view.m_extentsBuff[0] + m_view.m_extentsBuff[2]) / 2;
-						final float otherNodeY = (m_view.m_extentsBuff[1] + m_view.m_extentsBuff[3]) / 2;
-						m_line.setLine(nodeX, nodeY, otherNodeX, otherNodeY);
+			if ((m_lastRenderDetail & GraphRenderer.LOD_HIGH_DETAIL) == 0) {
+				// We won't need to look up arrows and their sizes.
+				m_line.setLine((m_view.m_extentsBuff[0] + m_view.m_extentsBuff[2]) / 2,
+				               (m_view.m_extentsBuff[1] + m_view.m_extentsBuff[3]) / 2,
+				               (m_extentsBuff2[0] + m_extentsBuff2[2]) / 2,
+				               (m_extentsBuff2[1] + m_extentsBuff2[3]) / 2);
 
-						if (m_line.intersects(xMin, yMin, xMax - xMin, yMax - yMin))
-							stack.push(edge);
-					}
-				}
+				if (m_line.intersects(xMin, yMin, xMax - xMin, yMax - yMin))
+					stack.push(edgeInx);
 
-				m_hash.put(node);
+				continue;
 			}
-		} else { // Last render high detail.
-			for (int i = 0; i < edgeNodesCount; i++) {
-				final long node = edgeNodesEnum.nextLong(); // Positive.
-				final CyNode nodeObj = graph.getNode(node);
-
-				if (!m_view.m_spacial.exists(node, m_view.m_extentsBuff, 0))
-					continue; /* Will happen if e.g. node was removed. */
-
-				final byte nodeShape = m_view.m_nodeDetails.getShape(nodeObj);
-				final Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(nodeObj, CyEdge.Type.ANY);
- 
-				for ( CyEdge edge : touchingEdges ) {      
-//					final int edge = e.getIndex(); // Positive.
-					final double segThicknessDiv2 = m_view.m_edgeDetails.getWidth(edge) / 2.0d;
-					final long otherNode = node ^ edge.getSource().getSUID().longValue() ^ edge.getTarget().getSUID().longValue();
-					final CyNode otherNodeObj = graph.getNode(otherNode);
-
-					if (m_hash.get(otherNode) < 0) {
-						m_view.m_spacial.exists(otherNode, m_extentsBuff2, 0);
-
-						final byte otherNodeShape = m_view.m_nodeDetails.getShape(otherNodeObj);
-						final byte srcShape;
-						final byte trgShape;
-						final float[] srcExtents;
-						final float[] trgExtents;
-
-						if (node == edge.getSource().getSUID().longValue()) {
-							srcShape = nodeShape;
-							trgShape = otherNodeShape;
-							srcExtents = m_view.m_extentsBuff;
-							trgExtents = m_extentsBuff2;
-						} else { // node == graph.edgeTarget(edge).
-							srcShape = otherNodeShape;
-							trgShape = nodeShape;
-							srcExtents = m_extentsBuff2;
-							trgExtents = m_view.m_extentsBuff;
-						}
-
-						final byte srcArrow;
-						final byte trgArrow;
-						final float srcArrowSize;
-						final float trgArrowSize;
 
-						if ((m_lastRenderDetail & GraphRenderer.LOD_EDGE_ARROWS) == 0) {
-							srcArrow = trgArrow = GraphGraphics.ARROW_NONE;
-							srcArrowSize = trgArrowSize = 0.0f;
-						} else {
-							srcArrow = m_view.m_edgeDetails.getSourceArrowShape(edge);
-							trgArrow = m_view.m_edgeDetails.getTargetArrowShape(edge);
-							srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
-							                ? 0.0f
-							                : m_view.m_edgeDetails.getSourceArrowSize(edge));
-							trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE) 
-							                ? 0.0f
-							                : m_view.m_edgeDetails.getTargetArrowSize(edge));
-						}
-
-						final EdgeAnchors anchors = (((m_lastRenderDetail
-						                              & GraphRenderer.LOD_EDGE_ANCHORS) == 0)
-						                             ? null : m_view.m_edgeDetails.getAnchors(edge));
-
-						if (!GraphRenderer.computeEdgeEndpoints(m_grafx, srcExtents, srcShape,
-						                                        srcArrow, srcArrowSize, anchors,
-						                                        trgExtents, trgShape, trgArrow,
-						                                        trgArrowSize, m_floatBuff1,
-						                                        m_floatBuff2))
-							continue;
-
-						m_grafx.getEdgePath(srcArrow, srcArrowSize, trgArrow, trgArrowSize,
-						                    m_floatBuff1[0], m_floatBuff1[1], anchors,
-						                    m_floatBuff2[0], m_floatBuff2[1], m_path);
-						GraphRenderer.computeClosedPath(m_path.getPathIterator(null), m_path2);
-
-						if (m_path2.intersects(xMin - segThicknessDiv2, yMin - segThicknessDiv2,
-						                       (xMax - xMin) + (segThicknessDiv2 * 2),
-						                       (yMax - yMin) + (segThicknessDiv2 * 2)))
-							stack.push(edge.getSUID().longValue());
-					}
-				}
-
-				m_hash.put(node);
+			// Last render high detail.
+			final double segThicknessDiv2 = m_view.m_edgeDetails.getWidth(edge) / 2.0d;
+			final byte srcShape = m_view.m_nodeDetails.getShape(srcNode);
+			final byte trgShape = m_view.m_nodeDetails.getShape(trgNode);
+			final byte srcArrow;
+			final byte trgArrow;
+			final float srcArrowSize;
+			final float trgArrowSize;
+
+			if ((m_lastRenderDetail & GraphRenderer.LOD_EDGE_ARROWS) == 0) {
+				srcArrow = trgArrow = GraphGraphics.ARROW_NONE;
+				srcArrowSize = trgArrowSize = 0.0f;
+			} else {
+				srcArrow = m_view.m_edgeDetails.getSourceArrowShape(edge);
+				trgArrow = m_view.m_edgeDetails.getTargetArrowShape(edge);
+				srcArrowSize = ((srcArrow == GraphGraphics.ARROW_NONE) 
+				                ? 0.0f
+				                : m_view.m_edgeDetails.getSourceArrowSize(edge));
+				trgArrowSize = ((trgArrow == GraphGraphics.ARROW_NONE) 
+				                ? 0.0f
+				                : m_view.m_edgeDetails.getTargetArrowSize(edge));
 			}
+
+			final EdgeAnchors anchors = (((m_lastRenderDetail
+			                              & GraphRenderer.LOD_EDGE_ANCHORS) == 0)
+			                             ? null : m_view.m_edgeDetails.getAnchors(edge));
+
+			if (!GraphRenderer.computeEdgeEndpoints(m_grafx, m_view.m_extentsBuff, srcShape,
+			                                        srcArrow, srcArrowSize, anchors,
+			                                        m_extentsBuff2, trgShape, trgArrow,
+			                                        trgArrowSize, m_floatBuff1,
+			                                        m_floatBuff2))
+				continue;
+
+			m_grafx.getEdgePath(srcArrow, srcArrowSize, trgArrow, trgArrowSize,
+			                    m_floatBuff1[0], m_floatBuff1[1], anchors,
+			                    m_floatBuff2[0], m_floatBuff2[1], m_path);
+			GraphRenderer.computeClosedPath(m_path.getPathIterator(null), m_path2);
+
+			if (m_path2.intersects(xMin - segThicknessDiv2, yMin - segThicknessDiv2,
+			                       (xMax - xMin) + (segThicknessDiv2 * 2),
+			                       (yMax - yMin) + (segThicknessDiv2 * 2)))
+				stack.push(edgeInx);
 		}
 	}
 
@@ -906,6 +921,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		else
 			factor = 0.9; // scroll down, zoom out
 
+		cancelRefinement();
 		synchronized (m_lock) {
 			m_scaleFactor = m_scaleFactor * factor;
 		}
@@ -1027,6 +1043,102 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 		// repaint();
 	}
 
+	/**
+	 * Renders the dirty view into m_grafx; must be called holding m_lock.  With
+	 * progressive rendering enabled a slow view is first drawn at low detail,
+	 * and the full detail frame follows from a background thread.
+	 */
+	private void renderFrame(final boolean viewportOnly) {
+		final long generation = m_refineGeneration.incrementAndGet();
+		final GraphLOD lod = m_lod[0];
+
+		if (!(lod instanceof DingGraphLOD) || !((DingGraphLOD) lod).isProgressive()) {
+			m_refinePending = false;
+			renderGraph(m_grafx, /* setLastRenderDetail = */ true, lod);
+		} else if (!viewportOnly || m_lastFullFrameNanos < INTERACTIVE_FRAME_NANOS) {
+			m_refinePending = false;
+			renderFullDetail(m_grafx, (DingGraphLOD) lod);
+		} else {
+			renderGraph(m_grafx, /* setLastRenderDetail = */ false,
+			            new CoarseGraphLOD(((DingGraphLOD) lod).withDetailScale(m_detailScale)));
+			m_refinePending = true;
+			REFINE_EXECUTOR.execute(() -> refine(generation));
+		}
+	}
+
+	private void renderFullDetail(final GraphGraphics graphics, final DingGraphLOD lod) {
+		final DingGraphLOD frameLOD = lod.withDetailScale(m_detailScale);
+		final long start = System.nanoTime();
+		renderGraph(graphics, /* setLastRenderDetail = */ true, frameLOD);
+		m_lastFullFrameNanos = System.nanoTime() - start;
+		frameLOD.frameRendered(m_lastFullFrameNanos);
+		m_detailScale = frameLOD.getDetailScale();
+	}
+
+	/**
+	 * The background half of progressive rendering: draws the current viewport
+	 * at full detail into a separate image and, unless the viewport changed in
+	 * the meantime, copies it over the low detail frame.
+	 */
+	private void refine(final long generation) {
+		final BooleanSupplier cancelled = () -> m_refineGeneration.get() != generation;
+
+		if (cancelled.getAsBoolean())
+			return;
+
+		synchronized (m_lock) {
+			// If the view is dirty again, a repaint is on its way and will
+			// schedule a pass of its own.
+			if (cancelled.getAsBoolean() || m_view == null || m_view.isDirty() || m_grafx == null
+					|| !(m_lod[0] instanceof DingGraphLOD))
+				return;
+
+			final int width = m_grafx.image.getWidth(null);
+			final int height = m_grafx.image.getHeight(null);
+
+			if (m_refineImage == null || m_refineImage.getWidth() != width || m_refineImage.getHeight() != height)
+				m_refineImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+			final GraphGraphics graphics = new InterruptibleGraphGraphics(m_refineImage, cancelled);
+			graphics.setSpriteCache(SPRITES);
+
+			try {
+				renderFullDetail(graphics, (DingGraphLOD) m_lod[0]);
+			} catch (InterruptibleGraphGraphics.RenderCancelledException e) {
+				return;
+			}
+
+			final Graphics2D g = (Graphics2D) m_grafx.image.getGraphics();
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(m_refineImage, 0, 0, null);
+			g.dispose();
+			m_refinePending = false;
+		}
+
+		repaint();
+	}
+
+	/**
+	 * Abandons the pending full detail pass so that the caller does not wait
+	 * for it on m_lock, and marks the viewport dirty so that the next repaint
+	 * schedules a new one.  The pass holds m_lock for a whole frame, so call
+	 * this before taking m_lock on the event dispatch thread.
+	 */
+	void cancelRefinement() {
+		if (!m_refinePending)
+			return;
+
+		m_refinePending = false;
+		m_refineGeneration.incrementAndGet();
+
+		final DGraphView view = m_view;
+
+		if (view != null) {
+			view.setViewportChanged();
+			repaint();
+		}
+	}
+
 	private void handleEscapeKey() {
 		AddEdgeStateMonitor.reset(m_view);
 		repaint();
@@ -1126,6 +1238,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 	}
 	
 	private void pan(double deltaX, double deltaY) {
+		cancelRefinement();
 		synchronized (m_lock) {
 			double newX = m_xCenter - (deltaX / m_scaleFactor);
 			double newY = m_yCenter - (deltaY / m_scaleFactor);
@@ -1207,6 +1320,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 			long chosenNodeSelected = 0;
 			long chosenEdgeSelected = 0;
 	
+			cancelRefinement();
 			synchronized (m_lock) {
 				if (m_view.m_nodeSelection)
 					chosenNode = getChosenNode();
@@ -1386,6 +1500,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 					long[] selectedNodes = null;
 					long[] selectedEdges = null;
 	
+					cancelRefinement();
 					synchronized (m_lock) {
 						if (m_view.m_nodeSelection || m_view.m_edgeSelection) {
 							if (m_view.m_nodeSelection)
@@ -1399,10 +1514,13 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 
 					// Update visual property value (x/y)
 					if (selectedNodes != null){
+						final Map<VisualProperty<?>, Object> location = new LinkedHashMap<VisualProperty<?>, Object>();
+
 						for (long node : selectedNodes) {
 							final DNodeView dNodeView = (DNodeView) m_view.getDNodeView(node);
-							dNodeView.setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION, dNodeView.getXPosition());
-							dNodeView.setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION, dNodeView.getYPosition());
+							location.put(BasicVisualLexicon.NODE_X_LOCATION, dNodeView.getXPosition());
+							location.put(BasicVisualLexicon.NODE_Y_LOCATION, dNodeView.getYPosition());
+							dNodeView.setVisualProperties(location);
 						}						
 					}
 					if (!m_lod[0].getDrawEdges()) {
@@ -1544,6 +1662,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 				if (m_undoable_edit == null)
 					m_undoable_edit = new ViewChangeEdit(m_view, ViewChangeEdit.SavedObjs.SELECTED, "Move",m_undo);
 				
+				cancelRefinement();
 				synchronized (m_lock) {
 					m_ptBuff[0] = m_lastXMousePos;
 					m_ptBuff[1] = m_lastYMousePos;
@@ -1647,6 +1766,7 @@ public class InnerCanvas extends DingCanvas implements MouseListener, MouseMotio
 				m_lastXMousePos = e.getX();
 				m_lastYMousePos = e.getY();
 		
+				cancelRefinement();
 				synchronized (m_lock) {
 					double newX = m_xCenter - (deltaX / m_scaleFactor);
 					double newY = m_yCenter - (deltaY / m_scaleFactor);
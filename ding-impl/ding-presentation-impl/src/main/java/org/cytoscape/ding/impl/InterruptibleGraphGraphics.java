@@ -0,0 +1,141 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.TexturePaint;
+import java.util.function.BooleanSupplier;
+
+import org.cytoscape.graph.render.immed.EdgeAnchors;
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.presentation.customgraphics.CustomGraphicLayer;
+
+/**
+ * GraphGraphics that abandons the frame being rendered as soon as it is
+ * cancelled.  The check happens before every draw call, so a renderer
+ * drawing into it returns within one node or edge by way of a
+ * {@link RenderCancelledException}.
+ */
+final class InterruptibleGraphGraphics extends GraphGraphics {
+
+	/**
+	 * Thrown out of the renderer when the frame has been cancelled.  The
+	 * image is left partially drawn.
+	 */
+	static final class RenderCancelledException extends RuntimeException {
+		private final static long serialVersionUID = 1457923103552719L;
+
+		RenderCancelledException() {
+			super(null, null, false, false);
+		}
+	}
+
+	private final BooleanSupplier cancelled;
+
+	InterruptibleGraphGraphics(final Image image, final BooleanSupplier cancelled) {
+		super(image, /* debug = */ false, /* clear = */ true);
+		this.cancelled = cancelled;
+	}
+
+	private void checkCancelled() {
+		if (cancelled.getAsBoolean())
+			throw new RenderCancelledException();
+	}
+
+	@Override
+	public void clear(final Paint bgPaint, final double xCenter,
+			final double yCenter, final double scaleFactor) {
+		checkCancelled();
+		super.clear(bgPaint, xCenter, yCenter, scaleFactor);
+	}
+
+	@Override
+	public void drawNodeLow(final float xMin, final float yMin,
+			final float xMax, final float yMax, final Color fillColor) {
+		checkCancelled();
+		super.drawNodeLow(xMin, yMin, xMax, yMax, fillColor);
+	}
+
+	@Override
+	public Shape drawNodeFull(final byte nodeShape, final float xMin,
+			final float yMin, final float xMax, final float yMax,
+			final Paint fillPaint, final float borderWidth, final Stroke borderStroke,
+			final Paint borderPaint) {
+		checkCancelled();
+		return super.drawNodeFull(nodeShape, xMin, yMin, xMax, yMax, fillPaint,
+		                          borderWidth, borderStroke, borderPaint);
+	}
+
+	@Override
+	public void drawEdgeLow(final float x0, final float y0,
+			final float x1, final float y1, final Color edgeColor) {
+		checkCancelled();
+		super.drawEdgeLow(x0, y0, x1, y1, edgeColor);
+	}
+
+	@Override
+	public void drawEdgeFull(final byte arrow0Type,
+			final float arrow0Size, final Paint arrow0Paint,
+			final byte arrow1Type, final float arrow1Size,
+			final Paint arrow1Paint, final float x0, final float y0,
+			final EdgeAnchors anchors, final float x1, final float y1,
+			final float edgeThickness, final Stroke edgeStroke, final Paint edgePaint) {
+		checkCancelled();
+		super.drawEdgeFull(arrow0Type, arrow0Size, arrow0Paint, arrow1Type, arrow1Size,
+		                   arrow1Paint, x0, y0, anchors, x1, y1, edgeThickness, edgeStroke,
+		                   edgePaint);
+	}
+
+	@Override
+	public void drawTextFull(final Font font, final double scaleFactor,
+			final String text, final float xCenter, final float yCenter,
+			final float theta, final Paint paint, final boolean drawTextAsShape) {
+		checkCancelled();
+		super.drawTextFull(font, scaleFactor, text, xCenter, yCenter, theta, paint, drawTextAsShape);
+	}
+
+	@Override
+	public void drawCustomGraphicImage(final Shape shape,
+			final float xOffset, final float yOffset, final TexturePaint paint) {
+		checkCancelled();
+		super.drawCustomGraphicImage(shape, xOffset, yOffset, paint);
+	}
+
+	@Override
+	public void drawCustomGraphicFull(final CyNetworkView netView, final CyNode node,
+	                                  final Shape nodeShape, final CustomGraphicLayer cg,
+	                                  final float xOffset, final float yOffset) {
+		checkCancelled();
+		super.drawCustomGraphicFull(netView, node, nodeShape, cg, xOffset, yOffset);
+	}
+}
@@ -0,0 +1,83 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.cytoscape.view.model.VisualProperty;
+
+/**
+ * Maps visual properties to the code that applies their values to a view, so
+ * that applying a value does not compare its visual property against every
+ * property the view knows about.  Visual properties that were not registered
+ * (such as the custom graphics properties of a lexicon) are resolved by a
+ * fallback the first time they are seen and remembered from then on.
+ */
+final class VisualPropertyDispatch<V> {
+
+	interface Applier<V> {
+		void apply(V view, Object value);
+	}
+
+	private final Applier<V> ignore = (view, value) -> {};
+	private final Function<VisualProperty<?>, Applier<V>> fallback;
+
+	// Never modified once published, so lookups need no locking.
+	private volatile Map<VisualProperty<?>, Applier<V>> appliers;
+
+	/**
+	 * @param fallback returns the applier of a visual property that was not
+	 *   registered, or null if the view ignores it.
+	 */
+	VisualPropertyDispatch(final Function<VisualProperty<?>, Applier<V>> fallback) {
+		this.fallback = fallback;
+		this.appliers = new IdentityHashMap<VisualProperty<?>, Applier<V>>();
+	}
+
+	synchronized void put(final VisualProperty<?> vp, final Applier<V> applier) {
+		final Map<VisualProperty<?>, Applier<V>> copy = new IdentityHashMap<VisualProperty<?>, Applier<V>>(appliers);
+		copy.put(vp, applier);
+		appliers = copy;
+	}
+
+	Applier<V> get(final VisualProperty<?> vp) {
+		final Applier<V> applier = appliers.get(vp);
+
+		if (applier != null)
+			return applier;
+
+		synchronized (this) {
+			if (!appliers.containsKey(vp)) {
+				final Applier<V> resolved = fallback.apply(vp);
+				put(vp, resolved != null ? resolved : ignore);
+			}
+
+			return appliers.get(vp);
+		}
+	}
+}
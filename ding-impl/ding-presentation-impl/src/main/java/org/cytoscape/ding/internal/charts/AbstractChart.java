@@ -52,6 +52,9 @@ public abstract class AbstractChart<T extends CustomGraphicLayer> extends Abstra
 	
 	private final CyColumnIdentifierFactory colIdFactory;
 	
+	/** Replaced whenever a property changes, so that cached chart images of the old properties are not reused */
+	private volatile Object imageToken = new Object();
+	
 	protected AbstractChart(final String displayName, final CyColumnIdentifierFactory colIdFactory) {
 		super(displayName);
 		
@@ -105,6 +108,20 @@ public abstract class AbstractChart<T extends CustomGraphicLayer> extends Abstra
 		// Doesn't need to do anything here, because charts are updated when layers are recreated.
 	}
 	
+	@Override
+	public synchronized void set(final String key, final Object value) {
+		super.set(key, value);
+		imageToken = new Object();
+	}
+	
+	/**
+	 * @return an object that identifies the current properties of this chart; it must be passed to the layers
+	 *         with {@link AbstractChartLayer#setImageToken(Object)}.
+	 */
+	protected Object getImageToken() {
+		return imageToken;
+	}
+	
 	public Map<String, List<Double>> getDataFromColumns(final CyNetwork network, final CyIdentifiable model,
 			final List<CyColumnIdentifier> columnNames) {
 		LinkedHashMap<String, List<Double>> data = new LinkedHashMap<>();
@@ -5,18 +5,22 @@ import java.awt.Color;
 import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.TexturePaint;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.cytoscape.ding.customgraphics.paint.TexturePaintFactory;
+import org.cytoscape.graph.render.immed.SpriteCache;
 import org.cytoscape.model.CyIdentifiable;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.View;
@@ -34,6 +38,11 @@ import org.jfree.data.general.PieDataset;
 public abstract class AbstractChartLayer<T extends Dataset> implements Cy2DGraphicLayer {
 
 	public static final int MAX_IMG_RESOLUTION = 3145728;
+	
+	/** Charts larger than this many pixels on the screen are drawn directly rather than from a cached image */
+	public static final int MAX_CACHED_IMAGE_SIZE = 512;
+	
+	private static final int IMAGE_PADDING = 2;
 	public static final Color TRANSPARENT_COLOR = new Color(0x00, 0x00, 0x00, 0);
 	
 	/** Divisor which should be applied to chart lines so they have the same thickness as Cytoscape lines */
@@ -64,6 +73,7 @@ public abstract class AbstractChartLayer<T extends Dataset> implements Cy2DGraph
 	private JFreeChart chart;
 	protected BufferedImage img;
 	protected TexturePaint paint;
+	private Object imageToken;
 	
 	// ==[ CONSTRUCTORS ]===============================================================================================
 	
@@ -121,6 +131,54 @@ public abstract class AbstractChartLayer<T extends Dataset> implements Cy2DGraph
 	@Override
 	public void draw(final Graphics2D g, final Shape shape, final CyNetworkView networkView, 
 			final View<? extends CyIdentifiable> view) {
+		// Only views drawn to the screen set a sprite cache; printing and export always get vector graphics
+		final Object sprites = g.getRenderingHint(SpriteCache.KEY_SPRITE_CACHE);
+		
+		if (sprites instanceof SpriteCache && imageToken != null && view != null
+				&& drawImage(g, (SpriteCache) sprites, view.getModel().getSUID()))
+			return;
+		
+		drawChart(g, g.getComposite());
+	}
+	
+	/**
+	 * Sets the object that identifies the properties of the chart this layer was created from.
+	 * Layers without one are never drawn from cached images.
+	 */
+	public void setImageToken(final Object imageToken) {
+		this.imageToken = imageToken;
+	}
+	
+	/**
+	 * Drops the cached images of the charts of the given nodes or edges, whose row values have changed.
+	 */
+	public static void invalidateImages(final SpriteCache sprites, final Collection<Long> suids) {
+		if (!suids.isEmpty())
+			sprites.invalidate(key -> key instanceof ImageKey && suids.contains(((ImageKey) key).suid));
+	}
+	
+	@Override
+	public TexturePaint getPaint(final Rectangle2D r) {
+		// If the bounds are the same as before, there is no need to recreate the "same" image again
+		if (img == null || paint == null || !r.equals(scaledBounds)) {
+			// Recreate and cache Image and TexturePaint
+			img = createImage(r);
+			paint = new TexturePaintFactory(img).getPaint(
+					new Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight()));
+		}
+		
+		scaledBounds = r;
+		
+		return paint;
+	}
+	
+	// ==[ PRIVATE METHODS ]============================================================================================
+	
+	/**
+	 * Draws the chart into its bounds.
+	 * @param composite the composite of the target Graphics2D; its alpha is applied to the chart's foreground
+	 */
+	protected void drawChart(final Graphics2D g, final Composite composite) {
 		// Give JFreeChart a larger area to draw into, so the proportions of the chart elements looks better
 		final double scale = 2.0;
 		Rectangle2D newBounds = new Rectangle2D.Double(bounds.getX() * scale, bounds.getY() * scale,
@@ -132,9 +190,8 @@ public abstract class AbstractChartLayer<T extends Dataset> implements Cy2DGraph
 		g.transform(at);
 
 		// Check to see if we have a current alpha composite
-		Composite comp = g.getComposite();
-		if (comp instanceof AlphaComposite) {
-			float alpha = ((AlphaComposite)comp).getAlpha();
+		if (composite instanceof AlphaComposite) {
+			float alpha = ((AlphaComposite)composite).getAlpha();
 			JFreeChart fc = getChart();
 			Plot plot = fc.getPlot();
 			plot.setForegroundAlpha(alpha);
@@ -154,23 +211,64 @@ public abstract class AbstractChartLayer<T extends Dataset> implements Cy2DGraph
 		g.transform(at);
 	}
 	
-	@Override
-	public TexturePaint getPaint(final Rectangle2D r) {
-		// If the bounds are the same as before, there is no need to recreate the "same" image again
-		if (img == null || paint == null || !r.equals(scaledBounds)) {
-			// Recreate and cache Image and TexturePaint
-			img = createImage(r);
-			paint = new TexturePaintFactory(img).getPaint(
-					new Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight()));
+	/**
+	 * Copies an image of the chart, drawn at about the current zoom level, instead of drawing the chart again.
+	 * @return false if the chart is too large on the screen or the transform is not a plain zoom,
+	 *         in which case nothing was drawn
+	 */
+	private boolean drawImage(final Graphics2D g, final SpriteCache sprites, final Long suid) {
+		final AffineTransform xform = g.getTransform();
+		
+		if ((xform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE)) != 0)
+			return false;
+		
+		final int bucket = SpriteCache.scaleBucket(xform.getScaleX());
+		final double scale = SpriteCache.bucketScale(bucket);
+		final double w = bounds.getWidth() * scale;
+		final double h = bounds.getHeight() * scale;
+		
+		if (w < 1 || h < 1 || w > MAX_CACHED_IMAGE_SIZE || h > MAX_CACHED_IMAGE_SIZE)
+			return false;
+		
+		final Composite composite = g.getComposite();
+		final float alpha = composite instanceof AlphaComposite ? ((AlphaComposite) composite).getAlpha() : -1.0f;
+		final ImageKey key = new ImageKey(this, suid, bucket, alpha);
+		BufferedImage image = sprites.getImage(key);
+		
+		if (image == null) {
+			image = new BufferedImage((int) Math.ceil(w) + 2 * IMAGE_PADDING, (int) Math.ceil(h) + 2 * IMAGE_PADDING,
+					BufferedImage.TYPE_INT_ARGB_PRE);
+			final Graphics2D ig = image.createGraphics();
+			ig.setRenderingHints(g.getRenderingHints());
+			ig.translate(IMAGE_PADDING, IMAGE_PADDING);
+			ig.scale(scale, scale);
+			ig.translate(-bounds.getX(), -bounds.getY());
+			drawChart(ig, composite);
+			ig.dispose();
+			
+			sprites.putImage(key, image);
 		}
 		
-		scaledBounds = r;
+		// Align the image to whole pixels, so it is copied without a general transform
+		final double ratio = xform.getScaleX() / scale;
+		final Point2D origin = xform.transform(new Point2D.Double(bounds.getX(), bounds.getY()), null);
+		final int left = (int) Math.round(origin.getX() - IMAGE_PADDING * ratio);
+		final int top = (int) Math.round(origin.getY() - IMAGE_PADDING * ratio);
+		final Object interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
 		
-		return paint;
+		g.setTransform(new AffineTransform());
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(image, left, top, (int) Math.round(image.getWidth() * ratio),
+				(int) Math.round(image.getHeight() * ratio), null);
+		
+		if (interpolation != null)
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		
+		g.setTransform(xform);
+		
+		return true;
 	}
 	
-	// ==[ PRIVATE METHODS ]============================================================================================
-	
 	protected JFreeChart getChart() {
 		if (chart == null) {
 			final T dataset = createDataset();
@@ -332,4 +430,58 @@ public abstract class AbstractChartLayer<T extends Dataset> implements Cy2DGraph
 		
 		return range;
 	}
+	
+	/**
+	 * Identifies a cached chart image.  The properties of the chart are covered by the image token; the values read
+	 * from the row are compared as well, so that a missed row change cannot bring back a stale image.
+	 */
+	private static final class ImageKey {
+		
+		private final Object token;
+		private final Long suid;
+		private final Map<String, List<Double>> data;
+		private final List<String> itemLabels;
+		private final List<String> domainLabels;
+		private final List<String> rangeLabels;
+		private final List<Color> colors;
+		private final List<Double> range;
+		private final double width;
+		private final double height;
+		private final int bucket;
+		private final float alpha;
+		
+		ImageKey(final AbstractChartLayer<?> layer, final Long suid, final int bucket, final float alpha) {
+			this.token = layer.imageToken;
+			this.suid = suid;
+			this.data = layer.data;
+			this.itemLabels = layer.itemLabels;
+			this.domainLabels = layer.domainLabels;
+			this.rangeLabels = layer.rangeLabels;
+			this.colors = layer.colors;
+			this.range = layer.range;
+			this.width = layer.bounds.getWidth();
+			this.height = layer.bounds.getHeight();
+			this.bucket = bucket;
+			this.alpha = alpha;
+		}
+		
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof ImageKey))
+				return false;
+			
+			final ImageKey k = (ImageKey) o;
+			
+			return token == k.token && suid.equals(k.suid) && bucket == k.bucket && alpha == k.alpha
+					&& width == k.width && height == k.height && Objects.equals(data, k.data)
+					&& Objects.equals(itemLabels, k.itemLabels) && Objects.equals(domainLabels, k.domainLabels)
+					&& Objects.equals(rangeLabels, k.rangeLabels) && Objects.equals(colors, k.colors)
+					&& Objects.equals(range, k.range);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(token), suid, bucket, alpha, width, height, data);
+		}
+	}
 }
@@ -108,6 +108,8 @@ public class BarChart extends AbstractChart<BarLayer> {
 				showDomainAxis, showRangeAxis, showRangeZeroBaseline, itemFontSize, domainLabelPosition, colors,
 				axisWidth, axisColor, axisFontSize, borderWidth, borderColor, separation, range, orientation, bounds);
 
+		layer.setImageToken(getImageToken());
+		
 		return Collections.singletonList(layer);
 	}
 
@@ -76,6 +76,8 @@ public class BoxChart extends AbstractChart<BoxLayer> {
 		final BoxLayer layer = new BoxLayer(data, showRangeAxis, showRangeZeroBaseline, colors, axisWidth, axisColor,
 				axisFontSize, borderWidth, borderColor, range, orientation, bounds);
 		
+		layer.setImageToken(getImageToken());
+		
 		return Collections.singletonList(layer);
 	}
 
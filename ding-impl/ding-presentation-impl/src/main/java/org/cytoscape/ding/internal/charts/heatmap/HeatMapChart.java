@@ -83,6 +83,8 @@ public class HeatMapChart extends AbstractChart<HeatMapLayer> {
 				showDomainAxis, showRangeAxis, domainLabelPosition, colors, axisColor, axisFontSize, range, orientation,
 				bounds);
 		
+		layer.setImageToken(getImageToken());
+		
 		return Collections.singletonList(layer);
 	}
 
@@ -91,6 +91,8 @@ public class LineChart extends AbstractChart<LineLayer> {
 				showRangeAxis, showRangeZeroBaseline, itemFontSize, domainLabelPosition, colors, axisWidth, axisColor,
 				axisFontSize, range, lineWidth, bounds);
 		
+		layer.setImageToken(getImageToken());
+		
 		return Collections.singletonList(layer);
 	}
 
@@ -74,6 +74,8 @@ public class PieChart extends AbstractChart<PieLayer> {
 		final PieLayer layer = new PieLayer(data, labels, showLabels, itemFontSize, colors, borderWidth, borderColor,
 				startAngle, rotation, bounds);
 		
+		layer.setImageToken(getImageToken());
+		
 		return Collections.singletonList(layer);
 	}
 
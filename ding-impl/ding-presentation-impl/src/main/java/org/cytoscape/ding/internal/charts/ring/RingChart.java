@@ -73,6 +73,8 @@ public class RingChart extends AbstractChart<RingLayer> {
 		final RingLayer layer = new RingLayer(data, labels, showLabels, itemFontSize, colors, borderWidth, borderColor,
 				startAngle, hole, rotation, bounds);
 		
+		layer.setImageToken(getImageToken());
+		
 		return Collections.singletonList(layer);
 	}
 
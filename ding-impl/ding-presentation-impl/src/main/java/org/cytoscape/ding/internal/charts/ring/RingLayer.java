@@ -2,11 +2,11 @@ package org.cytoscape.ding.internal.charts.ring;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Rectangle;
-import java.awt.Shape;
 import java.awt.Toolkit;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -25,9 +25,6 @@ import org.cytoscape.ding.internal.charts.AbstractChartLayer;
 import org.cytoscape.ding.internal.charts.CustomPieSectionLabelGenerator;
 import org.cytoscape.ding.internal.charts.LabelPosition;
 import org.cytoscape.ding.internal.charts.pie.PieLayer;
-import org.cytoscape.model.CyIdentifiable;
-import org.cytoscape.view.model.CyNetworkView;
-import org.cytoscape.view.model.View;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.RingPlot;
@@ -67,15 +64,14 @@ public class RingLayer extends AbstractChartLayer<PieDataset> {
         this.labels = new HashMap<String, String>();
 	}
 	
-	// ==[ PUBLIC METHODS ]=============================================================================================
+	// ==[ PRIVATE METHODS ]============================================================================================
 	
 	@Override
-	public void draw(final Graphics2D g, final Shape shape, final CyNetworkView networkView, 
-			final View<? extends CyIdentifiable> view) {
+	protected void drawChart(final Graphics2D g, final Composite composite) {
 		getChart(); // Make sure charts have been created
 		
 		if (chartList.size() == 1) {
-			super.draw(g, shape, networkView, view);
+			super.drawChart(g, composite);
 		} else {
 	        for (final JFreeChart chart : chartList) {
 	        	chart.draw(g, bounds);
@@ -83,8 +79,6 @@ public class RingLayer extends AbstractChartLayer<PieDataset> {
 		}
 	}
 	
-	// ==[ PRIVATE METHODS ]============================================================================================
-	
 	@Override
 	protected PieDataset createDataset() {
 		datasetList = new ArrayList<PieDataset>();
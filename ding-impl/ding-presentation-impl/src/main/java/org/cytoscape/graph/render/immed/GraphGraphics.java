@@ -50,6 +50,8 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.cytoscape.graph.render.immed.arrow.Arrow;
 import org.cytoscape.graph.render.immed.arrow.ArrowheadArrow;
@@ -121,8 +123,13 @@ import org.cytoscape.view.presentation.customgraphics.PaintedShape;
  * situations [such as rendering to a non-image such as a vector graphic] it may
  * make sense to never call any of the methods from the AWT event dispatching
  * thread.
+ * <p>
+ * A single instance must never be used by more than one thread at a time, but
+ * distinct instances share no mutable state other than an optional
+ * SpriteCache, which is thread safe, and may therefore render concurrently
+ * into separate images.
  */
-public final class GraphGraphics {
+public class GraphGraphics {
 
 	/**
 	 * Node shape constants
@@ -140,7 +147,9 @@ public final class GraphGraphics {
 	// package scoped for unit testing
 	static final byte s_last_shape = SHAPE_VEE;
 
-	private static final Map<Byte,NodeShape> nodeShapes;
+	// Shape instances reuse internal geometry buffers, so every GraphGraphics
+	// owns its own set; this allows distinct instances to render concurrently.
+	private final Map<Byte,NodeShape> nodeShapes = createNodeShapes();
 
 	/**
 	 * This value is currently 100.
@@ -165,7 +174,7 @@ public final class GraphGraphics {
 	public static final byte ARROW_DIAMOND_SHORT_2 = -13;
 
 	// The way to access all Arrow objects.
-	private static final Map<Byte,Arrow> arrows;
+	private final Map<Byte,Arrow> arrows = createArrows();
 
 	/**
 	 * This value is currently 64.
@@ -179,10 +188,10 @@ public final class GraphGraphics {
 	private static final double CURVE_ELLIPTICAL = (4.0d * (Math.sqrt(2.0d) - 1.0d)) / 3.0d;
 
 	// Mapping from node to its border stroke object.
-	private static final Map<Float,Stroke> borderStrokes = new HashMap<Float,Stroke>();
+	private static final ConcurrentMap<Float,Stroke> borderStrokes = new ConcurrentHashMap<Float,Stroke>();
 
-	static {		
-		nodeShapes = new HashMap<Byte,NodeShape>();
+	private static Map<Byte,NodeShape> createNodeShapes() {
+		final Map<Byte,NodeShape> nodeShapes = new HashMap<Byte,NodeShape>();
 
 		nodeShapes.put(SHAPE_RECTANGLE, new RectangleNodeShape()); 
 		nodeShapes.put(SHAPE_ELLIPSE, new EllipseNodeShape()); 
@@ -194,7 +203,11 @@ public final class GraphGraphics {
 		nodeShapes.put(SHAPE_TRIANGLE, new TriangleNodeShape()); 
 		nodeShapes.put(SHAPE_VEE, new VeeNodeShape());
 
-		arrows = new HashMap<Byte,Arrow>();
+		return nodeShapes;
+	}
+
+	private static Map<Byte,Arrow> createArrows() {
+		final Map<Byte,Arrow> arrows = new HashMap<Byte,Arrow>();
 
 		arrows.put(ARROW_NONE, new NoArrow() );
 		arrows.put(ARROW_DELTA, new DeltaArrow() );
@@ -209,6 +222,8 @@ public final class GraphGraphics {
 		arrows.put(ARROW_ARROWHEAD_SHORT, new ArrowheadArrowShort() );
 		arrows.put(ARROW_DIAMOND_SHORT_1, new DiamondArrowShort1() );
 		arrows.put(ARROW_DIAMOND_SHORT_2, new DiamondArrowShort2() );
+
+		return arrows;
 	}
 
 	private static final float DEF_SHAPE_SIZE = 32;
@@ -251,6 +266,12 @@ public final class GraphGraphics {
 	private char[] m_charBuff = new char[20];
 	private final FontRenderContext m_fontRenderContextFull = new FontRenderContext(null,true,true);
 
+	// Padding, in pixels, around the contents of a sprite for antialiasing.
+	private static final int SPRITE_PADDING = 2;
+	private static final AffineTransform IDENTITY_XFORM = new AffineTransform();
+
+	private SpriteCache m_sprites;
+
 	/**
 	 * All rendering operations will be performed on the specified image. No
 	 * rendering operations are performed as a result of calling this
@@ -291,6 +312,20 @@ public final class GraphGraphics {
 		m_cleared = false;
 	}
 
+	/**
+	 * Sets the cache of rasterized nodes and labels used by drawNodeFull() and
+	 * drawTextFull(), or turns it off if sprites is null, which is the default.
+	 * Only set a cache when rendering to an image that is shown on the
+	 * screen; printing and vector export must draw every shape exactly.
+	 */
+	public void setSpriteCache(final SpriteCache sprites) {
+		m_sprites = sprites;
+	}
+
+	public SpriteCache getSpriteCache() {
+		return m_sprites;
+	}
+
 	/**
 	 * Clears image area with background paint specified and sets an appropriate
 	 * transformation of coordinate systems. See the class description for a
@@ -330,7 +365,7 @@ public final class GraphGraphics {
 	 * @exception IllegalArgumentException
 	 *                if scaleFactor is not positive.
 	 */
-	public final void clear(final Paint bgPaint, final double xCenter,
+	public void clear(final Paint bgPaint, final double xCenter,
 			final double yCenter, final double scaleFactor) {
 		if (m_debug) {
 			checkDispatchThread();
@@ -392,6 +427,10 @@ public final class GraphGraphics {
 				RenderingHints.VALUE_FRACTIONALMETRICS_ON);
 		m_g2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL,
 				RenderingHints.VALUE_STROKE_PURE);
+
+		// Lets custom graphics cache their own images
+		if (m_sprites != null)
+			m_g2d.setRenderingHint(SpriteCache.KEY_SPRITE_CACHE, m_sprites);
 		
 		m_g2d.setStroke(new BasicStroke(0.0f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 10.0f));
 
@@ -482,7 +521,7 @@ public final class GraphGraphics {
 	 *                if xMin is not less than xMax, if yMin is not less than
 	 *                yMax, or if fillColor is not opaque.
 	 */
-	public final void drawNodeLow(final float xMin, final float yMin,
+	public void drawNodeLow(final float xMin, final float yMin,
 			final float xMax, final float yMax, final Color fillColor) {
 		if (m_debug) {
 			checkDispatchThread();
@@ -508,16 +547,70 @@ public final class GraphGraphics {
 		m_currXform.transform(m_ptsBuff, 0, m_ptsBuff, 0, 2);
 
 		// Here, double values outside of the range of ints will be cast to
-		// the nearest int without overflow.
-		final int xNot = (int) m_ptsBuff[0];
-		final int yNot = (int) m_ptsBuff[1];
-		final int xOne = (int) m_ptsBuff[2];
-		final int yOne = (int) m_ptsBuff[3];
+		// the nearest int without overflow.  Rounding down rather than toward
+		// zero keeps the result consistent under integer translations of the
+		// image (such as when rendering tiles).
+		final int xNot = (int) Math.floor(m_ptsBuff[0]);
+		final int yNot = (int) Math.floor(m_ptsBuff[1]);
+		final int xOne = (int) Math.floor(m_ptsBuff[2]);
+		final int yOne = (int) Math.floor(m_ptsBuff[3]);
 		m_gMinimal.setColor(fillColor);
 		m_gMinimal.fillRect(xNot, yNot, Math.max(1, xOne - xNot), // Overflow will
 		                                Math.max(1, yOne - yNot)); // be problem.
 	}
 
+	/**
+	 * Draws a density map, a grid of translucent cells, over a rectangle in
+	 * node coordinate space.  This is meant to stand in for a great many nodes
+	 * or edges drawn with low detail, so it shares their rendering settings.
+	 * <p>
+	 * This method will not work unless clear() has been called at least once
+	 * previously.
+	 * 
+	 * @param argb
+	 *            the non-premultiplied ARGB color of each cell, row by row
+	 *            from the top left.
+	 * @param columns
+	 *            the number of cells across the rectangle.
+	 * @param rows
+	 *            the number of cells down the rectangle.
+	 * @param xMin
+	 *            an extent of the rectangle, in node coordinate space.
+	 * @param yMin
+	 *            an extent of the rectangle, in node coordinate space.
+	 * @param xMax
+	 *            an extent of the rectangle, in node coordinate space.
+	 * @param yMax
+	 *            an extent of the rectangle, in node coordinate space.
+	 */
+	public void drawDensityLow(final int[] argb, final int columns, final int rows,
+			final float xMin, final float yMin, final float xMax, final float yMax) {
+		if (m_debug) {
+			checkDispatchThread();
+			checkCleared();
+			checkOrder(xMin,xMax,"x");
+			checkOrder(yMin,yMax,"y");
+		}
+
+		if (m_gMinimal == null) {
+			makeMinimalGraphics();
+		}
+
+		final BufferedImage cells = new BufferedImage(columns, rows, BufferedImage.TYPE_INT_ARGB);
+		cells.setRGB(0, 0, columns, rows, argb, 0, columns);
+
+		m_ptsBuff[0] = xMin;
+		m_ptsBuff[1] = yMin;
+		m_ptsBuff[2] = xMax;
+		m_ptsBuff[3] = yMax;
+		m_currXform.transform(m_ptsBuff, 0, m_ptsBuff, 0, 2);
+
+		// Rounded down for the same reason as in drawNodeLow().
+		m_gMinimal.drawImage(cells, (int) Math.floor(m_ptsBuff[0]), (int) Math.floor(m_ptsBuff[1]),
+		                     (int) Math.floor(m_ptsBuff[2]), (int) Math.floor(m_ptsBuff[3]),
+		                     0, 0, columns, rows, null);
+	}
+
 	/**
 	 * Sets m_gMinimal.
 	 */
@@ -597,7 +690,7 @@ public final class GraphGraphics {
 	 *                nodeShape is neither one of the SHAPE_* constants nor a
 	 *                previously defined custom node shape.
 	 */
-	public final Shape drawNodeFull(final byte nodeShape, final float xMin,
+	public Shape drawNodeFull(final byte nodeShape, final float xMin,
 			final float yMin, final float xMax, final float yMax,
 			final Paint fillPaint, final float borderWidth, final Stroke borderStroke,
 			final Paint borderPaint) {
@@ -623,24 +716,122 @@ public final class GraphGraphics {
 		final float off = borderWidth/2.0f; // border offset
 		final Shape sx = getShape(nodeShape,xMin+off,yMin+off,xMax-off,yMax-off);
 
+		if (m_sprites != null && drawNodeSprite(nodeShape, xMin, yMin, xMax, yMax, fillPaint,
+		                                        borderWidth, borderStroke, borderPaint))
+			return sx;
+
+		drawNodeShape(m_g2d, sx, fillPaint, borderWidth, borderStroke, borderPaint);
+		return sx;
+	}
+
+	private void drawNodeShape(final Graphics2D g, final Shape sx, final Paint fillPaint,
+			final float borderWidth, final Stroke borderStroke, final Paint borderPaint) {
 		// Draw border only when width is not zero.
 		if (borderWidth > 0.0f) {
-			m_g2d.setPaint(borderPaint);
+			g.setPaint(borderPaint);
 			if(borderStroke != null)
-				m_g2d.setStroke(borderStroke);
+				g.setStroke(borderStroke);
 			else
-				m_g2d.setStroke(getStroke(borderWidth));
+				g.setStroke(getStroke(borderWidth));
 			
-			m_g2d.draw(sx);
+			g.draw(sx);
 		}
 
-		// System.out.println("Node shape = "+sx);
-		// System.out.println("Node bounds = "+sx.getBounds2D());
-		// System.out.println("Paint = "+fillPaint);
+		g.setPaint(fillPaint);
+		g.fill(sx);
+	}
 
-		m_g2d.setPaint(fillPaint);
-		m_g2d.fill(sx);
-		return sx;
+	/**
+	 * Draws a node from the sprite cache, rasterizing it first if needed.
+	 * Returns false, having drawn nothing, if the node can't be cached:
+	 * gradients and other non-uniform paints depend on where the node is,
+	 * custom shapes belong to this instance only, and large nodes are not
+	 * worth the memory.
+	 */
+	private boolean drawNodeSprite(final byte nodeShape, final float xMin,
+			final float yMin, final float xMax, final float yMax,
+			final Paint fillPaint, final float borderWidth, final Stroke borderStroke,
+			final Paint borderPaint) {
+		if (nodeShape > s_last_shape || !(fillPaint instanceof Color))
+			return false;
+
+		if (borderWidth > 0.0f && (!(borderPaint instanceof Color)
+				|| (borderStroke != null && !(borderStroke instanceof BasicStroke))))
+			return false;
+
+		final float width = xMax - xMin;
+		final float height = yMax - yMin;
+		final int bucket = SpriteCache.scaleBucket(m_currNativeXform.getScaleX());
+		final double scale = SpriteCache.bucketScale(bucket);
+
+		if (width * scale > SpriteCache.MAX_SPRITE_DIMENSION || height * scale > SpriteCache.MAX_SPRITE_DIMENSION)
+			return false;
+
+		final Object key = borderWidth > 0.0f
+			? new SpriteCache.NodeKey(nodeShape, width, height, (Color) fillPaint, borderWidth,
+			                          borderStroke, (Color) borderPaint, bucket)
+			: new SpriteCache.NodeKey(nodeShape, width, height, (Color) fillPaint, 0.0f, null, null, bucket);
+		SpriteCache.Sprite sprite = m_sprites.get(key);
+
+		if (sprite == null) {
+			final BufferedImage img = createSpriteImage(width * scale, height * scale);
+			final Graphics2D g = createSpriteGraphics(img);
+			g.scale(scale, scale);
+
+			final float off = borderWidth / 2.0f;
+			drawNodeShape(g, getShape(nodeShape, off, off, width - off, height - off),
+			              fillPaint, borderWidth, borderStroke, borderPaint);
+			g.dispose();
+
+			sprite = new SpriteCache.Sprite(img, -SPRITE_PADDING, -SPRITE_PADDING, scale);
+			m_sprites.put(key, sprite);
+		}
+
+		drawSprite(sprite, xMin, yMin, 1.0d);
+		return true;
+	}
+
+	private static BufferedImage createSpriteImage(final double width, final double height) {
+		return new BufferedImage((int) Math.ceil(width) + (2 * SPRITE_PADDING),
+		                         (int) Math.ceil(height) + (2 * SPRITE_PADDING),
+		                         BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+
+	/**
+	 * Returns a graphics context for drawing into a sprite with the same
+	 * rendering hints as the frame, with the origin moved inside the padding.
+	 */
+	private Graphics2D createSpriteGraphics(final BufferedImage img) {
+		final Graphics2D g = img.createGraphics();
+		g.setRenderingHints(m_g2d.getRenderingHints());
+		g.translate(SPRITE_PADDING, SPRITE_PADDING);
+		return g;
+	}
+
+	/**
+	 * Draws a sprite with its reference point at (x, y), in node coordinates,
+	 * with scaleFactor applied on top of the current transform.  The sprite
+	 * is resized to the current scale and aligned to whole pixels, which
+	 * lets it be copied without a general transform.
+	 */
+	private void drawSprite(final SpriteCache.Sprite sprite, final double x, final double y,
+			final double scaleFactor) {
+		final double ratio = (m_currNativeXform.getScaleX() * scaleFactor) / sprite.scale;
+		m_ptsBuff[0] = x;
+		m_ptsBuff[1] = y;
+		m_currNativeXform.transform(m_ptsBuff, 0, m_ptsBuff, 0, 1);
+
+		final int left = (int) Math.round(m_ptsBuff[0] + (sprite.x * ratio));
+		final int top = (int) Math.round(m_ptsBuff[1] + (sprite.y * ratio));
+
+		m_g2d.setTransform(IDENTITY_XFORM);
+		m_g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		m_g2d.drawImage(sprite.image, left, top, (int) Math.round(sprite.image.getWidth() * ratio),
+		                (int) Math.round(sprite.image.getHeight() * ratio), null);
+		m_g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		m_g2d.setTransform(m_currNativeXform);
 	}
 
 	/**
@@ -907,13 +1098,20 @@ public final class GraphGraphics {
 					"a custom node shape is already defined in this GraphGraphics");
 		}
 
-		for (Map.Entry<Byte, NodeShape> entry : grafx.nodeShapes.entrySet()) {
-			nodeShapes.put(entry.getKey(), entry.getValue());
+		// Shape instances are not shared, so each custom shape is redefined here.
+		for (final byte customShape : grafx.getCustomNodeShapes()) {
+			final float[] coords = grafx.getCustomNodeShape(customShape);
+			final double[] polyCoords = new double[coords.length];
+
+			for (int i = 0; i < coords.length; i++)
+				polyCoords[i] = coords[i];
+
+			nodeShapes.put(customShape, new LegacyCustomNodeShape(polyCoords, customShape));
 			m_lastCustomShapeType++;
 		}
 	}
 
-	private final Shape getShape(final byte nodeShape, final float xMin,
+	final Shape getShape(final byte nodeShape, final float xMin,
 			final float yMin, final float xMax, final float yMax) {
 		NodeShape ns = nodeShapes.get(nodeShape);
 		if ( ns != null )
@@ -930,7 +1128,7 @@ public final class GraphGraphics {
 	public static Map<Byte, Shape> getNodeShapes() {
 		final Map<Byte, Shape> shapeMap = new HashMap<Byte, Shape>();
 
-		for ( NodeShape ns : nodeShapes.values() ) {
+		for ( NodeShape ns : createNodeShapes().values() ) {
 			final Shape shape = ns.getShape(0f, 0f, DEF_SHAPE_SIZE, DEF_SHAPE_SIZE);
 			shapeMap.put(ns.getType(), new GeneralPath( shape ));
 		}
@@ -945,6 +1143,7 @@ public final class GraphGraphics {
 	 */
 	public static Map<Byte, Shape> getArrowShapes() {
 		final Map<Byte, Shape> shapeMap = new HashMap<Byte, Shape>();
+		final Map<Byte, Arrow> arrows = createArrows();
 		for (final Byte key : arrows.keySet()) {
 			shapeMap.put(key, arrows.get(key).getArrowShape() );
 		}
@@ -977,7 +1176,7 @@ public final class GraphGraphics {
 	 * @exception IllegalArgumentException
 	 *                if edgeColor is not opaque.
 	 */
-	public final void drawEdgeLow(final float x0, final float y0,
+	public void drawEdgeLow(final float x0, final float y0,
 			final float x1, final float y1, final Color edgeColor) {
 		if (m_debug) {
 			checkDispatchThread();
@@ -1006,10 +1205,10 @@ public final class GraphGraphics {
 		m_ptsBuff[3] = y1;
 		m_currXform.transform(m_ptsBuff, 0, m_ptsBuff, 0, 2);
 
-		final int xNot = (int) m_ptsBuff[0];
-		final int yNot = (int) m_ptsBuff[1];
-		final int xOne = (int) m_ptsBuff[2];
-		final int yOne = (int) m_ptsBuff[3];
+		final int xNot = (int) Math.floor(m_ptsBuff[0]);
+		final int yNot = (int) Math.floor(m_ptsBuff[1]);
+		final int xOne = (int) Math.floor(m_ptsBuff[2]);
+		final int yOne = (int) Math.floor(m_ptsBuff[3]);
 		m_gMinimal.setColor(edgeColor);
 		m_gMinimal.drawLine(xNot, yNot, xOne, yOne);
 	}
@@ -1140,7 +1339,7 @@ public final class GraphGraphics {
 	 *                configurations does not meet specified criteria, or if more 
 	 *                than MAX_EDGE_ANCHORS anchors are specified.
 	 */
-	public final void drawEdgeFull(final byte arrow0Type,
+	public void drawEdgeFull(final byte arrow0Type,
 			final float arrow0Size, final Paint arrow0Paint,
 			final byte arrow1Type, final float arrow1Size,
 			final Paint arrow1Paint, final float x0, final float y0,
@@ -1581,7 +1780,7 @@ public final class GraphGraphics {
 	/*
 	 * 
 	 */
-	private final static double getT(final byte arrowType) { 
+	private final double getT(final byte arrowType) { 
 		Arrow a = arrows.get(arrowType);
 		if ( a != null )
 			return a.getTOffset();
@@ -1974,7 +2173,7 @@ public final class GraphGraphics {
 	 *            operation has a difficult time when it needs to render text
 	 *            under a transformation with a very large scale factor.
 	 */
-	public final void drawTextFull(final Font font, final double scaleFactor,
+	public void drawTextFull(final Font font, final double scaleFactor,
 			final String text, final float xCenter, final float yCenter,
 			final float theta, final Paint paint, final boolean drawTextAsShape) {
 		if (m_debug) {
@@ -1985,6 +2184,10 @@ public final class GraphGraphics {
 			}
 		}
 
+		if (m_sprites != null && theta == 0.0f
+				&& drawTextSprite(font, scaleFactor, text, xCenter, yCenter, paint, drawTextAsShape))
+			return;
+
 		m_g2d.translate(xCenter, yCenter);
 		m_g2d.scale(scaleFactor, scaleFactor);
 
@@ -1992,7 +2195,16 @@ public final class GraphGraphics {
 			m_g2d.rotate(theta);
 		}
 
-		m_g2d.setPaint(paint);
+		drawText(m_g2d, font, text, paint, drawTextAsShape);
+		m_g2d.setTransform(m_currNativeXform);
+	}
+
+	/**
+	 * Draws text centered on the origin of g.
+	 */
+	private void drawText(final Graphics2D g, final Font font, final String text,
+			final Paint paint, final boolean drawTextAsShape) {
+		g.setPaint(paint);
 
 		// NOTE: Java 7 seems to have broken the antialiasing of text
 		// on translucent backgrounds.  In our case, the network canvas
@@ -2012,20 +2224,62 @@ public final class GraphGraphics {
 					m_charBuff, 0, text.length(), Font.LAYOUT_NO_LIMIT_CONTEXT);
 
 			final Rectangle2D glyphBounds = glyphV.getLogicalBounds();
-			m_g2d.translate(-glyphBounds.getCenterX(), -glyphBounds
+			g.translate(-glyphBounds.getCenterX(), -glyphBounds
 					.getCenterY());
-			m_g2d.fill(glyphV.getOutline());
+			g.fill(glyphV.getOutline());
 		} else {
 			// Note: A new Rectangle2D is being constructed by this method call.
 			// As far as I know this performance hit is unavoidable.
 			final Rectangle2D textBounds = font.getStringBounds(text,
 					getFontRenderContextFull());
-			m_g2d.translate(-textBounds.getCenterX(), -textBounds.getCenterY());
-			m_g2d.setFont(font);
-			m_g2d.drawString(text, 0.0f, 0.0f);
+			g.translate(-textBounds.getCenterX(), -textBounds.getCenterY());
+			g.setFont(font);
+			g.drawString(text, 0.0f, 0.0f);
 		}
+	}
 
-		m_g2d.setTransform(m_currNativeXform);
+	/**
+	 * Draws a label from the sprite cache, rasterizing it first if needed.
+	 * Returns false, having drawn nothing, if the label can't be cached.
+	 */
+	private boolean drawTextSprite(final Font font, final double scaleFactor,
+			final String text, final float xCenter, final float yCenter,
+			final Paint paint, final boolean drawTextAsShape) {
+		if (!(paint instanceof Color) || text.isEmpty())
+			return false;
+
+		final int bucket = SpriteCache.scaleBucket(m_currNativeXform.getScaleX() * scaleFactor);
+		final SpriteCache.LabelKey key = new SpriteCache.LabelKey(text, font, (Color) paint, drawTextAsShape, bucket);
+		SpriteCache.Sprite sprite = m_sprites.get(key);
+
+		if (sprite == null) {
+			final double scale = SpriteCache.bucketScale(bucket);
+
+			// The visual bounds catch overhanging glyphs, the logical bounds
+			// are what the text is centered on.
+			final GlyphVector glyphV = font.createGlyphVector(getFontRenderContextFull(), text);
+			final Rectangle2D logical = glyphV.getLogicalBounds();
+			final Rectangle2D bounds = glyphV.getVisualBounds().createUnion(logical);
+			final double x = bounds.getX() - logical.getCenterX();
+			final double y = bounds.getY() - logical.getCenterY();
+
+			if (bounds.getWidth() * scale > SpriteCache.MAX_SPRITE_DIMENSION
+					|| bounds.getHeight() * scale > SpriteCache.MAX_SPRITE_DIMENSION)
+				return false;
+
+			final BufferedImage img = createSpriteImage(bounds.getWidth() * scale, bounds.getHeight() * scale);
+			final Graphics2D g = createSpriteGraphics(img);
+			g.scale(scale, scale);
+			g.translate(-x, -y);
+			drawText(g, font, text, paint, drawTextAsShape);
+			g.dispose();
+
+			sprite = new SpriteCache.Sprite(img, (x * scale) - SPRITE_PADDING, (y * scale) - SPRITE_PADDING, scale);
+			m_sprites.put(key, sprite);
+		}
+
+		drawSprite(sprite, xCenter, yCenter, scaleFactor);
+		return true;
 	}
 
 	/**
@@ -2041,7 +2295,7 @@ public final class GraphGraphics {
 		return m_fontRenderContextFull;
 	}
 
-	public final void drawCustomGraphicImage(final Shape shape,
+	public void drawCustomGraphicImage(final Shape shape,
 			final float xOffset, final float yOffset, final TexturePaint paint) {
 		if (m_debug) {
 			checkDispatchThread();
@@ -2074,7 +2328,7 @@ public final class GraphGraphics {
 	 *            in node coordinates, a value to add to the Y coordinates of
 	 *            the shape's definition.
 	 */
-	public final void drawCustomGraphicFull(final CyNetworkView netView, final CyNode node,
+	public void drawCustomGraphicFull(final CyNetworkView netView, final CyNode node,
 											final Shape nodeShape, final CustomGraphicLayer cg,
 	                                        final float xOffset, final float yOffset) {
 		if (m_debug) {
@@ -2125,7 +2379,9 @@ public final class GraphGraphics {
 		Stroke s = borderStrokes.get(borderWidth);
 		if ( s == null ) {
 			s = new BasicStroke(borderWidth);
-			borderStrokes.put(borderWidth, s);
+			final Stroke existing = borderStrokes.putIfAbsent(borderWidth, s);
+			if ( existing != null )
+				s = existing;
 		}
 		return s; 
 	}
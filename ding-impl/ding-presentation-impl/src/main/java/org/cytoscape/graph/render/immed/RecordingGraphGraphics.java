@@ -0,0 +1,397 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.TexturePaint;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.presentation.customgraphics.Cy2DGraphicLayer;
+import org.cytoscape.view.presentation.customgraphics.CustomGraphicLayer;
+import org.cytoscape.view.presentation.customgraphics.PaintedShape;
+
+
+/**
+ * A GraphGraphics that draws nothing; instead, every rendering call is
+ * recorded together with a conservative bounding box and binned into the
+ * tiles of a regular grid laid over the image. Each tile can then be replayed
+ * into a separate GraphGraphics, which makes it possible to rasterize the
+ * tiles of one frame on different threads. Replaying the calls of a tile in
+ * recording order preserves the z-order of the original rendering.
+ * <p>
+ * Detail lookups happen while recording, so only the recording needs to be
+ * done by the thread that holds the view lock; replaying touches nothing but
+ * the recorded arguments and the target GraphGraphics.
+ * <p>
+ * Custom graphic layers of type Cy2DGraphicLayer draw through arbitrary code
+ * that may access the view, so they are recorded without being binned into
+ * tiles; requiresSequentialRendering() reports whether any were encountered,
+ * in which case the caller should replay the whole frame with replayAll() on
+ * the thread that recorded it.
+ */
+public final class RecordingGraphGraphics extends GraphGraphics {
+
+	// Padding, in pixels, added around every recorded bounding box to account
+	// for antialiasing and rounding.
+	private static final double PIXEL_MARGIN = 2.0d;
+
+	// How far, relative to the arrow size, an arrow may reach from its edge
+	// endpoint.
+	private static final float ARROW_EXTENT = 2.5f;
+
+	private final int imageWidth;
+	private final int imageHeight;
+	private final int tileWidth;
+	private final int tileHeight;
+	private final int columns;
+	private final int rows;
+
+	private final List<Operation> operations = new ArrayList<Operation>();
+	private final int[][] tileOperations;
+	private final int[] tileOperationCounts;
+	private final Map<Font,Rectangle2D> maxCharBounds = new HashMap<Font,Rectangle2D>();
+
+	private double scaleFactor = 1.0d;
+	private double xTranslate;
+	private double yTranslate;
+	private boolean sequentialOnly;
+
+	/**
+	 * @param image the image the recorded frame is meant for; it is used only
+	 *   for its dimensions and is never drawn to.
+	 * @param tileWidth the width of a tile, in pixels.
+	 * @param tileHeight the height of a tile, in pixels.
+	 */
+	public RecordingGraphGraphics(final Image image, final int tileWidth, final int tileHeight) {
+		super(image, false, false);
+
+		if (tileWidth <= 0 || tileHeight <= 0)
+			throw new IllegalArgumentException("tile dimensions must be positive");
+
+		this.imageWidth = image.getWidth(null);
+		this.imageHeight = image.getHeight(null);
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		this.columns = Math.max(1, (imageWidth + tileWidth - 1) / tileWidth);
+		this.rows = Math.max(1, (imageHeight + tileHeight - 1) / tileHeight);
+		this.tileOperations = new int[columns * rows][];
+		this.tileOperationCounts = new int[columns * rows];
+	}
+
+	public int getTileCount() {
+		return columns * rows;
+	}
+
+	/**
+	 * Returns the bounds of the specified tile in image coordinates; tiles are
+	 * numbered row by row, starting at the upper left corner of the image.
+	 */
+	public Rectangle getTileBounds(final int tile) {
+		final int x = (tile % columns) * tileWidth;
+		final int y = (tile / columns) * tileHeight;
+
+		return new Rectangle(x, y, Math.min(tileWidth, imageWidth - x),
+		                              Math.min(tileHeight, imageHeight - y));
+	}
+
+	/**
+	 * Returns the number of recorded calls that intersect the specified tile.
+	 */
+	public int getOperationCount(final int tile) {
+		return tileOperationCounts[tile];
+	}
+
+	/**
+	 * Returns true if a call was encountered that cannot be replayed on
+	 * another thread, in which case the tiles are incomplete and only
+	 * replayAll() may be used.
+	 */
+	public boolean requiresSequentialRendering() {
+		return sequentialOnly;
+	}
+
+	/**
+	 * Replays the calls that intersect the specified tile onto target, in the
+	 * order in which they were recorded. The target must have been cleared
+	 * with a transform that places the tile at the origin of its image.
+	 */
+	public void replay(final int tile, final GraphGraphics target) {
+		final int[] inxs = tileOperations[tile];
+		final int count = tileOperationCounts[tile];
+
+		for (int i = 0; i < count; i++)
+			operations.get(inxs[i]).replay(target);
+	}
+
+	/**
+	 * Replays every recorded call onto target, in the order in which they were
+	 * recorded. The target must have been cleared with the transform that was
+	 * used for recording.
+	 */
+	public void replayAll(final GraphGraphics target) {
+		for (final Operation op : operations)
+			op.replay(target);
+	}
+
+	/**
+	 * Nothing is cleared; only the transform is remembered, for computing the
+	 * image extents of subsequent calls.
+	 */
+	@Override
+	public void clear(final Paint bgPaint, final double xCenter,
+			final double yCenter, final double scaleFactor) {
+		if (!(scaleFactor > 0.0d))
+			throw new IllegalArgumentException("scaleFactor is not positive");
+
+		setTransform(xCenter, yCenter, scaleFactor);
+		this.scaleFactor = scaleFactor;
+		this.xTranslate = (0.5d * imageWidth) - (xCenter * scaleFactor);
+		this.yTranslate = (0.5d * imageHeight) - (yCenter * scaleFactor);
+	}
+
+	@Override
+	public void drawNodeLow(final float xMin, final float yMin,
+			final float xMax, final float yMax, final Color fillColor) {
+		record(new Operation() {
+			void replay(final GraphGraphics grafx) {
+				grafx.drawNodeLow(xMin, yMin, xMax, yMax, fillColor);
+			}
+		}, xMin, yMin, xMax, yMax);
+	}
+
+	@Override
+	public Shape drawNodeFull(final byte nodeShape, final float xMin,
+			final float yMin, final float xMax, final float yMax,
+			final Paint fillPaint, final float borderWidth, final Stroke borderStroke,
+			final Paint borderPaint) {
+		record(new Operation() {
+			void replay(final GraphGraphics grafx) {
+				grafx.drawNodeFull(nodeShape, xMin, yMin, xMax, yMax,
+				                   fillPaint, borderWidth, borderStroke, borderPaint);
+			}
+		}, xMin, yMin, xMax, yMax);
+
+		final float off = borderWidth / 2.0f;
+
+		return getShape(nodeShape, xMin + off, yMin + off, xMax - off, yMax - off);
+	}
+
+	@Override
+	public void drawEdgeLow(final float x0, final float y0,
+			final float x1, final float y1, final Color edgeColor) {
+		record(new Operation() {
+			void replay(final GraphGraphics grafx) {
+				grafx.drawEdgeLow(x0, y0, x1, y1, edgeColor);
+			}
+		}, Math.min(x0, x1), Math.min(y0, y1), Math.max(x0, x1), Math.max(y0, y1));
+	}
+
+	@Override
+	public void drawEdgeFull(final byte arrow0Type,
+			final float arrow0Size, final Paint arrow0Paint,
+			final byte arrow1Type, final float arrow1Size,
+			final Paint arrow1Paint, final float x0, final float y0,
+			final EdgeAnchors anchors, final float x1, final float y1,
+			final float edgeThickness, final Stroke edgeStroke, final Paint edgePaint) {
+		// The anchors object is typically reused by the caller, so copy it.
+		final int numAnchors = (anchors == null) ? 0 : anchors.numAnchors();
+		final float[] anchorCoords = new float[numAnchors * 2];
+		float xMin = Math.min(x0, x1);
+		float yMin = Math.min(y0, y1);
+		float xMax = Math.max(x0, x1);
+		float yMax = Math.max(y0, y1);
+
+		for (int i = 0; i < numAnchors; i++) {
+			anchors.getAnchor(i, anchorCoords, i * 2);
+			xMin = Math.min(xMin, anchorCoords[i * 2]);
+			yMin = Math.min(yMin, anchorCoords[(i * 2) + 1]);
+			xMax = Math.max(xMax, anchorCoords[i * 2]);
+			yMax = Math.max(yMax, anchorCoords[(i * 2) + 1]);
+		}
+
+		// The edge path stays within the hull of its endpoints and anchors.
+		// The stroke extends beyond it by half the edge thickness, and the
+		// unit arrow shapes reach up to about 2.3 units from the endpoint.
+		float pad = edgeThickness;
+
+		if (arrow0Type != ARROW_NONE)
+			pad = Math.max(pad, ARROW_EXTENT * arrow0Size);
+
+		if (arrow1Type != ARROW_NONE)
+			pad = Math.max(pad, ARROW_EXTENT * arrow1Size);
+
+		final EdgeAnchors recordedAnchors = (anchors == null) ? null : new EdgeAnchors() {
+			public int numAnchors() {
+				return numAnchors;
+			}
+
+			public void getAnchor(final int inx, final float[] arr, final int off) {
+				arr[off] = anchorCoords[inx * 2];
+				arr[off + 1] = anchorCoords[(inx * 2) + 1];
+			}
+		};
+
+		record(new Operation() {
+			void replay(final GraphGraphics grafx) {
+				grafx.drawEdgeFull(arrow0Type, arrow0Size, arrow0Paint,
+				                   arrow1Type, arrow1Size, arrow1Paint, x0, y0,
+				                   recordedAnchors, x1, y1, edgeThickness, edgeStroke, edgePaint);
+			}
+		}, xMin - pad, yMin - pad, xMax + pad, yMax + pad);
+	}
+
+	@Override
+	public void drawTextFull(final Font font, final double scaleFactor,
+			final String text, final float xCenter, final float yCenter,
+			final float theta, final Paint paint, final boolean drawTextAsShape) {
+		// Measuring every string is about as expensive as drawing it, so the
+		// extents are bounded by the largest glyph of the font instead; the
+		// radius covers any rotation.
+		Rectangle2D charBounds = maxCharBounds.get(font);
+
+		if (charBounds == null) {
+			charBounds = font.getMaxCharBounds(getFontRenderContextFull());
+			maxCharBounds.put(font, charBounds);
+		}
+
+		final double radius = 0.5d * scaleFactor
+			* Math.hypot(charBounds.getWidth() * text.length(), charBounds.getHeight());
+
+		record(new Operation() {
+			void replay(final GraphGraphics grafx) {
+				grafx.drawTextFull(font, scaleFactor, text, xCenter, yCenter,
+				                   theta, paint, drawTextAsShape);
+			}
+		}, xCenter - radius, yCenter - radius, xCenter + radius, yCenter + radius);
+	}
+
+	@Override
+	public void drawCustomGraphicImage(final Shape shape,
+			final float xOffset, final float yOffset, final TexturePaint paint) {
+		final Rectangle2D bounds = shape.getBounds2D();
+
+		record(new Operation() {
+			void replay(final GraphGraphics grafx) {
+				grafx.drawCustomGraphicImage(shape, xOffset, yOffset, paint);
+			}
+		}, bounds.getMinX() + xOffset, bounds.getMinY() + yOffset,
+		   bounds.getMaxX() + xOffset, bounds.getMaxY() + yOffset);
+	}
+
+	@Override
+	public void drawCustomGraphicFull(final CyNetworkView netView, final CyNode node,
+	                                  final Shape nodeShape, final CustomGraphicLayer cg,
+	                                  final float xOffset, final float yOffset) {
+		if (cg instanceof Cy2DGraphicLayer) {
+			sequentialOnly = true;
+			operations.add(new Operation() {
+				void replay(final GraphGraphics grafx) {
+					grafx.drawCustomGraphicFull(netView, node, nodeShape, cg, xOffset, yOffset);
+				}
+			});
+			return;
+		}
+
+		final Rectangle2D bounds = nodeShape.getBounds2D();
+		bounds.add(cg.getBounds2D());
+
+		if (cg instanceof PaintedShape) {
+			final PaintedShape ps = (PaintedShape) cg;
+
+			if (ps.getStroke() != null)
+				bounds.add(ps.getStroke().createStrokedShape(ps.getShape()).getBounds2D());
+		}
+
+		record(new Operation() {
+			void replay(final GraphGraphics grafx) {
+				grafx.drawCustomGraphicFull(netView, node, nodeShape, cg, xOffset, yOffset);
+			}
+		}, bounds.getMinX() + xOffset, bounds.getMinY() + yOffset,
+		   bounds.getMaxX() + xOffset, bounds.getMaxY() + yOffset);
+	}
+
+	/*
+	 * Stores the operation and adds it to every tile that the specified node
+	 * coordinate extents overlap.  Operations falling entirely outside of the
+	 * image are dropped.
+	 */
+	private void record(final Operation op, final double xMin, final double yMin,
+			final double xMax, final double yMax) {
+		final double ixMin = (xMin * scaleFactor) + xTranslate - PIXEL_MARGIN;
+		final double iyMin = (yMin * scaleFactor) + yTranslate - PIXEL_MARGIN;
+		final double ixMax = (xMax * scaleFactor) + xTranslate + PIXEL_MARGIN;
+		final double iyMax = (yMax * scaleFactor) + yTranslate + PIXEL_MARGIN;
+
+		int col0 = 0, row0 = 0, col1 = columns - 1, row1 = rows - 1;
+
+		// NaN extents fall through to the full grid.
+		if (!Double.isNaN(ixMin + iyMin + ixMax + iyMax)) {
+			if (ixMax < 0.0d || iyMax < 0.0d || ixMin >= imageWidth || iyMin >= imageHeight)
+				return;
+
+			col0 = Math.max(0, (int) (ixMin / tileWidth));
+			row0 = Math.max(0, (int) (iyMin / tileHeight));
+			col1 = Math.min(columns - 1, (int) (ixMax / tileWidth));
+			row1 = Math.min(rows - 1, (int) (iyMax / tileHeight));
+		}
+
+		final int inx = operations.size();
+		operations.add(op);
+
+		for (int row = row0; row <= row1; row++) {
+			for (int col = col0; col <= col1; col++) {
+				final int tile = (row * columns) + col;
+				int[] inxs = tileOperations[tile];
+				final int count = tileOperationCounts[tile];
+
+				if (inxs == null)
+					inxs = tileOperations[tile] = new int[16];
+				else if (count == inxs.length)
+					inxs = tileOperations[tile] = Arrays.copyOf(inxs, count * 2);
+
+				inxs[count] = inx;
+				tileOperationCounts[tile] = count + 1;
+			}
+		}
+	}
+
+	private static abstract class Operation {
+		abstract void replay(GraphGraphics grafx);
+	}
+}
@@ -0,0 +1,380 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+
+/**
+ * A bounded cache of rasterized node bodies and labels, shared by the
+ * GraphGraphics instances that render to the screen.  Many nodes of a network
+ * usually share the same shape, size, colors and font, so GraphGraphics draws
+ * each such combination once into a small image and copies that image for
+ * every other node that uses it.
+ * <p>
+ * Sprites are drawn at one of a fixed set of scales, a bucket, and are scaled
+ * by less than a few percent and aligned to whole pixels when they are
+ * copied.  Since the result is a bitmap, a cache must only be given to
+ * GraphGraphics instances that render to an image shown on the screen, never
+ * to those used for printing or vector export.
+ * <p>
+ * Such a GraphGraphics also stores its cache as the {@link #KEY_SPRITE_CACHE}
+ * rendering hint, so that custom graphics, which draw themselves, can keep
+ * their own images in it with {@link #getImage(Object)} and
+ * {@link #putImage(Object, BufferedImage)} under the same memory limit.
+ * <p>
+ * The least recently used sprites are dropped once the total size of the
+ * images exceeds the limit.  All methods are thread safe.
+ */
+public final class SpriteCache {
+
+	/**
+	 * System property that turns on the sprite cache for network views.
+	 */
+	public static final String SPRITE_CACHE_PROPERTY = "cytoscape.render.sprites";
+
+	/**
+	 * System property that sets the maximum size of the sprite cache, in
+	 * megabytes.
+	 */
+	public static final String MAX_SIZE_PROPERTY = "cytoscape.render.sprites.maxSize";
+
+	public static final int DEFAULT_MAX_SIZE = 32;
+
+	/**
+	 * Rendering hint whose value is the cache of the GraphGraphics that
+	 * created the Graphics2D; it is not set when drawing for print or export.
+	 */
+	public static final RenderingHints.Key KEY_SPRITE_CACHE = new RenderingHints.Key(0) {
+		@Override
+		public boolean isCompatibleValue(final Object value) {
+			return value == null || value instanceof SpriteCache;
+		}
+
+		@Override
+		public String toString() {
+			return "Sprite cache";
+		}
+	};
+
+	/**
+	 * Nodes and labels larger than this many pixels in either dimension are
+	 * drawn directly; there are few of them on screen at once, and they would
+	 * take most of the cache.
+	 */
+	public static final int MAX_SPRITE_DIMENSION = 256;
+
+	// Number of scale buckets per doubling of the scale.
+	private static final int BUCKETS_PER_OCTAVE = 8;
+
+	private static final SpriteCache SHARED = fromSystemProperties();
+
+	private final long maxBytes;
+	private final Map<Object,Sprite> sprites = new LinkedHashMap<Object,Sprite>(64, 0.75f, true);
+
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * @param maxBytes the maximum total size of the cached images, in bytes.
+	 */
+	public SpriteCache(final long maxBytes) {
+		if (maxBytes < 0)
+			throw new IllegalArgumentException("maxBytes must not be negative");
+
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns a cache configured from the system properties, or null if the
+	 * cache has not been turned on.
+	 */
+	public static SpriteCache fromSystemProperties() {
+		if (!Boolean.getBoolean(SPRITE_CACHE_PROPERTY))
+			return null;
+
+		final int maxSize = Integer.getInteger(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE);
+
+		return new SpriteCache(Math.max(0, maxSize) * 1024L * 1024L);
+	}
+
+	/**
+	 * Returns the cache shared by all network views, configured from the
+	 * system properties when this class is loaded, or null if the cache has
+	 * not been turned on.
+	 */
+	public static SpriteCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the bucket of a scale factor; scales in the same bucket differ
+	 * by less than 5%.
+	 */
+	public static int scaleBucket(final double scale) {
+		return (int) Math.round(Math.log(scale) / Math.log(2.0d) * BUCKETS_PER_OCTAVE);
+	}
+
+	/**
+	 * Returns the scale at which the sprites of a bucket are drawn.
+	 */
+	public static double bucketScale(final int bucket) {
+		return Math.pow(2.0d, ((double) bucket) / BUCKETS_PER_OCTAVE);
+	}
+
+	synchronized Sprite get(final Object key) {
+		final Sprite sprite = sprites.get(key);
+
+		if (sprite == null)
+			misses++;
+		else
+			hits++;
+
+		return sprite;
+	}
+
+	synchronized void put(final Object key, final Sprite sprite) {
+		final Sprite old = sprites.put(key, sprite);
+
+		if (old != null)
+			bytes -= old.bytes();
+
+		bytes += sprite.bytes();
+
+		final Iterator<Sprite> it = sprites.values().iterator();
+
+		while (bytes > maxBytes && it.hasNext()) {
+			bytes -= it.next().bytes();
+			it.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Returns an image stored with {@link #putImage(Object, BufferedImage)},
+	 * or null if there is none or it has been evicted.
+	 */
+	public BufferedImage getImage(final Object key) {
+		final Sprite sprite = get(key);
+		return sprite == null ? null : sprite.image;
+	}
+
+	/**
+	 * Stores an image drawn by a caller other than GraphGraphics.  The key
+	 * must not be equal to the keys of other callers, which is best ensured by
+	 * using a class of the caller's own.
+	 */
+	public void putImage(final Object key, final BufferedImage image) {
+		put(key, new Sprite(image, 0.0d, 0.0d, 1.0d));
+	}
+
+	/**
+	 * Removes the sprites and images whose keys match the filter.
+	 * 
+	 * @return the number of entries removed.
+	 */
+	public synchronized int invalidate(final Predicate<Object> keyFilter) {
+		int removed = 0;
+		final Iterator<Map.Entry<Object,Sprite>> it = sprites.entrySet().iterator();
+
+		while (it.hasNext()) {
+			final Map.Entry<Object,Sprite> entry = it.next();
+
+			if (keyFilter.test(entry.getKey())) {
+				bytes -= entry.getValue().bytes();
+				it.remove();
+				removed++;
+			}
+		}
+
+		return removed;
+	}
+
+	public synchronized void clear() {
+		sprites.clear();
+		bytes = 0;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Returns the total size of the cached images, in bytes.
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public synchronized int getSpriteCount() {
+		return sprites.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the fraction of lookups that found a sprite, or 0 if there were
+	 * none.
+	 */
+	public synchronized double getHitRate() {
+		final long lookups = hits + misses;
+		return lookups == 0 ? 0.0d : ((double) hits) / lookups;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SpriteCache[sprites=" + sprites.size() + ", bytes=" + bytes + "/" + maxBytes
+			+ ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+	}
+
+	/**
+	 * A rasterized node or label.  The reference point of what was drawn,
+	 * the upper left corner of a node or the center of a label, is at
+	 * (-x, -y) in the image, and one unit equals scale pixels.
+	 */
+	static final class Sprite {
+		final BufferedImage image;
+		final double x;
+		final double y;
+		final double scale;
+
+		Sprite(final BufferedImage image, final double x, final double y, final double scale) {
+			this.image = image;
+			this.x = x;
+			this.y = y;
+			this.scale = scale;
+		}
+
+		long bytes() {
+			return 4L * image.getWidth() * image.getHeight();
+		}
+	}
+
+	static final class NodeKey {
+		private final byte shape;
+		private final float width;
+		private final float height;
+		private final Color fill;
+		private final float borderWidth;
+		private final Stroke borderStroke;
+		private final Color border;
+		private final int bucket;
+
+		NodeKey(final byte shape, final float width, final float height, final Color fill,
+		        final float borderWidth, final Stroke borderStroke, final Color border, final int bucket) {
+			this.shape = shape;
+			this.width = width;
+			this.height = height;
+			this.fill = fill;
+			this.borderWidth = borderWidth;
+			this.borderStroke = borderStroke;
+			this.border = border;
+			this.bucket = bucket;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof NodeKey))
+				return false;
+
+			final NodeKey k = (NodeKey) o;
+
+			return shape == k.shape && width == k.width && height == k.height && bucket == k.bucket
+				&& borderWidth == k.borderWidth && fill.equals(k.fill)
+				&& (border == null ? k.border == null : border.equals(k.border))
+				&& (borderStroke == null ? k.borderStroke == null : borderStroke.equals(k.borderStroke));
+		}
+
+		@Override
+		public int hashCode() {
+			int h = shape;
+			h = 31 * h + Float.floatToIntBits(width);
+			h = 31 * h + Float.floatToIntBits(height);
+			h = 31 * h + fill.hashCode();
+			h = 31 * h + Float.floatToIntBits(borderWidth);
+			h = 31 * h + (borderStroke == null ? 0 : borderStroke.hashCode());
+			h = 31 * h + (border == null ? 0 : border.hashCode());
+			return 31 * h + bucket;
+		}
+	}
+
+	static final class LabelKey {
+		private final String text;
+		private final Font font;
+		private final Color paint;
+		private final boolean asShape;
+		private final int bucket;
+
+		LabelKey(final String text, final Font font, final Color paint, final boolean asShape, final int bucket) {
+			this.text = text;
+			this.font = font;
+			this.paint = paint;
+			this.asShape = asShape;
+			this.bucket = bucket;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof LabelKey))
+				return false;
+
+			final LabelKey k = (LabelKey) o;
+
+			return bucket == k.bucket && asShape == k.asShape && text.equals(k.text) && font.equals(k.font)
+				&& paint.equals(k.paint);
+		}
+
+		@Override
+		public int hashCode() {
+			int h = text.hashCode();
+			h = 31 * h + font.hashCode();
+			h = 31 * h + paint.hashCode();
+			h = 31 * h + (asShape ? 1 : 0);
+			return 31 * h + bucket;
+		}
+	}
+}
@@ -63,6 +63,33 @@ public class GraphLOD {
 		return 0;
 	}
 
+	/**
+	 * Determines whether or not to draw the nodes and edges in the viewport
+	 * as density maps instead of one by one, and at what resolution.
+	 * By default this method returns zero, which means never.  If a positive
+	 * value is returned, the viewport is divided into square cells of that
+	 * many pixels; every cell is shaded in the low detail color of a node
+	 * (and, beneath the nodes, of an edge) in it, more opaquely the more
+	 * nodes (or edges) it holds.  Nodes and edges that are larger than a cell
+	 * are still drawn one by one, at low detail.  This is called after
+	 * renderEdges() and, when it returns a positive value, none of the other
+	 * methods are called for the rendering; this way, the time it takes to
+	 * draw a zoomed out view of a very large graph depends on the size of the
+	 * viewport rather than on the size of the graph.<p>
+	 * Density maps are only drawn if the spacial index of edges is
+	 * available to the rendering engine or if no edges are to be rendered.
+	 * @param visibleNodeCount the number of nodes visible in the current
+	 *   viewport.
+	 * @param visibleEdgeCount the number of edges visible in the current
+	 *   viewport, or zero if no edges are to be rendered.
+	 * @return the size of a density map cell in pixels, or zero (or a negative
+	 *   value) if nodes and edges are to be drawn individually.
+	 * @see #renderEdges(int, int, int)
+	 */
+	public int aggregate(final int visibleNodeCount, final int visibleEdgeCount) {
+		return 0;
+	}
+
 	/**
 	 * Determines whether or not to render a graph at full detail.
 	 * By default this method returns true if and only if the sum of rendered
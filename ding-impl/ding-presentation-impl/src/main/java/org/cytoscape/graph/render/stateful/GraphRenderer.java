@@ -25,6 +25,7 @@ package org.cytoscape.graph.render.stateful;
  */
 
 
+import java.awt.Color;
 import java.awt.Font;
 import java.awt.Paint;
 import java.awt.Shape;
@@ -35,6 +36,7 @@ import java.awt.geom.GeneralPath;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -155,6 +157,36 @@ public final class GraphRenderer {
 	                                    final double scaleFactor,
 	                                    final boolean haveZOrder,
 	                                    final Set<VisualPropertyDependency<?>> dependencies) {
+		return renderGraph(netView, nodePositions, null, lod, nodeDetails, edgeDetails, nodeBuff, grafx,
+		                   bgPaint, xCenter, yCenter, scaleFactor, haveZOrder, dependencies);
+	}
+
+	/**
+	 * Renders a graph, finding the edges to draw through an index of their
+	 * bounds rather than through the nodes in view.  This also draws edges
+	 * that cross the visible window without either endpoint being in it.
+	 * @param edgePositions the bounds of the visible edges in graph, keyed by
+	 *   edge SUID, each enclosing the edge's endpoints, anchors, width and
+	 *   arrows; if null, edges are found through the nodes in view, as by
+	 *   the other renderGraph() method.  Otherwise nodeBuff is left empty.
+	 * @see #renderGraph(CyNetworkView, SpacialIndex2D, GraphLOD, NodeDetails,
+	 *   EdgeDetails, LongHash, GraphGraphics, Paint, double, double, double,
+	 *   boolean, Set)
+	 */
+	public final static int renderGraph(final CyNetworkView netView,
+										final SpacialIndex2D nodePositions,
+										final SpacialIndex2D edgePositions,
+	                                    final GraphLOD lod,
+	                                    final NodeDetails nodeDetails,
+	                                    final EdgeDetails edgeDetails,
+	                                    final LongHash nodeBuff,
+	                                    final GraphGraphics grafx,
+	                                    final Paint bgPaint,
+	                                    final double xCenter,
+	                                    final double yCenter,
+	                                    final double scaleFactor,
+	                                    final boolean haveZOrder,
+	                                    final Set<VisualPropertyDependency<?>> dependencies) {
 		nodeBuff.empty(); // Make sure we keep our promise.
 
 		if (grafx == null || grafx.image == null)
@@ -223,6 +255,28 @@ public final class GraphRenderer {
 			final int totalNodeCount = graph.getNodeCount();
 			final int totalEdgeCount = graph.getEdgeCount();
 			renderEdges = lod.renderEdges(visibleNodeCount, totalNodeCount, totalEdgeCount);
+			final int visibleEdgeCount;
+
+			if (renderEdges < 0)
+				visibleEdgeCount = 0;
+			else if (edgePositions != null)
+				visibleEdgeCount = edgePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0,
+				                                              false).numRemaining();
+			else
+				visibleEdgeCount = -1; // Not known without looking at every visible node.
+
+			// This has to be decided before any of the per node work below.
+			if (visibleEdgeCount >= 0) {
+				final int cellSize = lod.aggregate(visibleNodeCount, visibleEdgeCount);
+
+				if (cellSize > 0) {
+					renderDensity(graph, nodePositions, (renderEdges < 0) ? null : edgePositions,
+					              nodeDetails, edgeDetails, grafx, bgPaint, xCenter, yCenter,
+					              scaleFactor, xMin, yMin, cellSize, floatBuff1, floatBuff2);
+
+					return 0;
+				}
+			}
 
 			if (renderEdges > 0) {
 				int runningNodeCount = 0;
@@ -248,6 +302,18 @@ public final class GraphRenderer {
 
 				renderNodeCount = runningNodeCount;
 				renderEdgeCount = 0;
+			} else if (edgePositions != null) {
+				int runningNodeCount = 0;
+
+				for (int i = 0; i < visibleNodeCount; i++) {
+					nodeHits.nextExtents(floatBuff1, 0);
+
+					if ((floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
+						runningNodeCount++;
+				}
+
+				renderNodeCount = runningNodeCount;
+				renderEdgeCount = visibleEdgeCount;
 			} else {
 				int runningNodeCount = 0;
 				int runningEdgeCount = 0;
@@ -329,11 +395,23 @@ public final class GraphRenderer {
 		// on top of the edge it belongs to.
 		if (renderEdges >= 0) {
 			final SpacialEntry2DEnumerator nodeHits;
+			final SpacialEntry2DEnumerator edgeHits;
 
 			// System.out.println("Rendering edges: high detail = "+(lodBits & LOD_HIGH_DETAIL));
 			// System.out.println("time: "+(System.currentTimeMillis()-start)+"ms");
 
-			if (renderEdges > 0)
+			if (edgePositions != null) {
+				nodeHits = null;
+
+				if (renderEdges > 0)
+					edgeHits = edgePositions.queryOverlap(Float.NEGATIVE_INFINITY,
+					                                      Float.NEGATIVE_INFINITY,
+					                                      Float.POSITIVE_INFINITY,
+					                                      Float.POSITIVE_INFINITY, null, 0, false);
+				else
+					edgeHits = edgePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
+			} else if (renderEdges > 0) {
+				edgeHits = null;
 				// We want to render edges in the same order (back to front) that
 				// we would use to render just edges on visible nodes; this is assuming
 				// that our spacial index has the subquery order-preserving property.
@@ -341,10 +419,29 @@ public final class GraphRenderer {
 				                                      Float.NEGATIVE_INFINITY,
 				                                      Float.POSITIVE_INFINITY,
 				                                      Float.POSITIVE_INFINITY, null, 0, false);
-			else
+			} else {
+				edgeHits = null;
 				nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
+			}
 		
-			if ((lodBits & LOD_HIGH_DETAIL) == 0) { // Low detail.
+			if ((lodBits & LOD_HIGH_DETAIL) == 0 && edgeHits != null) { // Low detail, by edge.
+				while (edgeHits.numRemaining() > 0) {
+					final CyEdge edge = graph.getEdge(edgeHits.nextLong());
+
+					if (edge == null || !edgeDetails.isVisible(edge))
+						continue;
+
+					if (!nodePositions.exists(edge.getSource().getSUID(), floatBuff1, 0)
+					    || !nodePositions.exists(edge.getTarget().getSUID(), floatBuff2, 0))
+						continue;
+
+					grafx.drawEdgeLow((floatBuff1[0] + floatBuff1[2]) / 2,
+					                  (floatBuff1[1] + floatBuff1[3]) / 2,
+					                  (floatBuff2[0] + floatBuff2[2]) / 2,
+					                  (floatBuff2[1] + floatBuff2[3]) / 2,
+					                  edgeDetails.getColorLowDetail(edge));
+				}
+			} else if ((lodBits & LOD_HIGH_DETAIL) == 0) { // Low detail.
 
 				final int nodeHitCount = nodeHits.numRemaining();
 
@@ -377,11 +474,30 @@ public final class GraphRenderer {
 					nodeBuff.put(node);
 				}
 			} else { // High detail.
-				while (nodeHits.numRemaining() > 0) {
-					final long node =nodeHits.nextExtents(floatBuff1, 0);
-					final CyNode cyNode = graph.getNode(node);
+				while ((edgeHits != null) ? (edgeHits.numRemaining() > 0) : (nodeHits.numRemaining() > 0)) {
+					final long node;
+					final CyNode cyNode;
+					final Iterable<CyEdge> touchingEdges;
+
+					if (edgeHits != null) {
+						// Draw each edge hit from its source, as if it were the only edge there;
+						// nodeBuff stays empty, so it is drawn once.
+						final CyEdge edgeHit = graph.getEdge(edgeHits.nextLong());
+
+						if (edgeHit == null
+						    || !nodePositions.exists(edgeHit.getSource().getSUID(), floatBuff1, 0))
+							continue;
+
+						node = edgeHit.getSource().getSUID();
+						cyNode = edgeHit.getSource();
+						touchingEdges = Collections.singletonList(edgeHit);
+					} else {
+						node = nodeHits.nextExtents(floatBuff1, 0);
+						cyNode = graph.getNode(node);
+						touchingEdges = graph.getAdjacentEdgeIterable(cyNode,CyEdge.Type.ANY);
+					}
+
 					final byte nodeShape = nodeDetails.getShape(cyNode);
-					Iterable<CyEdge> touchingEdges = graph.getAdjacentEdgeIterable(cyNode,CyEdge.Type.ANY);
 					for (final CyEdge edge : touchingEdges ) {
 						if (!edgeDetails.isVisible(edge))
 							continue;
@@ -655,16 +771,21 @@ public final class GraphRenderer {
 						}
 					}
 
-					nodeBuff.put(node);
+					if (edgeHits == null)
+						nodeBuff.put(node);
 				}
 			}
 		}
 		// Render nodes and labels.  A label is not necessarily on top of every
 		// node; it is only on top of the node it belongs to.
 		{
-			final SpacialEntry2DEnumerator nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax,
-			                                                                     yMax, null, 0,
-			                                                                     false);
+			// Z-order only matters when nodes are drawn in full detail; the index
+			// hands the hits back already sorted so nothing is allocated per node.
+			final SpacialEntry2DEnumerator nodeHits;
+			if (haveZOrder && ((lodBits & LOD_HIGH_DETAIL) != 0))
+				nodeHits = nodePositions.queryOverlapByZOrder(xMin, yMin, xMax, yMax);
+			else
+				nodeHits = nodePositions.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false);
 			// System.out.println("Rendering nodes: high detail = "+(lodBits & LOD_HIGH_DETAIL));
 			// System.out.println("time: "+(System.currentTimeMillis()-start)+"ms");
 
@@ -680,12 +801,8 @@ public final class GraphRenderer {
 						                  floatBuff1[3], nodeDetails.getColorLowDetail(node));
 				}
 			} else { // High detail.
-				SpacialEntry2DEnumerator zHits = nodeHits;
-				if (haveZOrder) {
-					zHits = new SpacialEntry2DEnumeratorZSort(nodePositions, nodeHits);
-				}
-				while (zHits.numRemaining() > 0) {
-					final long node = zHits.nextExtents(floatBuff1, 0);
+				while (nodeHits.numRemaining() > 0) {
+					final long node = nodeHits.nextExtents(floatBuff1, 0);
 					final CyNode cyNode = graph.getNode(node);
 
 					renderNodeHigh(netView, grafx, cyNode, floatBuff1, doubleBuff1, doubleBuff2,
@@ -754,6 +871,100 @@ public final class GraphRenderer {
 		return lodBits;
 	}
 
+	/*
+	 * Draws the nodes and edges in the viewport as density maps, see
+	 * GraphLOD.aggregate().  No edges are drawn if edgePositions is null.
+	 */
+	private final static void renderDensity(final CyNetwork graph,
+	                                        final SpacialIndex2D nodePositions,
+	                                        final SpacialIndex2D edgePositions,
+	                                        final NodeDetails nodeDetails,
+	                                        final EdgeDetails edgeDetails,
+	                                        final GraphGraphics grafx, final Paint bgPaint,
+	                                        final double xCenter, final double yCenter,
+	                                        final double scaleFactor, final float xMin,
+	                                        final float yMin, final int cellSize,
+	                                        final float[] floatBuff1, final float[] floatBuff2) {
+		if (bgPaint != null)
+			grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
+
+		// The grid starts at the top left of the image and may overhang its
+		// bottom and right by part of a cell.
+		final int columns = (grafx.image.getWidth(null) + cellSize - 1) / cellSize;
+		final int rows = (grafx.image.getHeight(null) + cellSize - 1) / cellSize;
+		final float xMax = (float) (xMin + ((columns * (double) cellSize) / scaleFactor));
+		final float yMax = (float) (yMin + ((rows * (double) cellSize) / scaleFactor));
+		final int[] counts = new int[columns * rows];
+		final long[] representatives = new long[columns * rows];
+		final int[] argb = new int[columns * rows];
+
+		if (edgePositions != null) {
+			final SpacialEntry2DEnumerator largeEdges = edgePositions.queryDensity(xMin, yMin, xMax,
+			                                                                       yMax, columns, rows,
+			                                                                       counts,
+			                                                                       representatives);
+
+			while (largeEdges.numRemaining() > 0) {
+				final CyEdge edge = graph.getEdge(largeEdges.nextLong());
+
+				if (edge == null || !edgeDetails.isVisible(edge))
+					continue;
+
+				if (!nodePositions.exists(edge.getSource().getSUID(), floatBuff1, 0)
+				    || !nodePositions.exists(edge.getTarget().getSUID(), floatBuff2, 0))
+					continue;
+
+				grafx.drawEdgeLow((floatBuff1[0] + floatBuff1[2]) / 2,
+				                  (floatBuff1[1] + floatBuff1[3]) / 2,
+				                  (floatBuff2[0] + floatBuff2[2]) / 2,
+				                  (floatBuff2[1] + floatBuff2[3]) / 2,
+				                  edgeDetails.getColorLowDetail(edge));
+			}
+
+			for (int i = 0; i < counts.length; i++) {
+				final CyEdge edge = (counts[i] == 0) ? null : graph.getEdge(representatives[i]);
+
+				if (edge != null)
+					argb[i] = densityColor(edgeDetails.getColorLowDetail(edge), counts[i]);
+			}
+
+			grafx.drawDensityLow(argb, columns, rows, xMin, yMin, xMax, yMax);
+			Arrays.fill(counts, 0);
+			Arrays.fill(argb, 0);
+		}
+
+		final SpacialEntry2DEnumerator largeNodes = nodePositions.queryDensity(xMin, yMin, xMax, yMax,
+		                                                                       columns, rows, counts,
+		                                                                       representatives);
+
+		for (int i = 0; i < counts.length; i++) {
+			final CyNode node = (counts[i] == 0) ? null : graph.getNode(representatives[i]);
+
+			if (node != null)
+				argb[i] = densityColor(nodeDetails.getColorLowDetail(node), counts[i]);
+		}
+
+		grafx.drawDensityLow(argb, columns, rows, xMin, yMin, xMax, yMax);
+
+		while (largeNodes.numRemaining() > 0) {
+			final CyNode node = graph.getNode(largeNodes.nextExtents(floatBuff1, 0));
+
+			if (node != null && (floatBuff1[0] != floatBuff1[2]) && (floatBuff1[1] != floatBuff1[3]))
+				grafx.drawNodeLow(floatBuff1[0], floatBuff1[1], floatBuff1[2], floatBuff1[3],
+				                  nodeDetails.getColorLowDetail(node));
+		}
+	}
+
+	/*
+	 * The color of a density map cell holding count nodes or edges: as opaque
+	 * as count marks that each cover a third of the cell would make it.
+	 */
+	private final static int densityColor(final Color color, final int count) {
+		final int alpha = (int) (255 * (1.0 - Math.pow(2.0 / 3.0, count)));
+
+		return (alpha << 24) | (color.getRGB() & 0xffffff);
+	}
+
 	private final static void lemma_computeAnchor(final int anchor, final double[] input4x,
 	                                              final double[] rtrn2x) {
 		switch (anchor) {
@@ -1176,59 +1387,4 @@ public final class GraphRenderer {
 		
 		return xform.createTransformedShape(nodeShape);
 	}
-
-	private static class SpacialEntry2DEnumeratorZSort implements SpacialEntry2DEnumerator {
-		List<ZSpacialEntry> entryList;
-		int nextEntry = 0;
-
-		public SpacialEntry2DEnumeratorZSort (SpacialIndex2D nodePositions, SpacialEntry2DEnumerator nodeHits) {
-			// Get arrays of SUIDs, extents, Z
-			this.entryList = new ArrayList<ZSpacialEntry>();
-			while (nodeHits.numRemaining() > 0) {
-				float[] extents = new float[4];
-				long suid = nodeHits.nextExtents(extents, 0);
-				// Create an index
-				ZSpacialEntry entry = new ZSpacialEntry(suid, extents, nodePositions.getZOrder(suid));
-				entryList.add(entry);
-			}
-			// System.out.println("Sorting list: "+entryList);
-			Collections.sort(entryList);
-			// System.out.println("Sorted list: "+entryList);
-		}
-
-		public long nextLong() { return entryList.get(nextEntry++).getSUID(); }
-		public int numRemaining() { return (entryList.size()-nextEntry); }
-		public long nextExtents(final float[] extentsArr, final int offset) {
-			ZSpacialEntry entry = entryList.get(nextEntry++);
-			float[] extents = entry.getExtents();
-			extentsArr[offset] = extents[0];
-			extentsArr[offset+1] = extents[1];
-			extentsArr[offset+2] = extents[2];
-			extentsArr[offset+3] = extents[3];
-			return entry.getSUID();
-		}
-	}
-
-	private static class ZSpacialEntry implements Comparable<ZSpacialEntry> {
-		private long suid;
-		private float[] extentsArr;
-		private double z;
-
-		public ZSpacialEntry(long suid, float[] extentsArr, double z) {
-			this.suid = suid;
-			this.extentsArr = extentsArr;
-			this.z = z;
-		}
-
-		public long getSUID() { return this.suid; }
-		public float[] getExtents() { return this.extentsArr; }
-		public double getZ() { return this.z; }
-		public String toString() { return "Suid: "+suid+" z = "+z; }
-
-		public int compareTo(ZSpacialEntry other) {
-			if (other == null || z == other.getZ()) return 0;
-			if (z < other.getZ()) return -1;
-			return 1;
-		}
-	}
 }
@@ -0,0 +1,320 @@
+package org.cytoscape.graph.render.stateful;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cytoscape.graph.render.immed.GraphGraphics;
+import org.cytoscape.graph.render.immed.RecordingGraphGraphics;
+import org.cytoscape.graph.render.immed.SpriteCache;
+import org.cytoscape.spacial.SpacialIndex2D;
+import org.cytoscape.util.intr.LongHash;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.vizmap.VisualPropertyDependency;
+
+
+/**
+ * Renders a graph by splitting the image into tiles that are rasterized in
+ * parallel and then composited.
+ * <p>
+ * The frame is first rendered by GraphRenderer into a RecordingGraphGraphics
+ * on the calling thread.  This is the only step that queries the spacial index
+ * and the node and edge details, so it is also the only step that needs the
+ * locks the caller holds.  The recorded calls are binned into tiles by their
+ * extents, each non-empty tile is replayed into its own image by a worker
+ * thread, and the tiles are finally drawn into the target image.  Since each
+ * tile replays its calls in recording order, the edge-then-node z-order of
+ * GraphRenderer is preserved, and since the tiles are disjoint, the result
+ * does not depend on the order in which they are composited.
+ * <p>
+ * Frames that contain Cy2DGraphicLayer custom graphics are not split into
+ * tiles, since those layers run arbitrary drawing code; their recording is
+ * replayed into the target image by the calling thread instead.
+ * <p>
+ * An instance keeps its tile images between frames and must not be used to
+ * render more than one frame at a time.
+ */
+public final class TiledGraphRenderer {
+
+	/**
+	 * System property that turns on tiled rendering of network views.
+	 */
+	public static final String TILED_RENDERING_PROPERTY = "cytoscape.render.tiled";
+
+	/**
+	 * System property that sets the number of threads used to rasterize
+	 * tiles; defaults to the number of available processors.
+	 */
+	public static final String THREADS_PROPERTY = "cytoscape.render.tiled.threads";
+
+	/**
+	 * System property that sets the width and height of a tile, in pixels.
+	 */
+	public static final String TILE_SIZE_PROPERTY = "cytoscape.render.tiled.tileSize";
+
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+	private static final AtomicInteger threadCount = new AtomicInteger();
+
+	private final int threads;
+	private final int tileSize;
+	private final ThreadPoolExecutor executor;
+
+	private BufferedImage[] tileImages = new BufferedImage[0];
+
+	/**
+	 * @param threads the number of threads used to rasterize tiles; with a
+	 *   single thread, tiles are rasterized by the calling thread.
+	 * @param tileSize the width and height of a tile, in pixels.
+	 */
+	public TiledGraphRenderer(final int threads, final int tileSize) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be at least 1");
+
+		if (tileSize < 1)
+			throw new IllegalArgumentException("tileSize must be at least 1");
+
+		this.threads = threads;
+		this.tileSize = tileSize;
+
+		if (threads > 1) {
+			executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+			                                  new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				public Thread newThread(final Runnable r) {
+					final Thread t = new Thread(r, "TiledGraphRenderer-" + threadCount.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			executor.allowCoreThreadTimeOut(true);
+		} else {
+			executor = null;
+		}
+	}
+
+	/**
+	 * Returns a renderer configured from the system properties, or null if
+	 * tiled rendering has not been turned on.
+	 */
+	public static TiledGraphRenderer fromSystemProperties() {
+		if (!Boolean.getBoolean(TILED_RENDERING_PROPERTY))
+			return null;
+
+		final int threads = Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+		final int tileSize = Integer.getInteger(TILE_SIZE_PROPERTY, DEFAULT_TILE_SIZE);
+
+		return new TiledGraphRenderer(Math.max(1, threads), Math.max(1, tileSize));
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	/**
+	 * Renders a graph; the parameters and return value are the same as those
+	 * of GraphRenderer.renderGraph().  If bgPaint is null, the image is not
+	 * cleared and the graph is rendered sequentially.
+	 */
+	public int renderGraph(final CyNetworkView netView,
+	                       final SpacialIndex2D nodePositions,
+	                       final SpacialIndex2D edgePositions,
+	                       final GraphLOD lod,
+	                       final NodeDetails nodeDetails,
+	                       final EdgeDetails edgeDetails,
+	                       final LongHash nodeBuff,
+	                       final GraphGraphics grafx,
+	                       final Paint bgPaint,
+	                       final double xCenter,
+	                       final double yCenter,
+	                       final double scaleFactor,
+	                       final boolean haveZOrder,
+	                       final Set<VisualPropertyDependency<?>> dependencies) {
+		if (grafx == null || grafx.image == null || bgPaint == null)
+			return GraphRenderer.renderGraph(netView, nodePositions, edgePositions, lod, nodeDetails,
+			                                 edgeDetails, nodeBuff, grafx, bgPaint, xCenter, yCenter,
+			                                 scaleFactor, haveZOrder, dependencies);
+
+		final RecordingGraphGraphics recorder = new RecordingGraphGraphics(grafx.image, tileSize, tileSize);
+		final int lodBits = GraphRenderer.renderGraph(netView, nodePositions, edgePositions, lod,
+		                                              nodeDetails, edgeDetails, nodeBuff, recorder, bgPaint,
+		                                              xCenter, yCenter, scaleFactor, haveZOrder, dependencies);
+
+		grafx.clear(bgPaint, xCenter, yCenter, scaleFactor);
+
+		if (recorder.requiresSequentialRendering()) {
+			recorder.replayAll(grafx);
+			return lodBits;
+		}
+
+		final int tileCount = recorder.getTileCount();
+
+		if (tileImages.length != tileCount)
+			tileImages = new BufferedImage[tileCount];
+
+		final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(tileCount);
+		final SpriteCache sprites = grafx.getSpriteCache();
+
+		for (int i = 0; i < tileCount; i++) {
+			if (recorder.getOperationCount(i) == 0)
+				continue;
+
+			final int tile = i;
+			final Rectangle bounds = recorder.getTileBounds(tile);
+			final BufferedImage img = tileImage(tile, bounds);
+
+			tasks.add(new Callable<Integer>() {
+				public Integer call() {
+					renderTile(recorder, tile, img, bounds, xCenter, yCenter, scaleFactor, sprites);
+					return tile;
+				}
+			});
+		}
+
+		final Graphics2D g = (Graphics2D) grafx.image.getGraphics();
+
+		try {
+			if (executor == null || tasks.size() < 2) {
+				for (final Callable<Integer> task : tasks)
+					composite(g, recorder, callUnchecked(task));
+			} else {
+				final List<Future<Integer>> futures = new ArrayList<Future<Integer>>(tasks.size());
+
+				for (final Callable<Integer> task : tasks)
+					futures.add(executor.submit(task));
+
+				compositeAll(g, recorder, futures);
+			}
+		} finally {
+			g.dispose();
+		}
+
+		return lodBits;
+	}
+
+	/**
+	 * Returns the image for the specified tile, reusing the one from the
+	 * previous frame when its size still matches.
+	 */
+	private BufferedImage tileImage(final int tile, final Rectangle bounds) {
+		BufferedImage img = tileImages[tile];
+
+		if (img == null || img.getWidth() != bounds.width || img.getHeight() != bounds.height) {
+			img = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+			tileImages[tile] = img;
+		}
+
+		return img;
+	}
+
+	private static void renderTile(final RecordingGraphGraphics recorder, final int tile, final BufferedImage img,
+	                               final Rectangle bounds, final double xCenter, final double yCenter,
+	                               final double scaleFactor, final SpriteCache sprites) {
+		final GraphGraphics tileGrafx = new GraphGraphics(img, false, true);
+		tileGrafx.setSpriteCache(sprites);
+
+		// Shift the center so that the tile's portion of the image lands at
+		// the origin of the tile image.
+		final double tileXCenter = xCenter
+			+ ((bounds.x + (0.5d * bounds.width) - (0.5d * recorder.image.getWidth(null))) / scaleFactor);
+		final double tileYCenter = yCenter
+			+ ((bounds.y + (0.5d * bounds.height) - (0.5d * recorder.image.getHeight(null))) / scaleFactor);
+
+		// Tiles are cleared to transparent and drawn over the background, so
+		// the background is painted exactly once, by the target.
+		tileGrafx.clear(TRANSPARENT, tileXCenter, tileYCenter, scaleFactor);
+		recorder.replay(tile, tileGrafx);
+	}
+
+	/*
+	 * Composites each tile as soon as it is done, in submission order.  All
+	 * tasks are waited for even if one fails, so that no worker is still
+	 * drawing into a tile image when the next frame starts.
+	 */
+	private void compositeAll(final Graphics2D g, final RecordingGraphGraphics recorder,
+	                          final List<Future<Integer>> futures) {
+		Throwable failure = null;
+
+		for (final Future<Integer> future : futures) {
+			try {
+				final int tile = future.get();
+
+				if (failure == null)
+					composite(g, recorder, tile);
+			} catch (InterruptedException e) {
+				// Workers may still be running; let them finish into images
+				// that will not be used again.
+				tileImages = new BufferedImage[tileImages.length];
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				if (failure == null)
+					failure = e.getCause();
+			}
+		}
+
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		if (failure != null)
+			throw new IllegalStateException("tile rendering failed", failure);
+	}
+
+	private void composite(final Graphics2D g, final RecordingGraphGraphics recorder, final int tile) {
+		final Rectangle bounds = recorder.getTileBounds(tile);
+		g.drawImage(tileImages[tile], bounds.x, bounds.y, null);
+	}
+
+	private static int callUnchecked(final Callable<Integer> task) {
+		try {
+			return task.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("tile rendering failed", e);
+		}
+	}
+}
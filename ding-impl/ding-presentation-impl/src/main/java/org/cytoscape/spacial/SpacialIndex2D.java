@@ -117,6 +117,44 @@ public interface SpacialIndex2D {
 	                                             float[] extentsArr, int offset, boolean reverse);
 
 
+	/**
+	 * Returns the entries whose extents intersect the query rectangle, in
+	 * increasing z order.  Entries with the same z order are returned in the
+	 * order queryOverlap() would return them.  The returned enumeration
+	 * becomes invalid as soon as this structure is modified.
+	 * @exception IllegalArgumentException if xMin is not less than or equal to
+	 *   xMax or if yMin is not less than or equal to yMax.
+	 */
+	public SpacialEntry2DEnumerator queryOverlapByZOrder(float xMin, float yMin, float xMax, float yMax);
+
+	/**
+	 * Bins the entries that intersect the query rectangle on a grid of
+	 * columns by rows equally sized cells laid over it, for drawing a density
+	 * map instead of every entry.  An entry no wider and no taller than a cell
+	 * is counted in the cell that holds the center of its extents (or the
+	 * nearest cell, if that center is outside the query rectangle): the entry
+	 * count at row r and column c is added to counts[r * columns + c] and, if
+	 * that cell had a zero count, the key of one of its entries is put at the
+	 * same index of representatives.  Implementations are free to bin groups
+	 * of nearby entries without visiting them one by one, so a cell's
+	 * representative may be any entry near it.  Entries that are wider or
+	 * taller than a cell are not binned; they are returned instead so that
+	 * they can be drawn individually.
+	 * @param columns the number of cells across the query rectangle; must be
+	 *   positive.
+	 * @param rows the number of cells down the query rectangle; must be
+	 *   positive.
+	 * @param counts an array of at least columns * rows entry counts.
+	 * @param representatives an array of at least columns * rows keys.
+	 * @return the entries that intersect the query rectangle and were too large
+	 *   to be binned.
+	 * @exception IllegalArgumentException if xMin is not less than or equal to
+	 *   xMax or if yMin is not less than or equal to yMax.
+	 */
+	public SpacialEntry2DEnumerator queryDensity(float xMin, float yMin, float xMax, float yMax,
+	                                             int columns, int rows, int[] counts,
+	                                             long[] representatives);
+
 	/**
 	 * Empties this structure of all entries.
 	 */
@@ -144,6 +182,25 @@ public interface SpacialIndex2D {
 	 */
 	public void insert(long objKey, float xMin, float yMin, float xMax, float yMax, double z);
 
+	/**
+	 * Replaces all entries of this structure with the specified ones.  This
+	 * is equivalent to calling empty() followed by insert() for each entry,
+	 * but implementations may build a better structure in less time when they
+	 * see all entries at once.
+	 * @param objKeys the identifiers of the entries, at indices [0, count);
+	 *   identifiers must be non-negative and distinct.
+	 * @param extents the extents of the entries; the extents of the entry at
+	 *   index i are { xMin, yMin, xMax, yMax } at indices [4*i, 4*i+3].
+	 * @param zOrders the z order of the entries, at indices [0, count); may be
+	 *   null, in which case all entries have a z order of zero.
+	 * @param count the number of entries.
+	 * @exception IllegalStateException if an objKey occurs more than once.
+	 * @exception IllegalArgumentException if an objKey is negative,
+	 *   or if xMin is not less than or equal to xMax or yMin is not less than
+	 *   or equal to yMax for an entry.
+	 */
+	public void bulkLoad(long[] objKeys, float[] extents, double[] zOrders, int count);
+
 	/**
 	 * Deletes the specified data entry from this structure.
 	 * @param objKey a user-defined identifier that was potentially used in a
@@ -154,9 +211,8 @@ public interface SpacialIndex2D {
 	public boolean delete(long objKey);
 
 	/**
-	 * Gets the z-Order associated with this entry.  Note that this is for information
-	 * only -- the underlying spacial indexing will ignore Z-Order.  These getters and
-	 * setters are merely for convenience during rendering.
+	 * Gets the z-Order associated with this entry.  The z-Order does not affect
+	 * overlap queries; it only orders the hits of queryOverlapByZOrder().
 	 *
 	 * @param objKey a user-defined identifier
 	 * @return the zorder for this identifier
@@ -164,9 +220,8 @@ public interface SpacialIndex2D {
 	public double getZOrder(long objKey);
 
 	/**
-	 * Sets the z-Order associated with this entry.  Note that this is for information
-	 * only -- the underlying spacial indexing will ignore Z-Order.  These getters and
-	 * setters are merely for convenience during rendering.
+	 * Sets the z-Order associated with this entry.  The z-Order does not affect
+	 * overlap queries; it only orders the hits of queryOverlapByZOrder().
 	 *
 	 * @param objKey a user-defined identifier
 	 * @param z the zorder for this identifier
@@ -29,4 +29,10 @@ public interface SpacialIndex2DFactory {
 	
 	SpacialIndex2D createSpacialIndex2D();
 
+	/**
+	 * Creates an index holding the specified entries; the arguments are the
+	 * same as those of {@link SpacialIndex2D#bulkLoad(long[], float[], double[], int)}.
+	 */
+	SpacialIndex2D createSpacialIndex2D(long[] objKeys, float[] extents, double[] zOrders, int count);
+
 }
@@ -26,6 +26,7 @@ package org.cytoscape.spacial.internal.dummy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.cytoscape.model.CyNode;
@@ -76,10 +77,25 @@ public class DummySpacial implements SpacialIndex2D {
 		return new NetworkEnumerator(nodeViews);
 	}
 
+	public SpacialEntry2DEnumerator queryOverlapByZOrder(float xMin, float yMin, float xMax, float yMax) {
+		final List<DNodeView> sorted = new ArrayList<DNodeView>(nodeViews);
+		Collections.sort(sorted, (a, b) -> Double.compare(a.getZPosition(), b.getZPosition()));
+		return new NetworkEnumerator(sorted);
+	}
+
+	public SpacialEntry2DEnumerator queryDensity(float xMin, float yMin, float xMax, float yMax,
+	                                             int columns, int rows, int[] counts,
+	                                             long[] representatives) {
+		// Like queryOverlap(), we don't look at the extents, so nothing is binned
+		return new NetworkEnumerator(nodeViews);
+	}
+
 	public void empty() {}
 
 	public void insert(long objKey, float xMin, float yMin, float xMax, float yMax, double z) {} 
 
+	public void bulkLoad(long[] objKeys, float[] extents, double[] zOrders, int count) {}
+
 	public boolean delete(long objKey) { return true; }
 
 	public void setZOrder(long objKey, double z) {}
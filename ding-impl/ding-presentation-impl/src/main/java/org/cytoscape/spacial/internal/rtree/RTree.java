@@ -33,9 +33,8 @@ import org.cytoscape.util.intr.LongEnumerator;
 import org.cytoscape.util.intr.LongObjHash;
 import org.cytoscape.util.intr.LongStack;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
 
 
 /**
@@ -57,13 +56,17 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	private int m_deletedEntries;
 	private int m_mapExpansionThreshold;
 
-	// HACK Alert:  We don't want the overhead of a 3D RTree, but we *do* want
-	// to support Z-Order.  This allows us to cache the Z-Order information
-	// which will be sorted when the detail is high enough
-	private Map<Long,Double> m_zOrderMap; // Keys are objKey, values are of type Double,
+	// We don't want the overhead of a 3D R-tree, but we *do* want to support
+	// Z-Order.  The z of each entry is kept next to its extents in its leaf,
+	// and the distinct z values in the tree are kept sorted, with the number
+	// of entries at each, so that overlap hits can be bucketed by z.
+	private double[] m_zLevels;
+	private int[] m_zLevelCounts;
+	private int m_zLevelCount;
 
 	// These buffers are used during node splitting.
 	private final long[] m_objKeyBuff;
+	private final double[] m_zBuff;
 	private final Node[] m_childrenBuff;
 	private final float[] m_xMinBuff;
 	private final float[] m_yMinBuff;
@@ -100,10 +103,13 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		m_minBranches = Math.max(2, (int) (((double) (m_maxBranches + 1)) * 0.4d));
 		m_root = new Node(m_maxBranches, true);
 		m_entryMap = new LongObjHash();
-		m_zOrderMap = new HashMap<Long,Double>();
+		m_zLevels = new double[4];
+		m_zLevelCounts = new int[4];
+		m_zLevelCount = 0;
 		m_deletedEntries = 0;
 		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
 		m_objKeyBuff = new long[m_maxBranches + 1];
+		m_zBuff = new double[m_maxBranches + 1];
 		m_childrenBuff = new Node[m_maxBranches + 1];
 		m_xMinBuff = new float[m_maxBranches + 1];
 		m_yMinBuff = new float[m_maxBranches + 1];
@@ -126,7 +132,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	public final void empty() {
 		m_root = new Node(m_maxBranches, true);
 		m_entryMap = new LongObjHash();
-		m_zOrderMap = new HashMap<Long,Double>();
+		m_zLevelCount = 0;
 		m_deletedEntries = 0;
 		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
 	}
@@ -219,9 +225,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			}
 		}
 
-		final Node rootSplit = insert(m_root, objKey, xMin, yMin, xMax, yMax, m_maxBranches,
-		                              m_minBranches, m_entryMap, m_MBR, m_objKeyBuff,
-		                              m_childrenBuff, m_xMinBuff, m_yMinBuff, m_xMaxBuff,
+		final double zOrder = (z == 0.0) ? 0.0 : z; // No negative zero.
+		final Node rootSplit = insert(m_root, objKey, xMin, yMin, xMax, yMax, zOrder,
+		                              m_maxBranches, m_minBranches, m_entryMap, m_MBR,
+		                              m_objKeyBuff, m_zBuff, m_childrenBuff, m_xMinBuff, m_yMinBuff, m_xMaxBuff,
 		                              m_yMaxBuff, m_tempBuff1, m_tempBuff2);
 
 		if (rootSplit != null) {
@@ -252,23 +259,313 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			m_MBR[3] = Math.max(m_root.yMaxs[0], m_root.yMaxs[1]);
 		}
 
-		// OK, now that we've done all *that*, add z
-		if (z != 0.0 || m_zOrderMap.get(objKey) != null) {
-			if (z == 0.0)
-				m_zOrderMap.remove(objKey);
-			else
-				m_zOrderMap.put(objKey, Double.valueOf(z));
+		addZLevel(zOrder);
+	}
+
+	/**
+	 * Returns the z order of an entry, or zero if objKey is not in this
+	 * R-tree.
+	 */
+	public final double getZOrder(final long objKey) {
+		final Node n = leafOf(objKey);
+
+		if (n == null)
+			return 0.0;
+
+		return n.zOrders[indexInLeaf(n, objKey)];
+	}
+
+	/**
+	 * Changes the z order of an entry; does nothing if objKey is not in this
+	 * R-tree.
+	 */
+	public final void setZOrder(final long objKey, final double z) {
+		final Node n = leafOf(objKey);
+
+		if (n == null)
+			return;
+
+		final int inx = indexInLeaf(n, objKey);
+		final double zOrder = (z == 0.0) ? 0.0 : z;
+
+		if (n.zOrders[inx] == zOrder)
+			return;
+
+		removeZLevel(n.zOrders[inx]);
+		n.zOrders[inx] = zOrder;
+		addZLevel(zOrder);
+	}
+
+	private final Node leafOf(final long objKey) {
+		if (objKey < 0)
+			return null;
+
+		final Object o = m_entryMap.get(objKey);
+
+		return ((o == null) || (o == m_deletedEntry)) ? null : (Node) o;
+	}
+
+	private final static int indexInLeaf(final Node n, final long objKey) {
+		int i = 0;
+
+		while (n.objKeys[i] != objKey)
+			i++;
+
+		return i;
+	}
+
+	/*
+	 * Counts one more entry at z, adding z to the sorted levels if it is new.
+	 */
+	private final void addZLevel(final double z) {
+		int inx = Arrays.binarySearch(m_zLevels, 0, m_zLevelCount, z);
+
+		if (inx < 0) {
+			inx = -(inx + 1);
+
+			if (m_zLevelCount == m_zLevels.length) {
+				m_zLevels = Arrays.copyOf(m_zLevels, m_zLevelCount * 2);
+				m_zLevelCounts = Arrays.copyOf(m_zLevelCounts, m_zLevelCount * 2);
+			}
+
+			System.arraycopy(m_zLevels, inx, m_zLevels, inx + 1, m_zLevelCount - inx);
+			System.arraycopy(m_zLevelCounts, inx, m_zLevelCounts, inx + 1, m_zLevelCount - inx);
+			m_zLevels[inx] = z;
+			m_zLevelCounts[inx] = 0;
+			m_zLevelCount++;
 		}
+
+		m_zLevelCounts[inx]++;
 	}
 
-	public final double getZOrder(long objKey) {
-		Double z = m_zOrderMap.get(objKey);
-		if (z == null) return 0.0;
-		return z.doubleValue();
+	/*
+	 * Counts one less entry at z, dropping z from the levels if none is left.
+	 */
+	private final void removeZLevel(final double z) {
+		final int inx = Arrays.binarySearch(m_zLevels, 0, m_zLevelCount, z);
+
+		if (--m_zLevelCounts[inx] == 0) {
+			m_zLevelCount--;
+			System.arraycopy(m_zLevels, inx + 1, m_zLevels, inx, m_zLevelCount - inx);
+			System.arraycopy(m_zLevelCounts, inx + 1, m_zLevelCounts, inx, m_zLevelCount - inx);
+		}
 	}
 
-	public final void setZOrder(long objKey, double zOrder) {
-		m_zOrderMap.put(objKey, zOrder);
+	/**
+	 * Replaces all entries of this R-tree with the given ones, building a
+	 * packed tree bottom-up with the Sort-Tile-Recursive algorithm: the
+	 * entries are sorted along X into vertical slices, each slice is sorted
+	 * along Y and cut into leaf nodes, and the leaves are packed into parent
+	 * nodes the same way.  This is much faster than inserting the entries one
+	 * at a time, and since sibling nodes barely overlap, the resulting tree
+	 * is also faster to query.<p>
+	 * The arguments are checked as in insert(); if one is rejected, this
+	 * R-tree is left unchanged.
+	 * @param objKeys the identifiers of the entries, at indices [0, count).
+	 * @param extents the extents of the entries; the extents of the entry at
+	 *   index i are { xMin, yMin, xMax, yMax } at indices [4*i, 4*i+3].
+	 * @param zOrders the z order of the entries, at indices [0, count); may be
+	 *   null, in which case all entries have a z order of zero.
+	 * @param count the number of entries.
+	 * @exception IllegalStateException if an objKey occurs more than once.
+	 * @exception IllegalArgumentException if an objKey is negative or if the
+	 *   extents of an entry are not valid.
+	 */
+	public final void bulkLoad(final long[] objKeys, final float[] extents, final double[] zOrders,
+	                           final int count) {
+		for (int i = 0; i < count; i++) {
+			if (objKeys[i] < 0)
+				throw new IllegalArgumentException("objKey is negative");
+
+			if (!(extents[4 * i] <= extents[4 * i + 2]))
+				throw new IllegalArgumentException("xMin <= xMax not true: xMin " + extents[4 * i]
+				                                   + " xMax " + extents[4 * i + 2]);
+
+			if (!(extents[4 * i + 1] <= extents[4 * i + 3]))
+				throw new IllegalArgumentException("yMin <= yMax not true: yMin " + extents[4 * i + 1]
+				                                   + " yMax " + extents[4 * i + 3]);
+		}
+
+		final LongObjHash entryMap = new LongObjHash();
+		final float[] mbr = new float[] {
+		                        Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+		                        Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY
+		                    };
+
+		// The rectangles of the current level, and the nodes they belong to.
+		float[] xMins = new float[count];
+		float[] yMins = new float[count];
+		float[] xMaxs = new float[count];
+		float[] yMaxs = new float[count];
+
+		for (int i = 0; i < count; i++) {
+			xMins[i] = extents[4 * i];
+			yMins[i] = extents[4 * i + 1];
+			xMaxs[i] = extents[4 * i + 2];
+			yMaxs[i] = extents[4 * i + 3];
+			mbr[0] = Math.min(mbr[0], xMins[i]);
+			mbr[1] = Math.min(mbr[1], yMins[i]);
+			mbr[2] = Math.max(mbr[2], xMaxs[i]);
+			mbr[3] = Math.max(mbr[3], yMaxs[i]);
+		}
+
+		Node[] level = null; // null at the leaf level.
+		int size = count;
+
+		do {
+			final int[] order = new int[size];
+			final int[] groupStarts = packGroups(xMins, yMins, xMaxs, yMaxs, size, m_maxBranches, order);
+			final int groups = groupStarts.length - 1;
+			final Node[] parents = new Node[groups];
+			final float[] pxMins = new float[groups];
+			final float[] pyMins = new float[groups];
+			final float[] pxMaxs = new float[groups];
+			final float[] pyMaxs = new float[groups];
+
+			for (int g = 0; g < groups; g++) {
+				final Node n = new Node(m_maxBranches, level == null);
+				float nxMin = Float.POSITIVE_INFINITY;
+				float nyMin = Float.POSITIVE_INFINITY;
+				float nxMax = Float.NEGATIVE_INFINITY;
+				float nyMax = Float.NEGATIVE_INFINITY;
+
+				for (int j = groupStarts[g]; j < groupStarts[g + 1]; j++) {
+					final int src = order[j];
+					final int inx = n.entryCount++;
+					n.xMins[inx] = xMins[src];
+					n.yMins[inx] = yMins[src];
+					n.xMaxs[inx] = xMaxs[src];
+					n.yMaxs[inx] = yMaxs[src];
+					nxMin = Math.min(nxMin, xMins[src]);
+					nyMin = Math.min(nyMin, yMins[src]);
+					nxMax = Math.max(nxMax, xMaxs[src]);
+					nyMax = Math.max(nyMax, yMaxs[src]);
+
+					if (level == null) {
+						final long objKey = objKeys[src];
+
+						if (entryMap.get(objKey) != null)
+							throw new IllegalStateException("objkey " + objKey + " is already in this tree");
+
+						n.objKeys[inx] = objKey;
+						n.zOrders[inx] = (zOrders == null || zOrders[src] == 0.0) ? 0.0 : zOrders[src];
+						entryMap.put(objKey, n);
+					} else {
+						final Node child = level[src];
+						child.parent = n;
+						n.data.children[inx] = child;
+						n.data.deepCount += isLeafNode(child) ? child.entryCount : child.data.deepCount;
+					}
+				}
+
+				parents[g] = n;
+				pxMins[g] = nxMin;
+				pyMins[g] = nyMin;
+				pxMaxs[g] = nxMax;
+				pyMaxs[g] = nyMax;
+			}
+
+			level = parents;
+			xMins = pxMins;
+			yMins = pyMins;
+			xMaxs = pxMaxs;
+			yMaxs = pyMaxs;
+			size = groups;
+		} while (size > 1);
+
+		m_root = (size == 1) ? level[0] : new Node(m_maxBranches, true);
+		m_entryMap = entryMap;
+		m_deletedEntries = 0;
+		m_mapExpansionThreshold = LongObjHash.maxCapacity(m_entryMap.size());
+		System.arraycopy(mbr, 0, m_MBR, 0, 4);
+		m_zLevelCount = 0;
+
+		if (count > 0) {
+			final double[] sorted = new double[count];
+
+			for (int i = 0; i < count; i++)
+				sorted[i] = (zOrders == null || zOrders[i] == 0.0) ? 0.0 : zOrders[i];
+
+			Arrays.sort(sorted);
+
+			for (int i = 0; i < count; i++) {
+				if (m_zLevelCount == 0 || sorted[i] != m_zLevels[m_zLevelCount - 1])
+					addZLevel(sorted[i]);
+				else
+					m_zLevelCounts[m_zLevelCount - 1]++;
+			}
+		}
+	}
+
+	/*
+	 * Sorts count rectangles into groups of at most maxBranches rectangles
+	 * that are close together, Sort-Tile-Recursive style.  The rectangle
+	 * indices are written into order, group by group; the returned array
+	 * holds the start of each group in order, followed by count.  The
+	 * rectangles are spread evenly over the groups, so that no group other
+	 * than a lone root is much below half full.
+	 */
+	private final static int[] packGroups(final float[] xMins, final float[] yMins,
+	                                      final float[] xMaxs, final float[] yMaxs,
+	                                      final int count, final int maxBranches,
+	                                      final int[] order) {
+		for (int i = 0; i < count; i++)
+			order[i] = i;
+
+		if (count <= maxBranches)
+			return count == 0 ? new int[] { 0 } : new int[] { 0, count };
+
+		final int groups = (count + maxBranches - 1) / maxBranches;
+		final int slices = (int) Math.ceil(Math.sqrt((double) groups));
+		final long[] sortBuff = new long[count];
+		final int[] groupStarts = new int[groups + slices + 1];
+		int groupCount = 0;
+
+		sortByCenter(xMins, xMaxs, order, 0, count, sortBuff);
+
+		for (int s = 0; s < slices; s++) {
+			final int sliceStart = (int) (((long) count * s) / slices);
+			final int sliceEnd = (int) (((long) count * (s + 1)) / slices);
+			final int sliceSize = sliceEnd - sliceStart;
+
+			if (sliceSize == 0)
+				continue;
+
+			sortByCenter(yMins, yMaxs, order, sliceStart, sliceEnd, sortBuff);
+
+			final int sliceGroups = (sliceSize + maxBranches - 1) / maxBranches;
+
+			for (int g = 0; g < sliceGroups; g++)
+				groupStarts[groupCount++] = sliceStart + (int) (((long) sliceSize * g) / sliceGroups);
+		}
+
+		groupStarts[groupCount] = count;
+
+		final int[] returnThis = new int[groupCount + 1];
+		System.arraycopy(groupStarts, 0, returnThis, 0, groupCount + 1);
+
+		return returnThis;
+	}
+
+	/*
+	 * Sorts order[from, to) by the centers of the given intervals.  Each
+	 * index is packed into a long below the center's bits, reordered so that
+	 * comparing the longs compares the floats, which lets a primitive sort do
+	 * the work.
+	 */
+	private final static void sortByCenter(final float[] mins, final float[] maxs, final int[] order,
+	                                       final int from, final int to, final long[] sortBuff) {
+		for (int i = from; i < to; i++) {
+			final int inx = order[i];
+			final int bits = Float.floatToIntBits((mins[inx] * 0.5f) + (maxs[inx] * 0.5f));
+			final int sortable = bits ^ ((bits >> 31) & 0x7fffffff);
+			sortBuff[i] = (((long) sortable) << 32) | inx;
+		}
+
+		Arrays.sort(sortBuff, from, to);
+
+		for (int i = from; i < to; i++)
+			order[i] = (int) sortBuff[i];
 	}
 
 	/*
@@ -280,9 +577,10 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	 */
 	private final static Node insert(final Node root, final long objKey, final float xMin,
 	                                 final float yMin, final float xMax, final float yMax,
-	                                 final int maxBranches, final int minBranches,
+	                                 final double z, final int maxBranches, final int minBranches,
 	                                 final LongObjHash entryMap, final float[] globalMBR,
-	                                 final long[] objKeyBuff, final Node[] childrenBuff,
+	                                 final long[] objKeyBuff, final double[] zBuff,
+	                                 final Node[] childrenBuff,
 	                                 final float[] xMinBuff, final float[] yMinBuff,
 	                                 final float[] xMaxBuff, final float[] yMaxBuff,
 	                                 final float[] tempBuff1, final float[] tempBuff2) {
@@ -293,6 +591,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 
 			final int newInx = chosenLeaf.entryCount++;
 			chosenLeaf.objKeys[newInx] = objKey;
+			chosenLeaf.zOrders[newInx] = z;
 			chosenLeaf.xMins[newInx] = xMin;
 			chosenLeaf.yMins[newInx] = yMin;
 			chosenLeaf.xMaxs[newInx] = xMax;
@@ -303,8 +602,8 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			return null;
 		} else { // A split is necessary.
 
-			final Node newLeaf = splitLeafNode(chosenLeaf, objKey, xMin, yMin, xMax, yMax,
-			                                   maxBranches, minBranches, objKeyBuff, xMinBuff,
+			final Node newLeaf = splitLeafNode(chosenLeaf, objKey, xMin, yMin, xMax, yMax, z,
+			                                   maxBranches, minBranches, objKeyBuff, zBuff, xMinBuff,
 			                                   yMinBuff, xMaxBuff, yMaxBuff, tempBuff1, tempBuff2);
 
 			for (int i = 0; i < chosenLeaf.entryCount; i++)
@@ -445,14 +744,17 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 	private final static Node splitLeafNode(final Node fullLeafNode, final long newObjKey,
 	                                        final float newXMin, final float newYMin,
 	                                        final float newXMax, final float newYMax,
+	                                        final double newZ,
 	                                        final int maxBranches, final int minBranches,
-	                                        final long[] objKeyBuff, final float[] xMinBuff,
+	                                        final long[] objKeyBuff, final double[] zBuff,
+	                                        final float[] xMinBuff,
 	                                        final float[] yMinBuff, final float[] xMaxBuff,
 	                                        final float[] yMaxBuff, final float[] tempBuff1,
 	                                        final float[] tempBuff2) {
 		// Copy node MBRs and objKeys and new MBR and objKey into arrays.
 		for (int i = 0; i < fullLeafNode.entryCount; i++) {
 			objKeyBuff[i] = fullLeafNode.objKeys[i];
+			zBuff[i] = fullLeafNode.zOrders[i];
 			xMinBuff[i] = fullLeafNode.xMins[i];
 			yMinBuff[i] = fullLeafNode.yMins[i];
 			xMaxBuff[i] = fullLeafNode.xMaxs[i];
@@ -460,6 +762,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		}
 
 		objKeyBuff[fullLeafNode.entryCount] = newObjKey;
+		zBuff[fullLeafNode.entryCount] = newZ;
 		xMinBuff[fullLeafNode.entryCount] = newXMin;
 		yMinBuff[fullLeafNode.entryCount] = newYMin;
 		xMaxBuff[fullLeafNode.entryCount] = newXMax;
@@ -472,6 +775,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		// tempBuff1 now contains the areas of the MBRs - we won't use this.
 		final int seed1 = (int) (seeds >> 32);
 		fullLeafNode.objKeys[0] = objKeyBuff[seed1];
+		fullLeafNode.zOrders[0] = zBuff[seed1];
 		fullLeafNode.xMins[0] = xMinBuff[seed1];
 		fullLeafNode.yMins[0] = yMinBuff[seed1];
 		fullLeafNode.xMaxs[0] = xMaxBuff[seed1];
@@ -481,6 +785,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		final int seed2 = (int) seeds;
 		final Node returnThis = new Node(maxBranches, true);
 		returnThis.objKeys[0] = objKeyBuff[seed2];
+		returnThis.zOrders[0] = zBuff[seed2];
 		returnThis.xMins[0] = xMinBuff[seed2];
 		returnThis.yMins[0] = yMinBuff[seed2];
 		returnThis.xMaxs[0] = xMaxBuff[seed2];
@@ -502,6 +807,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 
 		if (seed2 != --entriesRemaining) { // seed1 < seed2, guaranteed.
 			objKeyBuff[seed2] = objKeyBuff[entriesRemaining];
+			zBuff[seed2] = zBuff[entriesRemaining];
 			xMinBuff[seed2] = xMinBuff[entriesRemaining];
 			yMinBuff[seed2] = yMinBuff[entriesRemaining];
 			xMaxBuff[seed2] = xMaxBuff[entriesRemaining];
@@ -510,6 +816,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 
 		if (seed1 != --entriesRemaining) {
 			objKeyBuff[seed1] = objKeyBuff[entriesRemaining];
+			zBuff[seed1] = zBuff[entriesRemaining];
 			xMinBuff[seed1] = xMinBuff[entriesRemaining];
 			yMinBuff[seed1] = yMinBuff[entriesRemaining];
 			xMaxBuff[seed1] = xMaxBuff[entriesRemaining];
@@ -539,6 +846,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 					// Add entry to "rest" group.
 					final int newInx = restGroup.entryCount++;
 					restGroup.objKeys[newInx] = objKeyBuff[i];
+					restGroup.zOrders[newInx] = zBuff[i];
 					restGroup.xMins[newInx] = xMinBuff[i];
 					restGroup.yMins[newInx] = yMinBuff[i];
 					restGroup.xMaxs[newInx] = xMaxBuff[i];
@@ -611,6 +919,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			// Add next to chosen group.
 			final int newInx = chosenGroup.entryCount++;
 			chosenGroup.objKeys[newInx] = objKeyBuff[next];
+			chosenGroup.zOrders[newInx] = zBuff[next];
 			chosenGroup.xMins[newInx] = xMinBuff[next];
 			chosenGroup.yMins[newInx] = yMinBuff[next];
 			chosenGroup.xMaxs[newInx] = xMaxBuff[next];
@@ -633,6 +942,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			// Plug the hole where next used to be.
 			if (next != --entriesRemaining) {
 				objKeyBuff[next] = objKeyBuff[entriesRemaining];
+				zBuff[next] = zBuff[entriesRemaining];
 				xMinBuff[next] = xMinBuff[entriesRemaining];
 				yMinBuff[next] = yMinBuff[entriesRemaining];
 				xMaxBuff[next] = xMaxBuff[entriesRemaining];
@@ -1295,9 +1605,11 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			}
 
 		n.entryCount--;
+		removeZLevel(n.zOrders[delInx]);
 
 		if (delInx != n.entryCount) { // Plug the hole at index delInx.
 			n.objKeys[delInx] = n.objKeys[n.entryCount];
+			n.zOrders[delInx] = n.zOrders[n.entryCount];
 			n.xMins[delInx] = n.xMins[n.entryCount];
 			n.yMins[delInx] = n.yMins[n.entryCount];
 			n.xMaxs[delInx] = n.xMaxs[n.entryCount];
@@ -1317,8 +1629,9 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 				if (isLeafNode(eliminatedNode)) {
 					rootSplit = insert(m_root, eliminatedNode.objKeys[i], eliminatedNode.xMins[i],
 					                   eliminatedNode.yMins[i], eliminatedNode.xMaxs[i],
-					                   eliminatedNode.yMaxs[i], m_maxBranches, m_minBranches,
-					                   m_entryMap, m_MBR, m_objKeyBuff, m_childrenBuff, m_xMinBuff,
+					                   eliminatedNode.yMaxs[i], eliminatedNode.zOrders[i],
+					                   m_maxBranches, m_minBranches, m_entryMap, m_MBR,
+					                   m_objKeyBuff, m_zBuff, m_childrenBuff, m_xMinBuff,
 					                   m_yMinBuff, m_xMaxBuff, m_yMaxBuff, m_tempBuff1, m_tempBuff2);
 				} else {
 					rootSplit = insert(m_root, currentDepth, eliminatedNode.data.children[i],
@@ -1598,6 +1911,140 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		return new OverlapEnumerator(totalCount, nodeStack, stackStack, reverse);
 	}
 
+	/**
+	 * Returns the same entries as queryOverlap() with a null extentsArr and
+	 * a false reverse, but in increasing z order; entries with the same z
+	 * order are returned in the order queryOverlap() would return them.<p>
+	 * If every entry in this R-tree has the same z order, this is exactly
+	 * queryOverlap().  Otherwise, the hits are bucketed by their position
+	 * among the distinct z orders in this R-tree, which are kept sorted as
+	 * entries are inserted, deleted and reordered, so no comparison sort of
+	 * the hits is needed, and the hits are held in a few primitive arrays
+	 * rather than in an object per entry.
+	 * @exception IllegalArgumentException if xMin is not less than or equal to
+	 *   xMax or if yMin is not less than or equal to yMax.
+	 */
+	public final SpacialEntry2DEnumerator queryOverlapByZOrder(final float xMin, final float yMin,
+	                                                           final float xMax, final float yMax) {
+		final OverlapEnumerator hits = (OverlapEnumerator) queryOverlap(xMin, yMin, xMax, yMax,
+		                                                                null, 0, false);
+
+		if (m_zLevelCount <= 1)
+			return hits;
+
+		final int count = hits.numRemaining();
+		final long[] keys = new long[count];
+		final float[] extents = new float[4 * count];
+		final int[] levels = new int[count];
+		final int[] order = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			keys[i] = hits.nextExtents(extents, 4 * i);
+			levels[i] = Arrays.binarySearch(m_zLevels, 0, m_zLevelCount, hits.lastZOrder);
+		}
+
+		if (m_zLevelCount <= count) { // Counting sort over the z levels.
+
+			final int[] bucketStarts = new int[m_zLevelCount + 1];
+
+			for (int i = 0; i < count; i++)
+				bucketStarts[levels[i] + 1]++;
+
+			for (int l = 1; l <= m_zLevelCount; l++)
+				bucketStarts[l] += bucketStarts[l - 1];
+
+			for (int i = 0; i < count; i++)
+				order[bucketStarts[levels[i]]++] = i;
+		} else { // Fewer hits than levels; sort the hits by level instead.
+
+			final long[] sortBuff = new long[count];
+
+			for (int i = 0; i < count; i++)
+				sortBuff[i] = (((long) levels[i]) << 32) | i;
+
+			Arrays.sort(sortBuff);
+
+			for (int i = 0; i < count; i++)
+				order[i] = (int) sortBuff[i];
+		}
+
+		return new ArrayEnumerator(count, keys, extents, order);
+	}
+
+	/**
+	 * Bins the entries that intersect the query rectangle on a grid laid over
+	 * it; see SpacialIndex2D.queryDensity().  A subtree whose MBR fits in a
+	 * cell is binned as a whole using its deep count, so the cost of this
+	 * query depends on the number of cells and of entries larger than a cell
+	 * rather than on the number of entries in this R-tree.
+	 * @exception IllegalArgumentException if xMin is not less than or equal to
+	 *   xMax or if yMin is not less than or equal to yMax.
+	 */
+	public final SpacialEntry2DEnumerator queryDensity(final float xMin, final float yMin,
+	                                                   final float xMax, final float yMax,
+	                                                   final int columns, final int rows,
+	                                                   final int[] counts,
+	                                                   final long[] representatives) {
+		if (!(xMin <= xMax))
+			throw new IllegalArgumentException("xMin <= xMax not true");
+
+		if (!(yMin <= yMax))
+			throw new IllegalArgumentException("yMin <= yMax not true");
+
+		final DensityGrid grid = new DensityGrid(xMin, yMin, xMax, yMax, columns, rows, counts,
+		                                         representatives);
+
+		if ((m_MBR[0] <= xMax) && (xMin <= m_MBR[2]) && (m_MBR[1] <= yMax) && (yMin <= m_MBR[3]))
+			queryDensity(m_root, grid);
+
+		return new ArrayEnumerator(grid.largeCount, grid.largeKeys, grid.largeExtents, null);
+	}
+
+	/*
+	 * Bins the entries under n that overlap the grid's query rectangle.
+	 * It is assumed that the MBR of n overlaps it.
+	 */
+	private final static void queryDensity(final Node n, final DensityGrid grid) {
+		for (int i = 0; i < n.entryCount; i++) {
+			final float xMinE = n.xMins[i];
+			final float yMinE = n.yMins[i];
+			final float xMaxE = n.xMaxs[i];
+			final float yMaxE = n.yMaxs[i];
+
+			if ((xMinE > grid.xMax) || (grid.xMin > xMaxE) || (yMinE > grid.yMax)
+			    || (grid.yMin > yMaxE))
+				continue;
+
+			final boolean fits = ((xMaxE - xMinE) <= grid.cellWidth)
+			                     && ((yMaxE - yMinE) <= grid.cellHeight);
+
+			if (isLeafNode(n)) {
+				if (fits)
+					grid.bin(xMinE, yMinE, xMaxE, yMaxE, 1, n.objKeys[i]);
+				else
+					grid.addLarge(n.objKeys[i], xMinE, yMinE, xMaxE, yMaxE);
+			} else {
+				final Node child = n.data.children[i];
+
+				// Subtrees that cross the edge of the query rectangle may
+				// hold entries outside of it, so they are not binned whole.
+				if (fits && (xMinE >= grid.xMin) && (xMaxE <= grid.xMax) && (yMinE >= grid.yMin)
+				    && (yMaxE <= grid.yMax)) {
+					Node leaf = child;
+
+					while (!isLeafNode(leaf))
+						leaf = leaf.data.children[0];
+
+					grid.bin(xMinE, yMinE, xMaxE, yMaxE,
+					         isLeafNode(child) ? child.entryCount : child.data.deepCount,
+					         leaf.objKeys[0]);
+				} else {
+					queryDensity(child, grid);
+				}
+			}
+		}
+	}
+
 	/*
 	 * Returns the number of entries under n that overlap specified query
 	 * rectangle.  Nodes are added to the node stack - internal nodes added
@@ -1709,6 +2156,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		private final float[] xMaxs;
 		private final float[] yMaxs;
 		private final long[] objKeys; // null if and only if internal node.
+		private final double[] zOrders; // null if and only if internal node.
 		private final InternalNodeData data;
 
 		private Node(final int maxBranches, final boolean leafNode) {
@@ -1719,9 +2167,11 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 
 			if (leafNode) {
 				objKeys = new long[maxBranches];
+				zOrders = new double[maxBranches];
 				data = null;
 			} else {
 				objKeys = null;
+				zOrders = null;
 				data = new InternalNodeData(maxBranches);
 			}
 		}
@@ -1747,6 +2197,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 		private LongStack currentStack;
 		private int currentInx;
 		private int boundaryInx;
+		private double lastZOrder; // Of the entry last returned by nextExtents().
 
 		private OverlapEnumerator(final int totalCount, final ObjStack nodeStack,
 		                          final ObjStack stackStack, final boolean reverse) {
@@ -1780,6 +2231,7 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			}
 
 			count--;
+			lastZOrder = leaf.zOrders[inx];
 			extentsArr[offset] = leaf.xMins[inx];
 			extentsArr[offset + 1] = leaf.yMins[inx];
 			extentsArr[offset + 2] = leaf.xMaxs[inx];
@@ -1853,4 +2305,111 @@ public final class RTree implements SpacialIndex2D, java.io.Serializable {
 			}
 		}
 	}
+
+	/*
+	 * Enumerates entries held in arrays, in the given order of their indices
+	 * or, if order is null, in the order they are held.
+	 */
+	private final static class ArrayEnumerator implements SpacialEntry2DEnumerator {
+		private final int count;
+		private final long[] objKeys;
+		private final float[] extents;
+		private final int[] order;
+		private int next;
+
+		private ArrayEnumerator(final int count, final long[] objKeys, final float[] extents,
+		                        final int[] order) {
+			this.count = count;
+			this.objKeys = objKeys;
+			this.extents = extents;
+			this.order = order;
+		}
+
+		public final int numRemaining() {
+			return count - next;
+		}
+
+		public final long nextExtents(final float[] extentsArr, final int offset) {
+			final int inx = (order == null) ? next++ : order[next++];
+			extentsArr[offset] = extents[4 * inx];
+			extentsArr[offset + 1] = extents[(4 * inx) + 1];
+			extentsArr[offset + 2] = extents[(4 * inx) + 2];
+			extentsArr[offset + 3] = extents[(4 * inx) + 3];
+
+			return objKeys[inx];
+		}
+
+		public final long nextLong() {
+			return objKeys[(order == null) ? next++ : order[next++]];
+		}
+	}
+
+	/*
+	 * The state of a queryDensity() call.
+	 */
+	private final static class DensityGrid {
+		private final float xMin;
+		private final float yMin;
+		private final float xMax;
+		private final float yMax;
+		private final float cellWidth;
+		private final float cellHeight;
+		private final int columns;
+		private final int rows;
+		private final int[] counts;
+		private final long[] representatives;
+		private int largeCount;
+		private long[] largeKeys = new long[16];
+		private float[] largeExtents = new float[64];
+
+		private DensityGrid(final float xMin, final float yMin, final float xMax,
+		                    final float yMax, final int columns, final int rows,
+		                    final int[] counts, final long[] representatives) {
+			this.xMin = xMin;
+			this.yMin = yMin;
+			this.xMax = xMax;
+			this.yMax = yMax;
+			this.cellWidth = (xMax - xMin) / columns;
+			this.cellHeight = (yMax - yMin) / rows;
+			this.columns = columns;
+			this.rows = rows;
+			this.counts = counts;
+			this.representatives = representatives;
+		}
+
+		private void bin(final float xMinE, final float yMinE, final float xMaxE,
+		                 final float yMaxE, final int count, final long objKey) {
+			final int column = cell((((xMinE + xMaxE) / 2) - xMin) / cellWidth, columns);
+			final int row = cell((((yMinE + yMaxE) / 2) - yMin) / cellHeight, rows);
+			final int inx = (row * columns) + column;
+
+			if (counts[inx] == 0)
+				representatives[inx] = objKey;
+
+			counts[inx] += count;
+		}
+
+		private static int cell(final float position, final int cells) {
+			// Also takes care of the NaN a zero sized grid gives.
+			if (!(position >= 0.0f))
+				return 0;
+
+			return Math.min(cells - 1, (int) position);
+		}
+
+		private void addLarge(final long objKey, final float xMinE, final float yMinE,
+		                      final float xMaxE, final float yMaxE) {
+			if (largeCount == largeKeys.length) {
+				largeKeys = Arrays.copyOf(largeKeys, 2 * largeCount);
+				largeExtents = Arrays.copyOf(largeExtents, 8 * largeCount);
+			}
+
+			largeKeys[largeCount] = objKey;
+			largeExtents[4 * largeCount] = xMinE;
+			largeExtents[(4 * largeCount) + 1] = yMinE;
+			largeExtents[(4 * largeCount) + 2] = xMaxE;
+			largeExtents[(4 * largeCount) + 3] = yMaxE;
+			largeCount++;
+		}
+	}
 }
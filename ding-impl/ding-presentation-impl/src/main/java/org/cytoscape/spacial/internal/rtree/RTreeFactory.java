@@ -32,4 +32,11 @@ public class RTreeFactory implements SpacialIndex2DFactory {
 	public SpacialIndex2D createSpacialIndex2D() {
 		return new RTree();
 	}
+
+	public SpacialIndex2D createSpacialIndex2D(final long[] objKeys, final float[] extents,
+	                                           final double[] zOrders, final int count) {
+		final RTree tree = new RTree();
+		tree.bulkLoad(objKeys, extents, zOrders, count);
+		return tree;
+	}
 }
@@ -0,0 +1,81 @@
+package org.cytoscape.ding.customgraphicsmgr.internal;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.cytoscape.application.CyApplicationConfiguration;
+import org.cytoscape.application.CyApplicationManager;
+import org.cytoscape.ding.internal.charts.CountingPieLayer;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.graph.render.immed.SpriteCache;
+import org.cytoscape.model.CyIdentifiable;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.property.CyProperty;
+import org.cytoscape.view.vizmap.VisualMappingManager;
+import org.cytoscape.work.SynchronousTaskManager;
+import org.cytoscape.work.swing.DialogTaskManager;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CustomGraphicsManagerImplTest {
+
+	private CustomGraphicsManagerImpl manager;
+	private SpriteCache sprites;
+	private Object token;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void init() {
+		final CyProperty<Properties> properties = mock(CyProperty.class);
+		when(properties.getProperties()).thenReturn(new Properties());
+
+		manager = new CustomGraphicsManagerImpl(properties, mock(DialogTaskManager.class),
+				mock(SynchronousTaskManager.class), mock(CyApplicationConfiguration.class),
+				mock(CyEventHelper.class), mock(VisualMappingManager.class), mock(CyApplicationManager.class),
+				Collections.<URL>emptySet());
+
+		sprites = new SpriteCache(1 << 20);
+		manager.setSpriteCache(sprites);
+		token = new Object();
+
+		new CountingPieLayer(asList(1.0, 2.0), token).draw(sprites, 1L);
+		new CountingPieLayer(asList(1.0, 2.0), token).draw(sprites, 2L);
+		assertEquals(2, sprites.getSpriteCount());
+	}
+
+	@Test
+	public void testRowsSetEventDropsChartImagesOfChangedRows() {
+		manager.handleEvent(rowsSet(1L, "data"));
+		assertEquals(1, sprites.getSpriteCount());
+
+		final CountingPieLayer layer = new CountingPieLayer(asList(1.0, 2.0), token);
+		layer.draw(sprites, 1L);
+		assertEquals(1, layer.chartDraws);
+		layer.draw(sprites, 2L);
+		assertEquals(1, layer.chartDraws);
+	}
+
+	@Test
+	public void testSelectionChangesKeepChartImages() {
+		manager.handleEvent(rowsSet(1L, CyNetwork.SELECTED));
+		assertEquals(2, sprites.getSpriteCount());
+	}
+
+	private static RowsSetEvent rowsSet(final long suid, final String column) {
+		final CyRow row = mock(CyRow.class);
+		when(row.getRaw(CyIdentifiable.SUID)).thenReturn(suid);
+
+		return new RowsSetEvent(mock(CyTable.class),
+				Collections.singletonList(new RowSetRecord(row, column, Boolean.TRUE, Boolean.TRUE)));
+	}
+}
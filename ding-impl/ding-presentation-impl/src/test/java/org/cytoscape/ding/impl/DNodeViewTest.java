@@ -33,6 +33,7 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Paint;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -58,6 +59,8 @@ import org.cytoscape.task.NodeViewTaskFactory;
 import org.cytoscape.util.swing.IconManager;
 import org.cytoscape.view.model.CyNetworkViewManager;
 import org.cytoscape.view.model.VisualLexicon;
+import org.cytoscape.view.model.VisualProperty;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.view.presentation.property.NodeShapeVisualProperty;
 import org.cytoscape.view.presentation.property.values.HandleFactory;
 import org.cytoscape.view.presentation.property.values.NodeShape;
@@ -465,4 +468,49 @@ public class DNodeViewTest {
 //		assertEquals(height, Double.valueOf(dnv1.getHeight()));
 	}
 
+	@Test
+	public void testEdgeIndexFollowsNodeMoves() {
+		dnv1.setOffset(-100, 0);
+		dnv2.setOffset(100, 0);
+		assertEquals(1, queryEdges(-1, -1, 1, 1));
+
+		dnv2.setOffset(-100, 200);
+		assertEquals(0, queryEdges(-1, -1, 1, 1));
+		assertEquals(1, queryEdges(-101, 99, -99, 101));
+
+		networkView.hideGraphObject(networkView.getDEdgeView(edge1));
+		assertEquals(0, queryEdges(-101, 99, -99, 101));
+	}
+
+	@Test
+	public void testSetVisualPropertiesAppliesBatch() {
+		final Map<VisualProperty<?>, Object> values = new LinkedHashMap<VisualProperty<?>, Object>();
+		values.put(BasicVisualLexicon.NODE_FILL_COLOR, Color.ORANGE);
+		values.put(BasicVisualLexicon.NODE_WIDTH, 42d);
+		values.put(BasicVisualLexicon.NODE_LABEL, "batch");
+		values.put(DVisualLexicon.NODE_SHAPE, NodeShapeVisualProperty.DIAMOND);
+		dnv1.setVisualProperties(values);
+
+		final DNodeDetails details = networkView.m_nodeDetails;
+		assertEquals(Color.ORANGE, details.getUnselectedPaint(dnv1.getCyNode()));
+		assertEquals(42d, dnv1.getWidth(), 0.0);
+		assertEquals("batch", dnv1.getText());
+		assertEquals(NodeShapeVisualProperty.DIAMOND, dnv1.getVisualProperty(DVisualLexicon.NODE_SHAPE));
+
+		// Locked values win over batched ones, just as over single ones
+		dnv1.setLockedValue(BasicVisualLexicon.NODE_WIDTH, 10d);
+		values.put(BasicVisualLexicon.NODE_WIDTH, 20d);
+		values.put(BasicVisualLexicon.NODE_LABEL, null);
+		dnv1.setVisualProperties(values);
+		assertEquals(10d, dnv1.getWidth(), 0.0);
+		assertEquals(BasicVisualLexicon.NODE_LABEL.getDefault(), dnv1.getVisualProperty(BasicVisualLexicon.NODE_LABEL));
+	}
+
+	private int queryEdges(final float xMin, final float yMin, final float xMax, final float yMax) {
+		synchronized (networkView.m_lock) {
+			networkView.syncEdgeIndex();
+			return networkView.m_spacialEdges.queryOverlap(xMin, yMin, xMax, yMax, null, 0, false).numRemaining();
+		}
+	}
+
 }
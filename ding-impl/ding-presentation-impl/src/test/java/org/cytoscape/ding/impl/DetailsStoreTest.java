@@ -0,0 +1,150 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.cytoscape.ding.impl.DetailsStore.DOUBLE;
+import static org.cytoscape.ding.impl.DetailsStore.FLOAT;
+import static org.cytoscape.ding.impl.DetailsStore.INT;
+import static org.cytoscape.ding.impl.DetailsStore.OBJECT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DetailsStoreTest {
+
+	private static final int LABEL = 0;
+	private static final int WIDTH = 1;
+	private static final int OFFSET = 2;
+	private static final int COUNT = 3;
+
+	private DetailsStore store;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new DetailsStore(OBJECT, FLOAT, DOUBLE, INT);
+	}
+
+	@Test
+	public void testUnsetElementHasNoSlot() {
+		assertEquals(-1, store.slotOf(42L));
+		assertFalse(store.isSet(-1, LABEL));
+		assertNull(store.getObject(-1, LABEL));
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testSetAndGet() {
+		store.setObject(1L, LABEL, "a");
+		store.setFloat(1L, WIDTH, 2.5f);
+		store.setDouble(1L, OFFSET, -3.0);
+		store.setInt(1L, COUNT, 7);
+
+		final int slot = store.slotOf(1L);
+		assertTrue(slot >= 0);
+		assertEquals("a", store.getObject(slot, LABEL));
+		assertEquals(2.5f, store.getFloat(slot, WIDTH), 0.0f);
+		assertEquals(-3.0, store.getDouble(slot, OFFSET), 0.0);
+		assertEquals(7, store.getInt(slot, COUNT));
+		assertEquals(1, store.size());
+	}
+
+	@Test
+	public void testUnsetLastPropertyReleasesSlot() {
+		store.setInt(1L, COUNT, 1);
+		store.setObject(1L, LABEL, "a");
+
+		store.unset(1L, COUNT);
+		int slot = store.slotOf(1L);
+		assertFalse(store.isSet(slot, COUNT));
+		assertTrue(store.isSet(slot, LABEL));
+
+		store.setObject(1L, LABEL, null);
+		assertEquals(-1, store.slotOf(1L));
+		assertEquals(0, store.size());
+
+		// The released slot is reused
+		store.setInt(2L, COUNT, 2);
+		assertEquals(slot, store.slotOf(2L));
+		assertNull(store.getObject(slot, LABEL));
+	}
+
+	@Test
+	public void testRemove() {
+		store.setObject(1L, LABEL, "a");
+		store.setInt(2L, COUNT, 2);
+
+		store.remove(1L);
+		store.remove(3L);
+
+		assertEquals(-1, store.slotOf(1L));
+		assertEquals(2, store.getInt(store.slotOf(2L), COUNT));
+		assertEquals(1, store.size());
+	}
+
+	@Test
+	public void testGrowAndRehash() {
+		for (long suid = 0; suid < 1000; suid++)
+			store.setInt(suid, COUNT, (int) suid);
+
+		for (long suid = 0; suid < 1000; suid += 2)
+			store.remove(suid);
+
+		for (long suid = 1000; suid < 2000; suid++)
+			store.setDouble(suid, OFFSET, suid);
+
+		assertEquals(1500, store.size());
+
+		for (long suid = 0; suid < 1000; suid++) {
+			final int slot = store.slotOf(suid);
+
+			if (suid % 2 == 0)
+				assertEquals(-1, slot);
+			else
+				assertEquals((int) suid, store.getInt(slot, COUNT));
+		}
+
+		for (long suid = 1000; suid < 2000; suid++)
+			assertEquals(suid, store.getDouble(store.slotOf(suid), OFFSET), 0.0);
+	}
+
+	@Test
+	public void testClear() {
+		for (long suid = 0; suid < 100; suid++)
+			store.setObject(suid, LABEL, "n" + suid);
+
+		store.clear();
+
+		assertEquals(0, store.size());
+		assertEquals(-1, store.slotOf(5L));
+
+		store.setObject(5L, LABEL, "again");
+		assertEquals("again", store.getObject(store.slotOf(5L), LABEL));
+	}
+}
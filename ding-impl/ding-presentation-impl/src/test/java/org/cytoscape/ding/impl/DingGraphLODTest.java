@@ -0,0 +1,153 @@
+package org.cytoscape.ding.impl;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Properties;
+
+import org.cytoscape.application.CyApplicationManager;
+import org.cytoscape.property.CyProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DingGraphLODTest {
+
+	private Properties props;
+	private CyProperty<Properties> cyProp;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+		props = new Properties();
+		props.setProperty("render.coarseDetailThreshold", "1000");
+		props.setProperty("render.targetFrameTime", "100");
+		cyProp = mock(CyProperty.class);
+		when(cyProp.getProperties()).thenReturn(props);
+	}
+
+	private DingGraphLOD createLOD() {
+		return new DingGraphLOD(cyProp, mock(CyApplicationManager.class));
+	}
+
+	@Test
+	public void testFrameTimeIgnoredWithoutProgressiveRendering() {
+		final DingGraphLOD lod = createLOD();
+		assertFalse(lod.isProgressive());
+
+		for (int i = 0; i < 10; i++)
+			lod.frameRendered(10000000000L);
+
+		assertTrue(lod.detail(500, 499));
+		assertFalse(lod.detail(500, 500));
+	}
+
+	@Test
+	public void testSlowFramesLowerThresholds() {
+		props.setProperty("render.progressive", "true");
+		final DingGraphLOD lod = createLOD();
+		assertTrue(lod.isProgressive());
+		assertTrue(lod.detail(500, 499));
+
+		// Four times over budget: each frame at most halves the thresholds
+		lod.frameRendered(400000000L);
+		assertFalse(lod.detail(500, 499));
+		assertTrue(lod.detail(250, 249));
+
+		for (int i = 0; i < 100; i++)
+			lod.frameRendered(400000000L);
+
+		// ...and they never drop below a sixteenth
+		assertTrue(lod.detail(31, 30));
+	}
+
+	@Test
+	public void testFastFramesRaiseThresholds() {
+		props.setProperty("render.progressive", "true");
+		final DingGraphLOD lod = createLOD();
+		assertFalse(lod.detail(1000, 0));
+
+		lod.frameRendered(25000000L);
+		assertTrue(lod.detail(1000, 999));
+		assertFalse(lod.detail(1000, 1000));
+
+		for (int i = 0; i < 100; i++)
+			lod.frameRendered(1000000L);
+
+		// Capped at four times the configured value
+		assertTrue(lod.detail(2000, 1999));
+		assertFalse(lod.detail(2000, 2000));
+	}
+
+	@Test
+	public void testCopyKeepsAdaptedThresholds() {
+		props.setProperty("render.progressive", "true");
+		final DingGraphLOD lod = createLOD();
+		lod.frameRendered(400000000L);
+
+		final DingGraphLOD copy = new DingGraphLOD(lod);
+		assertTrue(copy.isProgressive());
+		assertEquals(lod.detail(250, 249), copy.detail(250, 249));
+		assertEquals(lod.detail(500, 499), copy.detail(500, 499));
+	}
+
+	@Test
+	public void testViewCopiesAdaptIndependently() {
+		props.setProperty("render.progressive", "true");
+		final DingGraphLOD shared = createLOD();
+
+		final DingGraphLOD slowView = shared.withDetailScale(1.0);
+		slowView.frameRendered(400000000L);
+		assertEquals(0.5, slowView.getDetailScale(), 1e-9);
+
+		// Neither the shared LOD nor another view's copy follows the slow view
+		assertEquals(1.0, shared.getDetailScale(), 1e-9);
+		assertTrue(shared.detail(500, 499));
+		assertTrue(shared.withDetailScale(1.0).detail(500, 499));
+
+		// A copy made with the slow view's factor picks up where it left off
+		final DingGraphLOD next = shared.withDetailScale(slowView.getDetailScale());
+		assertFalse(next.detail(500, 499));
+		assertTrue(next.detail(250, 249));
+	}
+
+	@Test
+	public void testAggregationIsOptIn() {
+		assertEquals(0, createLOD().aggregate(Integer.MAX_VALUE, Integer.MAX_VALUE));
+
+		props.setProperty("render.aggregateThreshold", "50000");
+		final DingGraphLOD lod = createLOD();
+		assertEquals(0, lod.aggregate(30000, 19999));
+		assertEquals(3, lod.aggregate(30000, 20000));
+		assertEquals(3, lod.aggregate(Integer.MAX_VALUE, Integer.MAX_VALUE));
+
+		props.setProperty("render.aggregateCellSize", "5");
+		assertEquals(5, new CoarseGraphLOD(createLOD()).aggregate(50000, 0));
+	}
+}
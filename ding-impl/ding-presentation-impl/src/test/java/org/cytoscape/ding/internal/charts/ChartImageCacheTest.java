@@ -0,0 +1,98 @@
+package org.cytoscape.ding.internal.charts;
+
+import static java.util.Arrays.asList;
+import static org.cytoscape.ding.internal.charts.pie.PieChart.START_ANGLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.cytoscape.ding.internal.charts.pie.PieChart;
+import org.cytoscape.graph.render.immed.SpriteCache;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChartImageCacheTest {
+
+	private SpriteCache sprites;
+	private Object token;
+
+	@Before
+	public void init() {
+		sprites = new SpriteCache(1 << 20);
+		token = new Object();
+	}
+
+	@Test
+	public void testCachedImageIsReusedAcrossDraws() {
+		final CountingPieLayer layer = new CountingPieLayer(asList(1.0, 2.0, 3.0), token);
+		layer.draw(sprites, 1L);
+		layer.draw(sprites, 1L);
+		assertEquals(1, layer.chartDraws);
+		assertEquals(1, sprites.getSpriteCount());
+
+		// Views recreate their layers, which find the image of an equal one
+		final CountingPieLayer recreated = new CountingPieLayer(asList(1.0, 2.0, 3.0), token);
+		recreated.draw(sprites, 1L);
+		assertEquals(0, recreated.chartDraws);
+
+		// Other values or another node get images of their own
+		final CountingPieLayer changed = new CountingPieLayer(asList(1.0, 2.0, 4.0), token);
+		changed.draw(sprites, 1L);
+		recreated.draw(sprites, 2L);
+		assertEquals(1, changed.chartDraws);
+		assertEquals(1, recreated.chartDraws);
+		assertEquals(3, sprites.getSpriteCount());
+	}
+
+	@Test
+	public void testChartsAreDrawnAsVectorsWithoutSpriteCache() {
+		final CountingPieLayer layer = new CountingPieLayer(asList(1.0, 2.0, 3.0), token);
+		layer.draw(null, 1L);
+		layer.draw(null, 1L);
+		assertEquals(2, layer.chartDraws);
+	}
+
+	@Test
+	public void testLayersWithoutImageTokenAreNotCached() {
+		final CountingPieLayer layer = new CountingPieLayer(asList(1.0, 2.0, 3.0), null);
+		layer.draw(sprites, 1L);
+		layer.draw(sprites, 1L);
+		assertEquals(2, layer.chartDraws);
+		assertEquals(0, sprites.getSpriteCount());
+	}
+
+	@Test
+	public void testInvalidateImagesDropsOnlyTheGivenRows() {
+		new CountingPieLayer(asList(1.0, 2.0, 3.0), token).draw(sprites, 1L);
+		new CountingPieLayer(asList(1.0, 2.0, 3.0), token).draw(sprites, 2L);
+
+		AbstractChartLayer.invalidateImages(sprites, Collections.singleton(1L));
+		assertEquals(1, sprites.getSpriteCount());
+
+		final CountingPieLayer layer = new CountingPieLayer(asList(1.0, 2.0, 3.0), token);
+		layer.draw(sprites, 2L);
+		assertEquals(0, layer.chartDraws);
+		layer.draw(sprites, 1L);
+		assertEquals(1, layer.chartDraws);
+	}
+
+	@Test
+	public void testSettingPropertyReplacesImageToken() {
+		final PieChart chart = new PieChart(new HashMap<String, Object>(), new DummyCyColumnIdentifierFactory());
+		final Object oldToken = chart.getImageToken();
+		assertSame(oldToken, chart.getImageToken());
+
+		chart.set(START_ANGLE, 45.0);
+		final Object newToken = chart.getImageToken();
+		assertNotSame(oldToken, newToken);
+
+		// Layers of the changed chart do not find the images of the old properties
+		new CountingPieLayer(asList(1.0, 2.0, 3.0), oldToken).draw(sprites, 1L);
+		final CountingPieLayer layer = new CountingPieLayer(asList(1.0, 2.0, 3.0), newToken);
+		layer.draw(sprites, 1L);
+		assertEquals(1, layer.chartDraws);
+	}
+}
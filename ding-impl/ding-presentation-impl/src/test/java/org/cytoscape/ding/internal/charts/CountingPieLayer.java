@@ -0,0 +1,69 @@
+package org.cytoscape.ding.internal.charts;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+
+import org.cytoscape.ding.customgraphics.Rotation;
+import org.cytoscape.ding.internal.charts.pie.PieLayer;
+import org.cytoscape.graph.render.immed.SpriteCache;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.model.View;
+
+/**
+ * A pie chart layer that counts how many times JFreeChart is asked to draw it.
+ */
+public class CountingPieLayer extends PieLayer {
+
+	public int chartDraws;
+
+	public CountingPieLayer(final List<Double> values, final Object imageToken) {
+		super(Collections.singletonMap("data", values), null, false, 8.0f, asList(Color.RED, Color.BLUE, Color.GREEN),
+				1.0f, Color.WHITE, 90.0, Rotation.CLOCKWISE, new Rectangle2D.Double(-20, -20, 40, 40));
+		setImageToken(imageToken);
+	}
+
+	@Override
+	protected void drawChart(final Graphics2D g, final Composite composite) {
+		chartDraws++;
+		super.drawChart(g, composite);
+	}
+
+	/**
+	 * Draws the layer for the node with the given SUID the way a view does, at a zoom of 1.5.
+	 * @param sprites the cache of the view, or null to draw as for printing or export
+	 */
+	public void draw(final SpriteCache sprites, final long suid) {
+		final BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g = image.createGraphics();
+
+		if (sprites != null)
+			g.setRenderingHint(SpriteCache.KEY_SPRITE_CACHE, sprites);
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.translate(100, 100);
+		g.scale(1.5, 1.5);
+		draw(g, getBounds2D(), null, nodeView(suid));
+		g.dispose();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static View<CyNode> nodeView(final long suid) {
+		final CyNode node = mock(CyNode.class);
+		when(node.getSUID()).thenReturn(suid);
+
+		final View<CyNode> view = mock(View.class);
+		when(view.getModel()).thenReturn(node);
+
+		return view;
+	}
+}
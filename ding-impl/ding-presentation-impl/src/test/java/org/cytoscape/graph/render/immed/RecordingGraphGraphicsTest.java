@@ -0,0 +1,162 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2009 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.cytoscape.view.presentation.customgraphics.Cy2DGraphicLayer;
+
+
+public class RecordingGraphGraphicsTest extends TestCase {
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 200;
+	private static final int TILE_SIZE = 64;
+	private static final double X_CENTER = 20.0d;
+	private static final double Y_CENTER = -10.0d;
+	private static final double SCALE = 0.8d;
+
+	public void testTilesMatchDirectRendering() {
+		final BufferedImage direct = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		final GraphGraphics grafx = new GraphGraphics(direct, false, true);
+		grafx.clear(Color.white, X_CENTER, Y_CENTER, SCALE);
+		draw(grafx);
+
+		final RecordingGraphGraphics recorder = new RecordingGraphGraphics(direct, TILE_SIZE, TILE_SIZE);
+		recorder.clear(Color.white, X_CENTER, Y_CENTER, SCALE);
+		draw(recorder);
+		assertFalse(recorder.requiresSequentialRendering());
+		assertEquals(5 * 4, recorder.getTileCount());
+
+		final BufferedImage tiled = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g = tiled.createGraphics();
+		g.setColor(Color.white);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+
+		for (int tile = 0; tile < recorder.getTileCount(); tile++) {
+			final Rectangle bounds = recorder.getTileBounds(tile);
+			final BufferedImage img = new BufferedImage(bounds.width, bounds.height,
+			                                            BufferedImage.TYPE_INT_ARGB_PRE);
+			final GraphGraphics tileGrafx = new GraphGraphics(img, false, true);
+			tileGrafx.clear(new Color(0, 0, 0, 0),
+			                X_CENTER + ((bounds.getCenterX() - (WIDTH / 2.0d)) / SCALE),
+			                Y_CENTER + ((bounds.getCenterY() - (HEIGHT / 2.0d)) / SCALE), SCALE);
+			recorder.replay(tile, tileGrafx);
+			g.drawImage(img, bounds.x, bounds.y, null);
+		}
+
+		g.dispose();
+
+		// Antialiasing and premultiplied compositing introduce small rounding
+		// differences, but nothing may be missing or misplaced.
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				final int p = direct.getRGB(x, y);
+				final int q = tiled.getRGB(x, y);
+
+				for (int shift = 0; shift < 32; shift += 8)
+					assertTrue("pixel " + x + "," + y,
+					           Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff)) <= 48);
+			}
+		}
+	}
+
+	public void testCallsOutsideImageAreDropped() {
+		final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		final RecordingGraphGraphics recorder = new RecordingGraphGraphics(image, TILE_SIZE, TILE_SIZE);
+		recorder.clear(Color.white, 0.0d, 0.0d, 1.0d);
+		recorder.drawNodeFull(GraphGraphics.SHAPE_RECTANGLE, 1000f, 1000f, 1010f, 1010f,
+		                      Color.red, 0f, null, null);
+		recorder.drawNodeFull(GraphGraphics.SHAPE_RECTANGLE, -27f, 23f, -17f, 33f,
+		                      Color.red, 0f, null, null);
+
+		int total = 0;
+		for (int tile = 0; tile < recorder.getTileCount(); tile++)
+			total += recorder.getOperationCount(tile);
+
+		// The second node straddles the corner shared by tiles 6, 7, 11 and 12.
+		assertEquals(4, total);
+	}
+
+	public void testCy2DGraphicLayerRequiresSequentialRendering() {
+		final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+		final RecordingGraphGraphics recorder = new RecordingGraphGraphics(image, TILE_SIZE, TILE_SIZE);
+		recorder.clear(Color.white, 0.0d, 0.0d, 1.0d);
+
+		final Cy2DGraphicLayer layer = mock(Cy2DGraphicLayer.class);
+		final Rectangle2D nodeShape = new Rectangle2D.Double(0, 0, 10, 10);
+		when(layer.getBounds2D()).thenReturn(new Rectangle2D.Double(0, 0, 10, 10));
+		recorder.drawCustomGraphicFull(null, null, nodeShape, layer, 0f, 0f);
+
+		assertTrue(recorder.requiresSequentialRendering());
+
+		// The layer is not in any tile, but the frame can still be replayed
+		// as a whole.
+		int total = 0;
+		for (int tile = 0; tile < recorder.getTileCount(); tile++)
+			total += recorder.getOperationCount(tile);
+		assertEquals(0, total);
+
+		final GraphGraphics target = mock(GraphGraphics.class);
+		recorder.replayAll(target);
+		verify(target).drawCustomGraphicFull(null, null, nodeShape, layer, 0f, 0f);
+	}
+
+	private static void draw(final GraphGraphics grafx) {
+		final Random rand = new Random(7);
+		final Font font = new Font("SansSerif", Font.PLAIN, 10);
+
+		for (int i = 0; i < 100; i++) {
+			final float x0 = (rand.nextFloat() * 400f) - 200f;
+			final float y0 = (rand.nextFloat() * 300f) - 150f;
+			final float x1 = x0 + (rand.nextFloat() * 80f) - 40f;
+			final float y1 = y0 + (rand.nextFloat() * 80f) - 40f;
+			grafx.drawEdgeFull(GraphGraphics.ARROW_NONE, 0f, null,
+			                   GraphGraphics.ARROW_DELTA, 6f, Color.red, x0, y0, null, x1, y1,
+			                   1f, new BasicStroke(1f), Color.blue);
+		}
+
+		for (int i = 0; i < 60; i++) {
+			final float x = (rand.nextFloat() * 400f) - 200f;
+			final float y = (rand.nextFloat() * 300f) - 150f;
+			grafx.drawNodeFull((byte) (i % 9), x, y, x + 24f, y + 16f,
+			                   new Color(rand.nextInt(0xffffff)), 2f, null, Color.black);
+			grafx.drawTextFull(font, 1.0d, "n" + i, x + 12f, y + 8f, 0f, Color.black, true);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package org.cytoscape.graph.render.immed;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2009 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+
+
+public class SpriteCacheTest extends TestCase {
+	private static final int WIDTH = 200;
+	private static final int HEIGHT = 150;
+
+	public void testEvictsLeastRecentlyUsed() {
+		final SpriteCache cache = new SpriteCache(3 * 4 * 10 * 10);
+		final SpriteCache.Sprite sprite = sprite(10, 10);
+
+		cache.put("a", sprite);
+		cache.put("b", sprite);
+		cache.put("c", sprite);
+		assertNotNull(cache.get("a"));
+
+		cache.put("d", sprite);
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertNotNull(cache.get("d"));
+
+		assertEquals(3, cache.getSpriteCount());
+		assertEquals(3 * 4 * 10 * 10, cache.getBytes());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(4, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0.8d, cache.getHitRate(), 1e-9);
+	}
+
+	public void testReplacingSpriteUpdatesSize() {
+		final SpriteCache cache = new SpriteCache(1 << 20);
+		cache.put("a", sprite(10, 10));
+		cache.put("a", sprite(20, 10));
+
+		assertEquals(1, cache.getSpriteCount());
+		assertEquals(4 * 20 * 10, cache.getBytes());
+
+		cache.clear();
+		assertEquals(0, cache.getSpriteCount());
+		assertEquals(0, cache.getBytes());
+	}
+
+	public void testInvalidateRemovesMatchingImages() {
+		final SpriteCache cache = new SpriteCache(1 << 20);
+		cache.putImage("a1", new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB));
+		cache.putImage("a2", new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB));
+		cache.putImage("b1", new BufferedImage(5, 10, BufferedImage.TYPE_INT_ARGB));
+
+		assertEquals(2, cache.invalidate(key -> ((String) key).startsWith("a")));
+		assertNull(cache.getImage("a1"));
+		assertNotNull(cache.getImage("b1"));
+		assertEquals(4 * 5 * 10, cache.getBytes());
+	}
+
+	public void testScaleBuckets() {
+		assertEquals(0, SpriteCache.scaleBucket(1.0d));
+		assertEquals(SpriteCache.scaleBucket(1.0d), SpriteCache.scaleBucket(1.04d));
+		assertTrue(SpriteCache.scaleBucket(2.0d) > SpriteCache.scaleBucket(1.5d));
+		assertEquals(2.0d, SpriteCache.bucketScale(SpriteCache.scaleBucket(2.0d)), 1e-9);
+	}
+
+	public void testIdenticalNodesShareSprites() {
+		final SpriteCache cache = new SpriteCache(1 << 20);
+		final GraphGraphics grafx = graphics(cache);
+		final Font font = new Font("SansSerif", Font.PLAIN, 10);
+
+		for (int i = 0; i < 10; i++) {
+			grafx.drawNodeFull(GraphGraphics.SHAPE_ELLIPSE, -80.0f + 15 * i, -20.0f, -68.0f + 15 * i, -10.0f,
+			                   Color.red, 1.0f, null, Color.black);
+			grafx.drawTextFull(font, 1.0d, "label", -74.0f + 15 * i, 10.0f, 0.0f, Color.black, true);
+		}
+
+		assertEquals(2, cache.getSpriteCount());
+		assertEquals(2, cache.getMisses());
+		assertEquals(18, cache.getHits());
+	}
+
+	public void testNonUniformPaintsAreNotCached() {
+		final SpriteCache cache = new SpriteCache(1 << 20);
+		final GraphGraphics grafx = graphics(cache);
+
+		grafx.drawNodeFull(GraphGraphics.SHAPE_RECTANGLE, -10.0f, -10.0f, 10.0f, 10.0f,
+		                   new GradientPaint(-10.0f, 0.0f, Color.red, 10.0f, 0.0f, Color.blue), 0.0f, null, null);
+		grafx.drawTextFull(new Font("SansSerif", Font.PLAIN, 10), 1.0d, "rotated", 0.0f, 20.0f, 0.5f,
+		                   Color.black, true);
+
+		assertEquals(0, cache.getSpriteCount());
+		assertEquals(0, cache.getHits() + cache.getMisses());
+	}
+
+	public void testSpritesMatchDirectRendering() {
+		final BufferedImage direct = render(null);
+		final BufferedImage cached = render(new SpriteCache(1 << 20));
+		long diff = 0;
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				final int p = direct.getRGB(x, y);
+				final int q = cached.getRGB(x, y);
+
+				for (int shift = 0; shift < 32; shift += 8)
+					diff += Math.abs(((p >> shift) & 0xff) - ((q >> shift) & 0xff));
+			}
+		}
+
+		// Sprites are aligned to whole pixels, so edges may differ slightly.
+		assertTrue("mean difference too large: " + diff, diff < 4L * WIDTH * HEIGHT * 4);
+	}
+
+	private static SpriteCache.Sprite sprite(final int width, final int height) {
+		return new SpriteCache.Sprite(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE),
+		                              0.0d, 0.0d, 1.0d);
+	}
+
+	private static GraphGraphics graphics(final SpriteCache cache) {
+		final GraphGraphics grafx = new GraphGraphics(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB),
+		                                              false, true);
+		grafx.setSpriteCache(cache);
+		grafx.clear(Color.white, 0.0d, 0.0d, 1.3d);
+		return grafx;
+	}
+
+	private static BufferedImage render(final SpriteCache cache) {
+		final GraphGraphics grafx = graphics(cache);
+		final Font font = new Font("SansSerif", Font.BOLD, 9);
+
+		for (int i = 0; i < 12; i++) {
+			final float x = -70.0f + 23.3f * (i % 6);
+			final float y = -45.0f + 41.7f * (i / 6);
+			grafx.drawNodeFull((byte) (i % 9), x, y, x + 18.0f, y + 15.0f, Color.orange, 1.5f, null, Color.darkGray);
+			grafx.drawTextFull(font, 1.0d, "n" + (i % 3), x + 9.0f, y + 22.0f, 0.0f, Color.blue, true);
+		}
+
+		return (BufferedImage) grafx.image;
+	}
+}
@@ -0,0 +1,154 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Random;
+
+import org.cytoscape.util.intr.LongEnumerator;
+
+
+/**
+ * Compares building an R-tree with bulkLoad() against inserting the entries
+ * one at a time, and the speed of queries against the two trees.
+ */
+public class RTreeBulkLoadPerformance {
+	/**
+	 * For given N, creates N rectangles whose centers are in the space
+	 * [0,1] X [0,1], each no larger than 1/sqrt(N) on a side, once with a
+	 * uniform distribution and once in N/100 tight clusters, as nodes are
+	 * after many layouts.
+	 * Usage: RTreeBulkLoadPerformance &lt;N&gt; [&lt;seed&gt;]
+	 */
+	public static void main(String[] args) throws Exception {
+		final int N = Integer.parseInt(args[0]);
+		final long seed = (args.length > 1) ? Long.parseLong(args[1]) : 0L;
+
+		for (int clustered = 0; clustered < 2; clustered++) {
+			final long[] keys = new long[N];
+			final float[] extents = new float[4 * N];
+			final Random random = new Random(seed);
+			final double sqrtN = Math.sqrt((double) N);
+			final int clusters = Math.max(1, N / 100);
+			final double[] clusterCenters = new double[2 * clusters];
+
+			for (int i = 0; i < clusterCenters.length; i++)
+				clusterCenters[i] = random.nextDouble();
+
+			for (int i = 0; i < N; i++) {
+				final double centerX;
+				final double centerY;
+
+				if (clustered == 0) {
+					centerX = random.nextDouble();
+					centerY = random.nextDouble();
+				} else {
+					final int c = random.nextInt(clusters);
+					centerX = clusterCenters[2 * c] + (random.nextGaussian() * 0.01d);
+					centerY = clusterCenters[2 * c + 1] + (random.nextGaussian() * 0.01d);
+				}
+
+				final double width = random.nextDouble() / sqrtN;
+				final double height = random.nextDouble() / sqrtN;
+				keys[i] = i;
+				extents[4 * i] = (float) (centerX - (width / 2.0d));
+				extents[4 * i + 1] = (float) (centerY - (height / 2.0d));
+				extents[4 * i + 2] = (float) (centerX + (width / 2.0d));
+				extents[4 * i + 3] = (float) (centerY + (height / 2.0d));
+			}
+
+			System.err.println((clustered == 0) ? "uniform:" : "clustered:");
+
+			System.gc();
+			long millisBegin = System.currentTimeMillis();
+			final RTree incremental = new RTree();
+
+			for (int i = 0; i < N; i++)
+				incremental.insert(keys[i], extents[4 * i], extents[4 * i + 1], extents[4 * i + 2],
+				                   extents[4 * i + 3], 0.0);
+
+			System.err.println("  incremental build took " + (System.currentTimeMillis() - millisBegin)
+			                   + " milliseconds");
+
+			System.gc();
+			millisBegin = System.currentTimeMillis();
+			final RTree bulk = new RTree();
+			bulk.bulkLoad(keys, extents, null, N);
+			System.err.println("  bulk build took " + (System.currentTimeMillis() - millisBegin)
+			                   + " milliseconds");
+
+			final long incrementalHits = query(incremental, "incremental");
+			final long bulkHits = query(bulk, "bulk");
+
+			if (incrementalHits != bulkHits)
+				throw new IllegalStateException("trees returned " + incrementalHits + " and " + bulkHits
+				                                + " hits");
+		}
+	}
+
+	/*
+	 * Runs 10000 point queries and 100 area queries of 0.05 X 0.05, as when
+	 * hit testing the mouse and rendering a zoomed in view, and returns the
+	 * total number of hits.
+	 */
+	private static long query(final RTree tree, final String name) {
+		final Random random = new Random(1);
+		long hits = 0;
+		long millisBegin = System.currentTimeMillis();
+
+		for (int i = 0; i < 10000; i++) {
+			final float x = random.nextFloat();
+			final float y = random.nextFloat();
+			hits += drain(tree.queryOverlap(x, y, x, y, null, 0, false));
+		}
+
+		System.err.println("  " + name + " point queries took "
+		                   + (System.currentTimeMillis() - millisBegin) + " milliseconds");
+		millisBegin = System.currentTimeMillis();
+
+		for (int i = 0; i < 100; i++) {
+			final float x = random.nextFloat();
+			final float y = random.nextFloat();
+			hits += drain(tree.queryOverlap(x, y, x + 0.05f, y + 0.05f, null, 0, false));
+		}
+
+		System.err.println("  " + name + " area queries took "
+		                   + (System.currentTimeMillis() - millisBegin) + " milliseconds");
+
+		return hits;
+	}
+
+	private static int drain(final LongEnumerator iter) {
+		int count = 0;
+
+		while (iter.numRemaining() > 0) {
+			iter.nextLong();
+			count++;
+		}
+
+		return count;
+	}
+}
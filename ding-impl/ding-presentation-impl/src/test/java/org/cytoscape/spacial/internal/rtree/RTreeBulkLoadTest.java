@@ -0,0 +1,165 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.cytoscape.util.intr.LongEnumerator;
+import org.junit.Test;
+
+public class RTreeBulkLoadTest {
+
+	private static final int N = 5000;
+
+	@Test
+	public void testBulkLoadMatchesIncrementalInserts() {
+		final long[] keys = new long[N];
+		final float[] extents = new float[4 * N];
+		fill(keys, extents, new Random(17));
+
+		final RTree bulk = new RTree(5);
+		bulk.bulkLoad(keys, extents, null, N);
+		final RTree incremental = new RTree(5);
+
+		for (int i = 0; i < N; i++)
+			incremental.insert(keys[i], extents[4 * i], extents[4 * i + 1], extents[4 * i + 2],
+			                   extents[4 * i + 3], 0.0);
+
+		assertEquals(N, bulk.size());
+		assertSameQueries(incremental, bulk);
+
+		final float[] buff = new float[4];
+
+		for (int i = 0; i < N; i++) {
+			assertTrue(bulk.exists(keys[i], buff, 0));
+			assertArrayEquals(Arrays.copyOfRange(extents, 4 * i, 4 * i + 4), buff, 0.0f);
+		}
+
+		// The packed tree must still support the incremental operations
+		for (int i = 0; i < N; i += 2) {
+			assertTrue(bulk.delete(keys[i]));
+			incremental.delete(keys[i]);
+		}
+
+		for (int i = 0; i < N; i += 4) {
+			bulk.insert(keys[i], 0.0f, 0.0f, 1.0f, 1.0f, 0.0);
+			incremental.insert(keys[i], 0.0f, 0.0f, 1.0f, 1.0f, 0.0);
+		}
+
+		assertEquals(incremental.size(), bulk.size());
+		assertSameQueries(incremental, bulk);
+	}
+
+	@Test
+	public void testBulkLoadReplacesEntries() {
+		final RTree tree = new RTree();
+		tree.insert(100, 0.0f, 0.0f, 1.0f, 1.0f, 0.0);
+		tree.bulkLoad(new long[] { 1, 2 }, new float[] { 0, 0, 1, 1, 5, 5, 6, 6 }, new double[] { 0.0, 3.0 }, 2);
+
+		assertEquals(2, tree.size());
+		assertFalse(tree.exists(100, null, 0));
+		assertEquals(0.0, tree.getZOrder(1), 0.0);
+		assertEquals(3.0, tree.getZOrder(2), 0.0);
+
+		final float[] mbr = new float[4];
+		tree.queryOverlap(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY,
+		                  Float.POSITIVE_INFINITY, mbr, 0, false);
+		assertArrayEquals(new float[] { 0, 0, 6, 6 }, mbr, 0.0f);
+
+		tree.bulkLoad(new long[0], new float[0], null, 0);
+		assertEquals(0, tree.size());
+	}
+
+	@Test
+	public void testRejectedBulkLoadLeavesTreeUnchanged() {
+		final RTree tree = new RTree();
+		tree.insert(100, 0.0f, 0.0f, 1.0f, 1.0f, 0.0);
+
+		try {
+			tree.bulkLoad(new long[] { 1, 1 }, new float[] { 0, 0, 1, 1, 5, 5, 6, 6 }, null, 2);
+			fail();
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+
+		try {
+			tree.bulkLoad(new long[] { 1, 2 }, new float[] { 0, 0, 1, 1, 6, 5, 5, 6 }, null, 2);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+
+		assertEquals(1, tree.size());
+		assertTrue(tree.exists(100, null, 0));
+	}
+
+	private static void fill(final long[] keys, final float[] extents, final Random random) {
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = 3L * i + 7L;
+			final float x = random.nextFloat() * 1000.0f;
+			final float y = random.nextFloat() * 1000.0f;
+			extents[4 * i] = x;
+			extents[4 * i + 1] = y;
+			extents[4 * i + 2] = x + random.nextFloat() * 20.0f;
+			extents[4 * i + 3] = y + random.nextFloat() * 20.0f;
+		}
+	}
+
+	private static void assertSameQueries(final RTree expected, final RTree actual) {
+		final Random random = new Random(5);
+
+		for (int q = 0; q < 200; q++) {
+			final float x = random.nextFloat() * 1100.0f - 50.0f;
+			final float y = random.nextFloat() * 1100.0f - 50.0f;
+			final float size = q % 2 == 0 ? 0.0f : random.nextFloat() * 200.0f;
+			final float[] expectedMbr = new float[4];
+			final float[] actualMbr = new float[4];
+
+			assertArrayEquals(hits(expected.queryOverlap(x, y, x + size, y + size, expectedMbr, 0, false)),
+			                  hits(actual.queryOverlap(x, y, x + size, y + size, actualMbr, 0, false)));
+			assertArrayEquals(expectedMbr, actualMbr, 0.0f);
+		}
+	}
+
+	private static long[] hits(final LongEnumerator hits) {
+		final long[] keys = new long[hits.numRemaining()];
+
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = hits.nextLong();
+
+		Arrays.sort(keys);
+
+		return keys;
+	}
+}
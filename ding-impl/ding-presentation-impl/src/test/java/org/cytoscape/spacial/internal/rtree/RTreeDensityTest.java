@@ -0,0 +1,125 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.junit.Test;
+
+public class RTreeDensityTest {
+
+	private static final int N = 20000;
+
+	@Test
+	public void testDensityAccountsForEveryEntry() {
+		final RTree tree = new RTree();
+		final Random random = new Random(7);
+		final float[] extents = new float[4 * N];
+
+		for (int i = 0; i < N; i++) {
+			final float x = random.nextFloat() * 1000.0f;
+			final float y = random.nextFloat() * 1000.0f;
+			// Every hundredth entry is larger than a cell
+			final float size = (i % 100 == 0) ? 60.0f : 2.0f;
+			extents[4 * i] = x;
+			extents[4 * i + 1] = y;
+			extents[4 * i + 2] = x + size;
+			extents[4 * i + 3] = y + size;
+			tree.insert(i, x, y, x + size, y + size, 0.0);
+		}
+
+		final int columns = 40;
+		final int rows = 20;
+		final int[] counts = new int[columns * rows];
+		final long[] representatives = new long[columns * rows];
+		final SpacialEntry2DEnumerator large = tree.queryDensity(0.0f, 0.0f, 1000.0f, 1000.0f,
+		                                                         columns, rows, counts,
+		                                                         representatives);
+		int binned = 0;
+
+		for (int i = 0; i < counts.length; i++) {
+			binned += counts[i];
+
+			if (counts[i] > 0) {
+				// The representative is near its cell
+				final int r = (int) representatives[i];
+				final float xCenter = (extents[4 * r] + extents[4 * r + 2]) / 2;
+				final float yCenter = (extents[4 * r + 1] + extents[4 * r + 3]) / 2;
+				assertTrue(Math.abs(xCenter - ((i % columns) + 0.5f) * 25.0f) < 25.0f);
+				assertTrue(Math.abs(yCenter - ((i / columns) + 0.5f) * 50.0f) < 50.0f);
+			}
+		}
+
+		final long[] largeKeys = new long[large.numRemaining()];
+		final float[] buff = new float[4];
+
+		for (int i = 0; i < largeKeys.length; i++) {
+			largeKeys[i] = large.nextExtents(buff, 0);
+			assertArrayEquals(Arrays.copyOfRange(extents, 4 * (int) largeKeys[i],
+			                                     4 * (int) largeKeys[i] + 4), buff, 0.0f);
+		}
+
+		Arrays.sort(largeKeys);
+		final long[] expectedLarge = new long[N / 100];
+
+		for (int i = 0; i < expectedLarge.length; i++)
+			expectedLarge[i] = 100L * i;
+
+		assertArrayEquals(expectedLarge, largeKeys);
+		assertEquals(N - expectedLarge.length, binned);
+	}
+
+	@Test
+	public void testDensityOfPartOfTheTree() {
+		final RTree tree = new RTree(4);
+
+		for (int i = 0; i < 100; i++)
+			tree.insert(i, i * 10.0f, 0.0f, i * 10.0f + 1.0f, 1.0f, 0.0);
+
+		final int[] counts = new int[2];
+		final long[] representatives = new long[2];
+		final SpacialEntry2DEnumerator large = tree.queryDensity(0.0f, 0.0f, 99.5f, 1.0f, 2, 1,
+		                                                         counts, representatives);
+
+		// Only the ten entries in the query rectangle are binned, although
+		// groups of them may straddle the two cells.
+		assertEquals(0, large.numRemaining());
+		assertEquals(10, counts[0] + counts[1]);
+		assertTrue(counts[0] >= 4 && counts[1] >= 4);
+
+		assertEquals(0, tree.queryDensity(2000.0f, 0.0f, 3000.0f, 1.0f, 2, 1, counts,
+		                                  representatives).numRemaining());
+		assertEquals(10, counts[0] + counts[1]);
+	}
+}
@@ -0,0 +1,165 @@
+package org.cytoscape.spacial.internal.rtree;
+
+/*
+ * #%L
+ * Cytoscape Ding View/Presentation Impl (ding-presentation-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.cytoscape.spacial.SpacialEntry2DEnumerator;
+import org.junit.Test;
+
+public class RTreeZOrderTest {
+
+	private static final int N = 2000;
+
+	@Test
+	public void testZOrderSurvivesSplitsAndDeletes() {
+		final RTree tree = new RTree(3);
+		final Random random = new Random(11);
+		final double[] z = new double[N];
+
+		for (int i = 0; i < N; i++) {
+			z[i] = random.nextInt(7) - 3;
+			final float x = random.nextFloat() * 500.0f;
+			final float y = random.nextFloat() * 500.0f;
+			tree.insert(i, x, y, x + 5.0f, y + 5.0f, z[i]);
+		}
+
+		for (int i = 0; i < N; i += 3)
+			tree.delete(i);
+
+		for (int i = 1; i < N; i += 3) {
+			z[i] = 0.5 * i;
+			tree.setZOrder(i, z[i]);
+		}
+
+		for (int i = 0; i < N; i++)
+			assertEquals((i % 3 == 0) ? 0.0 : z[i], tree.getZOrder(i), 0.0);
+
+		assertZSorted(tree, z);
+	}
+
+	@Test
+	public void testBulkLoadedZOrder() {
+		final long[] keys = new long[N];
+		final float[] extents = new float[4 * N];
+		final double[] z = new double[N];
+		final Random random = new Random(3);
+
+		for (int i = 0; i < N; i++) {
+			keys[i] = i;
+			z[i] = random.nextDouble();
+			extents[4 * i] = random.nextFloat() * 500.0f;
+			extents[4 * i + 1] = random.nextFloat() * 500.0f;
+			extents[4 * i + 2] = extents[4 * i] + 10.0f;
+			extents[4 * i + 3] = extents[4 * i + 1] + 10.0f;
+		}
+
+		final RTree tree = new RTree();
+		tree.bulkLoad(keys, extents, z, N);
+		assertZSorted(tree, z);
+
+		// More distinct z orders than hits takes the other ordering path.
+		final SpacialEntry2DEnumerator hits = tree.queryOverlapByZOrder(0.0f, 0.0f, 20.0f, 20.0f);
+		double last = Double.NEGATIVE_INFINITY;
+
+		while (hits.numRemaining() > 0) {
+			final double next = tree.getZOrder(hits.nextLong());
+			assertEquals(true, last <= next);
+			last = next;
+		}
+	}
+
+	@Test
+	public void testEqualZOrdersKeepQueryOrder() {
+		final RTree tree = new RTree(4);
+
+		for (int i = 0; i < 100; i++)
+			tree.insert(i, i, 0.0f, i + 1.0f, 1.0f, (i % 2 == 0) ? 1.0 : -1.0);
+
+		final long[] plain = keys(tree.queryOverlap(-1.0f, -1.0f, 200.0f, 2.0f, null, 0, false));
+		final long[] expected = new long[plain.length];
+		int inx = 0;
+
+		for (final long key : plain)
+			if (key % 2 == 1)
+				expected[inx++] = key;
+
+		for (final long key : plain)
+			if (key % 2 == 0)
+				expected[inx++] = key;
+
+		assertArrayEquals(expected, keys(tree.queryOverlapByZOrder(-1.0f, -1.0f, 200.0f, 2.0f)));
+
+		// With a single z order the plain query order is kept.
+		for (int i = 0; i < 100; i += 2)
+			tree.setZOrder(i, -1.0);
+
+		assertArrayEquals(plain, keys(tree.queryOverlapByZOrder(-1.0f, -1.0f, 200.0f, 2.0f)));
+	}
+
+	private static void assertZSorted(final RTree tree, final double[] z) {
+		final Random random = new Random(5);
+
+		for (int q = 0; q < 50; q++) {
+			final float x = random.nextFloat() * 500.0f;
+			final float y = random.nextFloat() * 500.0f;
+			final float[] extents = new float[4];
+			final float[] expected = new float[4];
+			final SpacialEntry2DEnumerator hits = tree.queryOverlapByZOrder(x, y, x + 100.0f, y + 100.0f);
+			final long[] found = new long[hits.numRemaining()];
+			double last = Double.NEGATIVE_INFINITY;
+
+			for (int i = 0; i < found.length; i++) {
+				found[i] = hits.nextExtents(extents, 0);
+				tree.exists(found[i], expected, 0);
+				assertArrayEquals(expected, extents, 0.0f);
+				assertEquals(z[(int) found[i]], tree.getZOrder(found[i]), 0.0);
+				assertEquals(true, last <= z[(int) found[i]]);
+				last = z[(int) found[i]];
+			}
+
+			final long[] plain = keys(tree.queryOverlap(x, y, x + 100.0f, y + 100.0f, null, 0, false));
+			Arrays.sort(found);
+			Arrays.sort(plain);
+			assertArrayEquals(plain, found);
+		}
+	}
+
+	private static long[] keys(final SpacialEntry2DEnumerator hits) {
+		final long[] keys = new long[hits.numRemaining()];
+
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = hits.nextLong();
+
+		return keys;
+	}
+}
@@ -31,7 +31,12 @@ import static org.mockito.Mockito.when;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 import javax.swing.JFrame;
@@ -42,12 +47,15 @@ import org.cytoscape.application.NetworkViewRenderer;
 import org.cytoscape.ding.NetworkViewTestSupport;
 import org.cytoscape.ding.impl.DGraphView;
 import org.cytoscape.ding.impl.InnerCanvas;
+import org.cytoscape.graph.render.stateful.GraphLOD;
+import org.cytoscape.graph.render.stateful.TiledGraphRenderer;
 import org.cytoscape.io.internal.read.sif.SIFNetworkReader;
 import org.cytoscape.io.internal.util.ReadUtils;
 import org.cytoscape.io.internal.util.StreamUtilImpl;
 import org.cytoscape.model.CyNetwork;
 import org.cytoscape.model.CyNetworkFactory;
 import org.cytoscape.model.CyNetworkManager;
+import org.cytoscape.model.CyNode;
 import org.cytoscape.model.NetworkTestSupport;
 import org.cytoscape.model.subnetwork.CyRootNetworkManager;
 import org.cytoscape.property.CyProperty;
@@ -59,6 +67,8 @@ import org.cytoscape.view.layout.internal.CyLayoutAlgorithmManagerImpl;
 import org.cytoscape.view.layout.internal.algorithms.GridNodeLayout;
 import org.cytoscape.view.model.CyNetworkView;
 import org.cytoscape.view.model.CyNetworkViewFactory;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
 import org.cytoscape.work.TaskIterator;
 import org.cytoscape.work.TaskMonitor;
 import org.mockito.Mock;
@@ -70,9 +80,15 @@ public class PerfTest {
 	public static void main(String[] args) {
 		PerfTest pt = new PerfTest();
 		//pt.runTestLoop();
-		pt.visualizeNetworks();
+		if (args.length > 0 && args[0].equals("frames"))
+			pt.runFrameTimeTest();
+		else
+			pt.visualizeNetworks();
 	}
 
+	private static final int FRAME_WARMUP = 3;
+	private static final int FRAME_MEASUREMENTS = 10;
+
 	@Mock protected TaskMonitor taskMonitor;
 	@Mock protected NetworkViewRenderer netViewRenderer;
 	@Mock protected CyApplicationManager appMgr;
@@ -164,6 +180,102 @@ public class PerfTest {
 		System.out.println("LOADING SIF file (" + name + ") with view duration: " + (end - start));
 	}
 
+	/**
+	 * Measures full detail frame times of the sequential renderer and of the
+	 * tiled renderer at increasing thread counts, up to the number of
+	 * available processors.
+	 */
+	public void runFrameTimeTest() {
+		try {
+			frameTimePerf("A50-100.sif", 1600, 1200);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void frameTimePerf(String name, int width, int height) throws Exception {
+		final int processors = Runtime.getRuntime().availableProcessors();
+		final List<Integer> threadCounts = new ArrayList<Integer>();
+		threadCounts.add(0); // Sequential renderer.
+		for (int threads = 1; threads < processors; threads *= 2)
+			threadCounts.add(threads);
+		threadCounts.add(processors);
+
+		double sequentialMillis = 0.0;
+
+		for (int threads : threadCounts) {
+			// The renderer is chosen when the view is created.
+			System.setProperty(TiledGraphRenderer.TILED_RENDERING_PROPERTY, Boolean.toString(threads > 0));
+			System.setProperty(TiledGraphRenderer.THREADS_PROPERTY, Integer.toString(Math.max(1, threads)));
+
+			final DGraphView view = (DGraphView) getViews(name)[0];
+			layoutOnGrid(view);
+			view.setGraphLOD(new FullDetailLOD());
+
+			final InnerCanvas canvas = view.getCanvas();
+			canvas.setSize(width, height);
+			view.fitContent();
+
+			final BufferedImage screen = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			final Graphics2D g = screen.createGraphics();
+
+			for (int i = 0; i < FRAME_WARMUP; i++)
+				renderFrame(view, canvas, g);
+
+			final long[] frameNanos = new long[FRAME_MEASUREMENTS];
+			for (int i = 0; i < FRAME_MEASUREMENTS; i++)
+				frameNanos[i] = renderFrame(view, canvas, g);
+
+			g.dispose();
+			Arrays.sort(frameNanos);
+
+			final double medianMillis = frameNanos[frameNanos.length / 2] / 1e6;
+			if (threads == 0)
+				sequentialMillis = medianMillis;
+
+			System.out.println(String.format("FRAME TIME (%s, %dx%d, %s): median %.1f ms, speedup %.2fx",
+			                                 name, width, height,
+			                                 threads == 0 ? "sequential" : ("tiled, " + threads + " threads"),
+			                                 medianMillis, sequentialMillis / medianMillis));
+		}
+
+		System.clearProperty(TiledGraphRenderer.TILED_RENDERING_PROPERTY);
+		System.clearProperty(TiledGraphRenderer.THREADS_PROPERTY);
+	}
+
+	private static long renderFrame(DGraphView view, InnerCanvas canvas, Graphics2D g) {
+		view.setContentChanged();
+		final long start = System.nanoTime();
+		canvas.update(g);
+		return System.nanoTime() - start;
+	}
+
+	private static void layoutOnGrid(CyNetworkView view) {
+		final int columns = (int) Math.ceil(Math.sqrt(view.getNodeViews().size()));
+		int i = 0;
+		for (View<CyNode> nv : view.getNodeViews()) {
+			nv.setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION, (double) ((i % columns) * 80));
+			nv.setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION, (double) ((i / columns) * 80));
+			nv.setVisualProperty(BasicVisualLexicon.NODE_LABEL, "n" + nv.getModel().getSUID());
+			i++;
+		}
+	}
+
+	/**
+	 * Renders everything at full detail regardless of the number of visible
+	 * nodes and edges.
+	 */
+	private static class FullDetailLOD extends GraphLOD {
+		@Override public boolean detail(int renderNodeCount, int renderEdgeCount) { return true; }
+		@Override public boolean nodeBorders(int renderNodeCount, int renderEdgeCount) { return true; }
+		@Override public boolean nodeLabels(int renderNodeCount, int renderEdgeCount) { return true; }
+		@Override public boolean customGraphics(int renderNodeCount, int renderEdgeCount) { return true; }
+		@Override public boolean edgeArrows(int renderNodeCount, int renderEdgeCount) { return true; }
+		@Override public boolean dashedEdges(int renderNodeCount, int renderEdgeCount) { return true; }
+		@Override public boolean edgeAnchors(int renderNodeCount, int renderEdgeCount) { return true; }
+		@Override public boolean edgeLabels(int renderNodeCount, int renderEdgeCount) { return true; }
+	}
+
 	private void visualizeNetworks() {
 		try {
 		CyNetworkView[] views = getViews("A50-50.sif");
@@ -26,6 +26,7 @@ package org.cytoscape.equations.internal;
 
 import org.cytoscape.equations.internal.EquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
+import org.cytoscape.equations.internal.interpreter.CompilingInterpreterImpl;
 import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
 import org.cytoscape.equations.Interpreter;
 import org.cytoscape.equations.EquationCompiler;
@@ -47,7 +48,8 @@ public class CyActivator extends AbstractCyActivator {
 
 	public void start(BundleContext bc) {
 		
-		InterpreterImpl interpreter = new InterpreterImpl();
+		Interpreter interpreter = Boolean.getBoolean(CompilingInterpreterImpl.COMPILE_EQUATIONS_PROPERTY)
+			? new CompilingInterpreterImpl() : new InterpreterImpl();
 		EquationParserImpl parser = new EquationParserImpl();
 		EquationCompilerImpl compiler = new EquationCompilerImpl(parser);
 		
@@ -0,0 +1,671 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
+import org.cytoscape.equations.FunctionError;
+import org.cytoscape.equations.IdentDescriptor;
+import org.cytoscape.equations.Interpreter;
+import org.cytoscape.equations.internal.BooleanList;
+import org.cytoscape.equations.internal.DoubleList;
+import org.cytoscape.equations.internal.LongList;
+import org.cytoscape.equations.internal.StringList;
+
+
+/**
+ *  An Interpreter that translates the stack code of an equation into a tree of specialised nodes
+ *  once, and then evaluates that tree.  Floating point sub-expressions are evaluated on unboxed
+ *  doubles, functions are called directly and no argument stack is needed.  Translations are
+ *  cached per equation string.  Code that cannot be translated is handed to an {@link InterpreterImpl}.
+ *  Results and error conditions are the same as those of {@link InterpreterImpl}.
+ */
+public class CompilingInterpreterImpl implements Interpreter {
+	/** If this system property is true, the bundle registers this interpreter instead of InterpreterImpl. */
+	public static final String COMPILE_EQUATIONS_PROPERTY = "cytoscape.equations.compile";
+
+	private static final int MAX_CACHED_EQUATIONS = 10000;
+
+	private final Map<String, CompiledEquation> compiledEquations = new ConcurrentHashMap<String, CompiledEquation>();
+	private final Interpreter fallback = new InterpreterImpl();
+
+	public CompilingInterpreterImpl() { }
+
+	/** Executes the code that is passed in and returns the result of an equation's evaluation.
+	 *  @return a Double, Boolean, String etc. object that is the result of a successful execution.
+	 *  @throws ArithmeticException thrown if an arithmetic error was detected like a division by zero etc.
+	 *  @throws IllegalArgumentException thrown if a function invocation resulted in a function detecting an invalid argument
+	 *  @throws IllegalStateException thrown if an invalid interpreter internal state was reached
+	 */
+	public Object execute(final Equation equation, final Map<String, IdentDescriptor> variableNameToDescriptorMap)
+		throws NullPointerException, ArithmeticException, IllegalArgumentException, IllegalStateException
+	{
+		if (equation == null || variableNameToDescriptorMap == null)
+			throw new NullPointerException("null equation or variableNameToDescriptorMap.");
+
+		final Node root = getCompiled(equation).root;
+		if (root == null)
+			return fallback.execute(equation, variableNameToDescriptorMap);
+
+		final Object retVal;
+		try {
+			retVal = root.eval(variableNameToDescriptorMap);
+		} catch (final FunctionError e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+
+		final Class retValClass = retVal == null ? null : retVal.getClass();
+		if (retValClass == Double.class || retValClass == String.class || retValClass == Boolean.class || retValClass == Long.class
+		    || retValClass == DoubleList.class || retValClass == BooleanList.class || retValClass == LongList.class
+		    || retValClass == StringList.class)
+			return retVal;
+
+		throw new IllegalStateException("illegal result type at end of interpretation: " + retValClass + ".");
+	}
+
+	private CompiledEquation getCompiled(final Equation equation) {
+		final Object[] code = equation.getCode();
+		final String key = equation.toString();
+		CompiledEquation compiled = compiledEquations.get(key);
+
+		// The same string may compile to different code, e.g. if the referenced columns changed type.
+		if (compiled != null && (compiled.code == code || Arrays.equals(compiled.code, code)))
+			return compiled;
+
+		compiled = new CompiledEquation(code, compile(code));
+		if (compiledEquations.size() >= MAX_CACHED_EQUATIONS)
+			compiledEquations.clear();
+		compiledEquations.put(key, compiled);
+		return compiled;
+	}
+
+	/**
+	 *  Translates stack code into a node tree by running it symbolically.
+	 *  @return the root of the tree or null if the code is not well formed
+	 */
+	static Node compile(final Object[] code) {
+		final Deque<Node> stack = new ArrayDeque<Node>();
+		for (final Object instrOrArg : code) {
+			if (!(instrOrArg instanceof Instruction)) {
+				if (instrOrArg == null)
+					return null;
+				stack.push(new Constant(instrOrArg));
+				continue;
+			}
+
+			final Instruction instruction = (Instruction)instrOrArg;
+			final Node node;
+			switch (instruction) {
+			case FUMINUS:
+			case FUPLUS:
+			case FCONVI:
+			case FCONVB:
+			case FCONVS:
+			case SCONVF:
+			case SCONVI:
+			case SCONVB:
+				if (stack.isEmpty())
+					return null;
+				node = unary(instruction, stack.pop());
+				break;
+			case AREF:
+				if (stack.isEmpty() || !stack.peek().isConstant(String.class))
+					return null;
+				node = new Ref((String)((Constant)stack.pop()).value, null);
+				break;
+			case AREF2:
+				if (stack.size() < 2 || !stack.peek().isConstant(String.class))
+					return null;
+				final String attribName = (String)((Constant)stack.pop()).value;
+				node = new Ref(attribName, stack.pop());
+				break;
+			case CALL:
+				node = call(stack);
+				if (node == null)
+					return null;
+				break;
+			default:
+				if (stack.size() < 2)
+					return null;
+				final Node first = stack.pop();
+				final Node second = stack.pop();
+				node = binary(instruction, first, second);
+				if (node == null)
+					return null;
+			}
+			stack.push(node);
+		}
+
+		return stack.size() == 1 ? stack.pop() : null;
+	}
+
+	private static Node unary(final Instruction instruction, final Node operand) {
+		switch (instruction) {
+		case FUMINUS:
+			return new FloatUnary(operand, true);
+		case FUPLUS:
+			return new FloatUnary(operand, false);
+		case FCONVI:
+			return new FloatFromLong(operand);
+		case FCONVB:
+			return new FloatFromBoolean(operand);
+		case FCONVS:
+			return new FloatFromString(operand);
+		case SCONVB:
+			return new StringFromBoolean(operand);
+		default: // SCONVF and SCONVI
+			return new StringFromObject(operand);
+		}
+	}
+
+	private static Node call(final Deque<Node> stack) {
+		if (stack.size() < 2 || !stack.peek().isConstant(Function.class))
+			return null;
+		final Function func = (Function)((Constant)stack.pop()).value;
+		if (!stack.peek().isConstant(Integer.class))
+			return null;
+		final int argCount = (Integer)((Constant)stack.pop()).value;
+		final int MAX_ARG_COUNT = 100; // Same arbitrary limit as in InterpreterImpl.
+		if (argCount < 0 || argCount > MAX_ARG_COUNT || stack.size() < argCount)
+			return null;
+
+		final Node[] args = new Node[argCount];
+		for (int argNo = 0; argNo < argCount; ++argNo)
+			args[argNo] = stack.pop();
+		return new Call(func, args);
+	}
+
+	/**
+	 *  "first" is the operand that was on top of the stack, i.e. the left hand side.
+	 */
+	private static Node binary(final Instruction instruction, final Node first, final Node second) {
+		switch (instruction) {
+		case FADD:
+			return new FloatBinary(first, second) {
+				double apply(final double float1, final double float2) { return float1 + float2; }
+			};
+		case FSUB:
+			return new FloatBinary(first, second) {
+				double apply(final double float1, final double float2) { return float1 - float2; }
+			};
+		case FMUL:
+			return new FloatBinary(first, second) {
+				double apply(final double float1, final double float2) { return float1 * float2; }
+			};
+		case FDIV:
+			return new FloatBinary(first, second) {
+				double apply(final double float1, final double float2) {
+					if (float2 == 0.0)
+						throw new ArithmeticException("illegal division by zero.");
+					return float1 / float2;
+				}
+			};
+		case FPOW:
+			return new FloatBinary(first, second) {
+				double apply(final double float1, final double float2) { return Math.pow(float1, float2); }
+			};
+		case SCONCAT:
+			return new Concat(first, second);
+		case BEQLF:
+			return new FloatComparison(first, second) {
+				boolean test(final double float1, final double float2) { return float1 == float2; }
+			};
+		case BNEQLF:
+			return new FloatComparison(first, second) {
+				boolean test(final double float1, final double float2) { return float1 != float2; }
+			};
+		case BGTF:
+			return new FloatComparison(first, second) {
+				boolean test(final double float1, final double float2) { return float1 > float2; }
+			};
+		case BLTF:
+			return new FloatComparison(first, second) {
+				boolean test(final double float1, final double float2) { return float1 < float2; }
+			};
+		case BGTEF:
+			return new FloatComparison(first, second) {
+				boolean test(final double float1, final double float2) { return float1 >= float2; }
+			};
+		case BLTEF:
+			return new FloatComparison(first, second) {
+				boolean test(final double float1, final double float2) { return float1 <= float2; }
+			};
+		case BEQLS:
+			return new StringComparison(first, second) {
+				boolean test(final String string1, final String string2) { return string1.equals(string2); }
+			};
+		case BNEQLS:
+			return new StringComparison(first, second) {
+				boolean test(final String string1, final String string2) { return !string1.equals(string2); }
+			};
+		case BGTS:
+			return new StringComparison(first, second) {
+				boolean test(final String string1, final String string2) { return string1.compareTo(string2) > 0; }
+			};
+		case BLTS:
+			return new StringComparison(first, second) {
+				boolean test(final String string1, final String string2) { return string1.compareTo(string2) < 0; }
+			};
+		case BGTES:
+			return new StringComparison(first, second) {
+				boolean test(final String string1, final String string2) { return string1.compareTo(string2) >= 0; }
+			};
+		case BLTES:
+			return new StringComparison(first, second) {
+				boolean test(final String string1, final String string2) { return string1.compareTo(string2) <= 0; }
+			};
+		case BGTB:
+			return new BooleanComparison(first, second) {
+				boolean test(final boolean bool1, final boolean bool2) { return bool1 && !bool2; }
+			};
+		case BLTB:
+			return new BooleanComparison(first, second) {
+				boolean test(final boolean bool1, final boolean bool2) { return !bool1 && bool2; }
+			};
+		case BGTEB:
+			return new BooleanComparison(first, second) {
+				boolean test(final boolean bool1, final boolean bool2) { return bool1 || !bool2; }
+			};
+		case BLTEB:
+			return new BooleanComparison(first, second) {
+				boolean test(final boolean bool1, final boolean bool2) { return !bool1 || bool2; }
+			};
+		case BEQLB:
+			return new BooleanComparison(first, second) {
+				boolean test(final boolean bool1, final boolean bool2) { return bool1 == bool2; }
+			};
+		case BNEQLB:
+			return new BooleanComparison(first, second) {
+				boolean test(final boolean bool1, final boolean bool2) { return bool1 != bool2; }
+			};
+		default:
+			return null;
+		}
+	}
+
+	private static final class CompiledEquation {
+		final Object[] code;
+		final Node root; // null if the code has to be interpreted
+
+		CompiledEquation(final Object[] code, final Node root) {
+			this.code = code;
+			this.root = root;
+		}
+	}
+
+	/**
+	 *  A node of a compiled equation.  Operands are evaluated in the order in which the stack code
+	 *  would have computed them and their types are checked in the order in which the instructions
+	 *  would have checked them, so that errors are reported the same way.
+	 */
+	static abstract class Node {
+		abstract Object eval(Map<String, IdentDescriptor> vars) throws FunctionError;
+
+		double evalDouble(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return getFloat(eval(vars));
+		}
+
+		boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return getBoolean(eval(vars));
+		}
+
+		String evalString(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return getString(eval(vars));
+		}
+
+		boolean isConstant(final Class<?> type) {
+			return false;
+		}
+
+		/** Returns true if evalDouble() cannot fail on a type check. */
+		boolean isFloat() {
+			return false;
+		}
+	}
+
+	private static final class Constant extends Node {
+		final Object value;
+
+		Constant(final Object value) {
+			this.value = value;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> vars) {
+			return value;
+		}
+
+		@Override
+		boolean isConstant(final Class<?> type) {
+			return type.isInstance(value);
+		}
+
+		@Override
+		boolean isFloat() {
+			return value instanceof Double;
+		}
+	}
+
+	/** A node whose result is a floating point number; evaluating it through evalDouble() avoids boxing. */
+	private static abstract class FloatNode extends Node {
+		final Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return evalDouble(vars);
+		}
+
+		@Override
+		abstract double evalDouble(Map<String, IdentDescriptor> vars) throws FunctionError;
+
+		@Override
+		final boolean isFloat() {
+			return true;
+		}
+	}
+
+	private static abstract class FloatBinary extends FloatNode {
+		private final Node first;
+		private final Node second;
+		private final boolean unboxed;
+
+		FloatBinary(final Node first, final Node second) {
+			this.first = first;
+			this.second = second;
+			this.unboxed = first.isFloat() && second.isFloat();
+		}
+
+		final double evalDouble(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			if (unboxed) {
+				final double float2 = second.evalDouble(vars);
+				final double float1 = first.evalDouble(vars);
+				return apply(float1, float2);
+			}
+
+			final Object o2 = second.eval(vars);
+			final Object o1 = first.eval(vars);
+			final double float1 = getFloat(o1);
+			final double float2 = getFloat(o2);
+			return apply(float1, float2);
+		}
+
+		abstract double apply(double float1, double float2);
+	}
+
+	private static final class FloatUnary extends FloatNode {
+		private final Node operand;
+		private final boolean negate;
+
+		FloatUnary(final Node operand, final boolean negate) {
+			this.operand = operand;
+			this.negate = negate;
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final double float1 = operand.evalDouble(vars);
+			return negate ? -float1 : +float1;
+		}
+	}
+
+	private static final class FloatFromLong extends FloatNode {
+		private final Node operand;
+
+		FloatFromLong(final Node operand) {
+			this.operand = operand;
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return (double)getLong(operand.eval(vars));
+		}
+	}
+
+	private static final class FloatFromBoolean extends FloatNode {
+		private final Node operand;
+
+		FloatFromBoolean(final Node operand) {
+			this.operand = operand;
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return operand.evalBoolean(vars) ? 1.0 : 0.0;
+		}
+	}
+
+	private static final class FloatFromString extends FloatNode {
+		private final Node operand;
+
+		FloatFromString(final Node operand) {
+			this.operand = operand;
+		}
+
+		double evalDouble(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final String s = operand.evalString(vars);
+			try {
+				return Double.parseDouble(s);
+			} catch(final NumberFormatException e) {
+				throw new IllegalStateException("can't convert \"" + s + "\" to a number.");
+			}
+		}
+	}
+
+	private static final class StringFromObject extends Node {
+		private final Node operand;
+
+		StringFromObject(final Node operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return operand.eval(vars).toString();
+		}
+	}
+
+	private static final class StringFromBoolean extends Node {
+		private final Node operand;
+
+		StringFromBoolean(final Node operand) {
+			this.operand = operand;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			operand.eval(vars);
+			// See InterpreterImpl.sconvb() for why both truth values convert to this string.
+			return "\uFFFF\uFFFF\uFFFF";
+		}
+	}
+
+	private static final class Concat extends Node {
+		private final Node first;
+		private final Node second;
+
+		Concat(final Node first, final Node second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final Object o2 = second.eval(vars);
+			final Object o1 = first.eval(vars);
+			final String string1 = getString(o1);
+			final String string2 = getString(o2);
+			return string1 + string2;
+		}
+	}
+
+	private static abstract class FloatComparison extends Node {
+		private final Node first;
+		private final Node second;
+		private final boolean unboxed;
+
+		FloatComparison(final Node first, final Node second) {
+			this.first = first;
+			this.second = second;
+			this.unboxed = first.isFloat() && second.isFloat();
+		}
+
+		final Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return evalBoolean(vars);
+		}
+
+		@Override
+		final boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			if (unboxed) {
+				final double float2 = second.evalDouble(vars);
+				final double float1 = first.evalDouble(vars);
+				return test(float1, float2);
+			}
+
+			final Object o2 = second.eval(vars);
+			final Object o1 = first.eval(vars);
+			final double float1 = getFloat(o1);
+			final double float2 = getFloat(o2);
+			return test(float1, float2);
+		}
+
+		abstract boolean test(double float1, double float2);
+	}
+
+	private static abstract class StringComparison extends Node {
+		private final Node first;
+		private final Node second;
+
+		StringComparison(final Node first, final Node second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		final Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return evalBoolean(vars);
+		}
+
+		@Override
+		final boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final Object o2 = second.eval(vars);
+			final Object o1 = first.eval(vars);
+			final String string1 = getString(o1);
+			final String string2 = getString(o2);
+			return test(string1, string2);
+		}
+
+		abstract boolean test(String string1, String string2);
+	}
+
+	private static abstract class BooleanComparison extends Node {
+		private final Node first;
+		private final Node second;
+
+		BooleanComparison(final Node first, final Node second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		final Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			return evalBoolean(vars);
+		}
+
+		@Override
+		final boolean evalBoolean(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final Object o2 = second.eval(vars);
+			final Object o1 = first.eval(vars);
+			final boolean bool1 = getBoolean(o1);
+			final boolean bool2 = getBoolean(o2);
+			return test(bool1, bool2);
+		}
+
+		abstract boolean test(boolean bool1, boolean bool2);
+	}
+
+	private static final class Ref extends Node {
+		private final String attribName;
+		private final Node defaultValue; // null for references without a default
+
+		Ref(final String attribName, final Node defaultValue) {
+			this.attribName = attribName;
+			this.defaultValue = defaultValue;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final Object defaultObject = defaultValue == null ? null : defaultValue.eval(vars);
+			final IdentDescriptor identDescriptor = vars.get(attribName);
+			if (identDescriptor == null)
+				throw new IllegalStateException("unknown column reference: \"" + attribName + "\" ("
+				                                + (defaultValue == null ? 1 : 2) + ").");
+			final Object value = identDescriptor.getValue();
+			if (value != null)
+				return value;
+			if (defaultValue == null)
+				throw new IllegalStateException("undefined column reference: \"" + attribName + "\".");
+			return defaultObject;
+		}
+	}
+
+	private static final class Call extends Node {
+		private final Function func;
+		private final Node[] args;
+
+		Call(final Function func, final Node[] args) {
+			this.func = func;
+			this.args = args;
+		}
+
+		Object eval(final Map<String, IdentDescriptor> vars) throws FunctionError {
+			final Object[] argValues = new Object[args.length];
+			for (int argNo = args.length - 1; argNo >= 0; --argNo)
+				argValues[argNo] = args[argNo].eval(vars);
+			return func.evaluateFunction(argValues);
+		}
+	}
+
+	private static double getFloat(final Object o) throws IllegalStateException {
+		if (o instanceof Double)
+			return (Double)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to a floating point number.");
+	}
+
+	private static long getLong(final Object o) throws IllegalStateException {
+		if (o instanceof Long)
+			return (Long)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " (" + o + ") to an integer number.");
+	}
+
+	private static String getString(final Object o) throws IllegalStateException {
+		if (o instanceof String)
+			return (String)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " to a string.");
+	}
+
+	private static boolean getBoolean(final Object o) throws IllegalStateException {
+		if (o instanceof Boolean)
+			return (Boolean)o;
+
+		throw new IllegalStateException("can't convert a " + o.getClass() + " to a boolean.");
+	}
+}
@@ -58,6 +58,13 @@ public class InterpreterImpl implements Interpreter {
 		if (equation == null || variableNameToDescriptorMap == null)
 			throw new NullPointerException("null equation or variableNameToDescriptorMap.");
 
+		// Every execution gets its own argument stack, so that a shared interpreter can be used from several threads.
+		return new InterpreterImpl().run(equation, variableNameToDescriptorMap);
+	}
+
+	private Object run(final Equation equation, final Map<String, IdentDescriptor> variableNameToDescriptorMap)
+		throws ArithmeticException, IllegalArgumentException, IllegalStateException
+	{
 		this.argumentStack               = new Stack<Object>();
 		this.variableNameToDescriptorMap = variableNameToDescriptorMap;
 
@@ -0,0 +1,129 @@
+package org.cytoscape.equations.internal.interpreter;
+
+/*
+ * #%L
+ * Cytoscape Equations Impl (equations-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2010 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.IdentDescriptor;
+import org.cytoscape.equations.Interpreter;
+import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.EquationParserImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Evaluates an arithmetic, a string and a builtin function heavy equation
+ * with the stack interpreter and with the compiling interpreter. Run through
+ * main() to also get the allocation rate of each path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EquationBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean compiled;
+
+	private Interpreter interpreter;
+	private Equation arithmetic;
+	private Equation string;
+	private Equation builtins;
+	private Map<String, IdentDescriptor> variables;
+
+	public static void main(String[] args) throws RunnerException {
+		final Options opt = new OptionsBuilder()
+				.include(EquationBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(opt).run();
+	}
+
+	@Setup
+	public void setUp() {
+		interpreter = compiled ? new CompilingInterpreterImpl() : new InterpreterImpl();
+
+		final Map<String, Class<?>> types = new HashMap<String, Class<?>>();
+		types.put("a", Double.class);
+		types.put("b", Double.class);
+		types.put("c", Long.class);
+		types.put("s", String.class);
+
+		final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+		arithmetic = compile(compiler, "=($a + $b) * 2.5 - $c / 4", types);
+		string = compile(compiler, "=UPPER($s) & \"-\" & LEFT($s, 3)", types);
+		builtins = compile(compiler, "=IF($a > $b, SQRT($a), LOG($b)) + MAX($a, $b, $c)", types);
+
+		variables = new HashMap<String, IdentDescriptor>();
+		variables.put("a", new IdentDescriptor(12.5));
+		variables.put("b", new IdentDescriptor(3.25));
+		variables.put("c", new IdentDescriptor(42L));
+		variables.put("s", new IdentDescriptor("cytoscape"));
+	}
+
+	private static Equation compile(final EquationCompiler compiler, final String formula,
+	                                final Map<String, Class<?>> types)
+	{
+		if (!compiler.compile(formula, types))
+			throw new IllegalStateException(compiler.getLastErrorMsg());
+		return compiler.getEquation();
+	}
+
+	@Benchmark
+	public Object arithmetic() {
+		return interpreter.execute(arithmetic, variables);
+	}
+
+	@Benchmark
+	public Object string() {
+		return interpreter.execute(string, variables);
+	}
+
+	@Benchmark
+	public Object builtins() {
+		return interpreter.execute(builtins, variables);
+	}
+}
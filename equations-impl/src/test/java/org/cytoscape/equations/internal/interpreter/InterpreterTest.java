@@ -54,7 +54,11 @@ public class InterpreterTest extends TestCase {
 	}
 
 	private final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
-	private final Interpreter interpreter = new InterpreterImpl();
+	private final Interpreter interpreter = createInterpreter();
+
+	protected Interpreter createInterpreter() {
+		return new InterpreterImpl();
+	}
 
 	public void testSimpleStringConcatExpr() throws Exception {
 		final Map<String, Class<?>> attribNameToTypeMap = new HashMap<String, Class<?>>();
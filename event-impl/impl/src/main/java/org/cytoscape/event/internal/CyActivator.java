@@ -44,6 +44,9 @@ public class CyActivator extends AbstractCyActivator {
 	public void start(BundleContext bc) {
 		CyListenerAdapter cyListenerAdapter = new CyListenerAdapter(bc);
 		CyEventHelperImpl cyEventHelper = new CyEventHelperImpl(cyListenerAdapter);
+
+		if ( Boolean.getBoolean(CyEventHelperImpl.COALESCE_ROW_EVENTS_PROPERTY) )
+			RowSetRecordCoalescer.install(cyEventHelper);
 		
 		registerService(bc,cyEventHelper,CyEventHelper.class, new Properties());
 	}
@@ -29,15 +29,18 @@ import org.cytoscape.event.CyPayloadEvent;
 import org.cytoscape.event.CyEventHelper;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,22 +49,36 @@ public class CyEventHelperImpl implements CyEventHelper {
 
 	private static final Logger logger = LoggerFactory.getLogger(CyEventHelperImpl.class);
 
+	/**
+	 * System property that makes RowsSetEvents carry only the last record of
+	 * each cell set since the previous flush.
+	 */
+	public static final String COALESCE_ROW_EVENTS_PROPERTY = "cytoscape.event.coalesce.rows";
+
 	private static final Object DUMMY = new Object();
 
+	/** Number of writer counters per batch, a power of two. */
+	private static final int WRITER_STRIPES = 16;
+
+	/** Spacing between counters, so that each one sits on its own cache line. */
+	private static final int STRIPE_PADDING = 16;
+
 	private final CyListenerAdapter normal;
-	private final Map<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>> sourceAccMap;
+	private final ConcurrentMap<Class<?>,PayloadCoalescer<?>> coalescers;
+	private final AtomicReference<PayloadBatch> currentBatch;
 	private final ScheduledExecutorService payloadEventMonitor;
 	private final Map<Object, Object> silencedSources;
-	private boolean havePayload;
+	private volatile boolean haveSilencedSources;
 	
 	private final Object lock = new Object();
 	
 	public CyEventHelperImpl(final CyListenerAdapter normal) {
 		this.normal = normal;
-		sourceAccMap = new LinkedHashMap<Object,Map<Class<?>,PayloadAccumulator<?,?,?>>>();
+		coalescers = new ConcurrentHashMap<Class<?>,PayloadCoalescer<?>>();
+		currentBatch = new AtomicReference<PayloadBatch>(new PayloadBatch(coalescers));
 		payloadEventMonitor = Executors.newSingleThreadScheduledExecutor();
 		silencedSources = new WeakHashMap<Object, Object>();
-		havePayload = false;
+		haveSilencedSources = false;
 
 		// This thread just flushes any accumulated payload events.
 		// It is scheduled to run repeatedly at a fixed interval.
@@ -92,6 +109,7 @@ public class CyEventHelperImpl implements CyEventHelper {
 		normal.silenceEventSource(eventSource);
 		synchronized (lock) {
 			silencedSources.put(eventSource, DUMMY);
+			haveSilencedSources = true;
 		}
 	}
 
@@ -103,6 +121,7 @@ public class CyEventHelperImpl implements CyEventHelper {
 		normal.unsilenceEventSource(eventSource);
 		synchronized (lock) {
 			silencedSources.remove(eventSource);
+			haveSilencedSources = !silencedSources.isEmpty();
 		}
 	}
 
@@ -114,69 +133,153 @@ public class CyEventHelperImpl implements CyEventHelper {
 						"  with event type: " + eventType);
 			return;
 		}
-		
-		synchronized (lock) {
-			if ( silencedSources.containsKey(source))
-				return;
 
-			Map<Class<?>,PayloadAccumulator<?,?,?>> cmap = sourceAccMap.get(source);
-			if ( cmap == null ) { 
-				cmap = new LinkedHashMap<Class<?>,PayloadAccumulator<?,?,?>>();
-				sourceAccMap.put(source,cmap);
+		// Only take the lock when something is actually silenced. 
+		if ( haveSilencedSources ) {
+			synchronized (lock) {
+				if ( silencedSources.containsKey(source))
+					return;
 			}
-	
-			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) cmap.get(eventType);
-	
-			if ( acc == null ) {
-				try {
-					acc = new PayloadAccumulator<S,P,E>(source, eventType);
-					cmap.put(eventType,acc);
-				} catch (NoSuchMethodException nsme) {
-					logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
+		}
+
+		final int stripe = writerStripe();
+
+		// Register as a writer of the current batch, and make sure the batch
+		// wasn't swapped out in between, which would mean that the flushing
+		// thread may already have stopped waiting for writers.
+		while (true) {
+			final PayloadBatch batch = currentBatch.get();
+			batch.writers.incrementAndGet(stripe);
+			try {
+				if ( batch == currentBatch.get() ) {
+					batch.addPayload(source, payload, eventType);
 					return;
 				}
+			} finally {
+				batch.writers.decrementAndGet(stripe);
 			}
-			
-			acc.addPayload(payload);
-			havePayload = true;
-		}		
+		}
 	}
 
 	public void flushPayloadEvents() {
-		List<CyPayloadEvent<?,?>> flushList;
-		
-		synchronized (lock) {
+		if ( currentBatch.get().isEmpty() )
+			return;
 
-			if ( !havePayload )
-				return;
-			
-			flushList = new ArrayList<CyPayloadEvent<?,?>>();
-			havePayload = false;
-			
-			Iterator<Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>>> iterator = sourceAccMap.entrySet().iterator();
-			while (iterator.hasNext()) {
-				Entry<Object, Map<Class<?>, PayloadAccumulator<?, ?, ?>>> entry = iterator.next();
-				Object source = entry.getKey();
-				for ( PayloadAccumulator<?,?,?> acc : entry.getValue().values() ) {
-					try {
-						CyPayloadEvent<?,?> event = acc.newEventInstance( source );
-						if ( event != null ) {
-							flushList.add(event);
-						}
-					} catch (Exception ie) {
-						logger.warn("Couldn't instantiate event for source: " + source, ie);
+		final PayloadBatch batch = currentBatch.getAndSet(new PayloadBatch(coalescers));
+		batch.awaitWriters();
+
+		final List<CyPayloadEvent<?,?>> flushList = new ArrayList<CyPayloadEvent<?,?>>();
+
+		for ( SourcePayloads sp : batch.sources ) {
+			final Object source = sp.source;
+			for ( PayloadAccumulator<?,?,?> acc : sp.accumulators ) {
+				try {
+					CyPayloadEvent<?,?> event = acc.newEventInstance( source );
+					if ( event != null ) {
+						flushList.add(event);
 					}
+				} catch (Exception ie) {
+					logger.warn("Couldn't instantiate event for source: " + source, ie);
 				}
-				iterator.remove();
 			}
-			
 		}
 		
-		// Actually fire the events outside of the synchronized block.
+		// Actually fire the events once the batch is drained.
 		for (CyPayloadEvent<?,?> event : flushList) {
 			normal.fireEvent(event);
 		}	
 	}
+
+	/**
+	 * Makes payload events of the given type deliver only the last payload of
+	 * each key, as determined by the coalescer, rather than every payload added
+	 * since the last flush. Passing null turns coalescing off again. Takes
+	 * effect from the next flush on.
+	 */
+	<P,E extends CyPayloadEvent<?,P>> void setPayloadCoalescer(Class<E> eventType, PayloadCoalescer<? super P> coalescer) {
+		if ( coalescer == null )
+			coalescers.remove(eventType);
+		else
+			coalescers.put(eventType, coalescer);
+	}
+
+	private static int writerStripe() {
+		final long id = Thread.currentThread().getId();
+		return (((int) (id ^ (id >>> 32))) & (WRITER_STRIPES - 1)) * STRIPE_PADDING;
+	}
+
+	/**
+	 * The payloads added between two flushes. Flushing swaps the batch for an
+	 * empty one and then waits for writers still adding to the old batch, so
+	 * every payload ends up in exactly one flush. Sources, and the event types
+	 * of each source, are flushed in the order in which they were first seen.
+	 */
+	private static final class PayloadBatch {
+		final Map<Class<?>,PayloadCoalescer<?>> coalescers;
+		final AtomicIntegerArray writers = new AtomicIntegerArray(WRITER_STRIPES * STRIPE_PADDING);
+		final ConcurrentMap<Object,SourcePayloads> sourceMap = new ConcurrentHashMap<Object,SourcePayloads>(16, 0.75f, WRITER_STRIPES);
+		final Queue<SourcePayloads> sources = new ConcurrentLinkedQueue<SourcePayloads>();
+
+		PayloadBatch(final Map<Class<?>,PayloadCoalescer<?>> coalescers) {
+			this.coalescers = coalescers;
+		}
+
+		boolean isEmpty() {
+			return sources.isEmpty();
+		}
+
+		@SuppressWarnings("unchecked")
+		<S,P,E extends CyPayloadEvent<S,P>> void addPayload(S source, P payload, Class<E> eventType) {
+			// New entries are queued before they are published in the map, so
+			// that a thread finding one there also finds it in the queue ahead
+			// of anything it adds next. An entry that loses the race to be
+			// published stays empty, and yields no event.
+			SourcePayloads sp = sourceMap.get(source);
+			if ( sp == null ) {
+				final SourcePayloads newSp = new SourcePayloads(source);
+				sources.add(newSp);
+				sp = sourceMap.putIfAbsent(source, newSp);
+				if ( sp == null )
+					sp = newSp;
+			}
+
+			PayloadAccumulator<S,P,E> acc = (PayloadAccumulator<S,P,E>) sp.accMap.get(eventType);
+	
+			if ( acc == null ) {
+				final PayloadAccumulator<S,P,E> newAcc;
+				try {
+					newAcc = new PayloadAccumulator<S,P,E>(source, eventType,
+							(PayloadCoalescer<? super P>) coalescers.get(eventType));
+				} catch (NoSuchMethodException nsme) {
+					logger.warn("Unable to add payload to event, because of missing event constructor.", nsme);
+					return;
+				}
+				sp.accumulators.add(newAcc);
+				acc = (PayloadAccumulator<S,P,E>) sp.accMap.putIfAbsent(eventType, newAcc);
+				if ( acc == null )
+					acc = newAcc;
+			}
+			
+			acc.addPayload(payload);
+		}
+
+		void awaitWriters() {
+			for ( int i = 0; i < WRITER_STRIPES; i++ ) {
+				while ( writers.get(i * STRIPE_PADDING) != 0 )
+					Thread.yield();
+			}
+		}
+	}
+
+	private static final class SourcePayloads {
+		final Object source;
+		final ConcurrentMap<Class<?>,PayloadAccumulator<?,?,?>> accMap = new ConcurrentHashMap<Class<?>,PayloadAccumulator<?,?,?>>(4, 0.75f, 4);
+		final Queue<PayloadAccumulator<?,?,?>> accumulators = new ConcurrentLinkedQueue<PayloadAccumulator<?,?,?>>();
+
+		SourcePayloads(final Object source) {
+			this.source = source;
+		}
+	}
 	
 	// Used only for unit testing to prevent the confusion of multiple 
 	// threads running at once.
@@ -25,11 +25,16 @@ package org.cytoscape.event.internal;
  */
 
 
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.Arrays;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.cytoscape.event.CyEvent;
 import org.osgi.framework.BundleContext;
@@ -46,8 +51,10 @@ public class CyListenerAdapter {
 	private static final ServiceComparator serviceComparator = new ServiceComparator(); 
 
 	private static final Object DUMMY = new Object();
+
+	private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
 	
-	private final Map<Class<?>,ServiceTracker> serviceTrackers; 
+	private final ConcurrentMap<Class<?>,ListenerDispatch> dispatchers; 
 	private final BundleContext bc;
 	private final Map<Object, Object> silencedSources;
 	private final StringBuilder traceString; 
@@ -63,7 +70,7 @@ public class CyListenerAdapter {
 	 */
 	public CyListenerAdapter(BundleContext bc) {
 		this.bc = bc;
-		serviceTrackers = new ConcurrentHashMap<Class<?>,ServiceTracker>(16, 0.75f, 2);
+		dispatchers = new ConcurrentHashMap<Class<?>,ListenerDispatch>(16, 0.75f, 2);
 		silencedSources = new WeakHashMap<Object, Object>();
 
 		// used only for printing a coherent event trace
@@ -90,7 +97,8 @@ public class CyListenerAdapter {
 		
 		final Class<?> listenerClass = event.getListenerClass();
 		
-		final Object[] listeners = getListeners(listenerClass);
+		final ListenerDispatch dispatch = getDispatch(listenerClass);
+		final Object[] listeners = dispatch.getListeners();
 		if ( listeners == null ) 
 			return;
 	
@@ -104,7 +112,7 @@ public class CyListenerAdapter {
 		}
 		
 		try {
-			final Method method = listenerClass.getMethod("handleEvent", event.getClass());
+			final MethodHandle handler = dispatch.getHandler(event.getClass());
 
 			for (final Object listener : listeners) {
 				try {
@@ -117,14 +125,16 @@ public class CyListenerAdapter {
 						begin = System.currentTimeMillis();
 					}
 	
-					method.invoke(listenerClass.cast(listener), event);
+					handler.invokeExact(listener, (Object) event);
 	
 					if ( printEventTrace ) {
 						final long end = System.currentTimeMillis();
 						printTrace(fireCount,"listener: " + listener.getClass().getName() + " duration: " + (end - begin));
 					}
-				} catch (Exception e) {
-					logger.error("Unexpected exception while handling listener: " + listenerClass.getName(), e);
+				} catch (Throwable t) {
+					// Method.invoke() used to wrap whatever the listener threw, so
+					// errors are logged here as well rather than aborting the event.
+					logger.error("Unexpected exception while handling listener: " + listenerClass.getName(), t);
 				}
 			}
 		} catch (NoSuchMethodException e) {
@@ -138,22 +148,20 @@ public class CyListenerAdapter {
 		}
 	}
 
-	private Object[] getListeners(Class<?> listenerClass) {
-		ServiceTracker tracker = serviceTrackers.get(listenerClass);
-		if ( tracker == null ) {
-			//logger.debug("added new service tracker for " + listenerClass);
-			tracker = new ServiceTracker(bc, listenerClass.getName(), null);
-			tracker.open();
-			serviceTrackers.put( listenerClass, tracker );
+	private ListenerDispatch getDispatch(final Class<?> listenerClass) {
+		ListenerDispatch dispatch = dispatchers.get(listenerClass);
+		if ( dispatch == null ) {
+			final ListenerDispatch newDispatch = new ListenerDispatch(bc, listenerClass);
+			dispatch = dispatchers.putIfAbsent(listenerClass, newDispatch);
+			if ( dispatch == null ) {
+				//logger.debug("added new service tracker for " + listenerClass);
+				newDispatch.open();
+				dispatch = newDispatch;
+			} else {
+				newDispatch.close();
+			}
 		}
-
-		Object[] services = tracker.getServices();
-
-		if ( services == null )
-			return null;
-
-		Arrays.sort(services, serviceComparator);
-		return services; 
+		return dispatch;
 	}
 
 	void silenceEventSource(Object eventSource) {
@@ -175,4 +183,78 @@ public class CyListenerAdapter {
 		traceString.append(message);
 		System.out.println( traceString.toString() );
 	}
+
+	/**
+	 * The listeners registered for one listener class, kept sorted between
+	 * service changes, and the resolved handleEvent method for each event class
+	 * fired at them.
+	 */
+	private static final class ListenerDispatch {
+		private final Class<?> listenerClass;
+		private final ServiceTracker tracker;
+		private final ConcurrentMap<Class<?>,MethodHandle> handlers;
+		private volatile Snapshot snapshot;
+
+		ListenerDispatch(final BundleContext bc, final Class<?> listenerClass) {
+			this.listenerClass = listenerClass;
+			this.tracker = new ServiceTracker(bc, listenerClass.getName(), null);
+			this.handlers = new ConcurrentHashMap<Class<?>,MethodHandle>(4, 0.75f, 2);
+		}
+
+		void open() {
+			tracker.open();
+		}
+
+		void close() {
+			tracker.close();
+		}
+
+		/**
+		 * Returns the sorted listeners, or null if there are none. The array is
+		 * shared between fires and must not be modified. The tracking count only
+		 * changes once the tracker has added, modified or removed a service, so
+		 * a snapshot taken at a given count stays valid until the count moves.
+		 */
+		Object[] getListeners() {
+			final int count = tracker.getTrackingCount();
+			final Snapshot current = snapshot;
+			if ( current != null && current.trackingCount == count )
+				return current.listeners;
+
+			final Object[] services = tracker.getServices();
+			if ( services != null )
+				Arrays.sort(services, serviceComparator);
+
+			// If the services changed since count was read, the next call sees a
+			// newer count and sorts again.
+			snapshot = new Snapshot(count, services);
+			return services;
+		}
+
+		MethodHandle getHandler(final Class<?> eventClass) throws NoSuchMethodException {
+			MethodHandle handler = handlers.get(eventClass);
+			if ( handler == null ) {
+				final Method method = listenerClass.getMethod("handleEvent", eventClass);
+				// The method is public, but the listener interface itself may not be.
+				method.setAccessible(true);
+				try {
+					handler = MethodHandles.lookup().unreflect(method).asType(HANDLER_TYPE);
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException("can't access " + method, e);
+				}
+				handlers.putIfAbsent(eventClass, handler);
+			}
+			return handler;
+		}
+	}
+
+	private static final class Snapshot {
+		final int trackingCount;
+		final Object[] listeners;
+
+		Snapshot(final int trackingCount, final Object[] listeners) {
+			this.trackingCount = trackingCount;
+			this.listeners = listeners;
+		}
+	}
 }
@@ -25,21 +25,34 @@ package org.cytoscape.event.internal;
  */
 
 import java.util.ArrayList;
-import java.util.List;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import org.cytoscape.event.CyPayloadEvent;
 
+/**
+ * Collects the payloads added for one source and event type until the next
+ * flush. Payloads may be added from any number of threads without locking;
+ * each thread's payloads keep the order in which that thread added them.
+ * With a {@link PayloadCoalescer}, only the last payload of each key is
+ * delivered, at the position of that last payload.
+ */
 class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 
-	private List<P> payloadList; 
+	private final Queue<P> payloads; 
 	private final Constructor<E> constructor;
+	private final PayloadCoalescer<? super P> coalescer;
 	private Class<?> sourceClass;
-
-	private final Object lock = new Object();
 	
 	PayloadAccumulator(S source, Class<E> eventType) throws NoSuchMethodException {
+		this(source, eventType, null);
+	}
+
+	PayloadAccumulator(S source, Class<E> eventType, PayloadCoalescer<? super P> coalescer) throws NoSuchMethodException {
 		//System.out.println(" payload accumulator: source.getClass():  " + source + "   " + source.getClass());
 
 		for ( Constructor<?> cons : eventType.getConstructors() ) {
@@ -53,7 +66,8 @@ class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 			throw new IllegalArgumentException("no valid source class found.");
 			
 		constructor = eventType.getConstructor(sourceClass, Collection.class);
-		payloadList = new ArrayList<P>();
+		payloads = new ConcurrentLinkedQueue<P>();
+		this.coalescer = coalescer;
 	}
 
 	E newEventInstance(Object source) throws InstantiationException, IllegalAccessException, InvocationTargetException, ClassCastException {
@@ -69,20 +83,28 @@ class PayloadAccumulator<S,P,E extends CyPayloadEvent<S,P>> {
 	}
 
 	void addPayload(P t) {
-		synchronized (lock) {
-			if ( t != null ) 
-				payloadList.add(t);
-		}
+		if ( t != null ) 
+			payloads.add(t);
 	}
 
 	private Collection<P> getPayloadCollection() {
-		synchronized (lock) {
-			if ( payloadList.isEmpty() )
-				return null;
-	
-			List<P> ret = payloadList;
-			payloadList = new ArrayList<P>();
-			return ret;
+		if ( payloads.isEmpty() )
+			return null;
+
+		final Collection<P> ret;
+		if ( coalescer == null ) {
+			ret = new ArrayList<P>(payloads);
+		} else {
+			final Map<Object,P> latest = new LinkedHashMap<Object,P>();
+			for ( P p : payloads ) {
+				final Object key = coalescer.getKey(p);
+				// Move the key to the end, so payloads stay in the order of their last change.
+				latest.remove(key);
+				latest.put(key, p);
+			}
+			ret = new ArrayList<P>(latest.values());
 		}
+		payloads.clear();
+		return ret;
 	}
 }
@@ -0,0 +1,77 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2011 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+
+/**
+ * Coalesces {@link RowSetRecord}s by row and column, so that a cell that is set
+ * several times between two flushes produces a single record holding its last
+ * value. All records of a RowsSetEvent come from the same table, which hands
+ * out one CyRow object per row, so the row object identifies the row. Nothing
+ * is read from the row, since it may have been deleted before the flush.
+ */
+class RowSetRecordCoalescer implements PayloadCoalescer<RowSetRecord> {
+
+	/**
+	 * Turns on coalescing of RowsSetEvents. Kept here so that nothing else in
+	 * this bundle refers to model classes.
+	 */
+	static void install(final CyEventHelperImpl eventHelper) {
+		eventHelper.setPayloadCoalescer(RowsSetEvent.class, new RowSetRecordCoalescer());
+	}
+
+	@Override
+	public Object getKey(final RowSetRecord record) {
+		return new CellKey(record.getRow(), record.getColumn());
+	}
+
+	private static final class CellKey {
+		private final CyRow row;
+		private final String column;
+
+		/** Column names are case insensitive. */
+		CellKey(final CyRow row, final String column) {
+			this.row = row;
+			this.column = column == null ? null : column.toLowerCase();
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if ( !(o instanceof CellKey) )
+				return false;
+			final CellKey other = (CellKey) o;
+			return row == other.row && (column == null ? other.column == null : column.equals(other.column));
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(row) + (column == null ? 0 : column.hashCode());
+		}
+	}
+}
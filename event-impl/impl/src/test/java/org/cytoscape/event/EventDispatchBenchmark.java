@@ -0,0 +1,135 @@
+package org.cytoscape.event;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.event.internal.CyListenerAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+/**
+ * Fires an event at a set of registered listeners through CyListenerAdapter,
+ * which is the path every synchronous event and every flushed payload event
+ * takes. Run through main() to also get the allocation rate per fire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventDispatchBenchmark {
+
+	public interface BenchmarkListener extends CyListener {
+		void handleEvent(BenchmarkEvent e);
+	}
+
+	public static final class BenchmarkEvent extends AbstractCyEvent<Object> {
+		public BenchmarkEvent(final Object source) {
+			super(source, BenchmarkListener.class);
+		}
+	}
+
+	private static final class CountingListener implements BenchmarkListener {
+		long count;
+
+		public void handleEvent(final BenchmarkEvent e) {
+			count++;
+		}
+	}
+
+	@Param({ "1", "10", "50" })
+	public int listenerCount;
+
+	private CyListenerAdapter adapter;
+	private BenchmarkEvent event;
+
+	public static void main(String[] args) throws RunnerException {
+		final Options opt = new OptionsBuilder()
+				.include(EventDispatchBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(opt).run();
+	}
+
+	@Setup
+	public void setUp() {
+		final ServiceReference[] refs = new ServiceReference[listenerCount];
+		final CountingListener[] listeners = new CountingListener[listenerCount];
+		for (int i = 0; i < listenerCount; i++) {
+			refs[i] = new MockServiceReference();
+			listeners[i] = new CountingListener();
+		}
+
+		final BundleContext bc = new MockBundleContext() {
+				public ServiceReference[] getServiceReferences(String clazz, String filter) {
+					return clazz.equals(BenchmarkListener.class.getName()) ? refs : null;
+				}
+
+				public Object getService(ServiceReference ref) {
+					for (int i = 0; i < refs.length; i++) {
+						if (refs[i] == ref)
+							return listeners[i];
+					}
+					return null;
+				}
+			};
+
+		adapter = new CyListenerAdapter(bc);
+		event = new BenchmarkEvent(this);
+	}
+
+	@Benchmark
+	public void fireEvent() {
+		adapter.fireEvent(event);
+	}
+
+	/** Includes creating the event, as payload flushes do. */
+	@Benchmark
+	public void fireNewEvent() {
+		adapter.fireEvent(new BenchmarkEvent(this));
+	}
+}
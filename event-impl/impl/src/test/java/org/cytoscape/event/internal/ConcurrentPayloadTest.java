@@ -0,0 +1,301 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.cytoscape.event.AbstractCyPayloadEvent;
+import org.cytoscape.event.CyListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+/**
+ * Adds payloads from several threads while another thread keeps flushing,
+ * and checks what the listeners receive.
+ */
+public class ConcurrentPayloadTest {
+
+	private static final int PRODUCERS = 8;
+	private static final int PAYLOADS = 20000;
+	private static final int ROUNDS = 5000;
+	private static final int SHARED_SOURCES = 4;
+
+	public interface FirstListener extends CyListener {
+		void handleEvent(FirstEvent e);
+	}
+
+	public interface SecondListener extends CyListener {
+		void handleEvent(SecondEvent e);
+	}
+
+	public static class FirstEvent extends AbstractCyPayloadEvent<Object,Long> {
+		public FirstEvent(Object source, Collection<Long> payload) {
+			super(source, FirstListener.class, payload);
+		}
+	}
+
+	public static class SecondEvent extends AbstractCyPayloadEvent<Object,Long> {
+		public SecondEvent(Object source, Collection<Long> payload) {
+			super(source, SecondListener.class, payload);
+		}
+	}
+
+	/** The events in the order in which they were delivered. */
+	private final List<AbstractCyPayloadEvent<Object,Long>> events =
+		Collections.synchronizedList(new ArrayList<AbstractCyPayloadEvent<Object,Long>>());
+
+	private CyEventHelperImpl helper;
+
+	@Before
+	public void setUp() {
+		final FirstListener first = new FirstListener() {
+			public void handleEvent(FirstEvent e) {
+				events.add(e);
+			}
+		};
+		final SecondListener second = new SecondListener() {
+			public void handleEvent(SecondEvent e) {
+				events.add(e);
+			}
+		};
+
+		final ServiceReference firstRef = new MockServiceReference();
+		final ServiceReference secondRef = new MockServiceReference();
+		final BundleContext bc = new MockBundleContext() {
+				public ServiceReference[] getServiceReferences(String clazz, String filter) {
+					if ( clazz.equals(FirstListener.class.getName()) )
+						return new ServiceReference[] { firstRef };
+					if ( clazz.equals(SecondListener.class.getName()) )
+						return new ServiceReference[] { secondRef };
+					return null;
+				}
+
+				public Object getService(ServiceReference r) {
+					if ( r == firstRef )
+						return first;
+					if ( r == secondRef )
+						return second;
+					return null;
+				}
+			};
+		helper = new CyEventHelperImpl(new CyListenerAdapter(bc));
+		// The test's own flusher replaces the periodic one.
+		helper.cleanup();
+	}
+
+	@After
+	public void tearDown() {
+		helper.cleanup();
+	}
+
+	private interface Producer {
+		void produce(int thread);
+	}
+
+	private static long payload(final int thread, final int seq) {
+		return ((long) thread << 32) | seq;
+	}
+
+	private static int threadOf(final long payload) {
+		return (int) (payload >>> 32);
+	}
+
+	private static int seqOf(final long payload) {
+		return (int) payload;
+	}
+
+	/**
+	 * Runs the producers while another thread flushes over and over, then
+	 * flushes whatever is left.
+	 */
+	private void runConcurrently(final Producer producer) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch producing = new CountDownLatch(PRODUCERS);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		final Thread flusher = new Thread() {
+			public void run() {
+				try {
+					start.await();
+					while ( producing.getCount() > 0 )
+						helper.flushPayloadEvents();
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}
+		};
+
+		final List<Thread> producers = new ArrayList<Thread>();
+		for ( int t = 0; t < PRODUCERS; t++ ) {
+			final int thread = t;
+			producers.add(new Thread() {
+				public void run() {
+					try {
+						start.await();
+						producer.produce(thread);
+					} catch (Throwable t) {
+						failure.compareAndSet(null, t);
+					} finally {
+						producing.countDown();
+					}
+				}
+			});
+		}
+
+		flusher.start();
+		for ( Thread p : producers )
+			p.start();
+		start.countDown();
+
+		for ( Thread p : producers )
+			p.join();
+		flusher.join();
+		helper.flushPayloadEvents();
+
+		assertNull(failure.get());
+	}
+
+	/**
+	 * Each thread spreads its payloads over a few shared sources and both
+	 * event types.
+	 */
+	private void produceSharedLoad() throws Exception {
+		final Object[] sources = new Object[SHARED_SOURCES];
+		for ( int s = 0; s < SHARED_SOURCES; s++ )
+			sources[s] = "source " + s;
+
+		runConcurrently(new Producer() {
+			public void produce(int thread) {
+				for ( int seq = 0; seq < PAYLOADS; seq++ ) {
+					final Object source = sources[seq % SHARED_SOURCES];
+					if ( (seq / SHARED_SOURCES) % 2 == 0 )
+						helper.addEventPayload(source, payload(thread, seq), FirstEvent.class);
+					else
+						helper.addEventPayload(source, payload(thread, seq), SecondEvent.class);
+				}
+			}
+		});
+	}
+
+	@Test(timeout = 60000)
+	public void testNoPayloadIsLostOrDuplicated() throws Exception {
+		produceSharedLoad();
+
+		final boolean[] seen = new boolean[PRODUCERS * PAYLOADS];
+		int count = 0;
+
+		for ( AbstractCyPayloadEvent<Object,Long> e : events ) {
+			for ( long p : e.getPayloadCollection() ) {
+				final int index = threadOf(p) * PAYLOADS + seqOf(p);
+				assertFalse("duplicated payload " + seqOf(p) + " of thread " + threadOf(p), seen[index]);
+				seen[index] = true;
+				count++;
+			}
+		}
+
+		assertEquals(PRODUCERS * PAYLOADS, count);
+	}
+
+	@Test(timeout = 60000)
+	public void testPayloadsOfEachThreadKeepTheirOrder() throws Exception {
+		produceSharedLoad();
+
+		// A thread's payloads for one source and event type, across all the
+		// events they are spread over, must come in the order it added them.
+		final Map<String,Integer> lastSeq = new HashMap<String,Integer>();
+
+		for ( AbstractCyPayloadEvent<Object,Long> e : events ) {
+			for ( long p : e.getPayloadCollection() ) {
+				final String key = threadOf(p) + " " + e.getSource() + " " + e.getClass().getSimpleName();
+				final Integer last = lastSeq.put(key, seqOf(p));
+				assertTrue("payload " + seqOf(p) + " delivered after " + last + " for " + key,
+				           last == null || last < seqOf(p));
+			}
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testSourcesAndEventTypesKeepFirstSeenOrder() throws Exception {
+		// Every round, all threads race to add the first payload of a new
+		// shared source, then each adds to a source of its own, first with
+		// one event type and then with the other.
+		final Object[] shared = new Object[ROUNDS];
+		final Object[][] own = new Object[PRODUCERS][ROUNDS];
+		for ( int r = 0; r < ROUNDS; r++ ) {
+			shared[r] = "shared " + r;
+			for ( int t = 0; t < PRODUCERS; t++ )
+				own[t][r] = "thread " + t + " round " + r;
+		}
+
+		runConcurrently(new Producer() {
+			public void produce(int thread) {
+				for ( int r = 0; r < ROUNDS; r++ ) {
+					helper.addEventPayload(shared[r], payload(thread, 3 * r), FirstEvent.class);
+					helper.addEventPayload(own[thread][r], payload(thread, 3 * r + 1), FirstEvent.class);
+					helper.addEventPayload(own[thread][r], payload(thread, 3 * r + 2), SecondEvent.class);
+				}
+			}
+		});
+
+		// Where each payload was delivered
+		final int[] position = new int[PRODUCERS * 3 * ROUNDS];
+		for ( int i = 0; i < events.size(); i++ ) {
+			for ( long p : events.get(i).getPayloadCollection() )
+				position[threadOf(p) * 3 * ROUNDS + seqOf(p)] = i + 1;
+		}
+
+		// A thread saw the shared source before its own one, and its own
+		// source's first event type before the second, so a flush must
+		// deliver them in that order.
+		for ( int t = 0; t < PRODUCERS; t++ ) {
+			for ( int r = 0; r < ROUNDS; r++ ) {
+				final int base = t * 3 * ROUNDS + 3 * r;
+				assertTrue(position[base] > 0 && position[base + 1] > 0 && position[base + 2] > 0);
+				assertTrue("thread " + t + " round " + r + ": own source delivered before the shared one",
+				           position[base] < position[base + 1]);
+				assertTrue("thread " + t + " round " + r + ": second event type delivered before the first",
+				           position[base + 1] < position[base + 2]);
+			}
+		}
+	}
+}
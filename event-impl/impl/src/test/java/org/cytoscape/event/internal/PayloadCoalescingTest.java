@@ -0,0 +1,232 @@
+package org.cytoscape.event.internal;
+
+/*
+ * #%L
+ * Cytoscape Event Impl (event-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.cytoscape.event.AbstractCyPayloadEvent;
+import org.cytoscape.event.CyListener;
+import org.cytoscape.model.CyColumn;
+import org.cytoscape.model.CyRow;
+import org.cytoscape.model.CyTable;
+import org.cytoscape.model.events.RowSetRecord;
+import org.cytoscape.model.events.RowsSetEvent;
+import org.cytoscape.model.events.RowsSetListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.springframework.osgi.mock.MockBundleContext;
+import org.springframework.osgi.mock.MockServiceReference;
+
+
+public class PayloadCoalescingTest {
+
+	public interface AssignmentListener extends CyListener {
+		void handleEvent(AssignmentEvent e);
+	}
+
+	/** Payloads are "name=value" strings. */
+	public static class AssignmentEvent extends AbstractCyPayloadEvent<Object,String> {
+		public AssignmentEvent(Object source, Collection<String> payload) {
+			super(source, AssignmentListener.class, payload);
+		}
+	}
+
+	private static class RecordingListener implements AssignmentListener {
+		final List<AssignmentEvent> events = new ArrayList<AssignmentEvent>();
+
+		public void handleEvent(AssignmentEvent e) {
+			events.add(e);
+		}
+	}
+
+	private static class NameCoalescer implements PayloadCoalescer<String> {
+		public Object getKey(String payload) {
+			return payload.substring(0, payload.indexOf('='));
+		}
+	}
+
+	private static class RecordingRowsListener implements RowsSetListener {
+		final List<RowsSetEvent> events = new ArrayList<RowsSetEvent>();
+
+		public void handleEvent(RowsSetEvent e) {
+			events.add(e);
+		}
+	}
+
+	/**
+	 * Stands in for the rows, table and primary key column of a table. Like a
+	 * real row, a deleted row no longer has a primary key value.
+	 */
+	private static class TableHandler implements InvocationHandler {
+		boolean deleted;
+		final Long suid;
+		final Object table;
+
+		TableHandler(Long suid, Object table) {
+			this.suid = suid;
+			this.table = table;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			final String name = method.getName();
+			if ( name.equals("equals") )
+				return proxy == args[0];
+			if ( name.equals("hashCode") )
+				return System.identityHashCode(proxy);
+			if ( name.equals("getRaw") )
+				return deleted ? null : suid;
+			if ( name.equals("getTable") )
+				return table;
+			if ( name.equals("getPrimaryKey") )
+				return Proxy.newProxyInstance(CyColumn.class.getClassLoader(), new Class<?>[] { CyColumn.class }, this);
+			if ( name.equals("getName") )
+				return "SUID";
+			return null;
+		}
+	}
+
+	private final Object source = new Object();
+	private RecordingListener listener;
+	private RecordingRowsListener rowsListener;
+	private CyEventHelperImpl helper;
+
+	@Before
+	public void setUp() {
+		listener = new RecordingListener();
+		rowsListener = new RecordingRowsListener();
+		final ServiceReference ref = new MockServiceReference();
+		final ServiceReference rowsRef = new MockServiceReference();
+		final BundleContext bc = new MockBundleContext() {
+				public ServiceReference[] getServiceReferences(String clazz, String filter) {
+					if ( clazz.equals(AssignmentListener.class.getName()) )
+						return new ServiceReference[] { ref };
+					if ( clazz.equals(RowsSetListener.class.getName()) )
+						return new ServiceReference[] { rowsRef };
+					return null;
+				}
+
+				public Object getService(ServiceReference r) {
+					if ( r == ref )
+						return listener;
+					if ( r == rowsRef )
+						return rowsListener;
+					return null;
+				}
+			};
+		helper = new CyEventHelperImpl(new CyListenerAdapter(bc));
+		// Stop the periodic flush, so that each test decides where flushes happen.
+		helper.cleanup();
+	}
+
+	private static CyRow newRow(TableHandler handler) {
+		return (CyRow) Proxy.newProxyInstance(CyRow.class.getClassLoader(), new Class<?>[] { CyRow.class }, handler);
+	}
+
+	private void assign(String... payloads) {
+		for (String p : payloads)
+			helper.addEventPayload(source, p, AssignmentEvent.class);
+	}
+
+	@Test
+	public void testEveryPayloadIsDeliveredByDefault() {
+		assign("a=1", "b=1", "a=2");
+		helper.flushPayloadEvents();
+
+		assertEquals(1, listener.events.size());
+		assertEquals(Arrays.asList("a=1", "b=1", "a=2"),
+		             new ArrayList<String>(listener.events.get(0).getPayloadCollection()));
+	}
+
+	@Test
+	public void testCoalescedPayloadsKeepLastValueInOrderOfLastChange() {
+		helper.setPayloadCoalescer(AssignmentEvent.class, new NameCoalescer());
+		assign("a=1", "b=1", "a=2", "c=1", "b=2", "a=3");
+		helper.flushPayloadEvents();
+
+		assertEquals(1, listener.events.size());
+		assertEquals(Arrays.asList("c=1", "b=2", "a=3"),
+		             new ArrayList<String>(listener.events.get(0).getPayloadCollection()));
+	}
+
+	@Test
+	public void testCoalescingDoesNotCrossFlushes() {
+		helper.setPayloadCoalescer(AssignmentEvent.class, new NameCoalescer());
+		assign("a=1");
+		helper.flushPayloadEvents();
+		assign("a=2");
+		helper.flushPayloadEvents();
+
+		assertEquals(2, listener.events.size());
+		assertEquals(Arrays.asList("a=1"), new ArrayList<String>(listener.events.get(0).getPayloadCollection()));
+		assertEquals(Arrays.asList("a=2"), new ArrayList<String>(listener.events.get(1).getPayloadCollection()));
+	}
+
+	@Test
+	public void testCoalescingCanBeTurnedOff() {
+		helper.setPayloadCoalescer(AssignmentEvent.class, new NameCoalescer());
+		helper.setPayloadCoalescer(AssignmentEvent.class, null);
+		assign("a=1", "a=2");
+		helper.flushPayloadEvents();
+
+		assertEquals(2, listener.events.get(0).getPayloadCollection().size());
+	}
+
+	@Test
+	public void testRowDeletedBeforeFlushIsStillCoalesced() {
+		RowSetRecordCoalescer.install(helper);
+		final CyTable table = (CyTable) Proxy.newProxyInstance(CyTable.class.getClassLoader(),
+				new Class<?>[] { CyTable.class }, new TableHandler(null, null));
+		final TableHandler deleted = new TableHandler(1L, table);
+		final TableHandler kept = new TableHandler(2L, table);
+		final CyRow deletedRow = newRow(deleted);
+		final CyRow keptRow = newRow(kept);
+
+		helper.addEventPayload(table, new RowSetRecord(deletedRow, "name", "a", "a"), RowsSetEvent.class);
+		helper.addEventPayload(table, new RowSetRecord(keptRow, "name", "b", "b"), RowsSetEvent.class);
+		helper.addEventPayload(table, new RowSetRecord(deletedRow, "NAME", "c", "c"), RowsSetEvent.class);
+		deleted.deleted = true;
+		helper.flushPayloadEvents();
+
+		assertEquals(1, rowsListener.events.size());
+		final List<RowSetRecord> records = new ArrayList<RowSetRecord>(rowsListener.events.get(0).getPayloadCollection());
+		assertEquals(2, records.size());
+		assertSame(keptRow, records.get(0).getRow());
+		assertEquals("b", records.get(0).getValue());
+		assertSame(deletedRow, records.get(1).getRow());
+		assertEquals("c", records.get(1).getValue());
+	}
+}
@@ -45,6 +45,7 @@ import csapps.layout.algorithms.graphPartition.AttributeCircleLayout;
 import csapps.layout.algorithms.graphPartition.DegreeSortedCircleLayout;
 import csapps.layout.algorithms.graphPartition.ISOMLayout;
 import csapps.layout.algorithms.hierarchicalLayout.HierarchicalLayoutAlgorithm;
+import csapps.layout.algorithms.multilevel.MultilevelLayout;
 
 public class CyActivator extends AbstractCyActivator {
 
@@ -120,6 +121,14 @@ public class CyActivator extends AbstractCyActivator {
 			props.setProperty(INSERT_SEPARATOR_AFTER, "true");
 			registerService(bc, layout, CyLayoutAlgorithm.class, props);
 		}
+		{
+			final MultilevelLayout layout = new MultilevelLayout(undoSupport);
+			final Properties props = new Properties();
+			props.setProperty("preferredTaskManager", "menu");
+			props.setProperty(TITLE, layout.toString());
+			props.setProperty(MENU_GRAVITY, "10.95");
+			registerService(bc, layout, CyLayoutAlgorithm.class, props);
+		}
 		{
 			final ISOMLayout layout = new ISOMLayout(undoSupport);
 			final Properties props = new Properties();
@@ -0,0 +1,378 @@
+package csapps.layout.algorithms;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
+import org.cytoscape.view.layout.LayoutNode;
+import org.cytoscape.view.layout.LayoutPartition;
+import org.cytoscape.view.layout.PartitionUtil;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.undo.UndoSupport;
+
+import csapps.layout.algorithms.bioLayout.ForceChunks;
+
+/**
+ * A partition layout that lays the partitions out on a pool of worker
+ * threads, largest partitions first.
+ * <p>
+ * Each partition is laid out by its own worker task, made by
+ * {@link #createWorker}, so that the per partition state subclasses keep
+ * in fields is never shared between threads.  Once every partition is
+ * done, they are packed in the order the partitioning returned them, so
+ * the final layout does not depend on the number of threads or on which
+ * partition finished first.
+ * <p>
+ * The partitions and their force calculations all run on one pool, see
+ * {@link #getPool()}, so a layout never uses more threads than its
+ * parallelism.  Workers do not show intermediate positions, since they are
+ * not on the layout's thread and would update the view concurrently.
+ */
+public abstract class ConcurrentPartitionLayoutTask extends AbstractPartitionLayoutTask {
+
+	/** Space left between packed partitions */
+	private static final double PARTITION_SPACING = 100.0;
+
+	/** The smallest change in overall progress that is reported */
+	private static final double PROGRESS_STEP = 0.005;
+
+	private final String displayName;
+	private final boolean singlePartition;
+	private final UndoSupport undo;
+	private final int parallelism;
+
+	private final List<ConcurrentPartitionLayoutTask> workers = new ArrayList<ConcurrentPartitionLayoutTask>();
+
+	/** The pool of the running layout, shared with its workers */
+	private ForkJoinPool pool;
+
+	/** True for the tasks made by {@link #createWorker} */
+	private boolean worker;
+
+	/**
+	 * Serializes the edge weight calculations, since all partitions share
+	 * the EdgeWeighter and its normalization state
+	 */
+	private Object edgeWeightLock = new Object();
+
+	/**
+	 * @param parallelism the number of threads the partitions and their force
+	 *                    calculations share, 0 for the number of processors
+	 */
+	public ConcurrentPartitionLayoutTask(final String displayName, final boolean singlePartition,
+			final CyNetworkView networkView, final Set<View<CyNode>> nodesToLayOut, final String attrName,
+			final UndoSupport undo, final int parallelism) {
+		super(displayName, singlePartition, networkView, nodesToLayOut, attrName, undo);
+		this.displayName = displayName;
+		this.singlePartition = singlePartition;
+		this.undo = undo;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Creates a task with the same settings as this one, that will only be
+	 * used to call {@link #layoutPartition} for one partition.
+	 */
+	protected abstract ConcurrentPartitionLayoutTask createWorker(String displayName, UndoSupport undo);
+
+	/**
+	 * Calculates the edge weights of a partition.  Layouts must use this
+	 * instead of {@link LayoutPartition#calculateEdgeWeights()}.
+	 */
+	protected void calculateEdgeWeights(final LayoutPartition partition) {
+		synchronized (edgeWeightLock) {
+			partition.calculateEdgeWeights();
+		}
+	}
+
+	/**
+	 * Returns the pool that layouts should run their force calculations on,
+	 * or null if they should stay on the calling thread.  It is only set
+	 * while {@link #layoutPartition} runs.
+	 */
+	protected ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Shows the intermediate positions of a partition, unless this task is a
+	 * worker laying out one partition among others.
+	 */
+	protected void updateIntermediateView() {
+		if (!worker)
+			networkView.updateView();
+	}
+
+	@Override
+	protected void doLayout(final TaskMonitor taskMonitor) {
+		pool = ForceChunks.createPool(parallelism);
+
+		try {
+			if (singlePartition)
+				super.doLayout(taskMonitor);
+			else
+				layoutAll(taskMonitor);
+		} finally {
+			if (pool != null)
+				pool.shutdown();
+			pool = null;
+		}
+	}
+
+	private void layoutAll(final TaskMonitor taskMonitor) {
+		this.taskMonitor = taskMonitor;
+
+		if (edgeWeighter != null)
+			edgeWeighter.setWeightAttribute(layoutAttribute);
+
+		final Set<CyNode> nodes = new HashSet<CyNode>();
+		for (final View<CyNode> nv : nodesToLayOut)
+			nodes.add(nv.getModel());
+
+		final List<LayoutPartition> partitionList = PartitionUtil.partition(networkView, nodes, edgeWeighter);
+
+		if (partitionList.isEmpty())
+			return;
+
+		// Like the single threaded layout, the packing starts at the overall
+		// minimum of the positions before the layout
+		double xStart = partitionList.get(0).getMinX();
+		double yStart = partitionList.get(0).getMinY();
+
+		for (final LayoutPartition partition : partitionList) {
+			xStart = Math.min(xStart, partition.getMinX());
+			yStart = Math.min(yStart, partition.getMinY());
+		}
+
+		taskMonitor.setStatusMessage("Laying out " + partitionList.size() + " partitions");
+
+		if (!layoutPartitions(partitionList))
+			return;
+
+		packPartitions(partitionList, xStart, yStart);
+		taskMonitor.setProgress(1.0);
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+
+		synchronized (workers) {
+			for (final ConcurrentPartitionLayoutTask worker : workers)
+				worker.cancel();
+		}
+	}
+
+	/**
+	 * Lays out every partition with more than one node.
+	 *
+	 * @return false if the layout was cancelled
+	 */
+	private boolean layoutPartitions(final List<LayoutPartition> partitionList) {
+		final List<LayoutPartition> bySize = new ArrayList<LayoutPartition>();
+		for (final LayoutPartition partition : partitionList) {
+			if (partition.nodeCount() > 1)
+				bySize.add(partition);
+		}
+
+		// Stable, so partitions of the same size keep their order
+		Collections.sort(bySize, new Comparator<LayoutPartition>() {
+			public int compare(LayoutPartition p1, LayoutPartition p2) {
+				return p2.nodeCount() - p1.nodeCount();
+			}
+		});
+
+		final PartitionProgress progress = new PartitionProgress(taskMonitor, partitionList);
+		final List<Callable<Void>> layouts = new ArrayList<Callable<Void>>(bySize.size());
+
+		synchronized (workers) {
+			for (final LayoutPartition partition : bySize) {
+				final ConcurrentPartitionLayoutTask worker = createWorker(displayName, undo);
+				worker.taskMonitor = progress.getMonitor(partition, partition == bySize.get(0));
+				worker.edgeWeightLock = edgeWeightLock;
+				worker.pool = pool;
+				worker.worker = true;
+				workers.add(worker);
+
+				layouts.add(new Callable<Void>() {
+					public Void call() {
+						if (!cancelled)
+							worker.layoutPartition(partition);
+						return null;
+					}
+				});
+			}
+		}
+
+		try {
+			if (pool == null || layouts.size() <= 1) {
+				for (final Callable<Void> layout : layouts)
+					layout.call();
+			} else {
+				// Submitted in order, so the largest partitions start first
+				for (final Future<Void> future : pool.invokeAll(layouts))
+					future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			synchronized (workers) {
+				workers.clear();
+			}
+		}
+
+		return !cancelled;
+	}
+
+	/**
+	 * Moves the partitions into rows starting at (xStart, yStart), in
+	 * partition order, and places the single nodes.
+	 */
+	private void packPartitions(final List<LayoutPartition> partitionList, final double xStart,
+			final double yStart) {
+		double nextXStart = xStart;
+		double nextYStart = yStart;
+		double currentMaxY = 0;
+
+		// give each node room
+		final double maxDimensions = (Math.sqrt((double) networkView.getModel().getNodeCount()) * PARTITION_SPACING)
+				+ xStart;
+
+		for (final LayoutPartition partition : partitionList) {
+			if (partition.nodeCount() > 1) {
+				partition.offset(nextXStart, nextYStart);
+			} else if (partition.nodeCount() == 1) {
+				partition.resetNodes();
+				final LayoutNode node = partition.getNodeList().get(0);
+				node.setLocation(nextXStart, nextYStart);
+				partition.moveNodeToLocation(node);
+			} else {
+				continue;
+			}
+
+			final double lastMaxX = partition.getMaxX();
+			final double lastMaxY = partition.getMaxY();
+
+			if (lastMaxY > currentMaxY)
+				currentMaxY = lastMaxY;
+
+			if (lastMaxX > maxDimensions) {
+				nextXStart = xStart;
+				nextYStart = currentMaxY + PARTITION_SPACING;
+			} else {
+				nextXStart = lastMaxX + PARTITION_SPACING;
+			}
+		}
+	}
+
+	/**
+	 * Adds up the progress of the partitions, weighted by their number of
+	 * nodes, into the progress of the whole layout.
+	 */
+	private static final class PartitionProgress {
+		private final TaskMonitor taskMonitor;
+		private final double totalNodes;
+		private double completedNodes;
+		private double reported;
+
+		PartitionProgress(final TaskMonitor taskMonitor, final List<LayoutPartition> partitionList) {
+			this.taskMonitor = taskMonitor;
+
+			double total = 0;
+			for (final LayoutPartition partition : partitionList)
+				total += partition.nodeCount();
+			this.totalNodes = Math.max(1.0, total);
+		}
+
+		/**
+		 * Creates the monitor of one partition.  Only the largest partition's
+		 * status messages are shown, the others would flicker by.
+		 */
+		TaskMonitor getMonitor(final LayoutPartition partition, final boolean showStatus) {
+			final double size = partition.nodeCount();
+
+			return new TaskMonitor() {
+				private double progress;
+
+				public void setTitle(String title) {
+				}
+
+				public void setStatusMessage(String statusMessage) {
+					if (showStatus)
+						taskMonitor.setStatusMessage(statusMessage);
+				}
+
+				public void showMessage(TaskMonitor.Level level, String message) {
+					taskMonitor.showMessage(level, message);
+				}
+
+				public void setProgress(double progress) {
+					if (progress < 0)
+						return;
+
+					progress = Math.min(progress, 1.0);
+					update(size * (progress - this.progress));
+					this.progress = progress;
+				}
+			};
+		}
+
+		private synchronized void update(final double nodes) {
+			completedNodes += nodes;
+
+			final double overall = completedNodes / totalNodes;
+			if (Math.abs(overall - reported) >= PROGRESS_STEP) {
+				reported = overall;
+				taskMonitor.setProgress(overall);
+			}
+		}
+	}
+}
@@ -24,9 +24,12 @@ package csapps.layout.algorithms.bioLayout;
  * #L%
  */
 
+import java.io.IOException;
+
 import org.cytoscape.view.layout.EdgeWeighter;
 import org.cytoscape.work.Tunable;
 import org.cytoscape.work.ContainsTunables;
+import org.cytoscape.work.TunableValidator.ValidationState;
 
 public abstract class BioLayoutContext {
 	
@@ -38,4 +41,24 @@ public abstract class BioLayoutContext {
 	 */
 	@Tunable(description="Randomize graph before layout:", groups="Standard Settings")
 	public boolean randomize = true;
+
+	/**
+	 * The number of threads used to compute forces, and to lay out
+	 * partitions.  The layout is the same whatever the number of threads.
+	 */
+	@Tunable(description="Number of threads for layout calculations (0: all processors):")
+	public int parallelism = 0;
+
+	/**
+	 * Checks the settings all BioLayout contexts share.
+	 */
+	protected ValidationState getSharedValidationState(final Appendable errMsg) {
+		if (parallelism >= 0)
+			return ValidationState.OK;
+
+		try {
+			errMsg.append("Number of threads must be >= 0; current value = "+parallelism);
+		} catch (IOException e) {}
+		return ValidationState.INVALID;
+	}
 }
@@ -26,8 +26,10 @@ package csapps.layout.algorithms.bioLayout;
 
 
 
-import java.util.ArrayList;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.layout.LayoutEdge;
@@ -81,6 +83,16 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 
 	private BioLayoutFRContext context;
 
+	/**
+	 * Computes the repulsive forces, exactly or through a Barnes-Hut tree
+	 */
+	private FRRepulsion repulsion;
+
+	/**
+	 * Runs the repulsion calculation, null to stay on this thread
+	 */
+	private ForkJoinPool pool;
+
 	/**
 	 * Profile data -- not used, for now
 	Profile initProfile;
@@ -91,7 +103,7 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 	 */
 
 	public BioLayoutFRAlgorithmTask(final String displayName, CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut, final BioLayoutFRContext context, final boolean supportWeights, String attrName, UndoSupport undo) {		
-		super(displayName, networkView, nodesToLayOut,  context.singlePartition, attrName, undo);
+		super(displayName, networkView, nodesToLayOut,  context.singlePartition, attrName, undo, context.parallelism);
 		this.context = context;
 
 		this.supportWeights =supportWeights;
@@ -101,6 +113,11 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		displacementArray = new ArrayList<Double>(100);
 	}
 
+	@Override
+	protected BioLayoutFRAlgorithmTask createWorker(String displayName, UndoSupport undo) {
+		return new BioLayoutFRAlgorithmTask(displayName, networkView, nodesToLayOut, context, supportWeights, layoutAttribute, undo);
+	}
+
 	/**
 	 * Required methods (and overrides) for AbstractLayoutAlgorithm
 	 */
@@ -180,7 +197,8 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		calculateForces();
 
 		// Calculate our edge weights
-		partition.calculateEdgeWeights();
+		calculateEdgeWeights(partition);
+		repulsion = new FRRepulsion(context.layout3D);
 		// initProfile.done("Initialization completed in ");
 		taskMonitor.setStatusMessage("Calculating new node positions");
 		taskMonitor.setProgress(0.01);
@@ -189,35 +207,40 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 		// iterProfile.start();
 		int iteration = 0;
 
-		for (iteration = 0; (iteration < context.nIterations) && !cancelled; iteration++) {
-			if ((temp = doOneIteration(iteration, temp)) == 0)
-				break;
-
-			if (debug || ((context.update_iterations > 0) && ((iteration % context.update_iterations) == 0))) {
-				if (iteration > 0) {
-					// Actually move the pieces around
-					for (LayoutNode v: partition.getNodeList()) {
-						// if this is locked, the move just resets X and Y
-						if(context.layout3D)
-							v.moveToLocation3D();
-						else
-							v.moveToLocation();
-
+		pool = getPool();
+		try {
+			for (iteration = 0; (iteration < context.nIterations) && !cancelled; iteration++) {
+				if ((temp = doOneIteration(iteration, temp)) == 0)
+					break;
+
+				if (debug || ((context.update_iterations > 0) && ((iteration % context.update_iterations) == 0))) {
+					if (iteration > 0) {
+						// Actually move the pieces around
+						for (LayoutNode v: partition.getNodeList()) {
+							// if this is locked, the move just resets X and Y
+							if(context.layout3D)
+								v.moveToLocation3D();
+							else
+								v.moveToLocation();
+
+						}
+						// This fires events to presentation layer.
+						updateIntermediateView();
 					}
-					// This fires events to presentation layer.
-					networkView.updateView();
-				}
 
-				if (debug) {
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
+					if (debug) {
+						try {
+							Thread.sleep(100);
+						} catch (InterruptedException e) {
+						}
 					}
 				}
-			}
 
-			taskMonitor.setStatusMessage("Calculating new node positions - " + iteration);
-			taskMonitor.setProgress(iteration / context.nIterations);
+				taskMonitor.setStatusMessage("Calculating new node positions - " + iteration);
+				taskMonitor.setProgress(iteration / context.nIterations);
+			}
+		} finally {
+			pool = null;
 		}
 
 		// iterProfile.done("Iterations complete in ");
@@ -285,12 +308,11 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 			}
 		}
 
+		calculateRepulsion();
+
 		for (LayoutNode v: partition.getNodeList()) {
-			if (!v.isLocked()) {
-				calculateRepulsion(v);
-				if (gravity_constant != 0)
-					calculateGravity(v,xAverage,yAverage,zAverage);
-			}
+			if (!v.isLocked() && gravity_constant != 0)
+				calculateGravity(v,xAverage,yAverage,zAverage);
 		}
 
 		// repulseProfile.checkpoint();
@@ -387,72 +409,31 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 
 	/**
 	 * calculate the repulsive forces and offsets for
-	 * each vertex.
-	 *
-	 * @param v LayoutNode we're calculating repulsive forces for
+	 * each vertex.  This resets the displacement of
+	 * every unlocked vertex.
 	 */
-	private void calculateRepulsion(LayoutNode v) {
-/// v.disp := 0;
-		v.setDisp(0, 0, 0);
-
-		double radius = v.getWidth() / 2;
-
-/// for u in V do
-		for (LayoutNode u: partition.getNodeList()) {
-			double dx = v.getX() - u.getX();
-			double dy = v.getY() - u.getY();
-			double dz = v.getZ() - u.getZ();
-
-/// if (u # v) then begin
-			if (v == u)
-				continue;
-
-			// Get the 
-			// double xSign = Math.signum(v.getX() - u.getX());
-			// double ySign = Math.signum(v.getY() - u.getY());
-
-/// delta := v.pos - u.pos
-			// Get our euclidean distance
-			double deltaDistance = context.layout3D ? v.distance3D(u) : v.distance(u);
-
-			if (deltaDistance == 0.0)
-				deltaDistance = EPSILON;
-
-			double fr = forceR(repulsion_constant, deltaDistance);
-
-			// If its too close, increase the force by a constant
-			if (deltaDistance < (radius + (u.getWidth() / 2))) {
-				// System.out.println("Applying conflict_avoidance force: "+conflict_avoidance);
-				fr += context.conflict_avoidance;
-			}
+	private void calculateRepulsion() {
+		final List<LayoutNode> nodeList = partition.getNodeList();
+		final int nodeCount = nodeList.size();
+
+		repulsion.reset(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			final LayoutNode v = nodeList.get(i);
+			repulsion.setNode(i, v.getX(), v.getY(), v.getZ(), v.getWidth(), v.isLocked());
+		}
 
-			if (Double.isNaN(fr)) {
-				fr = 500;
+		repulsion.prepare(context.repulsion_theta, repulsion_constant, maxDistance, context.conflict_avoidance);
+		ForceChunks.run(pool, nodeCount, new ForceChunks.Body() {
+			public void run(int chunk, int from, int to) {
+				repulsion.compute(from, to);
 			}
+		});
 
-			/*
-			            System.out.println("Repulsive force between "+v.getIdentifier()
-			                             +" and "+u.getIdentifier()+" is "+fr);
-			            System.out.println("   distance = "+deltaDistance);
-			            System.out.println("   incrementing "+v.getIdentifier()+" by ("+
-		                                     fr+", "+fr+")");
-			*/
-
-			// Adjust the displacement.  In the case of doing selectedOnly,
-			// we increase the force to enhance the discrimination power.
-			// Also note that we only update the displacement of the movable
-			// node since the other node won't move anyways.
 /// v.disp := v.disp + (delta/abs(delta)) * fr(abs(delta))
-			double xVector = dx*fr/deltaDistance;
-			double yVector = dy*fr/deltaDistance;
-			double zVector = context.layout3D ? dz*fr/deltaDistance : 0;
-			if (v.isLocked()) {
-				return; // shouldn't happen
-			} else if (u.isLocked()) {
-				v.incrementDisp(xVector * 2, yVector * 2, zVector * 2);
-			} else {
-				v.incrementDisp(xVector, yVector, zVector);
-			}
+		for (int i = 0; i < nodeCount; i++) {
+			final LayoutNode v = nodeList.get(i);
+			if (!v.isLocked())
+				v.setDisp(repulsion.xDisp[i], repulsion.yDisp[i], repulsion.zDisp[i]);
 		}
 	}
 
@@ -653,24 +634,6 @@ public class BioLayoutFRAlgorithmTask extends BioLayoutAlgorithmTask {
 */
 	}
 
-	/**
-	 * Calculate the repulsive force
-	 *
-	 * @param k the repulsion constant
-	 * @param distance the distance between the vertices
-	 * @return the repulsive force
-	 */
-/// fr(z) := begin return k*k/z end;
-	private double forceR(double k, double distance) {
-		// We want to bound the distance over which
-		// the repulsive force acts
-		// Should we do this??
-		if (distance > maxDistance)
-			return 0;
-
-		return ((k * k) / distance);
-	}
-
 	/**
 	 * Calculate the attractive force
 	 *
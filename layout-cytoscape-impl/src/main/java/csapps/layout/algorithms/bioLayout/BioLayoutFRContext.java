@@ -60,6 +60,15 @@ public class BioLayoutFRContext extends BioLayoutContext implements TunableValid
 	@Tunable(description="Percent of graph used for node repulsion calculations:")
 	public double max_distance_factor = 20;
 
+	/**
+	 * repulsion_theta enables the Barnes-Hut approximation
+	 * of the repulsive forces.  Groups of distant nodes
+	 * whose extent is less than theta times their distance
+	 * are treated as one.  0 computes every pair exactly.
+	 */
+	@Tunable(description="Barnes-Hut approximation of repulsion (0: exact, 0.5-1: faster):")
+	public double repulsion_theta = 0;
+
 	/**
 	 * The spread factor -- used to give extra space to expand
 	 */
@@ -87,7 +96,7 @@ public class BioLayoutFRContext extends BioLayoutContext implements TunableValid
 
 	@Override // TODO
 	public ValidationState getValidationState(final Appendable errMsg) {
-		return ValidationState.OK;
+		return getSharedValidationState(errMsg);
 	}
 
 }
@@ -28,10 +28,9 @@ package csapps.layout.algorithms.bioLayout;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.layout.LayoutEdge;
@@ -92,10 +91,19 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	private double[] m_anticollisionSpringScalars;
 
 	/**
-	 * Data arrays
+	 * Data arrays.  For each node, the nodes it shares an edge with, in
+	 * index order, and the rest lengths of those springs.  Every other
+	 * pair of nodes is joined by a 'disconnected' spring.
 	 */
-	private double[][] m_nodeDistanceSpringRestLengths;
-	private double[][] m_nodeDistanceSpringStrengths;
+	private int[][] m_springNeighbors;
+	private double[][] m_springRestLengths;
+
+	/**
+	 * Sparse stress iterations per average iteration of a node, and the
+	 * movement, relative to the spring rest length, below which it stops
+	 */
+	private static final int STRESS_ITERATIONS_PER_NODE_ITERATION = 5;
+	private static final double STRESS_TOLERANCE = 0.001;
 
 	/**
 	 * Current layout pass
@@ -120,13 +128,18 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 
 	private BioLayoutKKContext context;
 
+	/**
+	 * Runs the partial derivative calculations, null to stay on this thread
+	 */
+	private ForkJoinPool pool;
+
 	/**
 	 * This is the constructor for the bioLayout algorithm.
 	 * @param supportEdgeWeights a boolean to indicate whether we should
 	 *                                                  behave as if we support weights
 	 */
 	public BioLayoutKKAlgorithmTask(final String displayName, CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut, final BioLayoutKKContext context, final boolean supportWeights, String attrName, UndoSupport undo) {
-		super(displayName, networkView, nodesToLayOut, context.singlePartition, attrName, undo);
+		super(displayName, networkView, nodesToLayOut, context.singlePartition, attrName, undo, context.parallelism);
 		this.context = context;
 		this.supportWeights = supportWeights;
 		this.m_layoutPass = context.m_layoutPass;
@@ -141,6 +154,19 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		this.m_layoutPass = 2;
 	}
 
+	@Override
+	protected BioLayoutKKAlgorithmTask createWorker(String displayName, UndoSupport undo) {
+		final BioLayoutKKAlgorithmTask worker = new BioLayoutKKAlgorithmTask(displayName, networkView, nodesToLayOut, context, supportWeights, layoutAttribute, undo);
+		worker.m_numLayoutPasses = m_numLayoutPasses;
+		worker.m_averageIterationsPerNode = m_averageIterationsPerNode;
+		worker.m_nodeDistanceStrengthConstant = m_nodeDistanceStrengthConstant;
+		worker.m_nodeDistanceRestLengthConstant = m_nodeDistanceRestLengthConstant;
+		worker.m_disconnectedNodeDistanceSpringStrength = m_disconnectedNodeDistanceSpringStrength;
+		worker.m_disconnectedNodeDistanceSpringRestLength = m_disconnectedNodeDistanceSpringRestLength;
+		worker.m_anticollisionSpringStrength = m_anticollisionSpringStrength;
+		return worker;
+	}
+
 	/**
 	 * Overrides for LayoutAlgorithm support
 	 */
@@ -348,9 +374,6 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		PartialDerivatives partials;
 		PartialDerivatives furthestNodePartials = null;
 
-		m_nodeDistanceSpringRestLengths = new double[m_nodeCount][m_nodeCount];
-		m_nodeDistanceSpringStrengths = new double[m_nodeCount][m_nodeCount];
-
 		// Figure out our starting point
 		initialLocation = partition.getAverageLocation();
 
@@ -360,24 +383,15 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 			partition.randomizeLocations();
 
 		// Calculate our edge weights
-		partition.calculateEdgeWeights();
+		calculateEdgeWeights(partition);
 
-		// Compute our distances
 		if (cancelled)
 			return;
 
 		taskMonitor.setProgress(0.02);
-		taskMonitor.setStatusMessage("Calculating node distances");
-
-		int[][] nodeDistances = calculateNodeDistances();
-
-		if (cancelled)
-			return;
-
-		taskMonitor.setProgress(0.04);
 		taskMonitor.setStatusMessage("Calculating spring constants");
 
-		calculateSpringData(nodeDistances);
+		calculateSpringData();
 
 		final double percentCompletedBeforePasses = 5.0d;
 		final double percentCompletedAfterPass1 = 60.0d;
@@ -388,75 +402,87 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		// Profile springProfile = new Profile();
 
 		// Compute our optimal lengths
-		for (m_layoutPass = 0; m_layoutPass < m_numLayoutPasses; m_layoutPass++) {
-			final double percentProgressPerIter;
-			Profile passTimer = new Profile();
-			passTimer.start();
-
-			if (m_layoutPass == 0) {
-				percentProgressPerIter = (percentCompletedAfterPass1 - percentCompletedBeforePasses) / (double) (m_nodeCount
-				                         + numIterations);
+		pool = getPool();
+		try {
+			if (context.m_pivotCount > 0) {
+				if (!layoutSparseStress(percentCompletedBeforePasses, percentCompletedAfterFinalPass))
+					return;
 			} else {
-				percentProgressPerIter = (percentCompletedAfterFinalPass
-				                         - percentCompletedAfterPass1) / (double) ((m_nodeCount
-				                                                                   + numIterations) * (m_numLayoutPasses
-				                                                                                      - 1));
-			}
+				for (m_layoutPass = 0; m_layoutPass < m_numLayoutPasses; m_layoutPass++) {
+					final double percentProgressPerIter;
+					Profile passTimer = new Profile();
+					passTimer.start();
+
+					if (m_layoutPass == 0) {
+						percentProgressPerIter = (percentCompletedAfterPass1 - percentCompletedBeforePasses) / (double) (m_nodeCount
+						                         + numIterations);
+					} else {
+						percentProgressPerIter = (percentCompletedAfterFinalPass
+						                         - percentCompletedAfterPass1) / (double) ((m_nodeCount
+						                                                                   + numIterations) * (m_numLayoutPasses
+						                                                                                      - 1));
+					}
 
-			// Initialize this layout pass.
-			potentialEnergy[0] = 0.0;
-			partialsList.clear();
-			furthestNodePartials = null;
+					// Initialize this layout pass.
+					potentialEnergy[0] = 0.0;
+					partialsList.clear();
+					furthestNodePartials = null;
 
-			taskMonitor.setStatusMessage("Calculating partial derivatives -- pass " + (m_layoutPass + 1)
-			                      + " of " + m_numLayoutPasses);
+					taskMonitor.setStatusMessage("Calculating partial derivatives -- pass " + (m_layoutPass + 1)
+					                      + " of " + m_numLayoutPasses);
 
-			// partialProfile.start();
+					// partialProfile.start();
 
-			// Calculate all node distances.  Keep track of the furthest.
-			for (LayoutNode v: partition.getNodeList()) {
+					// Calculate all node distances.  Keep track of the furthest.
+					final PartialDerivatives[] nodePartials = calculateAllPartials(potentialEnergy);
 
-				if (cancelled)
-					return;
+					for (int i = 0; i < nodePartials.length; i++) {
 
-				taskMonitor.setProgress(currentProgress/100.0);
+						if (cancelled)
+							return;
 
-				if (v.isLocked())
-					continue;
+						taskMonitor.setProgress(currentProgress/100.0);
 
-				partials = new PartialDerivatives(v);
-				calculatePartials(partials, null, potentialEnergy, false);
-				// System.out.println(partials.printPartial()+" potentialEnergy = "+potentialEnergy[0]);
-				partialsList.add(partials);
+						partials = nodePartials[i];
 
-				if ((furthestNodePartials == null)
-				    || (partials.euclideanDistance > furthestNodePartials.euclideanDistance)) {
-					furthestNodePartials = partials;
-				}
+						if (partials == null)
+							continue;
 
-				currentProgress += percentProgressPerIter;
-			}
+						// System.out.println(partials.printPartial()+" potentialEnergy = "+potentialEnergy[0]);
+						partialsList.add(partials);
 
-			// partialProfile.done("Partial time for pass "+(m_layoutPass+1)+" is ");
-			taskMonitor.setStatusMessage("Executing spring logic -- pass " + (m_layoutPass + 1) + " of "
-			                      + m_numLayoutPasses);
+						if ((furthestNodePartials == null)
+						    || (partials.euclideanDistance > furthestNodePartials.euclideanDistance)) {
+							furthestNodePartials = partials;
+						}
 
-			// springProfile.start();
-			for (int iterations_i = 0;
-			     (iterations_i < numIterations)
-			     && (furthestNodePartials.euclideanDistance >= euclideanDistanceThreshold);
-			     iterations_i++) {
-				if (cancelled)
-					return;
+						currentProgress += percentProgressPerIter;
+					}
 
-				taskMonitor.setProgress(currentProgress/100.0);
+					// partialProfile.done("Partial time for pass "+(m_layoutPass+1)+" is ");
+					taskMonitor.setStatusMessage("Executing spring logic -- pass " + (m_layoutPass + 1) + " of "
+					                      + m_numLayoutPasses);
 
-				furthestNodePartials = moveNode(furthestNodePartials, partialsList, potentialEnergy);
-				//    		System.out.println(furthestNodePartials.printPartial()+" (furthest) potentialEnergy = "+potentialEnergy[0]);
-				currentProgress += percentProgressPerIter;
-			}
+					// springProfile.start();
+					for (int iterations_i = 0;
+					     (iterations_i < numIterations)
+					     && (furthestNodePartials.euclideanDistance >= euclideanDistanceThreshold);
+					     iterations_i++) {
+						if (cancelled)
+							return;
 
-			// springProfile.done("Spring time for pass "+(m_layoutPass+1)+" is ");
+						taskMonitor.setProgress(currentProgress/100.0);
+
+						furthestNodePartials = moveNode(furthestNodePartials, partialsList, potentialEnergy);
+						//    		System.out.println(furthestNodePartials.printPartial()+" (furthest) potentialEnergy = "+potentialEnergy[0]);
+						currentProgress += percentProgressPerIter;
+					}
+
+					// springProfile.done("Spring time for pass "+(m_layoutPass+1)+" is ");
+				}
+			}
+		} finally {
+			pool = null;
 		}
 
 		taskMonitor.setProgress(percentCompletedAfterFinalPass/100.0);
@@ -486,113 +512,132 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		}
 	}
 
-	private int[][] calculateNodeDistances() {
-		int[][] distances = new int[m_nodeCount][];
-		LinkedList<Integer> queue = new LinkedList<Integer>();
-		boolean[] completedNodes = new boolean[m_nodeCount];
-		int toNode;
-		int fromNode;
-		int neighbor;
-		int toNodeDistance;
-		int neighborDistance;
-
-		for (LayoutNode v: partition.getNodeList()) {
-			fromNode = v.getIndex();
-
-			if (distances[fromNode] == null)
-				distances[fromNode] = new int[m_nodeCount];
-
-			Arrays.fill(distances[fromNode], Integer.MAX_VALUE);
-			distances[fromNode][fromNode] = 0;
-			Arrays.fill(completedNodes, false);
-			queue.add(Integer.valueOf(fromNode));
+	/**
+	 * Lays the partition out by sparse stress majorization, which only keeps
+	 * the graph distances from context.m_pivotCount pivot nodes, instead of
+	 * by the Kamada-Kawai passes.  Needs the springs to be calculated.
+	 *
+	 * @return false if the layout was cancelled
+	 */
+	private boolean layoutSparseStress(double percentCompletedBefore, double percentCompletedAfter) {
+		final List<LayoutNode> nodeList = partition.getNodeList();
+		final boolean[] locked = new boolean[m_nodeCount];
+		final SparseStress stress = new SparseStress(m_springNeighbors, m_springRestLengths, locked,
+		                                             m_nodeDistanceRestLengthConstant,
+		                                             m_nodeDistanceStrengthConstant,
+		                                             m_disconnectedNodeDistanceSpringRestLength,
+		                                             m_disconnectedNodeDistanceSpringStrength);
+
+		for (LayoutNode v: nodeList) {
+			stress.x[v.getIndex()] = v.getX();
+			stress.y[v.getIndex()] = v.getY();
+			locked[v.getIndex()] = v.isLocked();
+		}
 
-			while (!(queue.isEmpty())) {
-				int index = ((Integer) queue.removeFirst()).intValue();
+		taskMonitor.setStatusMessage("Calculating pivot distances");
+		stress.selectPivots(context.m_pivotCount);
 
-				if (completedNodes[index])
-					continue;
+		if (cancelled)
+			return false;
 
-				completedNodes[index] = true;
-				toNode = index;
-				toNodeDistance = distances[fromNode][index];
+		// Random locations are a poor start for majorization, so replace
+		// them with the pivot MDS embedding
+		if (context.randomize)
+			stress.initializeWithPivotMDS();
 
-				if (index < fromNode) {
-					// Oh boy.  We've already got every distance from/to this node.
-					int distanceThroughToNode;
+		final int iterations = Math.max(1, (int) (m_averageIterationsPerNode * STRESS_ITERATIONS_PER_NODE_ITERATION));
+		final double tolerance = m_nodeDistanceRestLengthConstant * STRESS_TOLERANCE;
+		final double percentProgressPerIter = (percentCompletedAfter - percentCompletedBefore) / iterations;
 
-					for (int i = 0; i < m_nodeCount; i++) {
-						if (distances[index][i] == Integer.MAX_VALUE)
-							continue;
+		taskMonitor.setStatusMessage("Executing sparse stress majorization");
 
-						distanceThroughToNode = toNodeDistance + distances[index][i];
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			if (cancelled)
+				return false;
 
-						if (distanceThroughToNode <= distances[fromNode][i]) {
-							// Any immediate neighbor of a node that's already been
-							// calculated for that does not already have a shorter path
-							// calculated from fromNode never will, and is thus complete.
-							if (distances[index][i] == 1)
-								completedNodes[i] = true;
+			taskMonitor.setProgress((percentCompletedBefore + (iteration * percentProgressPerIter)) / 100.0);
 
-							distances[fromNode][i] = distanceThroughToNode;
-						}
-					}
+			if (stress.iterate(pool) < tolerance)
+				break;
+		}
 
-					// End for every node, update the distance using the distance
-					// from toNode.  So now we don't need to put any neighbors on the
-					// queue or anything, since they've already been taken care of by
-					// the previous calculation.
-					continue;
-				} // End if toNode has already had all of its distances calculated.
+		for (LayoutNode v: nodeList) {
+			if (!v.isLocked()) {
+				v.setX(stress.x[v.getIndex()]);
+				v.setY(stress.y[v.getIndex()]);
+			}
+		}
 
-				List<LayoutNode> neighborList = v.getNeighbors();
-				for (LayoutNode neighbor_v: neighborList) {
-					neighbor = neighbor_v.getIndex();
+		return true;
+	}
 
-					// We've already done everything we can here.
-					if (completedNodes[neighbor])
-						continue;
+	private void calculateSpringData() {
+		final List<LayoutEdge> edgeList = partition.getEdgeList();
+		final double[] restLengths = new double[edgeList.size()];
+		final int[] degrees = new int[m_nodeCount];
 
-					neighborDistance = distances[fromNode][neighbor];
+		for (LayoutEdge edge: edgeList) {
+			int node_i = edge.getSource().getIndex();
+			int node_j = edge.getTarget().getIndex();
 
-					if ((toNodeDistance != Integer.MAX_VALUE)
-					    && (neighborDistance > (toNodeDistance + 1))) {
-						distances[fromNode][neighbor] = toNodeDistance + 1;
-						queue.addLast(Integer.valueOf(neighbor));
-					}
-				}
+			if (node_i != node_j) {
+				degrees[node_i]++;
+				degrees[node_j]++;
 			}
 		}
 
-		return distances;
-	}
+		// Each spring is keyed by the other node's index, then by the edge's
+		// position, so that sorting puts the last of several edges between
+		// the same nodes at the end of its run.
+		final long[][] keys = new long[m_nodeCount][];
 
-	private void calculateSpringData(int[][] nodeDistances) {
-		// Set all springs to the default
 		for (int node_i = 0; node_i < m_nodeCount; node_i++) {
-			Arrays.fill(m_nodeDistanceSpringRestLengths[node_i],
-			            m_disconnectedNodeDistanceSpringRestLength);
-			Arrays.fill(m_nodeDistanceSpringStrengths[node_i],
-			            m_disconnectedNodeDistanceSpringStrength);
+			keys[node_i] = new long[degrees[node_i]];
+			degrees[node_i] = 0;
 		}
 
-		// Calculate rest lengths and strengths based on node distance data.
-		for (LayoutEdge edge: partition.getEdgeList()) {
+		int edgeIndex = 0;
+
+		for (LayoutEdge edge: edgeList) {
 			int node_i = edge.getSource().getIndex();
 			int node_j = edge.getTarget().getIndex();
 			double weight = context.unweighted ? edgeWeighter.defaultEdgeWeight : edge.getWeight();
-			
-			// System.out.println(edge);
-			if (nodeDistances[node_i][node_j] != Integer.MAX_VALUE) {
-				// Compute spring rest lengths.
-				m_nodeDistanceSpringRestLengths[node_i][node_j] = (m_nodeDistanceRestLengthConstant * nodeDistances[node_i][node_j]) / (weight);
-				m_nodeDistanceSpringRestLengths[node_j][node_i] = m_nodeDistanceSpringRestLengths[node_i][node_j];
-				// System.out.println("Setting spring ("+node_i+","+node_j+") ["+weight+"] length to "+m_nodeDistanceSpringRestLengths[node_j][node_i]);
-				// Compute spring strengths.
-				m_nodeDistanceSpringStrengths[node_i][node_j] = m_nodeDistanceStrengthConstant / (nodeDistances[node_i][node_j] * nodeDistances[node_i][node_j]);
-				m_nodeDistanceSpringStrengths[node_j][node_i] = m_nodeDistanceSpringStrengths[node_i][node_j];
-
-				// System.out.println("Setting spring ("+node_i+","+node_j+") strength to "+m_nodeDistanceSpringStrengths[node_j][node_i]);
+
+			// Compute spring rest lengths.  The strength is the same for every edge.
+			restLengths[edgeIndex] = m_nodeDistanceRestLengthConstant / weight;
+
+			if (node_i != node_j) {
+				keys[node_i][degrees[node_i]++] = ((long) node_j << 32) | edgeIndex;
+				keys[node_j][degrees[node_j]++] = ((long) node_i << 32) | edgeIndex;
+			}
+
+			edgeIndex++;
+		}
+
+		m_springNeighbors = new int[m_nodeCount][];
+		m_springRestLengths = new double[m_nodeCount][];
+
+		for (int node_i = 0; node_i < m_nodeCount; node_i++) {
+			final long[] nodeKeys = keys[node_i];
+			Arrays.sort(nodeKeys);
+
+			int count = 0;
+
+			for (int k = 0; k < nodeKeys.length; k++) {
+				if ((k + 1 == nodeKeys.length) || ((nodeKeys[k + 1] >>> 32) != (nodeKeys[k] >>> 32)))
+					count++;
+			}
+
+			m_springNeighbors[node_i] = new int[count];
+			m_springRestLengths[node_i] = new double[count];
+			count = 0;
+
+			for (int k = 0; k < nodeKeys.length; k++) {
+				if ((k + 1 == nodeKeys.length) || ((nodeKeys[k + 1] >>> 32) != (nodeKeys[k] >>> 32))) {
+					m_springNeighbors[node_i][count] = (int) (nodeKeys[k] >>> 32);
+					m_springRestLengths[node_i][count] = restLengths[(int) nodeKeys[k]];
+					count++;
+				}
 			}
 		}
 	}
@@ -608,11 +653,11 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	 */
 
 	// used to calculate the x and y portions of the partial
-	private double calculateSpringPartial(int pass, double distToTouch, int nodeIndex,
-	                                      int otherNodeIndex, double eucDist, double value,
+	private double calculateSpringPartial(int pass, double distToTouch, double strength,
+	                                      double restLength, double eucDist, double value,
 	                                      double radius) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * (value
-		                                                                                                                            - ((m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex] * value) / eucDist))));
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (strength * (value
+		                                                                                                                            - ((restLength * value) / eucDist))));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += (m_anticollisionSpringScalars[pass] * (m_anticollisionSpringStrength * (value
@@ -623,11 +668,11 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	}
 
 	// used to calculate the xx and yy portions of the partial
-	private double calculateSpringPartial3(int pass, double distToTouch, int nodeIndex,
-	                                       int otherNodeIndex, double eucDist3, double value,
+	private double calculateSpringPartial3(int pass, double distToTouch, double strength,
+	                                       double restLength, double eucDist3, double value,
 	                                       double radius) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * (1.0
-		                                                                                                                            - ((m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex] * value) / eucDist3))));
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (strength * (1.0
+		                                                                                                                            - ((restLength * value) / eucDist3))));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += (m_anticollisionSpringScalars[m_layoutPass] * (m_anticollisionSpringStrength * (1.0
@@ -638,10 +683,10 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	}
 
 	// used to calculate the xy portion of the partial
-	private double calculateSpringPartialCross(int pass, double distToTouch, int nodeIndex,
-	                                           int otherNodeIndex, double eucDist3, double value,
+	private double calculateSpringPartialCross(int pass, double distToTouch, double strength,
+	                                           double restLength, double eucDist3, double value,
 	                                           double radius) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * ((m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex] * value) / eucDist3)));
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * (strength * ((restLength * value) / eucDist3)));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += ((m_anticollisionSpringScalars[m_layoutPass] * (m_anticollisionSpringStrength * radius * value)) / eucDist3);
@@ -651,9 +696,9 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 	}
 
 	// Calculate the potential energy
-	private double calculatePE(int pass, double distToRest, double distToTouch, int nodeIndex,
-	                           int otherNodeIndex) {
-		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * ((m_nodeDistanceSpringStrengths[nodeIndex][otherNodeIndex] * (distToRest * distToRest)) / 2));
+	private double calculatePE(int pass, double distToRest, double distToTouch, double strength,
+	                           double restLength) {
+		double incrementalChange = (m_nodeDistanceSpringScalars[pass] * ((strength * (distToRest * distToRest)) / 2));
 
 		if (distToTouch < 0.0) {
 			incrementalChange += (m_anticollisionSpringScalars[pass] * ((m_anticollisionSpringStrength * (distToTouch * distToTouch)) / 2));
@@ -662,10 +707,121 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		return incrementalChange;
 	}
 
-	private PartialDerivatives calculatePartials(PartialDerivatives partials, List partialsList,
-	                                             double[] potentialEnergy, boolean reversed) {
+	/**
+	 * Calculates the partials of every unlocked node against all other
+	 * nodes, at the start of a layout pass.  Locked nodes get null.
+	 */
+	private PartialDerivatives[] calculateAllPartials(final double[] potentialEnergy) {
+		final List<LayoutNode> nodeList = partition.getNodeList();
+		final int count = nodeList.size();
+		final PartialDerivatives[] nodePartials = new PartialDerivatives[count];
+		final int chunks = ForceChunks.chunkCount(count);
+		final double[] chunkEnergy = new double[chunks];
+		final List<List<Jitter>> chunkJitter = newJitterLists(chunks);
+
+		ForceChunks.run(pool, count, new ForceChunks.Body() {
+			public void run(int chunk, int from, int to) {
+				final double[] energy = new double[1];
+
+				for (int i = from; (i < to) && !cancelled; i++) {
+					final LayoutNode v = nodeList.get(i);
+
+					if (v.isLocked())
+						continue;
+
+					final PartialDerivatives partials = new PartialDerivatives(v);
+					accumulatePartials(partials, nodeList, null, 0, count, energy, false,
+					                   chunkJitter.get(chunk));
+					partials.euclideanDistance = Math.sqrt((partials.x * partials.x)
+					                                       + (partials.y * partials.y));
+					nodePartials[i] = partials;
+				}
+
+				chunkEnergy[chunk] = energy[0];
+			}
+		});
+
+		for (int c = 0; c < chunks; c++)
+			potentialEnergy[0] += chunkEnergy[c];
+
+		applyJitter(chunkJitter);
+
+		return nodePartials;
+	}
+
+	/**
+	 * Calculates the partials of one node against the nodes in partialsList,
+	 * or against all nodes if partialsList is null.  The other nodes are
+	 * split into chunks whose sums are added up in chunk order.
+	 */
+	private PartialDerivatives calculatePartials(final PartialDerivatives partials,
+	                                             final List<PartialDerivatives> partialsList,
+	                                             double[] potentialEnergy, final boolean reversed) {
 		partials.reset();
 
+		final List<LayoutNode> nodeList = partition.getNodeList();
+		final int count = (partialsList == null) ? nodeList.size() : partialsList.size();
+		final int chunks = ForceChunks.chunkCount(count);
+		final PartialDerivatives[] chunkPartials = new PartialDerivatives[chunks];
+		final PartialDerivatives[] chunkFurthest = new PartialDerivatives[chunks];
+		final double[] chunkEnergy = new double[chunks];
+		final List<List<Jitter>> chunkJitter = newJitterLists(chunks);
+
+		ForceChunks.run(pool, count, new ForceChunks.Body() {
+			public void run(int chunk, int from, int to) {
+				final PartialDerivatives sums = new PartialDerivatives(partials.node);
+				final double[] energy = new double[1];
+
+				chunkFurthest[chunk] = accumulatePartials(sums, nodeList, partialsList, from, to,
+				                                          energy, reversed, chunkJitter.get(chunk));
+				chunkPartials[chunk] = sums;
+				chunkEnergy[chunk] = energy[0];
+			}
+		});
+
+		PartialDerivatives furthestPartials = null;
+
+		for (int c = 0; c < chunks; c++) {
+			partials.x += chunkPartials[c].x;
+			partials.y += chunkPartials[c].y;
+			partials.xx += chunkPartials[c].xx;
+			partials.yy += chunkPartials[c].yy;
+			partials.xy += chunkPartials[c].xy;
+			potentialEnergy[0] += chunkEnergy[c];
+
+			if ((chunkFurthest[c] != null)
+			    && ((furthestPartials == null)
+			        || (chunkFurthest[c].euclideanDistance > furthestPartials.euclideanDistance)))
+				furthestPartials = chunkFurthest[c];
+		}
+
+		applyJitter(chunkJitter);
+
+		if (!reversed)
+			partials.euclideanDistance = Math.sqrt((partials.x * partials.x)
+			                                       + (partials.y * partials.y));
+
+		if ((furthestPartials == null)
+		    || (partials.euclideanDistance > furthestPartials.euclideanDistance))
+			furthestPartials = partials;
+
+		return furthestPartials;
+	}
+
+	/**
+	 * Adds the partials of partials.node against the other nodes in [from, to)
+	 * to partials, and updates the partials of those other nodes if they
+	 * come from partialsList.  Only partials, the other nodes' partials in
+	 * the range, potentialEnergy and jitter are written, so disjoint ranges
+	 * may run concurrently.
+	 *
+	 * @return the other node's partials with the largest euclidean distance,
+	 *         or null if partialsList is null
+	 */
+	private PartialDerivatives accumulatePartials(PartialDerivatives partials, List<LayoutNode> nodeList,
+	                                              List<PartialDerivatives> partialsList, int from, int to,
+	                                              double[] potentialEnergy, boolean reversed,
+	                                              List<Jitter> jitter) {
 		LayoutNode node = partials.node;
 
 		// How does this ever get to be > 0?
@@ -677,12 +833,6 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		LayoutNode otherNode;
 		double otherNodeRadius;
 		PartialDerivatives furthestPartials = null;
-		Iterator iterator;
-
-		if (partialsList == null)
-			iterator = partition.nodeIterator();
-		else
-			iterator = partialsList.iterator();
 
 		double deltaX;
 		double deltaY;
@@ -697,12 +847,15 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		double[] yTable = { .01, -.01, .01, -.01 };
 		int offsetTable = 0;
 		int nodeIndex = node.getIndex();
+		int spring;
+		double springStrength;
+		double springRestLength;
 
-		while (iterator.hasNext()) {
+		for (int i = from; i < to; i++) {
 			if (partialsList == null) {
-				otherNode = (LayoutNode) iterator.next();
+				otherNode = nodeList.get(i);
 			} else {
-				otherPartials = (PartialDerivatives) iterator.next();
+				otherPartials = partialsList.get(i);
 				otherNode = otherPartials.node;
 			}
 
@@ -720,14 +873,13 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 			euclideanDistance = Math.sqrt((deltaX * deltaX) + (deltaY * deltaY));
 
 			if (((float) euclideanDistance) < 0.0001) {
-				otherNodeX = otherNodeX + xTable[offsetTable];
-				otherNodeY = otherNodeY + yTable[offsetTable++];
+				// Other threads may be reading otherNode, so it is nudged
+				// once all ranges are done
+				jitter.add(new Jitter(otherNode, xTable[offsetTable], yTable[offsetTable++]));
 
 				if (offsetTable > 3)
 					offsetTable = 0;
 
-				otherNode.setX(otherNodeX);
-				otherNode.setY(otherNodeY);
 				euclideanDistance = Math.sqrt((deltaX * deltaX) + (deltaY * deltaY));
 			}
 
@@ -742,80 +894,90 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 
 			euclideanDistanceCubed = euclideanDistance * euclideanDistance * euclideanDistance;
 			distanceFromTouching = euclideanDistance - (nodeRadius + otherNodeRadius);
-			distanceFromRest = (euclideanDistance
-			                   - m_nodeDistanceSpringRestLengths[nodeIndex][otherNodeIndex]);
+			// Edges are sparse, so most pairs use the disconnected spring
+			spring = Arrays.binarySearch(m_springNeighbors[nodeIndex], otherNodeIndex);
+
+			if (spring >= 0) {
+				springStrength = m_nodeDistanceStrengthConstant;
+				springRestLength = m_springRestLengths[nodeIndex][spring];
+			} else {
+				springStrength = m_disconnectedNodeDistanceSpringStrength;
+				springRestLength = m_disconnectedNodeDistanceSpringRestLength;
+			}
+
+			distanceFromRest = (euclideanDistance - springRestLength);
 
 			// calculationProfile.start();
 			if (!reversed) {
-				partials.x += calculateSpringPartial(m_layoutPass, distanceFromTouching, nodeIndex,
-				                                     otherNodeIndex, euclideanDistance, deltaX,
+				partials.x += calculateSpringPartial(m_layoutPass, distanceFromTouching, springStrength,
+				                                     springRestLength, euclideanDistance, deltaX,
 				                                     radius);
-				partials.y += calculateSpringPartial(m_layoutPass, distanceFromTouching, nodeIndex,
-				                                     otherNodeIndex, euclideanDistance, deltaY,
+				partials.y += calculateSpringPartial(m_layoutPass, distanceFromTouching, springStrength,
+				                                     springRestLength, euclideanDistance, deltaY,
 				                                     radius);
 				partials.xx += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-				                                       nodeIndex, otherNodeIndex,
+				                                       springStrength, springRestLength,
 				                                       euclideanDistanceCubed, deltaY * deltaY,
 				                                       radius);
 				partials.yy += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-				                                       nodeIndex, otherNodeIndex,
+				                                       springStrength, springRestLength,
 				                                       euclideanDistanceCubed, deltaX * deltaX,
 				                                       radius);
 				partials.xy += calculateSpringPartialCross(m_layoutPass, distanceFromTouching,
-				                                           nodeIndex, otherNodeIndex,
+				                                           springStrength, springRestLength,
 				                                           euclideanDistanceCubed, deltaX * deltaY,
 				                                           radius);
 				potentialEnergy[0] += calculatePE(m_layoutPass, distanceFromRest,
-				                                  distanceFromTouching, nodeIndex, otherNodeIndex);
+				                                  distanceFromTouching, springStrength, springRestLength);
 			}
 
 			if (otherPartials != null) {
 				if (!reversed) {
 					otherPartials.x += calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaX, radius);
 					otherPartials.y += calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaY, radius);
 					otherPartials.xx += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            otherNodeIndex, nodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaY * deltaY, radius);
 					otherPartials.yy += calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            otherNodeIndex, nodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaX * deltaX, radius);
 					otherPartials.xy += calculateSpringPartialCross(m_layoutPass,
 					                                                distanceFromTouching,
-					                                                nodeIndex, otherNodeIndex,
+					                                                springStrength, springRestLength,
 					                                                euclideanDistanceCubed,
 					                                                deltaX * deltaY, radius);
 					potentialEnergy[0] += calculatePE(m_layoutPass, distanceFromRest,
-					                                  distanceFromTouching, nodeIndex,
-					                                  otherNodeIndex);
+					                                  distanceFromTouching, springStrength,
+					                                  springRestLength);
 				} else {
 					otherPartials.x -= calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaX, radius);
 					otherPartials.y -= calculateSpringPartial(m_layoutPass, distanceFromTouching,
-					                                          otherNodeIndex, nodeIndex,
+					                                          springStrength, springRestLength,
 					                                          euclideanDistance, -deltaY, radius);
 					otherPartials.xx -= calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            nodeIndex, otherNodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaY * deltaY, radius);
 					otherPartials.yy -= calculateSpringPartial3(m_layoutPass, distanceFromTouching,
-					                                            nodeIndex, otherNodeIndex,
+					                                            springStrength, springRestLength,
 					                                            euclideanDistanceCubed,
 					                                            deltaX * deltaX, radius);
 					otherPartials.xy -= calculateSpringPartialCross(m_layoutPass,
 					                                                distanceFromTouching,
-					                                                nodeIndex, otherNodeIndex,
+					                                                springStrength, springRestLength,
 					                                                euclideanDistanceCubed,
 					                                                deltaX * deltaY, radius);
 					potentialEnergy[0] -= calculatePE(m_layoutPass, distanceFromRest,
-					                                  distanceFromTouching, nodeIndex,
-					                                  otherNodeIndex);
+					                                  distanceFromTouching, springStrength,
+					                                  springRestLength);
 				}
 
 				// Update the euclidean distance
@@ -828,17 +990,45 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 			}
 
 			// calculationProfile.checkpoint();
-		} // end of while loop
+		} // end of for loop
 
-		if (!reversed)
-			partials.euclideanDistance = Math.sqrt((partials.x * partials.x)
-			                                       + (partials.y * partials.y));
+		return furthestPartials;
+	}
 
-		if ((furthestPartials == null)
-		    || (partials.euclideanDistance > furthestPartials.euclideanDistance))
-			furthestPartials = partials;
+	private static List<List<Jitter>> newJitterLists(int chunks) {
+		final List<List<Jitter>> lists = new ArrayList<List<Jitter>>(chunks);
 
-		return furthestPartials;
+		for (int c = 0; c < chunks; c++)
+			lists.add(new ArrayList<Jitter>(0));
+
+		return lists;
+	}
+
+	/**
+	 * Moves the nodes that were found on top of another node, in chunk order.
+	 */
+	private static void applyJitter(List<List<Jitter>> chunkJitter) {
+		for (List<Jitter> jitter: chunkJitter) {
+			for (Jitter j: jitter) {
+				j.node.setX(j.node.getX() + j.dx);
+				j.node.setY(j.node.getY() + j.dy);
+			}
+		}
+	}
+
+	/**
+	 * A small offset to separate a node from one at the same location.
+	 */
+	private static final class Jitter {
+		final LayoutNode node;
+		final double dx;
+		final double dy;
+
+		Jitter(LayoutNode node, double dx, double dy) {
+			this.node = node;
+			this.dx = dx;
+			this.dy = dy;
+		}
 	}
 
 	/**
@@ -889,7 +1079,7 @@ public class BioLayoutKKAlgorithmTask extends BioLayoutAlgorithmTask {
 		}
 	}
 
-	private PartialDerivatives moveNode(PartialDerivatives partials, List partialsList,
+	private PartialDerivatives moveNode(PartialDerivatives partials, List<PartialDerivatives> partialsList,
 	                                    double[] potentialEnergy) {
 		PartialDerivatives startingPartials = new PartialDerivatives(partials);
 		calculatePartials(partials, partialsList, potentialEnergy, true);
@@ -45,13 +45,20 @@ public class BioLayoutKKContext extends BioLayoutContext implements TunableValid
 	public double m_anticollisionSpringStrength;
 	@Tunable(description="Number of layout passes:")
 	public int m_layoutPass = 2;
+	/**
+	 * The number of pivots for the sparse stress approximation.  0 uses
+	 * springs between all pairs of nodes, which needs O(N+E) memory but
+	 * still O(N^2) time per pass.
+	 */
+	@Tunable(description="Number of pivots for sparse stress (0: all pairs of nodes):")
+	public int m_pivotCount = 0;
 	@Tunable(description="Don't partition graph before layout:", groups="Standard Settings")
 	public boolean singlePartition;
 	@Tunable(description="Use unweighted edges:", groups="Standard Settings")
 	public boolean unweighted;
 	@Override // TODO
 	public ValidationState getValidationState(final Appendable errMsg) {
-		return ValidationState.OK;
+		return getSharedValidationState(errMsg);
 	}
 
 }
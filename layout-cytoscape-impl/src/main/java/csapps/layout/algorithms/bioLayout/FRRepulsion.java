@@ -0,0 +1,403 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+
+
+/**
+ * Computes the Fruchterman-Reingold repulsive displacement of every node
+ * from flat copies of the node positions.
+ * <p>
+ * With a theta of 0 every pair of nodes is visited, exactly as the original
+ * nested loop did.  With a positive theta the nodes are put in a Barnes-Hut
+ * quadtree (an octree in 3D) and a cell is collapsed to its weighted center
+ * when its extent divided by its distance is below theta.  A cell is only
+ * collapsed when none of its nodes is close enough to trigger the conflict
+ * avoidance force, so conflict avoidance behaves as in the exact mode.  Cells
+ * that lie entirely beyond the repulsion cutoff are skipped, and a collapsed
+ * cell that straddles the cutoff counts in proportion to the part of it that
+ * lies within.  Only the k<sup>2</sup>/d term of distant nodes is approximated.
+ */
+final class FRRepulsion {
+
+	/** Most nodes kept in a leaf cell before it is split. */
+	private static final int LEAF_SIZE = 8;
+
+	/** Guards against endless splitting of (nearly) coincident nodes. */
+	private static final int MAX_DEPTH = 48;
+
+	private static final double EPSILON = 0.0000001;
+
+	private final boolean layout3D;
+	private final int fanout;
+
+	// Node data, indexed like the partition's node list
+	private int nodeCount;
+	private double[] x = new double[0];
+	private double[] y = new double[0];
+	private double[] z = new double[0];
+	private double[] radius = new double[0];
+	private boolean[] locked = new boolean[0];
+
+	// Results
+	double[] xDisp = new double[0];
+	double[] yDisp = new double[0];
+	double[] zDisp = new double[0];
+
+	// Tree, stored as parallel arrays.  Siblings are allocated next to each other.
+	private int[] order = new int[0];
+	private int[] scratch = new int[0];
+	private int cellCount;
+	private int[] cellStart = new int[0];
+	private int[] cellEnd = new int[0];
+	private int[] firstChild = new int[0];
+	private int[] childCount = new int[0];
+	private double[] minX = new double[0], minY = new double[0], minZ = new double[0];
+	private double[] maxX = new double[0], maxY = new double[0], maxZ = new double[0];
+	private double[] comX = new double[0], comY = new double[0], comZ = new double[0];
+	private double[] mass = new double[0];
+	private double[] maxRadius = new double[0];
+
+	private double theta;
+	private double repulsion;
+	private double maxDistance;
+	private double conflictAvoidance;
+
+	FRRepulsion(final boolean layout3D) {
+		this.layout3D = layout3D;
+		this.fanout = layout3D ? 8 : 4;
+	}
+
+	/**
+	 * Makes room for the given number of nodes.  Call before {@link #setNode}.
+	 */
+	void reset(final int nodeCount) {
+		this.nodeCount = nodeCount;
+
+		if (x.length < nodeCount) {
+			x = new double[nodeCount];
+			y = new double[nodeCount];
+			z = new double[nodeCount];
+			radius = new double[nodeCount];
+			locked = new boolean[nodeCount];
+			xDisp = new double[nodeCount];
+			yDisp = new double[nodeCount];
+			zDisp = new double[nodeCount];
+			order = new int[nodeCount];
+			scratch = new int[nodeCount];
+		}
+	}
+
+	void setNode(final int i, final double x, final double y, final double z, final double width,
+	             final boolean locked) {
+		this.x[i] = x;
+		this.y[i] = y;
+		this.z[i] = layout3D ? z : 0.0;
+		this.radius[i] = width / 2;
+		this.locked[i] = locked;
+	}
+
+	/**
+	 * Sets the force parameters and, if theta is positive, builds the tree
+	 * over the current node positions.
+	 *
+	 * @param theta the Barnes-Hut opening threshold, or 0 for exact repulsion
+	 * @param repulsion the repulsion constant k, the force is k*k/distance
+	 * @param maxDistance the distance beyond which nodes do not repulse
+	 * @param conflictAvoidance the extra force between overlapping nodes
+	 */
+	void prepare(final double theta, final double repulsion, final double maxDistance,
+	             final double conflictAvoidance) {
+		this.theta = theta;
+		this.repulsion = repulsion;
+		this.maxDistance = maxDistance;
+		this.conflictAvoidance = conflictAvoidance;
+
+		cellCount = 0;
+
+		if (theta > 0 && nodeCount > 0)
+			buildTree();
+	}
+
+	/**
+	 * Computes the repulsive displacement of the unlocked nodes in
+	 * [from, to) into {@link #xDisp}, {@link #yDisp} and {@link #zDisp}.
+	 * Only the node positions and the tree are read, so disjoint ranges
+	 * may be computed independently.
+	 */
+	void compute(final int from, final int to) {
+		final int[] stack = cellCount > 0 ? new int[MAX_DEPTH * fanout + 1] : null;
+
+		for (int i = from; i < to; i++) {
+			xDisp[i] = 0;
+			yDisp[i] = 0;
+			zDisp[i] = 0;
+
+			if (locked[i])
+				continue;
+
+			if (cellCount > 0)
+				approximate(i, stack);
+			else
+				exact(i);
+		}
+	}
+
+	private void exact(final int v) {
+		for (int u = 0; u < nodeCount; u++) {
+			if (u != v)
+				pair(v, u);
+		}
+	}
+
+	/**
+	 * The force between two nodes, as computed by the original nested loop.
+	 */
+	private void pair(final int v, final int u) {
+		final double dx = x[v] - x[u];
+		final double dy = y[v] - y[u];
+		final double dz = z[v] - z[u];
+
+		double deltaDistance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+		if (deltaDistance == 0.0)
+			deltaDistance = EPSILON;
+
+		double fr = deltaDistance > maxDistance ? 0 : (repulsion * repulsion) / deltaDistance;
+
+		// If its too close, increase the force by a constant
+		if (deltaDistance < (radius[v] + radius[u]))
+			fr += conflictAvoidance;
+
+		if (Double.isNaN(fr))
+			fr = 500;
+
+		// The other node won't move, so push this one twice as hard
+		final double scale = locked[u] ? 2 * fr / deltaDistance : fr / deltaDistance;
+		xDisp[v] += dx * scale;
+		yDisp[v] += dy * scale;
+		zDisp[v] += dz * scale;
+	}
+
+	private void approximate(final int v, final int[] stack) {
+		final double vx = x[v];
+		final double vy = y[v];
+		final double vz = z[v];
+		final double vr = radius[v];
+
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			final int c = stack[--top];
+
+			// Distance from v to the nearest point of the cell
+			final double nx = Math.max(0, Math.max(minX[c] - vx, vx - maxX[c]));
+			final double ny = Math.max(0, Math.max(minY[c] - vy, vy - maxY[c]));
+			final double nz = Math.max(0, Math.max(minZ[c] - vz, vz - maxZ[c]));
+			final double near = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			final boolean noConflict = near >= vr + maxRadius[c];
+
+			if (near > maxDistance && noConflict)
+				continue;
+
+			if (firstChild[c] < 0) {
+				for (int k = cellStart[c]; k < cellEnd[c]; k++) {
+					final int u = order[k];
+					if (u != v)
+						pair(v, u);
+				}
+				continue;
+			}
+
+			if (noConflict && near > 0) {
+				final double dx = vx - comX[c];
+				final double dy = vy - comY[c];
+				final double dz = vz - comZ[c];
+				final double d2 = dx * dx + dy * dy + dz * dz;
+				final double extent = Math.max(maxX[c] - minX[c],
+				                               Math.max(maxY[c] - minY[c], maxZ[c] - minZ[c]));
+
+				if (extent * extent < theta * theta * d2) {
+					// Sum of dx*fr/d over the cell, with fr = k*k/d.  For a cell that
+					// straddles the cutoff, assume its nodes are spread evenly along
+					// the line to v and count the part that is within the cutoff.
+					final double d = Math.sqrt(d2);
+					final double inside = extent > 0
+					                      ? Math.min(1, Math.max(0, (maxDistance - d) / extent + 0.5))
+					                      : (d <= maxDistance ? 1 : 0);
+
+					if (inside > 0) {
+						final double scale = inside * mass[c] * repulsion * repulsion / d2;
+						xDisp[v] += dx * scale;
+						yDisp[v] += dy * scale;
+						zDisp[v] += dz * scale;
+					}
+					continue;
+				}
+			}
+
+			for (int k = firstChild[c], end = firstChild[c] + childCount[c]; k < end; k++)
+				stack[top++] = k;
+		}
+	}
+
+	private void buildTree() {
+		for (int i = 0; i < nodeCount; i++)
+			order[i] = i;
+
+		ensureCells(Math.max(16, 2 * nodeCount / LEAF_SIZE + 1));
+		final int root = newCell(0, nodeCount);
+		split(root, 0);
+	}
+
+	private void split(final int c, final int depth) {
+		final int start = cellStart[c];
+		final int end = cellEnd[c];
+
+		if (end - start <= LEAF_SIZE || depth >= MAX_DEPTH)
+			return;
+
+		final double midX = (minX[c] + maxX[c]) / 2;
+		final double midY = (minY[c] + maxY[c]) / 2;
+		final double midZ = (minZ[c] + maxZ[c]) / 2;
+
+		if (midX == minX[c] && midY == minY[c] && midZ == minZ[c])
+			return; // all coincident
+
+		// Counting sort of the cell's nodes by octant
+		final int[] counts = new int[fanout + 1];
+		for (int k = start; k < end; k++)
+			counts[octant(order[k], midX, midY, midZ) + 1]++;
+
+		for (int o = 0; o < fanout; o++)
+			counts[o + 1] += counts[o];
+
+		final int[] offsets = Arrays.copyOf(counts, fanout);
+		for (int k = start; k < end; k++) {
+			final int n = order[k];
+			scratch[start + offsets[octant(n, midX, midY, midZ)]++] = n;
+		}
+		System.arraycopy(scratch, start, order, start, end - start);
+
+		int first = -1;
+		int children = 0;
+		for (int o = 0; o < fanout; o++) {
+			if (counts[o + 1] > counts[o]) {
+				final int child = newCell(start + counts[o], start + counts[o + 1]);
+				if (first < 0)
+					first = child;
+				children++;
+			}
+		}
+
+		firstChild[c] = first;
+		childCount[c] = children;
+
+		for (int k = first; k < first + children; k++)
+			split(k, depth + 1);
+	}
+
+	private int octant(final int n, final double midX, final double midY, final double midZ) {
+		int o = (x[n] >= midX ? 1 : 0) | (y[n] >= midY ? 2 : 0);
+		if (layout3D && z[n] >= midZ)
+			o |= 4;
+		return o;
+	}
+
+	/**
+	 * Adds a leaf cell over order[start, end) with its tight bounds,
+	 * weighted center and largest node radius.
+	 */
+	private int newCell(final int start, final int end) {
+		ensureCells(cellCount + 1);
+
+		final int c = cellCount++;
+		cellStart[c] = start;
+		cellEnd[c] = end;
+		firstChild[c] = -1;
+		childCount[c] = 0;
+
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+		double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+		double sx = 0, sy = 0, sz = 0, m = 0, r = 0;
+
+		for (int k = start; k < end; k++) {
+			final int n = order[k];
+			// Locked nodes push twice as hard, see pair()
+			final double w = locked[n] ? 2 : 1;
+
+			x0 = Math.min(x0, x[n]);
+			y0 = Math.min(y0, y[n]);
+			z0 = Math.min(z0, z[n]);
+			x1 = Math.max(x1, x[n]);
+			y1 = Math.max(y1, y[n]);
+			z1 = Math.max(z1, z[n]);
+			sx += w * x[n];
+			sy += w * y[n];
+			sz += w * z[n];
+			m += w;
+			r = Math.max(r, radius[n]);
+		}
+
+		minX[c] = x0;
+		minY[c] = y0;
+		minZ[c] = z0;
+		maxX[c] = x1;
+		maxY[c] = y1;
+		maxZ[c] = z1;
+		comX[c] = sx / m;
+		comY[c] = sy / m;
+		comZ[c] = sz / m;
+		mass[c] = m;
+		maxRadius[c] = r;
+
+		return c;
+	}
+
+	private void ensureCells(final int capacity) {
+		if (cellStart.length >= capacity)
+			return;
+
+		final int n = Math.max(capacity, cellStart.length * 2);
+		cellStart = Arrays.copyOf(cellStart, n);
+		cellEnd = Arrays.copyOf(cellEnd, n);
+		firstChild = Arrays.copyOf(firstChild, n);
+		childCount = Arrays.copyOf(childCount, n);
+		minX = Arrays.copyOf(minX, n);
+		minY = Arrays.copyOf(minY, n);
+		minZ = Arrays.copyOf(minZ, n);
+		maxX = Arrays.copyOf(maxX, n);
+		maxY = Arrays.copyOf(maxY, n);
+		maxZ = Arrays.copyOf(maxZ, n);
+		comX = Arrays.copyOf(comX, n);
+		comY = Arrays.copyOf(comY, n);
+		comZ = Arrays.copyOf(comZ, n);
+		mass = Arrays.copyOf(mass, n);
+		maxRadius = Arrays.copyOf(maxRadius, n);
+	}
+}
@@ -0,0 +1,124 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Splits per-node force work into fixed size chunks and runs them on a
+ * fork-join pool.
+ * <p>
+ * The chunk boundaries depend only on the number of nodes, never on the
+ * number of threads.  Callers keep one accumulator per chunk and reduce
+ * them in chunk order, so a layout gives the same result whatever the
+ * parallelism is.  Shared by the force directed layouts of this bundle.
+ */
+public final class ForceChunks {
+
+	/** Nodes per chunk.  Large enough to amortize a task, small enough to balance. */
+	static final int CHUNK_SIZE = 512;
+
+	/** Below this many nodes, forking costs more than it saves. */
+	static final int PARALLEL_THRESHOLD = 4 * CHUNK_SIZE;
+
+	public interface Body {
+		/**
+		 * Processes nodes [from, to) of the given chunk.
+		 */
+		void run(int chunk, int from, int to);
+	}
+
+	private ForceChunks() {
+	}
+
+	/**
+	 * Creates the pool for a layout run, or returns null if the work should
+	 * stay on the calling thread.
+	 */
+	public static ForkJoinPool createPool(final int parallelism) {
+		final int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+		return threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	public static int chunkCount(final int count) {
+		return (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+
+	/**
+	 * Runs body over every chunk of [0, count) and waits for all of them.
+	 * With a null pool, or too few nodes, the chunks run in order on the
+	 * calling thread.  Called from a task of the pool itself, as when
+	 * partitions are laid out on the pool, the chunks are forked from that
+	 * task, so the pool's threads are all there is.
+	 */
+	public static void run(final ForkJoinPool pool, final int count, final Body body) {
+		final int chunks = chunkCount(count);
+
+		if (pool == null || count < PARALLEL_THRESHOLD) {
+			for (int c = 0; c < chunks; c++)
+				body.run(c, c * CHUNK_SIZE, Math.min(count, (c + 1) * CHUNK_SIZE));
+			return;
+		}
+
+		final List<Chunk> tasks = new ArrayList<Chunk>(chunks);
+		for (int c = 0; c < chunks; c++)
+			tasks.add(new Chunk(body, c, c * CHUNK_SIZE, Math.min(count, (c + 1) * CHUNK_SIZE)));
+
+		if (ForkJoinTask.getPool() == pool) {
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			pool.invoke(new RecursiveAction() {
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		}
+	}
+
+	private static final class Chunk extends RecursiveAction {
+		private final Body body;
+		private final int chunk;
+		private final int from;
+		private final int to;
+
+		Chunk(final Body body, final int chunk, final int from, final int to) {
+			this.body = body;
+			this.chunk = chunk;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			body.run(chunk, from, to);
+		}
+	}
+}
@@ -0,0 +1,465 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Pivot based sparse stress majorization, for spring embedded layouts of
+ * partitions too large for the all-pairs Kamada-Kawai springs.
+ * <p>
+ * Graph distances are only computed, by breadth first search, from k pivot
+ * nodes picked by max-min selection.  Each node is then attracted to its
+ * neighbors, with the edge springs of the Kamada-Kawai layout, and to
+ * every pivot, with a spring whose rest length is the rest length constant
+ * times the number of hops.  A pivot spring stands for the nodes of the
+ * pivot's region (the nodes closer to it than to any other pivot) that are
+ * about as far away, and its strength is scaled by their number.  Memory
+ * and time per iteration are O(N * k + E).
+ * <p>
+ * The starting layout is either the current one or a pivot MDS embedding
+ * of the same distances.  Each iteration moves every node to the weighted
+ * average of the positions its springs want it at (localized stress
+ * majorization), computed from the positions of the previous iteration so
+ * that nodes can be processed in parallel.
+ * <p>
+ * The approach follows M. Ortmann, M. Klimenta and U. Brandes,
+ * <em>"A Sparse Stress Model"</em>, Graph Drawing 2016.
+ */
+final class SparseStress {
+
+	private final int nodeCount;
+	private final int[][] neighbors;
+	private final double[][] neighborRestLengths;
+	private final boolean[] locked;
+
+	private final double restLength;
+	private final double strength;
+	private final double disconnectedRestLength;
+	private final double disconnectedStrength;
+
+	// Positions, and the positions being computed
+	final double[] x;
+	final double[] y;
+	private final double[] newX;
+	private final double[] newY;
+
+	// Pivots and the hop counts from each of them, -1 if unreachable
+	private int[] pivots;
+	private int[][] pivotDistances;
+	/** regionCounts[p][h] is the number of nodes in p's region at most h hops from p */
+	private int[][] regionCounts;
+	private int[] regionSizes;
+
+	/**
+	 * @param neighbors the indices of the nodes joined to each node by an edge
+	 * @param neighborRestLengths the rest length of each of those edge springs
+	 * @param restLength the rest length of a spring spanning one hop
+	 * @param strength the strength of the edge springs, and of a pivot
+	 *                 spring spanning one hop
+	 */
+	SparseStress(final int[][] neighbors, final double[][] neighborRestLengths,
+	             final boolean[] locked,
+	             final double restLength, final double strength,
+	             final double disconnectedRestLength, final double disconnectedStrength) {
+		this.nodeCount = neighbors.length;
+		this.neighbors = neighbors;
+		this.neighborRestLengths = neighborRestLengths;
+		this.locked = locked;
+		this.restLength = restLength;
+		this.strength = strength;
+		this.disconnectedRestLength = disconnectedRestLength;
+		this.disconnectedStrength = disconnectedStrength;
+
+		x = new double[nodeCount];
+		y = new double[nodeCount];
+		newX = new double[nodeCount];
+		newY = new double[nodeCount];
+	}
+
+	/**
+	 * Picks up to pivotCount pivots and computes the hop counts from them.
+	 */
+	void selectPivots(final int pivotCount) {
+		final int k = Math.min(pivotCount, nodeCount);
+		final int[] minDistance = new int[nodeCount];
+		Arrays.fill(minDistance, Integer.MAX_VALUE);
+
+		pivots = new int[k];
+		pivotDistances = new int[k][];
+
+		// Start from the best connected node, then take the node farthest
+		// from all pivots so far.  Unreached nodes come first, so every
+		// component gets a pivot while there are pivots to spare.
+		int next = 0;
+		for (int i = 1; i < nodeCount; i++) {
+			if (neighbors[i].length > neighbors[next].length)
+				next = i;
+		}
+
+		final int[] queue = new int[nodeCount];
+		for (int p = 0; p < k; p++) {
+			pivots[p] = next;
+			pivotDistances[p] = breadthFirstSearch(next, queue);
+
+			next = -1;
+			for (int i = 0; i < nodeCount; i++) {
+				final int d = pivotDistances[p][i];
+				if (d >= 0 && d < minDistance[i])
+					minDistance[i] = d;
+				if (minDistance[i] > 0 && (next < 0 || minDistance[i] > minDistance[next]))
+					next = i;
+			}
+
+			if (next < 0) {
+				// Every node is a pivot
+				pivots = Arrays.copyOf(pivots, p + 1);
+				pivotDistances = Arrays.copyOf(pivotDistances, p + 1);
+				break;
+			}
+		}
+
+		calculateRegions();
+	}
+
+	private int[] breadthFirstSearch(final int source, final int[] queue) {
+		final int[] distance = new int[nodeCount];
+		Arrays.fill(distance, -1);
+		distance[source] = 0;
+
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = source;
+
+		while (head < tail) {
+			final int v = queue[head++];
+			for (final int u : neighbors[v]) {
+				if (distance[u] < 0) {
+					distance[u] = distance[v] + 1;
+					queue[tail++] = u;
+				}
+			}
+		}
+
+		return distance;
+	}
+
+	/**
+	 * Assigns every node to its nearest pivot, and counts the nodes of each
+	 * region by distance.
+	 */
+	private void calculateRegions() {
+		final int k = pivots.length;
+		final int[] region = new int[nodeCount];
+		final int[] maxDistance = new int[k];
+
+		for (int i = 0; i < nodeCount; i++) {
+			region[i] = -1;
+			for (int p = 0; p < k; p++) {
+				final int d = pivotDistances[p][i];
+				if (d >= 0 && (region[i] < 0 || d < pivotDistances[region[i]][i]))
+					region[i] = p;
+			}
+			if (region[i] >= 0)
+				maxDistance[region[i]] = Math.max(maxDistance[region[i]], pivotDistances[region[i]][i]);
+		}
+
+		regionCounts = new int[k][];
+		regionSizes = new int[k];
+		for (int p = 0; p < k; p++)
+			regionCounts[p] = new int[maxDistance[p] + 1];
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (region[i] >= 0) {
+				regionCounts[region[i]][pivotDistances[region[i]][i]]++;
+				regionSizes[region[i]]++;
+			}
+		}
+
+		for (int p = 0; p < k; p++) {
+			for (int h = 1; h < regionCounts[p].length; h++)
+				regionCounts[p][h] += regionCounts[p][h - 1];
+		}
+	}
+
+	/**
+	 * Replaces the positions of the unlocked nodes with a pivot MDS
+	 * embedding: the top two principal components of the double centered
+	 * node-to-pivot distance matrix.
+	 */
+	void initializeWithPivotMDS() {
+		final int k = pivots.length;
+		if (k < 3)
+			return;
+
+		// Squared distances, with unreachable pairs one hop beyond the farthest
+		int farthest = 0;
+		for (int p = 0; p < k; p++) {
+			for (int i = 0; i < nodeCount; i++)
+				farthest = Math.max(farthest, pivotDistances[p][i]);
+		}
+
+		final double[][] c = new double[k][nodeCount];
+		final double[] pivotMeans = new double[k];
+		final double[] nodeMeans = new double[nodeCount];
+		double mean = 0;
+
+		for (int p = 0; p < k; p++) {
+			for (int i = 0; i < nodeCount; i++) {
+				final int hops = pivotDistances[p][i] >= 0 ? pivotDistances[p][i] : farthest + 1;
+				final double d = hops * restLength;
+				c[p][i] = d * d;
+				pivotMeans[p] += c[p][i] / nodeCount;
+				nodeMeans[i] += c[p][i] / k;
+				mean += c[p][i] / ((double) nodeCount * k);
+			}
+		}
+
+		for (int p = 0; p < k; p++) {
+			for (int i = 0; i < nodeCount; i++)
+				c[p][i] = -0.5 * (c[p][i] - pivotMeans[p] - nodeMeans[i] + mean);
+		}
+
+		// k x k matrix C^T C, and its two leading eigenvectors
+		final double[][] ctc = new double[k][k];
+		for (int p = 0; p < k; p++) {
+			for (int q = p; q < k; q++) {
+				double sum = 0;
+				for (int i = 0; i < nodeCount; i++)
+					sum += c[p][i] * c[q][i];
+				ctc[p][q] = sum;
+				ctc[q][p] = sum;
+			}
+		}
+
+		final double[] first = powerIteration(ctc, null);
+		final double[] second = powerIteration(ctc, first);
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (locked[i])
+				continue;
+
+			double px = 0;
+			double py = 0;
+			for (int p = 0; p < k; p++) {
+				px += c[p][i] * first[p];
+				py += c[p][i] * second[p];
+			}
+			x[i] = px;
+			y[i] = py;
+		}
+
+		scaleToEdgeLength();
+	}
+
+	private static double[] powerIteration(final double[][] m, final double[] orthogonalTo) {
+		final int k = m.length;
+		final double[] v = new double[k];
+		final double[] w = new double[k];
+
+		// Fixed start, so the layout is reproducible
+		for (int p = 0; p < k; p++)
+			v[p] = 1.0 + (p % 7) * 0.1;
+
+		for (int iteration = 0; iteration < 100; iteration++) {
+			if (orthogonalTo != null)
+				orthogonalize(v, orthogonalTo);
+
+			double norm = 0;
+			for (int p = 0; p < k; p++) {
+				double sum = 0;
+				for (int q = 0; q < k; q++)
+					sum += m[p][q] * v[q];
+				w[p] = sum;
+				norm += sum * sum;
+			}
+
+			norm = Math.sqrt(norm);
+			if (norm == 0)
+				break;
+
+			double change = 0;
+			for (int p = 0; p < k; p++) {
+				final double value = w[p] / norm;
+				change += Math.abs(value - v[p]);
+				v[p] = value;
+			}
+
+			if (change < 1e-9)
+				break;
+		}
+
+		if (orthogonalTo != null)
+			orthogonalize(v, orthogonalTo);
+
+		return v;
+	}
+
+	private static void orthogonalize(final double[] v, final double[] unit) {
+		double dot = 0;
+		for (int p = 0; p < v.length; p++)
+			dot += v[p] * unit[p];
+		for (int p = 0; p < v.length; p++)
+			v[p] -= dot * unit[p];
+	}
+
+	/**
+	 * Scales the unlocked nodes about their center so that the average
+	 * edge is as long as its spring wants it to be.
+	 */
+	private void scaleToEdgeLength() {
+		double actual = 0;
+		double wanted = 0;
+		double cx = 0;
+		double cy = 0;
+		int free = 0;
+
+		for (int i = 0; i < nodeCount; i++) {
+			for (int j = 0; j < neighbors[i].length; j++) {
+				final int u = neighbors[i][j];
+				actual += Math.sqrt((x[i] - x[u]) * (x[i] - x[u]) + (y[i] - y[u]) * (y[i] - y[u]));
+				wanted += neighborRestLengths[i][j];
+			}
+			if (!locked[i]) {
+				cx += x[i];
+				cy += y[i];
+				free++;
+			}
+		}
+
+		if (actual == 0 || free == 0)
+			return;
+
+		final double scale = wanted / actual;
+		cx /= free;
+		cy /= free;
+
+		for (int i = 0; i < nodeCount; i++) {
+			if (!locked[i]) {
+				x[i] = cx + (x[i] - cx) * scale;
+				y[i] = cy + (y[i] - cy) * scale;
+			}
+		}
+	}
+
+	/**
+	 * Runs one majorization step over all nodes.
+	 *
+	 * @return the largest distance a node moved
+	 */
+	double iterate(final ForkJoinPool pool) {
+		final double[] chunkMoves = new double[ForceChunks.chunkCount(nodeCount)];
+
+		ForceChunks.run(pool, nodeCount, new ForceChunks.Body() {
+			public void run(int chunk, int from, int to) {
+				final double[] sums = new double[3];
+				double moved = 0;
+				for (int i = from; i < to; i++)
+					moved = Math.max(moved, place(i, sums));
+				chunkMoves[chunk] = moved;
+			}
+		});
+
+		// place() writes every entry of newX and newY, so they stay scratch
+		System.arraycopy(newX, 0, x, 0, nodeCount);
+		System.arraycopy(newY, 0, y, 0, nodeCount);
+
+		double moved = 0;
+		for (final double m : chunkMoves)
+			moved = Math.max(moved, m);
+
+		return moved;
+	}
+
+	/**
+	 * Computes the new position of node i into newX/newY, using sums as
+	 * scratch space.
+	 */
+	private double place(final int i, final double[] sums) {
+		if (locked[i]) {
+			newX[i] = x[i];
+			newY[i] = y[i];
+			return 0;
+		}
+
+		Arrays.fill(sums, 0);
+
+		for (int j = 0; j < neighbors[i].length; j++)
+			addTerm(i, neighbors[i][j], neighborRestLengths[i][j], strength, sums);
+
+		for (int p = 0; p < pivots.length; p++) {
+			final int pivot = pivots[p];
+			final int hops = pivotDistances[p][i];
+
+			if (pivot == i || hops == 1)
+				continue; // an edge spring already covers a neighbor
+
+			if (hops < 0) {
+				addTerm(i, pivot, disconnectedRestLength, disconnectedStrength * regionSizes[p], sums);
+			} else {
+				// The region's nodes that are at least as close to the pivot
+				// as to i, roughly
+				final int[] counts = regionCounts[p];
+				final int represented = Math.max(1, counts[Math.min(hops / 2, counts.length - 1)]);
+				addTerm(i, pivot, restLength * hops, represented * strength / (hops * hops), sums);
+			}
+		}
+
+		if (sums[2] == 0) {
+			newX[i] = x[i];
+			newY[i] = y[i];
+			return 0;
+		}
+
+		newX[i] = sums[0] / sums[2];
+		newY[i] = sums[1] / sums[2];
+
+		final double dx = newX[i] - x[i];
+		final double dy = newY[i] - y[i];
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * Adds the position a spring between i and j of the given rest length
+	 * wants i at, weighted by the spring strength.
+	 */
+	private void addTerm(final int i, final int j, final double length, final double weight,
+	                     final double[] sums) {
+		final double dx = x[i] - x[j];
+		final double dy = y[i] - y[j];
+		final double distance = Math.sqrt(dx * dx + dy * dy);
+
+		sums[0] += weight * x[j];
+		sums[1] += weight * y[j];
+		if (distance > 0) {
+			sums[0] += weight * length * dx / distance;
+			sums[1] += weight * length * dy / distance;
+		}
+		sums[2] += weight;
+	}
+}
@@ -0,0 +1,291 @@
+package csapps.layout.algorithms.multilevel;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.cytoscape.work.TaskMonitor;
+
+import csapps.layout.algorithms.bioLayout.ForceChunks;
+
+
+/**
+ * The multilevel force directed layout, on primitive arrays.
+ * <p>
+ * The graph is coarsened by matching until it has a few dozen nodes.  The
+ * coarsest level is laid out from scratch, then each finer level starts
+ * with its nodes on top of their cluster's position and is refined.  The
+ * forces are those of Fruchterman and Reingold, with the repulsion
+ * approximated by a Barnes-Hut quadtree and cluster masses, so every
+ * iteration is O(N log N + E).  The ideal edge length grows by sqrt(7/4)
+ * per level, as suggested by Walshaw.
+ *
+ * @see "C. Walshaw: A Multilevel Algorithm for Force-Directed Graph Drawing. Graph Drawing 2000, LNCS 1984"
+ */
+final class MultilevelEngine {
+
+	/** Coarsening stops at this many nodes */
+	private static final int COARSEST_SIZE = 50;
+
+	/** How much more the ideal edge length is at each coarser level */
+	private static final double LEVEL_LENGTH_FACTOR = Math.sqrt(7.0 / 4.0);
+
+	/** The coarsest level is small, so it gets this many times the iterations */
+	private static final int COARSEST_ITERATION_FACTOR = 5;
+
+	/** Temperature decay per iteration, and the starting temperature in edge lengths */
+	private static final double COOLING = 0.92;
+	private static final double INITIAL_TEMPERATURE = 2.0;
+
+	private final MultilevelGraph finest;
+	private final double edgeLength;
+	private final double theta;
+	private final int iterations;
+	private final long seed;
+
+	private volatile boolean cancelled;
+
+	/**
+	 * @param edgeLength the ideal length of an edge of the finest level
+	 * @param theta the Barnes-Hut opening criterion
+	 * @param iterations the number of refinement iterations at each level
+	 */
+	MultilevelEngine(final MultilevelGraph finest, final double edgeLength, final double theta,
+	                 final int iterations, final long seed) {
+		this.finest = finest;
+		this.edgeLength = edgeLength;
+		this.theta = theta;
+		this.iterations = iterations;
+		this.seed = seed;
+	}
+
+	void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Lays the graph out into x and y.  If initial is true, x and y hold the
+	 * starting positions, which decide where the clusters start; otherwise
+	 * the coarsest level starts at random.
+	 *
+	 * @param pool runs the force calculations, null to stay on this thread
+	 * @param taskMonitor receives the progress, may be null
+	 * @return false if the layout was cancelled
+	 */
+	boolean layout(final double[] x, final double[] y, final boolean initial, final ForkJoinPool pool,
+	               final TaskMonitor taskMonitor) {
+		final List<MultilevelGraph> levels = new ArrayList<MultilevelGraph>();
+		levels.add(finest);
+
+		if (taskMonitor != null)
+			taskMonitor.setStatusMessage("Coarsening");
+
+		MultilevelGraph graph = finest;
+		while (graph.nodeCount > COARSEST_SIZE) {
+			graph = graph.coarsen();
+			if (graph == null || cancelled)
+				break;
+			levels.add(graph);
+		}
+
+		if (cancelled)
+			return false;
+
+		final int coarsest = levels.size() - 1;
+
+		// Positions of every level, the finest one being x and y
+		final double[][] levelX = new double[levels.size()][];
+		final double[][] levelY = new double[levels.size()][];
+		levelX[0] = x;
+		levelY[0] = y;
+
+		for (int l = 1; l <= coarsest; l++) {
+			levelX[l] = new double[levels.get(l).nodeCount];
+			levelY[l] = new double[levels.get(l).nodeCount];
+		}
+
+		double length = edgeLength * Math.pow(LEVEL_LENGTH_FACTOR, coarsest);
+
+		if (initial) {
+			for (int l = 1; l <= coarsest; l++)
+				restrict(levels.get(l - 1), levels.get(l), levelX[l - 1], levelY[l - 1], levelX[l], levelY[l]);
+		} else {
+			final Random random = new Random(seed);
+			final double side = Math.sqrt(levels.get(coarsest).nodeCount) * length;
+			for (int i = 0; i < levels.get(coarsest).nodeCount; i++) {
+				levelX[coarsest][i] = random.nextDouble() * side;
+				levelY[coarsest][i] = random.nextDouble() * side;
+			}
+		}
+
+		// Work is roughly proportional to the number of nodes of each level
+		double totalWork = levels.get(coarsest).nodeCount * (double) COARSEST_ITERATION_FACTOR;
+		for (int l = 0; l < coarsest; l++)
+			totalWork += levels.get(l).nodeCount;
+		double doneWork = 0.0;
+
+		final Refinement refinement = new Refinement(theta, pool);
+
+		for (int l = coarsest; l >= 0; l--) {
+			final MultilevelGraph level = levels.get(l);
+
+			if (l < coarsest) {
+				prolong(level, levelX[l + 1], levelY[l + 1], levelX[l], levelY[l], length, l);
+				levelX[l + 1] = null;
+				levelY[l + 1] = null;
+			}
+
+			if (taskMonitor != null)
+				taskMonitor.setStatusMessage("Refining level " + (coarsest - l + 1) + " of " + (coarsest + 1)
+				                             + " (" + level.nodeCount + " nodes)");
+
+			final int levelIterations = (l == coarsest) ? iterations * COARSEST_ITERATION_FACTOR : iterations;
+			final double work = (l == coarsest) ? level.nodeCount * (double) COARSEST_ITERATION_FACTOR : level.nodeCount;
+
+			double temperature = length * INITIAL_TEMPERATURE;
+
+			for (int iteration = 0; iteration < levelIterations; iteration++) {
+				if (cancelled)
+					return false;
+
+				refinement.iterate(level, levelX[l], levelY[l], length, temperature);
+				temperature *= COOLING;
+
+				if (taskMonitor != null)
+					taskMonitor.setProgress((doneWork + (work * (iteration + 1)) / levelIterations) / totalWork);
+			}
+
+			doneWork += work;
+			length /= LEVEL_LENGTH_FACTOR;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Places each coarse node at the mass weighted average of its cluster.
+	 */
+	private static void restrict(final MultilevelGraph fine, final MultilevelGraph coarse,
+	                             final double[] fineX, final double[] fineY,
+	                             final double[] coarseX, final double[] coarseY) {
+		for (int i = 0; i < fine.nodeCount; i++) {
+			final int parent = fine.parents[i];
+			coarseX[parent] += fine.masses[i] * fineX[i];
+			coarseY[parent] += fine.masses[i] * fineY[i];
+		}
+
+		for (int c = 0; c < coarse.nodeCount; c++) {
+			coarseX[c] /= coarse.masses[c];
+			coarseY[c] /= coarse.masses[c];
+		}
+	}
+
+	/**
+	 * Places each node near its cluster's position.  The small offsets,
+	 * which are the same from run to run, separate the nodes of a cluster.
+	 */
+	private void prolong(final MultilevelGraph fine, final double[] coarseX, final double[] coarseY,
+	                     final double[] fineX, final double[] fineY, final double length, final int level) {
+		final Random random = new Random(seed + level);
+
+		for (int i = 0; i < fine.nodeCount; i++) {
+			final int parent = fine.parents[i];
+			fineX[i] = coarseX[parent] + (random.nextDouble() - 0.5) * length * 0.5;
+			fineY[i] = coarseY[parent] + (random.nextDouble() - 0.5) * length * 0.5;
+		}
+	}
+
+	/**
+	 * One refinement step: forces on all nodes from the current positions,
+	 * then every node moves along its force, by at most the temperature.
+	 */
+	private static final class Refinement {
+		private final double theta;
+		private final ForkJoinPool pool;
+		private final QuadTree tree = new QuadTree();
+		private double[] dispX = new double[0];
+		private double[] dispY = new double[0];
+
+		Refinement(final double theta, final ForkJoinPool pool) {
+			this.theta = theta;
+			this.pool = pool;
+		}
+
+		void iterate(final MultilevelGraph graph, final double[] x, final double[] y, final double length,
+		             final double temperature) {
+			final int n = graph.nodeCount;
+
+			if (dispX.length < n) {
+				dispX = new double[n];
+				dispY = new double[n];
+			}
+
+			tree.build(x, y, graph.masses, n);
+
+			final double k2 = length * length;
+
+			ForceChunks.run(pool, n, new ForceChunks.Body() {
+				public void run(int chunk, int from, int to) {
+					final double[] force = new double[2];
+					final int[] stack = new int[QuadTree.stackSize()];
+
+					for (int i = from; i < to; i++) {
+						force[0] = 0.0;
+						force[1] = 0.0;
+						tree.addRepulsion(i, theta, k2, force, stack);
+
+						// Attraction, divided by the node's mass like the repulsion is
+						double ax = 0.0;
+						double ay = 0.0;
+						for (int k = graph.offsets[i]; k < graph.offsets[i + 1]; k++) {
+							final int j = graph.neighbors[k];
+							final double dx = x[j] - x[i];
+							final double dy = y[j] - y[i];
+							final double d = Math.sqrt(dx * dx + dy * dy);
+							ax += dx * graph.weights[k] * d / length;
+							ay += dy * graph.weights[k] * d / length;
+						}
+
+						dispX[i] = force[0] + ax / graph.masses[i];
+						dispY[i] = force[1] + ay / graph.masses[i];
+					}
+				}
+			});
+
+			for (int i = 0; i < n; i++) {
+				final double d = Math.sqrt(dispX[i] * dispX[i] + dispY[i] * dispY[i]);
+				if (d > 0.0) {
+					final double step = Math.min(d, temperature) / d;
+					x[i] += dispX[i] * step;
+					y[i] += dispY[i] * step;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package csapps.layout.algorithms.multilevel;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+
+
+/**
+ * One level of the multilevel hierarchy: an undirected graph in compressed
+ * adjacency form, with edge weights and node masses.
+ * <p>
+ * A node of a coarser level stands for a cluster of nodes of the finer
+ * one; its mass is the number of original nodes in it, and the weight of
+ * an edge is the number of original edges between the two clusters.
+ */
+final class MultilevelGraph {
+
+	/** Coarsening stops when a level would keep more than this fraction of the nodes */
+	private static final double MIN_REDUCTION = 0.9;
+
+	final int nodeCount;
+	final double[] masses;
+
+	/** The neighbors of node i are neighbors[offsets[i]] to neighbors[offsets[i + 1] - 1] */
+	final int[] offsets;
+	final int[] neighbors;
+	final double[] weights;
+
+	/** The node of the next coarser level each node belongs to, set by coarsen() */
+	int[] parents;
+
+	private MultilevelGraph(final int nodeCount, final double[] masses, final int[] offsets,
+	                        final int[] neighbors, final double[] weights) {
+		this.nodeCount = nodeCount;
+		this.masses = masses;
+		this.offsets = offsets;
+		this.neighbors = neighbors;
+		this.weights = weights;
+	}
+
+	/**
+	 * Creates the finest level from a list of edges.  Self loops are dropped
+	 * and parallel edges are merged into one heavier edge.
+	 */
+	static MultilevelGraph fromEdges(final int nodeCount, final int[] sources, final int[] targets,
+	                                 final int edgeCount) {
+		final int[] degrees = new int[nodeCount];
+		for (int e = 0; e < edgeCount; e++) {
+			degrees[sources[e]]++;
+			degrees[targets[e]]++;
+		}
+
+		final int[] offsets = prefixSums(degrees);
+		final int[] neighbors = new int[offsets[nodeCount]];
+		final double[] weights = new double[offsets[nodeCount]];
+		final int[] fill = Arrays.copyOf(offsets, nodeCount);
+
+		for (int e = 0; e < edgeCount; e++) {
+			final int s = sources[e];
+			final int t = targets[e];
+			neighbors[fill[s]] = t;
+			weights[fill[s]++] = 1.0;
+			neighbors[fill[t]] = s;
+			weights[fill[t]++] = 1.0;
+		}
+
+		final double[] masses = new double[nodeCount];
+		Arrays.fill(masses, 1.0);
+
+		return merge(nodeCount, masses, offsets, neighbors, weights);
+	}
+
+	int degree(final int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * Builds the next coarser level by matching.  Nodes are visited from the
+	 * lowest degree up, and each unmatched node is matched with the
+	 * unmatched neighbor it is most strongly tied to, relative to their
+	 * masses.  A node whose neighbors are all matched joins the lightest of
+	 * their clusters, so that the leaves of a hub, which matching alone
+	 * would leave behind, collapse into it.
+	 *
+	 * @return the coarser level, or null if it would not be much smaller
+	 */
+	MultilevelGraph coarsen() {
+		final int[] cluster = new int[nodeCount];
+		Arrays.fill(cluster, -1);
+		final double[] clusterMasses = new double[nodeCount];
+		int clusterCount = 0;
+
+		for (final int u : nodesByDegree()) {
+			if (cluster[u] >= 0)
+				continue;
+
+			int match = -1;
+			double matchScore = 0.0;
+			int join = -1;
+
+			for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+				final int v = neighbors[k];
+
+				if (cluster[v] < 0) {
+					final double score = weights[k] / (masses[u] * masses[v]);
+					if (score > matchScore) {
+						match = v;
+						matchScore = score;
+					}
+				} else if (join < 0 || clusterMasses[cluster[v]] < clusterMasses[join]) {
+					join = cluster[v];
+				}
+			}
+
+			if (match >= 0) {
+				cluster[u] = clusterCount;
+				cluster[match] = clusterCount;
+				clusterMasses[clusterCount++] = masses[u] + masses[match];
+			} else if (join >= 0) {
+				cluster[u] = join;
+				clusterMasses[join] += masses[u];
+			} else {
+				cluster[u] = clusterCount;
+				clusterMasses[clusterCount++] = masses[u];
+			}
+		}
+
+		if (clusterCount > nodeCount * MIN_REDUCTION)
+			return null;
+
+		// Collect each cluster's edges, then merge those between the same clusters
+		final int[] degrees = new int[clusterCount];
+		for (int u = 0; u < nodeCount; u++)
+			degrees[cluster[u]] += degree(u);
+
+		final int[] coarseOffsets = prefixSums(degrees);
+		final int[] coarseNeighbors = new int[coarseOffsets[clusterCount]];
+		final double[] coarseWeights = new double[coarseOffsets[clusterCount]];
+		final int[] fill = Arrays.copyOf(coarseOffsets, clusterCount);
+
+		for (int u = 0; u < nodeCount; u++) {
+			final int c = cluster[u];
+			for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+				coarseNeighbors[fill[c]] = cluster[neighbors[k]];
+				coarseWeights[fill[c]++] = weights[k];
+			}
+		}
+
+		parents = cluster;
+
+		return merge(clusterCount, Arrays.copyOf(clusterMasses, clusterCount), coarseOffsets,
+		             coarseNeighbors, coarseWeights);
+	}
+
+	/**
+	 * Returns the nodes ordered by degree, lowest first, and by index for
+	 * equal degrees.
+	 */
+	private int[] nodesByDegree() {
+		int maxDegree = 0;
+		for (int u = 0; u < nodeCount; u++)
+			maxDegree = Math.max(maxDegree, degree(u));
+
+		final int[] counts = new int[maxDegree + 1];
+		for (int u = 0; u < nodeCount; u++)
+			counts[degree(u)]++;
+
+		final int[] starts = prefixSums(counts);
+		final int[] order = new int[nodeCount];
+		for (int u = 0; u < nodeCount; u++)
+			order[starts[degree(u)]++] = u;
+
+		return order;
+	}
+
+	/**
+	 * Drops self loops and sums the weights of repeated neighbors.
+	 */
+	private static MultilevelGraph merge(final int nodeCount, final double[] masses, final int[] offsets,
+	                                     final int[] neighbors, final double[] weights) {
+		final int[] slot = new int[nodeCount];
+		Arrays.fill(slot, -1);
+
+		final int[] mergedOffsets = new int[nodeCount + 1];
+		int size = 0;
+
+		for (int u = 0; u < nodeCount; u++) {
+			final int start = size;
+
+			for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+				final int v = neighbors[k];
+				if (v == u)
+					continue;
+
+				if (slot[v] < start) {
+					slot[v] = size;
+					neighbors[size] = v;
+					weights[size++] = weights[k];
+				} else {
+					weights[slot[v]] += weights[k];
+				}
+			}
+
+			mergedOffsets[u + 1] = size;
+		}
+
+		return new MultilevelGraph(nodeCount, masses, mergedOffsets, Arrays.copyOf(neighbors, size),
+		                           Arrays.copyOf(weights, size));
+	}
+
+	private static int[] prefixSums(final int[] counts) {
+		final int[] sums = new int[counts.length + 1];
+		for (int i = 0; i < counts.length; i++)
+			sums[i + 1] = sums[i] + counts[i];
+		return sums;
+	}
+}
@@ -0,0 +1,59 @@
+package csapps.layout.algorithms.multilevel;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Set;
+
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.AbstractLayoutAlgorithm;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.work.TaskIterator;
+import org.cytoscape.work.undo.UndoSupport;
+
+
+/**
+ * A multilevel force directed layout for very large networks.  The network
+ * is coarsened by matching, the coarsest graph is laid out, and the layout
+ * is carried back down and refined level by level.
+ */
+public class MultilevelLayout extends AbstractLayoutAlgorithm {
+
+	public MultilevelLayout(final UndoSupport undoSupport) {
+		super("multilevel-force-directed", "Multilevel Force Directed Layout", undoSupport);
+	}
+
+	@Override
+	public TaskIterator createTaskIterator(CyNetworkView networkView, Object context, Set<View<CyNode>> nodesToLayOut,
+			String attrName) {
+		return new TaskIterator(new MultilevelLayoutTask(toString(), networkView, nodesToLayOut,
+				(MultilevelLayoutContext) context, attrName, undoSupport));
+	}
+
+	@Override
+	public MultilevelLayoutContext createLayoutContext() {
+		return new MultilevelLayoutContext();
+	}
+}
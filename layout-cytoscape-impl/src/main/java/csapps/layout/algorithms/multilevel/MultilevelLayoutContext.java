@@ -0,0 +1,83 @@
+package csapps.layout.algorithms.multilevel;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.io.IOException;
+
+import org.cytoscape.work.Tunable;
+import org.cytoscape.work.TunableValidator;
+
+public class MultilevelLayoutContext implements TunableValidator {
+
+	/**
+	 * The ideal length of an edge.  Coarser levels use longer edges.
+	 */
+	@Tunable(description="Ideal edge length:")
+	public double edgeLength = 80.0;
+
+	/**
+	 * The number of refinement iterations at each level.  The coarsest
+	 * level gets more, since it starts from scratch.
+	 */
+	@Tunable(description="Number of refinement iterations per level:")
+	public int iterations = 30;
+
+	/**
+	 * The Barnes-Hut approximation of the repulsion.  Groups of distant
+	 * nodes whose extent is less than theta times their distance are
+	 * treated as one.
+	 */
+	@Tunable(description="Barnes-Hut approximation of repulsion (0.5: accurate, 1.2: fast):")
+	public double theta = 0.9;
+
+	/**
+	 * Whether to start from random locations, or from the current ones
+	 */
+	@Tunable(description="Randomize graph before layout:", groups="Standard Settings")
+	public boolean randomize = true;
+
+	/**
+	 * The number of threads used to compute forces.  The layout
+	 * is the same whatever the number of threads.
+	 */
+	@Tunable(description="Number of threads for layout calculations (0: all processors):")
+	public int parallelism = 0;
+
+	@Override
+	public ValidationState getValidationState(final Appendable errMsg) {
+		try {
+		if (edgeLength <= 0.0)
+			errMsg.append("Ideal edge length must be > 0; current value = "+edgeLength);
+		if (iterations <= 0)
+			errMsg.append("Number of iterations must be > 0; current value = "+iterations);
+		if (theta <= 0.0)
+			errMsg.append("Barnes-Hut approximation must be > 0; current value = "+theta);
+		if (parallelism < 0)
+			errMsg.append("Number of threads must be >= 0; current value = "+parallelism);
+		} catch (IOException e) {}
+		return edgeLength > 0.0 && iterations > 0 && theta > 0.0 && parallelism >= 0
+			? ValidationState.OK : ValidationState.INVALID;
+	}
+}
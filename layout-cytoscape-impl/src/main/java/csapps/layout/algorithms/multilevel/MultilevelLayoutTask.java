@@ -0,0 +1,150 @@
+package csapps.layout.algorithms.multilevel;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNetwork;
+import org.cytoscape.model.CyNode;
+import org.cytoscape.view.layout.AbstractLayoutTask;
+import org.cytoscape.view.model.CyNetworkView;
+import org.cytoscape.view.model.View;
+import org.cytoscape.view.presentation.property.BasicVisualLexicon;
+import org.cytoscape.work.TaskMonitor;
+import org.cytoscape.work.undo.UndoSupport;
+
+import csapps.layout.algorithms.bioLayout.ForceChunks;
+
+public class MultilevelLayoutTask extends AbstractLayoutTask {
+
+	/** Seeds the random starting layout, so that a layout can be repeated */
+	private static final long SEED = 12345678L;
+
+	private final MultilevelLayoutContext context;
+
+	private volatile MultilevelEngine engine;
+
+	public MultilevelLayoutTask(final String displayName, CyNetworkView networkView, Set<View<CyNode>> nodesToLayOut,
+			final MultilevelLayoutContext context, String attrName, UndoSupport undo) {
+		super(displayName, networkView, nodesToLayOut, attrName, undo);
+		this.context = context;
+	}
+
+	@Override
+	final protected void doLayout(final TaskMonitor taskMonitor) {
+		final CyNetwork network = networkView.getModel();
+
+		taskMonitor.setStatusMessage("Reading network");
+
+		// Read the nodes and edges into arrays once; the engine never
+		// touches the network or its view
+		final List<View<CyNode>> nodeViews = new ArrayList<View<CyNode>>(nodesToLayOut);
+		final int nodeCount = nodeViews.size();
+		if (nodeCount == 0)
+			return;
+
+		final Map<CyNode, Integer> nodeIndex = new HashMap<CyNode, Integer>(nodeCount * 2);
+		final double[] x = new double[nodeCount];
+		final double[] y = new double[nodeCount];
+
+		for (int i = 0; i < nodeCount; i++) {
+			final View<CyNode> nodeView = nodeViews.get(i);
+			nodeIndex.put(nodeView.getModel(), i);
+			x[i] = nodeView.getVisualProperty(BasicVisualLexicon.NODE_X_LOCATION);
+			y[i] = nodeView.getVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION);
+		}
+
+		final double initialX = average(x);
+		final double initialY = average(y);
+
+		final List<CyEdge> edgeList = network.getEdgeList();
+		final int[] sources = new int[edgeList.size()];
+		final int[] targets = new int[edgeList.size()];
+		int edgeCount = 0;
+
+		for (final CyEdge edge : edgeList) {
+			final Integer source = nodeIndex.get(edge.getSource());
+			final Integer target = nodeIndex.get(edge.getTarget());
+
+			if (source != null && target != null) {
+				sources[edgeCount] = source;
+				targets[edgeCount++] = target;
+			}
+		}
+
+		engine = new MultilevelEngine(MultilevelGraph.fromEdges(nodeCount, sources, targets, edgeCount),
+				context.edgeLength, context.theta, context.iterations, SEED);
+
+		if (cancelled)
+			return;
+
+		final ForkJoinPool pool = ForceChunks.createPool(context.parallelism);
+		final boolean completed;
+
+		try {
+			completed = engine.layout(x, y, !context.randomize, pool, taskMonitor);
+		} finally {
+			if (pool != null)
+				pool.shutdown();
+		}
+
+		if (!completed)
+			return;
+
+		taskMonitor.setStatusMessage("Updating display");
+
+		// Keep the nodes centered where they were
+		final double xDelta = initialX - average(x);
+		final double yDelta = initialY - average(y);
+
+		for (int i = 0; i < nodeCount; i++) {
+			final View<CyNode> nodeView = nodeViews.get(i);
+			nodeView.setVisualProperty(BasicVisualLexicon.NODE_X_LOCATION, x[i] + xDelta);
+			nodeView.setVisualProperty(BasicVisualLexicon.NODE_Y_LOCATION, y[i] + yDelta);
+		}
+	}
+
+	@Override
+	public void cancel() {
+		super.cancel();
+
+		final MultilevelEngine engine = this.engine;
+		if (engine != null)
+			engine.cancel();
+	}
+
+	private static double average(final double[] values) {
+		double sum = 0.0;
+		for (final double value : values)
+			sum += value;
+		return sum / values.length;
+	}
+}
@@ -0,0 +1,246 @@
+package csapps.layout.algorithms.multilevel;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Arrays;
+
+
+/**
+ * A Barnes-Hut quadtree over weighted points, kept in flat arrays so that
+ * rebuilding it every iteration creates no garbage.
+ * <p>
+ * The repulsion on a point is k^2 * mass / distance from every other point;
+ * a cell whose size is less than theta times its distance acts as a single
+ * point at its center of mass.  Once built, the tree is only read, so
+ * repulsions may be computed from several threads.
+ */
+final class QuadTree {
+
+	private static final int LEAF_SIZE = 8;
+	private static final int MAX_DEPTH = 40;
+
+	private double[] x;
+	private double[] y;
+	private double[] mass;
+
+	// Point indices, grouped by cell
+	private int[] order = new int[0];
+	private int[] quadrant = new int[0];
+	private int[] scratch = new int[0];
+
+	// The points per quadrant of the cell being split at each depth, which
+	// split() still needs after its children have been split, and where
+	// each quadrant's points go while they are being grouped
+	private final int[] counts = new int[4 * MAX_DEPTH];
+	private final int[] fill = new int[4];
+
+	// Cells.  A leaf has no children and holds order[start] to order[end - 1].
+	private int cellCount;
+	private int[] start = new int[0];
+	private int[] end = new int[0];
+	private int[] firstChild = new int[0];
+	private int[] childCount = new int[0];
+	private double[] size = new double[0];
+	private double[] centerX = new double[0];
+	private double[] centerY = new double[0];
+	private double[] cellMass = new double[0];
+
+	/**
+	 * Builds the tree over points 0 to n - 1.  The arrays are kept, not copied.
+	 */
+	void build(final double[] x, final double[] y, final double[] mass, final int n) {
+		this.x = x;
+		this.y = y;
+		this.mass = mass;
+
+		if (order.length < n) {
+			order = new int[n];
+			quadrant = new int[n];
+			scratch = new int[n];
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+
+		cellCount = 0;
+		if (n == 0)
+			return;
+
+		final int root = newCell(0, n, Math.max(maxX - minX, maxY - minY));
+		split(root, minX, minY, 0);
+	}
+
+	/**
+	 * Adds the repulsion on point i, scaled by k2, to force.
+	 */
+	void addRepulsion(final int i, final double theta, final double k2, final double[] force,
+	                  final int[] stack) {
+		if (cellCount == 0)
+			return;
+
+		final double theta2 = theta * theta;
+		final double xi = x[i];
+		final double yi = y[i];
+		double fx = 0.0;
+		double fy = 0.0;
+		int top = 0;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			final int cell = stack[--top];
+
+			if (firstChild[cell] < 0) {
+				for (int k = start[cell]; k < end[cell]; k++) {
+					final int j = order[k];
+					final double dx = xi - x[j];
+					final double dy = yi - y[j];
+					final double d2 = dx * dx + dy * dy;
+
+					if (j != i && d2 > 0.0) {
+						fx += dx * k2 * mass[j] / d2;
+						fy += dy * k2 * mass[j] / d2;
+					}
+				}
+				continue;
+			}
+
+			final double dx = xi - centerX[cell];
+			final double dy = yi - centerY[cell];
+			final double d2 = dx * dx + dy * dy;
+
+			if (size[cell] * size[cell] < theta2 * d2) {
+				fx += dx * k2 * cellMass[cell] / d2;
+				fy += dy * k2 * cellMass[cell] / d2;
+			} else {
+				for (int c = firstChild[cell]; c < firstChild[cell] + childCount[cell]; c++)
+					stack[top++] = c;
+			}
+		}
+
+		force[0] += fx;
+		force[1] += fy;
+	}
+
+	/**
+	 * The size of the stack addRepulsion needs.
+	 */
+	static int stackSize() {
+		return 4 * MAX_DEPTH + 4;
+	}
+
+	private void split(final int cell, final double minX, final double minY, final int depth) {
+		final int from = start[cell];
+		final int to = end[cell];
+
+		// Center of mass
+		double m = 0.0;
+		double cx = 0.0;
+		double cy = 0.0;
+		for (int k = from; k < to; k++) {
+			final int j = order[k];
+			m += mass[j];
+			cx += mass[j] * x[j];
+			cy += mass[j] * y[j];
+		}
+		cellMass[cell] = m;
+		centerX[cell] = m > 0.0 ? cx / m : x[order[from]];
+		centerY[cell] = m > 0.0 ? cy / m : y[order[from]];
+
+		if (to - from <= LEAF_SIZE || depth >= MAX_DEPTH || size[cell] <= 0.0)
+			return;
+
+		// Group the points by quadrant
+		final double half = size[cell] / 2.0;
+		final int base = 4 * depth;
+		Arrays.fill(counts, base, base + 4, 0);
+		for (int k = from; k < to; k++) {
+			final int j = order[k];
+			final int q = (x[j] < minX + half ? 0 : 1) + (y[j] < minY + half ? 0 : 2);
+			quadrant[k] = q;
+			counts[base + q]++;
+		}
+
+		int nonEmpty = 0;
+		for (int q = 0, offset = from; q < 4; q++) {
+			fill[q] = offset;
+			offset += counts[base + q];
+			if (counts[base + q] > 0)
+				nonEmpty++;
+		}
+		for (int k = from; k < to; k++)
+			scratch[fill[quadrant[k]]++] = order[k];
+		System.arraycopy(scratch, from, order, from, to - from);
+
+		// The children are allocated together, then split
+		final int first = cellCount;
+		firstChild[cell] = first;
+		childCount[cell] = nonEmpty;
+
+		int offset = from;
+		for (int q = 0; q < 4; q++) {
+			if (counts[base + q] > 0)
+				newCell(offset, offset + counts[base + q], half);
+			offset += counts[base + q];
+		}
+
+		int child = first;
+		for (int q = 0; q < 4; q++) {
+			if (counts[base + q] > 0)
+				split(child++, minX + ((q & 1) != 0 ? half : 0.0), minY + ((q & 2) != 0 ? half : 0.0), depth + 1);
+		}
+	}
+
+	private int newCell(final int from, final int to, final double cellSize) {
+		if (cellCount == start.length) {
+			final int capacity = Math.max(64, 2 * cellCount);
+			start = Arrays.copyOf(start, capacity);
+			end = Arrays.copyOf(end, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			childCount = Arrays.copyOf(childCount, capacity);
+			size = Arrays.copyOf(size, capacity);
+			centerX = Arrays.copyOf(centerX, capacity);
+			centerY = Arrays.copyOf(centerY, capacity);
+			cellMass = Arrays.copyOf(cellMass, capacity);
+		}
+
+		start[cellCount] = from;
+		end[cellCount] = to;
+		firstChild[cellCount] = -1;
+		childCount[cellCount] = 0;
+		size[cellCount] = cellSize;
+		return cellCount++;
+	}
+}
@@ -0,0 +1,107 @@
+package csapps.layout.algorithms.bioLayout;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Times the repulsion step of one Fruchterman-Reingold iteration against
+ * the number of nodes, in the exact mode (theta 0) and with the Barnes-Hut
+ * approximation.  The nodes are spread uniformly over a square sized like
+ * calculateSize() would size it, and the cutoff is the default 20% of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FRRepulsionBenchmark {
+
+	private static final double NODE_WIDTH = 30;
+
+	@Param({ "1000", "5000", "20000" })
+	public int nodeCount;
+
+	@Param({ "0", "0.5", "0.8" })
+	public double theta;
+
+	@Param({ "false", "true" })
+	public boolean layout3D;
+
+	private FRRepulsion repulsion;
+	private double repulsionConstant;
+	private double maxDistance;
+
+	public static void main(String[] args) throws RunnerException {
+		final Options opt = new OptionsBuilder()
+				.include(FRRepulsionBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(42);
+		final double side = Math.sqrt(nodeCount) * NODE_WIDTH * 2;
+
+		repulsion = new FRRepulsion(layout3D);
+		repulsion.reset(nodeCount);
+		for (int i = 0; i < nodeCount; i++) {
+			repulsion.setNode(i, random.nextDouble() * side, random.nextDouble() * side,
+			                  random.nextDouble() * side, NODE_WIDTH, false);
+		}
+
+		// As in calculateForces() and calculateSize() with the default tunables
+		repulsionConstant = Math.sqrt(side * side / nodeCount) * 0.04;
+		maxDistance = side * 20 / 100;
+	}
+
+	@Benchmark
+	public double iteration() {
+		repulsion.prepare(theta, repulsionConstant, maxDistance, 20);
+		repulsion.compute(0, nodeCount);
+		return repulsion.xDisp[0];
+	}
+}
@@ -0,0 +1,137 @@
+package csapps.layout.algorithms.multilevel;
+
+/*
+ * #%L
+ * Cytoscape Layout Algorithms Impl (layout-cytoscape-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation, either version 2.1 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ *
+ * You should have received a copy of the GNU General Lesser Public
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import csapps.layout.algorithms.bioLayout.ForceChunks;
+
+
+/**
+ * Times the multilevel layout, and its coarsening alone, on scale-free
+ * graphs made by Barabasi-Albert preferential attachment: each new node
+ * links to edgesPerNode existing nodes, picked with probability
+ * proportional to their degree.  A whole layout takes seconds, so each
+ * measurement is a single run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class MultilevelLayoutBenchmark {
+
+	@Param({ "10000", "100000", "500000" })
+	public int nodeCount;
+
+	@Param({ "2" })
+	public int edgesPerNode;
+
+	@Param({ "1" })
+	public int parallelism;
+
+	private int[] sources;
+	private int[] targets;
+	private int edgeCount;
+
+	public static void main(String[] args) throws RunnerException {
+		final Options opt = new OptionsBuilder()
+				.include(MultilevelLayoutBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(42);
+		final int maxEdges = nodeCount * edgesPerNode;
+
+		sources = new int[maxEdges];
+		targets = new int[maxEdges];
+		edgeCount = 0;
+
+		// Every edge end, so that a uniform pick is proportional to degree
+		final int[] ends = new int[2 * maxEdges];
+		int endCount = 0;
+
+		for (int node = 1; node < nodeCount; node++) {
+			for (int k = 0; k < Math.min(edgesPerNode, node); k++) {
+				final int target = (endCount == 0) ? 0 : ends[random.nextInt(endCount)];
+				sources[edgeCount] = node;
+				targets[edgeCount++] = target;
+				ends[endCount++] = node;
+				ends[endCount++] = target;
+			}
+		}
+	}
+
+	@Benchmark
+	public int coarsen() {
+		MultilevelGraph graph = MultilevelGraph.fromEdges(nodeCount, sources, targets, edgeCount);
+		int levels = 1;
+		while ((graph = graph.coarsen()) != null)
+			levels++;
+		return levels;
+	}
+
+	@Benchmark
+	public double layout() {
+		final MultilevelLayoutContext context = new MultilevelLayoutContext();
+		final MultilevelEngine engine = new MultilevelEngine(
+				MultilevelGraph.fromEdges(nodeCount, sources, targets, edgeCount),
+				context.edgeLength, context.theta, context.iterations, 1L);
+		final double[] x = new double[nodeCount];
+		final double[] y = new double[nodeCount];
+
+		final ForkJoinPool pool = ForceChunks.createPool(parallelism);
+		try {
+			engine.layout(x, y, false, pool, null);
+		} finally {
+			if (pool != null)
+				pool.shutdown();
+		}
+
+		return x[0];
+	}
+}
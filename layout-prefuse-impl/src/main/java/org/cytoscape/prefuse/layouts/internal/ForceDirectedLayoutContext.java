@@ -48,6 +48,8 @@ public class ForceDirectedLayoutContext implements TunableValidator {
 	public boolean isDeterministic;
 	@Tunable(description="Don't partition graph before layout:", groups="Standard Settings")
 	public boolean singlePartition;
+	@Tunable(description="Number of threads for force calculations (0: all processors):")
+	public int parallelism = 0;
 
 	@Override
 	public ValidationState getValidationState(final Appendable errMsg) {
@@ -60,9 +62,11 @@ public class ForceDirectedLayoutContext implements TunableValidator {
 			errMsg.append("Default spring length must be > 0; current value = "+defaultSpringLength);
 		if (!isPositive(defaultNodeMass))
 			errMsg.append("Default node mass must be > 0; current value = "+defaultNodeMass);
+		if (parallelism < 0)
+			errMsg.append("Number of threads must be >= 0; current value = "+parallelism);
 		} catch (IOException e) {}
 		return isPositive(numIterations) && isPositive(defaultSpringCoefficient)
-		       && isPositive(defaultSpringLength) && isPositive(defaultNodeMass)
+		       && isPositive(defaultSpringLength) && isPositive(defaultNodeMass) && parallelism >= 0
 			? ValidationState.OK : ValidationState.INVALID;
 	}
 
@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.cytoscape.model.CyNode;
 import org.cytoscape.view.layout.AbstractPartitionLayoutTask;
@@ -148,12 +149,20 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 		initialLocation = part.getAverageLocation();
 
 		// perform layout
-		long timestep = 1000L;
-		for ( int i = 0; i < context.numIterations && !cancelled; i++ ) {
-			timestep *= (1.0 - i/(double)context.numIterations);
-			long step = timestep+50;
-			m_fsim.runSimulator(step);
-			setTaskStatus((int)(((double)i/(double)context.numIterations)*90.+5));
+		final ForkJoinPool pool = createPool();
+		m_fsim.setPool(pool);
+		try {
+			long timestep = 1000L;
+			for ( int i = 0; i < context.numIterations && !cancelled; i++ ) {
+				timestep *= (1.0 - i/(double)context.numIterations);
+				long step = timestep+50;
+				m_fsim.runSimulator(step);
+				setTaskStatus((int)(((double)i/(double)context.numIterations)*90.+5));
+			}
+		} finally {
+			m_fsim.setPool(null);
+			if (pool != null)
+				pool.shutdown();
 		}
 		
 		// update positions
@@ -168,6 +177,16 @@ public class ForceDirectedLayoutTask extends AbstractPartitionLayoutTask {
 		}
 	}
 
+	/**
+	 * Creates the pool that computes the n-body forces, or returns null
+	 * to compute them on this thread.
+	 */
+	private ForkJoinPool createPool() {
+		final int threads = context.parallelism > 0 ? context.parallelism
+		                                            : Runtime.getRuntime().availableProcessors();
+		return threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
 	/**
 	 * Get the mass value associated with the given node. Subclasses should
 	 * override this method to perform custom mass assignment.
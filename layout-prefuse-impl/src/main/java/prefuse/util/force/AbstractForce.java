@@ -25,6 +25,8 @@ package prefuse.util.force;
  */
 
 
+import java.util.Random;
+
 /**
  * Abstract base class for force functions in a force simulation. This
  * skeletal version provides support for storing and retrieving float-valued
@@ -160,6 +162,15 @@ public abstract class AbstractForce implements Force {
             "This class does not support this operation");
     }
     
+    /**
+     * Calls {@link #getForce(ForceItem)}. Forces that add random noise
+     * should override this to draw it from the given generator.
+     * @see prefuse.util.force.Force#getForce(prefuse.util.force.ForceItem, java.util.Random)
+     */
+    public void getForce(ForceItem item, Random rand) {
+        getForce(item);
+    }
+    
     /**
      * Throws an UnsupportedOperationException.
      * @see prefuse.util.force.Force#getForce(prefuse.util.force.Spring)
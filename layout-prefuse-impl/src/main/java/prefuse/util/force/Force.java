@@ -25,6 +25,8 @@ package prefuse.util.force;
  */
 
 
+import java.util.Random;
+
 /**
  * Interface for force functions in a force simulation.
  *
@@ -122,6 +124,16 @@ public interface Force {
      */
     public void getForce(ForceItem item);
     
+    /**
+     * Updates the force calculation on the given ForceItem, taking any
+     * random noise from the given generator. The simulator uses this when
+     * it computes item forces concurrently, one generator per group of
+     * items, so that results do not depend on the thread count.
+     * @param item the ForceItem on which to compute updated forces
+     * @param rand the random number generator to use
+     */
+    public void getForce(ForceItem item, Random rand);
+    
     /**
      * Updates the force calculation on the given Spring. The ForceItems
      * attached to Spring will have their force values updated appropriately.
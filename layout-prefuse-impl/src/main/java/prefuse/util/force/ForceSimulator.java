@@ -27,6 +27,12 @@ package prefuse.util.force;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Manages a simulation of physical forces acting on bodies. To create a
@@ -45,6 +51,16 @@ public class ForceSimulator {
     private Integrator integrator;
     private float speedLimit = 1.0f;
     
+    /** Items per group when computing item forces. Fixed, so that the
+     *  noise drawn for each item does not depend on the thread count. */
+    private static final int CHUNK_SIZE = 512;
+    /** Below this many items the forces are computed on one thread. */
+    private static final int PARALLEL_THRESHOLD = 4 * CHUNK_SIZE;
+    
+    private ForkJoinPool pool;
+    private final long seed = 12345678L; // deterministic randomness
+    private long accumulations;
+    
     /**
      * Create a new, empty ForceSimulator. A RungeKuttaIntegrator is used
      * by default.
@@ -101,6 +117,15 @@ public class ForceSimulator {
         integrator = intgr;
     }
     
+    /**
+     * Set the pool used to compute item forces concurrently. The caller
+     * owns the pool and shuts it down.
+     * @param pool the pool to use, or null to compute on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
     /**
      * Clear this simulator, removing all ForceItem and Spring instances
      * for the simulator.
@@ -236,13 +261,7 @@ public class ForceSimulator {
             iforces[i].init(this);
         for ( int i = 0; i < sflen; i++ )
             sforces[i].init(this);
-        Iterator itemIter = items.iterator();
-        while ( itemIter.hasNext() ) {
-            ForceItem item = (ForceItem)itemIter.next();
-            item.force[0] = 0.0f; item.force[1] = 0.0f;
-            for ( int i = 0; i < iflen; i++ )
-                iforces[i].getForce(item);
-        }
+        accumulateItems();
         Iterator springIter = springs.iterator();
         while ( springIter.hasNext() ) {
             Spring s = (Spring)springIter.next();
@@ -252,4 +271,55 @@ public class ForceSimulator {
         }
     }
     
+    /**
+     * Computes the item forces in fixed groups of items, each with its own
+     * random generator. Item forces only write to the item they act on, so
+     * the groups can run concurrently.
+     */
+    private void accumulateItems() {
+        final int count = items.size();
+        final int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final long stepSeed = seed + accumulations++ * 0x9E3779B97F4A7C15L;
+        
+        if ( pool == null || count < PARALLEL_THRESHOLD ) {
+            for ( int c = 0; c < chunks; c++ )
+                accumulateItems(c, stepSeed);
+            return;
+        }
+        
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(chunks);
+        for ( int c = 0; c < chunks; c++ ) {
+            final int chunk = c;
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    accumulateItems(chunk, stepSeed);
+                    return null;
+                }
+            });
+        }
+        for ( Future<Void> future : pool.invokeAll(tasks) ) {
+            try {
+                future.get();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while computing forces", e);
+            } catch ( ExecutionException e ) {
+                if ( e.getCause() instanceof RuntimeException )
+                    throw (RuntimeException)e.getCause();
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+    
+    private void accumulateItems(int chunk, long stepSeed) {
+        Random rand = new Random(stepSeed + chunk);
+        int end = Math.min(items.size(), (chunk + 1) * CHUNK_SIZE);
+        for ( int j = chunk * CHUNK_SIZE; j < end; j++ ) {
+            ForceItem item = (ForceItem)items.get(j);
+            item.force[0] = 0.0f; item.force[1] = 0.0f;
+            for ( int i = 0; i < iflen; i++ )
+                iforces[i].getForce(item, rand);
+        }
+    }
+    
 } // end of class ForceSimulator
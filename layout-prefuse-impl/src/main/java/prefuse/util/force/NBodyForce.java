@@ -279,11 +279,23 @@ public class NBodyForce extends AbstractForce {
      * @param item the ForceItem for which to compute the force
      */
     public void getForce(ForceItem item) {
-        forceHelper(item,root,xMin,yMin,xMax,yMax);
+        forceHelper(item,root,xMin,yMin,xMax,yMax,rand);
+    }
+    
+    /**
+     * Calculates the force vector acting on the given item, drawing the
+     * noise for items at the same location from the given generator. The
+     * quadtree is only read, so items may be processed concurrently.
+     * @param item the ForceItem for which to compute the force
+     * @param rand the random number generator to use
+     */
+    public void getForce(ForceItem item, Random rand) {
+        forceHelper(item,root,xMin,yMin,xMax,yMax,rand);
     }
     
     private void forceHelper(ForceItem item, QuadTreeNode n, 
-                             float x1, float y1, float x2, float y2)
+                             float x1, float y1, float x2, float y2,
+                             Random rand)
     {
         float dx = n.com[0] - item.location[0];
         float dy = n.com[1] - item.location[1];
@@ -319,7 +331,7 @@ public class NBodyForce extends AbstractForce {
                 if ( n.children[i] != null ) {
                     forceHelper(item, n.children[i],
                         (i==1||i==3?splitx:x1), (i>1?splity:y1),
-                        (i==1||i==3?x2:splitx), (i>1?y2:splity));
+                        (i==1||i==3?x2:splitx), (i>1?y2:splity), rand);
                 }
             }
             if ( minDist ) return;
@@ -0,0 +1,130 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+
+/**
+ * A reusable cursor over the edges touching one node of a network.
+ * <p>
+ * Typical use walks primitive SUIDs:
+ * <pre>
+ * final AdjacencyCursor cursor = network.getAdjacencyCursor(node, CyEdge.Type.ANY);
+ * while (cursor.advance()) {
+ *     final long edge = cursor.edgeSuid();
+ *     final long neighbor = cursor.neighborSuid();
+ *     ...
+ * }
+ * </pre>
+ * The cursor is also an {@link Iterator} and {@link Iterable} of {@link CyEdge},
+ * which is what {@code getAdjacentEdgeIterable} returns. A cursor must not be
+ * shared between threads. The cursors a network hands out hold a copy of the
+ * node's adjacency, taken under the network's lock when they are created or
+ * reset, so they never fail on concurrent modification; they report the
+ * edges as they were at that time. A cursor that has been walked to the end
+ * hands its buffers to the next cursor created or reset on the same thread,
+ * so walking one node after the other only allocates the cursor objects and
+ * whatever the buffers need to grow. The cursors of an {@link AdjacencyStore}
+ * read the store directly and may only be used while its network's lock is
+ * held.
+ */
+public abstract class AdjacencyCursor implements Iterator<CyEdge>, Iterable<CyEdge> {
+
+	private boolean fetched;
+	private boolean available;
+
+	/**
+	 * Positions the cursor before the first edge of the given type that
+	 * touches the node. The node must be part of the cursor's network.
+	 */
+	public final AdjacencyCursor reset(final long nodeSuid, final CyEdge.Type edgeType) {
+		fetched = false;
+		available = false;
+		start(nodeSuid, SimpleNetwork.assessOutgoing(edgeType), SimpleNetwork.assessIncoming(edgeType),
+		      SimpleNetwork.assessUndirected(edgeType));
+		return this;
+	}
+
+	/**
+	 * Moves to the next edge and returns false if there is none.
+	 */
+	public final boolean advance() {
+		if (fetched) {
+			fetched = false;
+			return available;
+		}
+		return moveNext();
+	}
+
+	/** Returns the SUID of the current edge. */
+	public abstract long edgeSuid();
+
+	/** Returns the SUID of the node at the other end of the current edge. */
+	public abstract long neighborSuid();
+
+	/** Returns the current edge. */
+	public abstract CyEdge edge();
+
+	/** Returns the node at the other end of the current edge. */
+	public abstract CyNode neighbor();
+
+	protected abstract void start(long nodeSuid, boolean outgoing, boolean incoming, boolean undirected);
+
+	protected abstract boolean moveNext();
+
+	@Override
+	public final boolean hasNext() {
+		if (!fetched) {
+			available = moveNext();
+			fetched = true;
+		}
+		return available;
+	}
+
+	@Override
+	public final CyEdge next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		fetched = false;
+		return edge();
+	}
+
+	@Override
+	public final void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public final Iterator<CyEdge> iterator() {
+		return this;
+	}
+}
@@ -0,0 +1,78 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+
+/**
+ * The topology storage behind {@link SimpleNetwork}. Implementations
+ * are not thread safe; SimpleNetwork guards every call with its own lock.
+ * Nodes and edges are addressed by SUID, and all methods that take a node
+ * SUID assume that the node is contained in the store.
+ */
+interface AdjacencyStore {
+
+	int getNodeCount();
+
+	int getEdgeCount();
+
+	CyNode getNode(long nodeSuid);
+
+	CyEdge getEdge(long edgeSuid);
+
+	List<CyNode> getNodeList();
+
+	List<CyEdge> getEdgeList();
+
+	/**
+	 * Returns the number of edges of the given type touching the node. This is
+	 * an upper bound used for sizing result lists and for choosing the cheaper
+	 * side of a connecting-edge query.
+	 */
+	int countEdges(long nodeSuid, CyEdge.Type edgeType);
+
+	/**
+	 * Returns a new cursor over this store; it has to be
+	 * {@link AdjacencyCursor#reset reset} before use.
+	 */
+	AdjacencyCursor newCursor();
+
+	void addNode(CyNode node);
+
+	/**
+	 * Removes the node. The caller must have removed all adjacent edges first.
+	 */
+	void removeNode(long nodeSuid);
+
+	void addEdge(long sourceSuid, long targetSuid, boolean directed, CyEdge edge);
+
+	void removeEdge(long edgeSuid);
+}
@@ -0,0 +1,540 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+
+/**
+ * A compact {@link AdjacencyStore} that keeps the topology in parallel
+ * primitive arrays instead of one heap object per node and edge.
+ * <p>
+ * Nodes and edges live in dense slots. Each node slot holds the heads of
+ * its outgoing and incoming adjacency chains, and each edge slot holds the
+ * next links of both chains, so adjacency is walked through int arrays only.
+ * New edges are appended and pushed onto the head of both chains. Removed
+ * nodes and edges are tombstoned in place; once the tombstones outweigh the
+ * live entries the arrays are compacted, and edges are renumbered in
+ * source-node order so that each node's outgoing edges become contiguous
+ * (the CSR order).
+ */
+final class ArrayAdjacencyStore implements AdjacencyStore {
+
+	private static final int NIL = -1;
+	private static final int INITIAL_CAPACITY = 16;
+
+	// Compaction is not worth it for small stores.
+	private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+	// SUID -> slot + 1, so that the map's default value 0 means "absent".
+	private final OpenLongIntHashMap nodeSlots;
+	private final OpenLongIntHashMap edgeSlots;
+
+	// Node slots. A null entry in nodes marks a tombstone.
+	private CyNode[] nodes;
+	private long[] nodeSuids;
+	private int[] firstOut;
+	private int[] firstIn;
+	private int[] outDegree;
+	private int[] inDegree;
+	private int[] undDegree;
+	private int[] selfEdges;
+	private int nodeTop;
+	private int nodeCount;
+
+	// Edge slots. A null entry in edges marks a tombstone.
+	private CyEdge[] edges;
+	private long[] edgeSuids;
+	private int[] edgeSource;
+	private int[] edgeTarget;
+	private int[] nextOut;
+	private int[] nextIn;
+	private boolean[] directed;
+	private int edgeTop;
+	private int edgeCount;
+
+	ArrayAdjacencyStore() {
+		nodeSlots = new OpenLongIntHashMap();
+		edgeSlots = new OpenLongIntHashMap();
+
+		nodes = new CyNode[INITIAL_CAPACITY];
+		nodeSuids = new long[INITIAL_CAPACITY];
+		firstOut = new int[INITIAL_CAPACITY];
+		firstIn = new int[INITIAL_CAPACITY];
+		outDegree = new int[INITIAL_CAPACITY];
+		inDegree = new int[INITIAL_CAPACITY];
+		undDegree = new int[INITIAL_CAPACITY];
+		selfEdges = new int[INITIAL_CAPACITY];
+
+		edges = new CyEdge[INITIAL_CAPACITY];
+		edgeSuids = new long[INITIAL_CAPACITY];
+		edgeSource = new int[INITIAL_CAPACITY];
+		edgeTarget = new int[INITIAL_CAPACITY];
+		nextOut = new int[INITIAL_CAPACITY];
+		nextIn = new int[INITIAL_CAPACITY];
+		directed = new boolean[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public CyNode getNode(final long nodeSuid) {
+		final int slot = nodeSlot(nodeSuid);
+		return slot == NIL ? null : nodes[slot];
+	}
+
+	@Override
+	public CyEdge getEdge(final long edgeSuid) {
+		final int slot = edgeSlot(edgeSuid);
+		return slot == NIL ? null : edges[slot];
+	}
+
+	@Override
+	public List<CyNode> getNodeList() {
+		final List<CyNode> ret = new ArrayList<>(nodeCount);
+		for (int i = 0; i < nodeTop; i++) {
+			if (nodes[i] != null)
+				ret.add(nodes[i]);
+		}
+		return ret;
+	}
+
+	@Override
+	public List<CyEdge> getEdgeList() {
+		final List<CyEdge> ret = new ArrayList<>(edgeCount);
+		for (int i = 0; i < edgeTop; i++) {
+			if (edges[i] != null)
+				ret.add(edges[i]);
+		}
+		return ret;
+	}
+
+	@Override
+	public void addNode(final CyNode node) {
+		if (nodeTop == nodes.length)
+			growNodes();
+
+		final int slot = nodeTop++;
+		nodes[slot] = node;
+		nodeSuids[slot] = node.getSUID();
+		firstOut[slot] = NIL;
+		firstIn[slot] = NIL;
+		outDegree[slot] = 0;
+		inDegree[slot] = 0;
+		undDegree[slot] = 0;
+		selfEdges[slot] = 0;
+
+		nodeSlots.put(node.getSUID(), slot + 1);
+		nodeCount++;
+	}
+
+	@Override
+	public void removeNode(final long nodeSuid) {
+		final int slot = nodeSlot(nodeSuid);
+		nodeSlots.removeKey(nodeSuid);
+		nodes[slot] = null;
+		nodeCount--;
+
+		compactIfNeeded();
+	}
+
+	@Override
+	public void addEdge(final long sourceSuid, final long targetSuid, final boolean dir, final CyEdge edge) {
+		if (edgeTop == edges.length)
+			growEdges();
+
+		final int source = nodeSlot(sourceSuid);
+		final int target = nodeSlot(targetSuid);
+		final int slot = edgeTop++;
+
+		edges[slot] = edge;
+		edgeSuids[slot] = edge.getSUID();
+		edgeSource[slot] = source;
+		edgeTarget[slot] = target;
+		directed[slot] = dir;
+
+		nextOut[slot] = firstOut[source];
+		firstOut[source] = slot;
+		nextIn[slot] = firstIn[target];
+		firstIn[target] = slot;
+
+		if (dir) {
+			outDegree[source]++;
+			inDegree[target]++;
+		} else {
+			undDegree[source]++;
+			undDegree[target]++;
+		}
+
+		if (source == target)
+			selfEdges[source]++;
+
+		edgeSlots.put(edge.getSUID(), slot + 1);
+		edgeCount++;
+	}
+
+	@Override
+	public void removeEdge(final long edgeSuid) {
+		final int slot = edgeSlot(edgeSuid);
+		final int source = edgeSource[slot];
+		final int target = edgeTarget[slot];
+
+		// The slot stays linked into both adjacency chains as a tombstone
+		// and is skipped by the iterators until the next compaction.
+		if (directed[slot]) {
+			outDegree[source]--;
+			inDegree[target]--;
+		} else {
+			undDegree[source]--;
+			undDegree[target]--;
+		}
+
+		if (source == target)
+			selfEdges[source]--;
+
+		edgeSlots.removeKey(edgeSuid);
+		edges[slot] = null;
+		edgeCount--;
+
+		compactIfNeeded();
+	}
+
+	@Override
+	public int countEdges(final long nodeSuid, final CyEdge.Type edgeType) {
+		final int n = nodeSlot(nodeSuid);
+		assert(n != NIL);
+		final boolean undirected = SimpleNetwork.assessUndirected(edgeType);
+		final boolean incoming = SimpleNetwork.assessIncoming(edgeType);
+		final boolean outgoing = SimpleNetwork.assessOutgoing(edgeType);
+
+		int count = 0;
+
+		if (outgoing)
+			count += outDegree[n];
+		if (incoming)
+			count += inDegree[n];
+		if (undirected)
+			count += undDegree[n];
+
+		if (outgoing && incoming)
+			count -= selfEdges[n];
+
+		return count;
+	}
+
+	@Override
+	public AdjacencyCursor newCursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Walks the outgoing chain of the node first and then its incoming chain.
+	 * The arrays are captured when the cursor is reset, so a compaction or a
+	 * growth of the store never leaves it with mismatched slot numbers.
+	 */
+	private final class Cursor extends AdjacencyCursor {
+
+		private CyNode[] nodesRef;
+		private long[] nodeSuidsRef;
+		private CyEdge[] edgesRef;
+		private long[] edgeSuidsRef;
+		private int[] edgeSourceRef;
+		private int[] edgeTargetRef;
+		private int[] nextOutRef;
+		private int[] nextInRef;
+		private boolean[] directedRef;
+
+		private int node;
+		private int inHead;
+		private boolean outgoing;
+		private boolean incoming;
+		private boolean undirected;
+		private boolean inPhase;
+		private int slot;
+		private int current;
+
+		@Override
+		protected void start(final long nodeSuid, final boolean outgoing, final boolean incoming,
+		                     final boolean undirected) {
+			node = nodeSlot(nodeSuid);
+			assert(node != NIL);
+
+			nodesRef = nodes;
+			nodeSuidsRef = nodeSuids;
+			edgesRef = edges;
+			edgeSuidsRef = edgeSuids;
+			edgeSourceRef = edgeSource;
+			edgeTargetRef = edgeTarget;
+			nextOutRef = nextOut;
+			nextInRef = nextIn;
+			directedRef = directed;
+
+			this.outgoing = outgoing;
+			this.incoming = incoming;
+			this.undirected = undirected;
+			inHead = (incoming || undirected) ? firstIn[node] : NIL;
+			current = NIL;
+
+			if (outgoing || undirected) {
+				inPhase = false;
+				slot = firstOut[node];
+			} else {
+				inPhase = true;
+				slot = inHead;
+			}
+		}
+
+		@Override
+		protected boolean moveNext() {
+			while (true) {
+				if (slot == NIL) {
+					if (inPhase) {
+						current = NIL;
+						return false;
+					}
+					inPhase = true;
+					slot = inHead;
+					continue;
+				}
+
+				final int candidate = slot;
+
+				if (!inPhase) {
+					slot = nextOutRef[candidate];
+					if (edgesRef[candidate] != null && matchesOutgoing(candidate)) {
+						current = candidate;
+						return true;
+					}
+				} else {
+					slot = nextInRef[candidate];
+					// Self-edges already reported from the outgoing chain are skipped.
+					if (edgesRef[candidate] != null
+					    && ((incoming && directedRef[candidate]) || (undirected && !directedRef[candidate]))
+					    && !(edgeSourceRef[candidate] == edgeTargetRef[candidate] && matchesOutgoing(candidate))) {
+						current = candidate;
+						return true;
+					}
+				}
+			}
+		}
+
+		private boolean matchesOutgoing(final int e) {
+			return (outgoing && directedRef[e]) || (undirected && !directedRef[e]);
+		}
+
+		@Override
+		public long edgeSuid() {
+			return edgeSuidsRef[current];
+		}
+
+		@Override
+		public long neighborSuid() {
+			return nodeSuidsRef[otherEnd()];
+		}
+
+		@Override
+		public CyEdge edge() {
+			return edgesRef[current];
+		}
+
+		@Override
+		public CyNode neighbor() {
+			return nodesRef[otherEnd()];
+		}
+
+		private int otherEnd() {
+			final int source = edgeSourceRef[current];
+			return source == node ? edgeTargetRef[current] : source;
+		}
+	}
+
+	private int nodeSlot(final long nodeSuid) {
+		return nodeSlots.get(nodeSuid) - 1;
+	}
+
+	private int edgeSlot(final long edgeSuid) {
+		return edgeSlots.get(edgeSuid) - 1;
+	}
+
+	private void growNodes() {
+		final int capacity = nodes.length + (nodes.length >> 1) + 1;
+		nodes = Arrays.copyOf(nodes, capacity);
+		nodeSuids = Arrays.copyOf(nodeSuids, capacity);
+		firstOut = Arrays.copyOf(firstOut, capacity);
+		firstIn = Arrays.copyOf(firstIn, capacity);
+		outDegree = Arrays.copyOf(outDegree, capacity);
+		inDegree = Arrays.copyOf(inDegree, capacity);
+		undDegree = Arrays.copyOf(undDegree, capacity);
+		selfEdges = Arrays.copyOf(selfEdges, capacity);
+	}
+
+	private void growEdges() {
+		final int capacity = edges.length + (edges.length >> 1) + 1;
+		edges = Arrays.copyOf(edges, capacity);
+		edgeSuids = Arrays.copyOf(edgeSuids, capacity);
+		edgeSource = Arrays.copyOf(edgeSource, capacity);
+		edgeTarget = Arrays.copyOf(edgeTarget, capacity);
+		nextOut = Arrays.copyOf(nextOut, capacity);
+		nextIn = Arrays.copyOf(nextIn, capacity);
+		directed = Arrays.copyOf(directed, capacity);
+	}
+
+	private void compactIfNeeded() {
+		final int tombstones = (nodeTop - nodeCount) + (edgeTop - edgeCount);
+		if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones > nodeCount + edgeCount)
+			compact();
+	}
+
+	/**
+	 * Drops all tombstones and renumbers the live slots. Edges are laid out
+	 * in the order of their source node's outgoing chain, which keeps the
+	 * iteration order of every adjacency chain unchanged.
+	 */
+	void compact() {
+		final int[] nodeRemap = new int[nodeTop];
+		int newNodeTop = 0;
+		for (int i = 0; i < nodeTop; i++)
+			nodeRemap[i] = nodes[i] != null ? newNodeTop++ : NIL;
+
+		final int[] edgeRemap = new int[edgeTop];
+		Arrays.fill(edgeRemap, NIL);
+		int newEdgeTop = 0;
+		for (int i = 0; i < nodeTop; i++) {
+			if (nodes[i] == null)
+				continue;
+			for (int e = firstOut[i]; e != NIL; e = nextOut[e]) {
+				if (edges[e] != null)
+					edgeRemap[e] = newEdgeTop++;
+			}
+		}
+
+		final int nodeCapacity = Math.max(INITIAL_CAPACITY, newNodeTop + (newNodeTop >> 1));
+		final CyNode[] newNodes = new CyNode[nodeCapacity];
+		final long[] newNodeSuids = new long[nodeCapacity];
+		final int[] newFirstOut = new int[nodeCapacity];
+		final int[] newFirstIn = new int[nodeCapacity];
+		final int[] newOutDegree = new int[nodeCapacity];
+		final int[] newInDegree = new int[nodeCapacity];
+		final int[] newUndDegree = new int[nodeCapacity];
+		final int[] newSelfEdges = new int[nodeCapacity];
+
+		final int edgeCapacity = Math.max(INITIAL_CAPACITY, newEdgeTop + (newEdgeTop >> 1));
+		final CyEdge[] newEdges = new CyEdge[edgeCapacity];
+		final long[] newEdgeSuids = new long[edgeCapacity];
+		final int[] newEdgeSource = new int[edgeCapacity];
+		final int[] newEdgeTarget = new int[edgeCapacity];
+		final int[] newNextOut = new int[edgeCapacity];
+		final int[] newNextIn = new int[edgeCapacity];
+		final boolean[] newDirected = new boolean[edgeCapacity];
+
+		for (int e = 0; e < edgeTop; e++) {
+			final int ne = edgeRemap[e];
+			if (ne == NIL)
+				continue;
+			newEdges[ne] = edges[e];
+			newEdgeSuids[ne] = edgeSuids[e];
+			newEdgeSource[ne] = nodeRemap[edgeSource[e]];
+			newEdgeTarget[ne] = nodeRemap[edgeTarget[e]];
+			newDirected[ne] = directed[e];
+			edgeSlots.put(edgeSuids[e], ne + 1);
+		}
+
+		for (int i = 0; i < nodeTop; i++) {
+			final int ni = nodeRemap[i];
+			if (ni == NIL)
+				continue;
+
+			newNodes[ni] = nodes[i];
+			newNodeSuids[ni] = nodeSuids[i];
+			newOutDegree[ni] = outDegree[i];
+			newInDegree[ni] = inDegree[i];
+			newUndDegree[ni] = undDegree[i];
+			newSelfEdges[ni] = selfEdges[i];
+			nodeSlots.put(nodeSuids[i], ni + 1);
+
+			newFirstOut[ni] = relink(firstOut[i], nextOut, edgeRemap, newNextOut);
+			newFirstIn[ni] = relink(firstIn[i], nextIn, edgeRemap, newNextIn);
+		}
+
+		nodes = newNodes;
+		nodeSuids = newNodeSuids;
+		firstOut = newFirstOut;
+		firstIn = newFirstIn;
+		outDegree = newOutDegree;
+		inDegree = newInDegree;
+		undDegree = newUndDegree;
+		selfEdges = newSelfEdges;
+		nodeTop = newNodeTop;
+
+		edges = newEdges;
+		edgeSuids = newEdgeSuids;
+		edgeSource = newEdgeSource;
+		edgeTarget = newEdgeTarget;
+		nextOut = newNextOut;
+		nextIn = newNextIn;
+		directed = newDirected;
+		edgeTop = newEdgeTop;
+	}
+
+	/**
+	 * Rebuilds one adjacency chain in the new numbering, skipping tombstones,
+	 * and returns its new head.
+	 */
+	private static int relink(final int head, final int[] oldNext, final int[] edgeRemap, final int[] newNext) {
+		int newHead = NIL;
+		int prev = NIL;
+		for (int e = head; e != NIL; e = oldNext[e]) {
+			final int ne = edgeRemap[e];
+			if (ne == NIL)
+				continue;
+			if (prev == NIL)
+				newHead = ne;
+			else
+				newNext[prev] = ne;
+			prev = ne;
+		}
+		if (prev != NIL)
+			newNext[prev] = NIL;
+
+		return newHead;
+	}
+}
@@ -0,0 +1,97 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * A secondary hash index of one table column, mapping each stored (raw) value
+ * to the primary keys of the rows holding it.  {@link CyTableImpl} keeps it in
+ * step with the column on every write, so value lookups do not have to scan
+ * the column.  Not thread safe.
+ */
+final class ColumnIndex {
+
+	private final Map<Object, Set<Object>> keysByValue;
+
+	/**
+	 * Creates an index over the current contents of a column.
+	 * @param keyToValueMap the column's primary key to raw value map
+	 */
+	ColumnIndex(final Map<Object, Object> keyToValueMap) {
+		keysByValue = new HashMap<Object, Set<Object>>();
+		for (Map.Entry<Object, Object> entry : keyToValueMap.entrySet())
+			add(entry.getKey(), entry.getValue());
+	}
+
+	/**
+	 * Records that the value of the key changed from oldValue to newValue,
+	 * either of which may be null.
+	 */
+	void update(final Object key, final Object oldValue, final Object newValue) {
+		if (oldValue != null)
+			remove(key, oldValue);
+		if (newValue != null)
+			add(key, newValue);
+	}
+
+	/**
+	 * Returns the keys of all rows holding the value.  The result must not be
+	 * modified and is only valid until the next update.
+	 */
+	Collection<Object> getKeys(final Object value) {
+		final Set<Object> keys = value == null ? null : keysByValue.get(value);
+		return keys == null ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+	}
+
+	int count(final Object value) {
+		final Set<Object> keys = value == null ? null : keysByValue.get(value);
+		return keys == null ? 0 : keys.size();
+	}
+
+	private void add(final Object key, final Object value) {
+		Set<Object> keys = keysByValue.get(value);
+		if (keys == null) {
+			keys = new HashSet<Object>();
+			keysByValue.put(value, keys);
+		}
+		keys.add(key);
+	}
+
+	private void remove(final Object key, final Object value) {
+		final Set<Object> keys = keysByValue.get(value);
+		if (keys != null && keys.remove(key) && keys.isEmpty())
+			keysByValue.remove(value);
+	}
+}
@@ -0,0 +1,373 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * Column storage that keeps the values of a scalar column in a primitive
+ * array indexed by the table's {@link RowOrdinals}, with a bitmap recording
+ * which cells are set.  Cells holding something other than a plain value of
+ * the column type (i.e. equations) go to a small overflow map.
+ * <p>
+ * This is a drop-in replacement for the per-column key to value
+ * <code>HashMap</code>s used by {@link CyTableImpl}, so it implements
+ * <code>Map</code> and hands out boxed values on the way out.  Storing
+ * <code>null</code> is the same as removing the key.  Not thread safe.
+ */
+abstract class ColumnarValueMap extends AbstractMap<Object, Object> {
+
+	final RowOrdinals ordinals;
+	private final BitSet present = new BitSet();
+	private Map<Integer, Object> overflow;
+	private int size;
+	private Set<Entry<Object, Object>> entrySet;
+
+	ColumnarValueMap(final RowOrdinals ordinals) {
+		this.ordinals = ordinals;
+	}
+
+	/**
+	 * Returns columnar storage for scalar columns of the given type or
+	 * <code>null</code> if the type has no primitive representation.
+	 */
+	static ColumnarValueMap create(final Class<?> type, final RowOrdinals ordinals, final int initialCapacity) {
+		if (type == Long.class)
+			return new LongColumn(ordinals, initialCapacity);
+		if (type == Double.class)
+			return new DoubleColumn(ordinals, initialCapacity);
+		if (type == Integer.class)
+			return new IntegerColumn(ordinals, initialCapacity);
+		if (type == Boolean.class)
+			return new BooleanColumn(ordinals);
+		if (type == String.class)
+			return new StringColumn(ordinals, initialCapacity);
+		return null;
+	}
+
+	/** Returns the boxed value of a cell that was stored through {@link #write}. */
+	abstract Object read(int ordinal);
+
+	/**
+	 * Stores the value in the primitive storage and returns true, or returns
+	 * false if the value is not of the column type.
+	 */
+	abstract boolean write(int ordinal, Object value);
+
+	/** Releases whatever a cell stored through {@link #write} holds on to. */
+	void erase(final int ordinal) {
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		final int ordinal = ordinals.get(key);
+		return ordinal != RowOrdinals.NONE && present.get(ordinal);
+	}
+
+	@Override
+	public Object get(final Object key) {
+		final int ordinal = ordinals.get(key);
+		if (ordinal == RowOrdinals.NONE || !present.get(ordinal))
+			return null;
+		return cell(ordinal);
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		if (value == null)
+			return remove(key);
+
+		final int ordinal = ordinals.getOrAdd(key);
+		final Object previous;
+		if (present.get(ordinal)) {
+			previous = cell(ordinal);
+			discard(ordinal);
+		} else {
+			previous = null;
+			present.set(ordinal);
+			size++;
+		}
+
+		if (!write(ordinal, value)) {
+			if (overflow == null)
+				overflow = new HashMap<Integer, Object>();
+			overflow.put(Integer.valueOf(ordinal), value);
+		}
+
+		return previous;
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		final int ordinal = ordinals.get(key);
+		if (ordinal == RowOrdinals.NONE || !present.get(ordinal))
+			return null;
+
+		final Object previous = cell(ordinal);
+		discard(ordinal);
+		present.clear(ordinal);
+		size--;
+		return previous;
+	}
+
+	@Override
+	public Set<Entry<Object, Object>> entrySet() {
+		if (entrySet == null)
+			entrySet = new EntrySet();
+		return entrySet;
+	}
+
+	private Object cell(final int ordinal) {
+		if (overflow != null && !overflow.isEmpty()) {
+			final Object value = overflow.get(Integer.valueOf(ordinal));
+			if (value != null)
+				return value;
+		}
+		return read(ordinal);
+	}
+
+	private void discard(final int ordinal) {
+		if (overflow == null || overflow.isEmpty() || overflow.remove(Integer.valueOf(ordinal)) == null)
+			erase(ordinal);
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<Object, Object>> {
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Iterator<Entry<Object, Object>> iterator() {
+			return new Iterator<Entry<Object, Object>>() {
+				private int next = present.nextSetBit(0);
+				private Object lastKey;
+
+				@Override
+				public boolean hasNext() {
+					return next >= 0;
+				}
+
+				@Override
+				public Entry<Object, Object> next() {
+					if (next < 0)
+						throw new NoSuchElementException();
+					final int ordinal = next;
+					next = present.nextSetBit(ordinal + 1);
+					lastKey = ordinals.keyAt(ordinal);
+					return new SimpleImmutableEntry<Object, Object>(lastKey, cell(ordinal));
+				}
+
+				@Override
+				public void remove() {
+					if (lastKey == null)
+						throw new IllegalStateException();
+					ColumnarValueMap.this.remove(lastKey);
+					lastKey = null;
+				}
+			};
+		}
+	}
+
+	private static final class LongColumn extends ColumnarValueMap {
+		private long[] values;
+
+		LongColumn(final RowOrdinals ordinals, final int initialCapacity) {
+			super(ordinals);
+			values = new long[Math.max(initialCapacity, 16)];
+		}
+
+		@Override
+		Object read(final int ordinal) {
+			return Long.valueOf(values[ordinal]);
+		}
+
+		@Override
+		boolean write(final int ordinal, final Object value) {
+			if (!(value instanceof Long))
+				return false;
+			if (ordinal >= values.length)
+				values = Arrays.copyOf(values, Math.max(ordinal + 1, RowOrdinals.grow(values.length)));
+			values[ordinal] = ((Long) value).longValue();
+			return true;
+		}
+	}
+
+	private static final class DoubleColumn extends ColumnarValueMap {
+		private double[] values;
+
+		DoubleColumn(final RowOrdinals ordinals, final int initialCapacity) {
+			super(ordinals);
+			values = new double[Math.max(initialCapacity, 16)];
+		}
+
+		@Override
+		Object read(final int ordinal) {
+			return Double.valueOf(values[ordinal]);
+		}
+
+		@Override
+		boolean write(final int ordinal, final Object value) {
+			if (!(value instanceof Double))
+				return false;
+			if (ordinal >= values.length)
+				values = Arrays.copyOf(values, Math.max(ordinal + 1, RowOrdinals.grow(values.length)));
+			values[ordinal] = ((Double) value).doubleValue();
+			return true;
+		}
+	}
+
+	private static final class IntegerColumn extends ColumnarValueMap {
+		private int[] values;
+
+		IntegerColumn(final RowOrdinals ordinals, final int initialCapacity) {
+			super(ordinals);
+			values = new int[Math.max(initialCapacity, 16)];
+		}
+
+		@Override
+		Object read(final int ordinal) {
+			return Integer.valueOf(values[ordinal]);
+		}
+
+		@Override
+		boolean write(final int ordinal, final Object value) {
+			if (!(value instanceof Integer))
+				return false;
+			if (ordinal >= values.length)
+				values = Arrays.copyOf(values, Math.max(ordinal + 1, RowOrdinals.grow(values.length)));
+			values[ordinal] = ((Integer) value).intValue();
+			return true;
+		}
+	}
+
+	private static final class BooleanColumn extends ColumnarValueMap {
+		private final BitSet values = new BitSet();
+
+		BooleanColumn(final RowOrdinals ordinals) {
+			super(ordinals);
+		}
+
+		@Override
+		Object read(final int ordinal) {
+			return Boolean.valueOf(values.get(ordinal));
+		}
+
+		@Override
+		boolean write(final int ordinal, final Object value) {
+			if (!(value instanceof Boolean))
+				return false;
+			values.set(ordinal, ((Boolean) value).booleanValue());
+			return true;
+		}
+	}
+
+	/**
+	 * Dictionary-encodes its values: every distinct string is kept once and
+	 * cells store its code.  Codes are reference counted and recycled once no
+	 * cell uses them any more.
+	 */
+	private static final class StringColumn extends ColumnarValueMap {
+		private int[] codes;
+		private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+		private String[] strings = new String[16];
+		private int[] refCounts = new int[16];
+		private int stringCount;
+		private int[] freeCodes = new int[16];
+		private int freeCount;
+
+		StringColumn(final RowOrdinals ordinals, final int initialCapacity) {
+			super(ordinals);
+			codes = new int[Math.max(initialCapacity, 16)];
+		}
+
+		@Override
+		Object read(final int ordinal) {
+			return strings[codes[ordinal]];
+		}
+
+		@Override
+		boolean write(final int ordinal, final Object value) {
+			if (!(value instanceof String))
+				return false;
+			if (ordinal >= codes.length)
+				codes = Arrays.copyOf(codes, Math.max(ordinal + 1, RowOrdinals.grow(codes.length)));
+
+			final String string = (String) value;
+			final Integer existing = dictionary.get(string);
+			final int code;
+			if (existing != null) {
+				code = existing.intValue();
+			} else {
+				if (freeCount > 0) {
+					code = freeCodes[--freeCount];
+				} else {
+					code = stringCount++;
+					if (code == strings.length) {
+						strings = Arrays.copyOf(strings, RowOrdinals.grow(strings.length));
+						refCounts = Arrays.copyOf(refCounts, strings.length);
+					}
+				}
+				strings[code] = string;
+				dictionary.put(string, Integer.valueOf(code));
+			}
+
+			refCounts[code]++;
+			codes[ordinal] = code;
+			return true;
+		}
+
+		@Override
+		void erase(final int ordinal) {
+			final int code = codes[ordinal];
+			if (--refCounts[code] > 0)
+				return;
+
+			dictionary.remove(strings[code]);
+			strings[code] = null;
+			if (freeCount == freeCodes.length)
+				freeCodes = Arrays.copyOf(freeCodes, RowOrdinals.grow(freeCodes.length));
+			freeCodes[freeCount++] = code;
+		}
+	}
+}
@@ -89,7 +89,24 @@ public final class CyRootNetworkImpl extends DefaultTablesNetwork implements CyR
 	                         final boolean publicTables,
 	                         final SavePolicy savePolicy)
 	{
-		super(SUIDFactory.getNextSUID(), networkTableMgr, tableFactory,publicTables,0,eh);
+		this(eh, tableMgr, networkTableMgr, tableFactory, serviceRegistrar, publicTables, savePolicy,
+		     Boolean.getBoolean(COMPACT_STORAGE_PROPERTY));
+	}
+
+	/**
+	 * Creates a root network whose topology, and that of all its subnetworks,
+	 * is kept in primitive arrays when compactStorage is true.
+	 */
+	public CyRootNetworkImpl(final CyEventHelper eh, 
+	                         final CyTableManagerImpl tableMgr,
+	                         final CyNetworkTableManager networkTableMgr,
+	                         final CyTableFactory tableFactory,
+	                         final CyServiceRegistrar serviceRegistrar, 
+	                         final boolean publicTables,
+	                         final SavePolicy savePolicy,
+	                         final boolean compactStorage)
+	{
+		super(SUIDFactory.getNextSUID(), networkTableMgr, tableFactory,publicTables,0,eh,compactStorage);
 		
 		assert(savePolicy != null);
 		
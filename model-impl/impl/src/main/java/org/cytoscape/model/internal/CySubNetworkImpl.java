@@ -78,7 +78,7 @@ public final class CySubNetworkImpl extends DefaultTablesNetwork implements CySu
 	                 boolean publicTables,
 	                 int tableSizeDeterminer,
 	                 final SavePolicy savePolicy) {
-		super(suid, netTableMgr, tableFactory,publicTables,tableSizeDeterminer,eventHelper);
+		super(suid, netTableMgr, tableFactory,publicTables,tableSizeDeterminer,eventHelper,par.usesCompactStorage());
 
 		assert(par != null);
 		assert(savePolicy != null);
@@ -36,8 +36,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.IdentDescriptor;
 import org.cytoscape.equations.Interpreter;
 import org.cytoscape.event.CyEventHelper;
 import org.cytoscape.model.CyColumn;
@@ -65,6 +67,19 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	
 	private static final Logger logger = LoggerFactory.getLogger(CyTableImpl.class);
 
+	/**
+	 * System property that makes tables created through the default constructor keep
+	 * their scalar columns in primitive, columnar storage instead of hash maps.
+	 */
+	public static final String COLUMNAR_STORAGE_PROPERTY = "cytoscape.model.columnar.tables";
+
+	// Number of full scans of a column by getMatchingRows()/countMatchingRows() after which
+	// the column gets a value index.
+	static final int INDEX_AFTER_SCANS = 2;
+
+	// Minimum number of equations in a column for recomputeColumn() to evaluate them in parallel.
+	private static final int PARALLEL_RECOMPUTE_THRESHOLD = 1000;
+
 	private Set<String> currentlyActiveAttributes;
 	private Map<String, Map<Object, Object>> attributes; // Maps column names to (key,value) pairs, where "key" is the primary key.
 	private Map<Object, CyRow> rows; // Maps the primary key to CyRow.
@@ -101,10 +116,22 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	private SavePolicy savePolicy;
 	private boolean fireEvents;
 	
+	// Non-null if scalar columns use columnar storage; shared by all of those columns.
+	private RowOrdinals ordinals;
+
+	// Value indexes of non-virtual scalar columns and the scan counts used to decide which columns get one.
+	private Map<String, ColumnIndex> columnIndexes;
+	private Map<String, Integer> columnScans;
+
+	private EquationCache equationCache;
+	// Set while evaluating an equation whose result depends on something other than cells of this table.
+	private boolean volatileEvaluation;
+	
 	private final Object lock = new Object();
 	
 	/**
-	 * Creates a new CyTableImpl object.
+	 * Creates a new CyTableImpl object.  The column storage is selected by the
+	 * {@link #COLUMNAR_STORAGE_PROPERTY} system property.
 	 */
 	public CyTableImpl(	final String title,
 						final String primaryKey,
@@ -115,6 +142,25 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 						final CyEventHelper eventHelper,
 						final Interpreter interpreter,
 						final int defaultInitSize) {
+		this(title, primaryKey, primaryKeyType, pub, isMutable, savePolicy, eventHelper, interpreter,
+		     defaultInitSize, Boolean.getBoolean(COLUMNAR_STORAGE_PROPERTY));
+	}
+
+	/**
+	 * Creates a new CyTableImpl object.
+	 * @param columnarStorage if true, Long, Double, Integer, Boolean and String columns are stored
+	 *        in primitive arrays indexed by a dense row ordinal instead of one hash map per column
+	 */
+	public CyTableImpl(	final String title,
+						final String primaryKey,
+						Class<?> primaryKeyType,
+						final boolean pub,
+						final boolean isMutable,
+						SavePolicy savePolicy,
+						final CyEventHelper eventHelper,
+						final Interpreter interpreter,
+						final int defaultInitSize,
+						final boolean columnarStorage) {
 		this.title = title;
 		this.primaryKey = primaryKey;
 		this.pub = pub;
@@ -128,6 +174,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 		currentlyActiveAttributes = new HashSet<String>();
 		attributes = new HashMap<String, Map<Object, Object>>();
+		ordinals = columnarStorage ? new RowOrdinals(primaryKeyType, defaultInitSize) : null;
+		columnIndexes = new HashMap<String, ColumnIndex>();
+		columnScans = new HashMap<String, Integer>();
+		equationCache = new EquationCache();
 		
 		rows = new ConcurrentHashMap<Object, CyRow>(defaultInitSize, 0.5f, 2);
 		types = new ConcurrentHashMap<String, CyColumn>(16, 0.75f, 2);
@@ -169,6 +219,22 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			attributes = other.attributes;
 			other.attributes = tempAttributes;
 	
+			final RowOrdinals tempOrdinals = ordinals;
+			ordinals = other.ordinals;
+			other.ordinals = tempOrdinals;
+	
+			final Map<String, ColumnIndex> tempColumnIndexes = columnIndexes;
+			columnIndexes = other.columnIndexes;
+			other.columnIndexes = tempColumnIndexes;
+	
+			final Map<String, Integer> tempColumnScans = columnScans;
+			columnScans = other.columnScans;
+			other.columnScans = tempColumnScans;
+	
+			final EquationCache tempEquationCache = equationCache;
+			equationCache = other.equationCache;
+			other.equationCache = tempEquationCache;
+	
 			final Map<Object, CyRow> tempRows = rows;
 			rows = other.rows;
 			other.rows = tempRows;
@@ -247,6 +313,14 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				attributes.put(normalizedNewColName, keyValuePairs);
 			}
 
+			final ColumnIndex index = columnIndexes.remove(normalizedOldColName);
+			if (index != null)
+				columnIndexes.put(normalizedNewColName, index);
+			final Integer scans = columnScans.remove(normalizedOldColName);
+			if (scans != null)
+				columnScans.put(normalizedNewColName, scans);
+			equationCache.renameColumn(normalizedOldColName, normalizedNewColName);
+
 			final CyColumn column = types.get(normalizedOldColName);
 			types.put(normalizedNewColName, column);
 			types.remove( normalizedOldColName);
@@ -373,6 +447,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (column.isImmutable())
 				throw new IllegalArgumentException("cannot delete immutable column \"" + columnName + "\".");
 				
+			columnIndexes.remove(normalizedColName);
+			columnScans.remove(normalizedColName);
+			equationCache.removeColumn(normalizedColName);
+
 			final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 			if (attributes.containsKey(normalizedColName) || virtColumn != null) {
 				if (virtColumn != null) {
@@ -449,7 +527,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 							                              /* isPrimaryKey = */ false,
 							                              isImmutable,
 							                              defaultValue));
-			attributes.put(normalizedColName, new HashMap<Object, Object>(defaultInitSize));
+			attributes.put(normalizedColName, newScalarColumnStorage(type));
 			colList.add(types.get(normalizedColName));
 		}
 		
@@ -457,6 +535,24 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	}
 	
 
+	private Map<Object, Object> newScalarColumnStorage(final Class<?> type) {
+		if (ordinals != null) {
+			final Map<Object, Object> columnar = ColumnarValueMap.create(type, ordinals, defaultInitSize);
+			if (columnar != null)
+				return columnar;
+		}
+		return new HashMap<Object, Object>(defaultInitSize);
+	}
+
+	/**
+	 * Returns true if scalar columns of this table use columnar storage.
+	 */
+	public boolean usesColumnarStorage() {
+		synchronized (lock) {
+			return ordinals != null;
+		}
+	}
+
 	@Override
 	public <T> void createListColumn(final String columnName, final Class<T> listElementType,
 					 final boolean isImmutable) {
@@ -579,6 +675,15 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				return matchingRows;
 			}
 			
+			final ColumnIndex index = getColumnIndex(normalizedColName);
+			if (index != null) {
+				final Collection<Object> keys = index.getKeys(value);
+				final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(keys.size());
+				for (Object key : keys)
+					matchingRows.add(rows.get(key));
+				return matchingRows;
+			}
+
 			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
 			final ArrayList<CyRow> matchingRows = new ArrayList<CyRow>(rows.size());
 			
@@ -600,11 +705,77 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			if (virtColumn != null)
 				return virtColumn.countMatchingRows(value);
 			
+			final ColumnIndex index = getColumnIndex(normalizedColName);
+			if (index != null)
+				return index.count(value);
+
 			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
 			return Collections.frequency(keyToValueMap.values(), value);
 		}
 	}
 
+	/**
+	 * Returns the keys of the rows whose raw value in a non-virtual column equals the value.
+	 */
+	private Collection<Object> getMatchingKeys(final String normalizedColName, final Object value) {
+		synchronized (lock) {
+			final ColumnIndex index = getColumnIndex(normalizedColName);
+			if (index != null)
+				return new ArrayList<Object>(index.getKeys(value));
+
+			final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+			if (keyToValueMap == null)
+				return Collections.emptyList();
+
+			final List<Object> keys = new ArrayList<Object>();
+			for (Entry<Object, Object> entry : keyToValueMap.entrySet()) {
+				if (entry.getValue().equals(value))
+					keys.add(entry.getKey());
+			}
+			return keys;
+		}
+	}
+
+	/**
+	 * Returns the value index of a non-virtual scalar column.  Counts the scans of columns
+	 * without an index and builds one once a column has been scanned often enough.
+	 * Returns null if the column has no index (yet).  Must be called while holding the lock.
+	 */
+	private ColumnIndex getColumnIndex(final String normalizedColName) {
+		ColumnIndex index = columnIndexes.get(normalizedColName);
+		if (index != null)
+			return index;
+
+		final CyColumn column = types.get(normalizedColName);
+		final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+		if (column == null || column.getType() == List.class || keyToValueMap == null
+		    || virtualColumnMap.containsKey(normalizedColName))
+			return null;
+
+		final Integer scans = columnScans.get(normalizedColName);
+		final int count = scans == null ? 1 : scans.intValue() + 1;
+		if (count < INDEX_AFTER_SCANS) {
+			columnScans.put(normalizedColName, Integer.valueOf(count));
+			return null;
+		}
+
+		columnScans.remove(normalizedColName);
+		index = new ColumnIndex(keyToValueMap);
+		columnIndexes.put(normalizedColName, index);
+		return index;
+	}
+
+	/**
+	 * Keeps the value index of a column, if it has one, in step with a write.
+	 * Must be called while holding the lock.
+	 */
+	private void updateColumnIndex(final String normalizedColName, final Object key, final Object oldValue,
+	                               final Object newValue) {
+		final ColumnIndex index = columnIndexes.get(normalizedColName);
+		if (index != null)
+			index.update(key, oldValue, newValue);
+	}
+
 	private final void setX(final Object key, final String columnName, final Object value) {
 		if (columnName == null)
 			throw new NullPointerException("columnName must not be null.");
@@ -646,19 +817,18 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					newRawValue = value;
 					final Equation equation = (Equation)value;
 					// TODO this is an implicit addRow - not sure if we want to refactor this or not
-					keyToValueMap.put(key, equation);
+					updateColumnIndex(normalizedColName, key, keyToValueMap.put(key, equation), equation);
+					equationCache.invalidate(normalizedColName, key);
+					addEquationReferences(normalizedColName, equation);
 
-					final StringBuilder errorMsg = new StringBuilder();
-					newValue = EqnSupport.evalEquation(equation, key, interpreter,
-									   currentlyActiveAttributes, columnName,
-									   errorMsg, this);
-					lastInternalError = errorMsg.toString();
+					newValue = evalCachedEquation(equation, key, columnName, normalizedColName);
 					if (newValue == null)
 						logger.warn("attempted premature evaluation evaluation for " + equation);
 				} else {
 					// TODO this is an implicit addRow - not sure if we want to refactor this or not
 					newRawValue = newValue = columnType.cast(value);
-					keyToValueMap.put(key, newValue);
+					updateColumnIndex(normalizedColName, key, keyToValueMap.put(key, newValue), newValue);
+					equationCache.invalidate(normalizedColName, key);
 				}
 			}
 		}
@@ -699,13 +869,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				fireVirtualColumnRowSetEvent(table2, key, dependent.getName(), newValue, newRawValue, seen);
 			} else {
 				String normalizedTargetJoinKey = table2.normalizeColumnName(targetJoinKey);		
-				Map<Object, Object> keyToValueMap = table2.attributes.get(normalizedTargetJoinKey);
-				if(keyToValueMap != null) {
-					for (Object key2: keyToValueMap.keySet()) {
-						if (keyToValueMap.get(key2).equals(key)) {
-							fireVirtualColumnRowSetEvent(table2, key2, dependent.getName(), newValue, newRawValue, seen);
-						}
-					}
+				for (Object key2 : table2.getMatchingKeys(normalizedTargetJoinKey, key)) {
+					fireVirtualColumnRowSetEvent(table2, key2, dependent.getName(), newValue, newRawValue, seen);
 				}
 			}
 		}
@@ -750,12 +915,10 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 
 				// TODO this is an implicit addRow - not sure if we want to refactor this or not
 				keyToValueMap.put(key, rawValue);
+				equationCache.invalidate(normalizedColName, key);
 				if (rawValue instanceof Equation) {
-					final StringBuilder errorMsg = new StringBuilder();
-					newValue = EqnSupport.evalEquation((Equation)rawValue, suid, interpreter,
-									   currentlyActiveAttributes, columnName,
-									   errorMsg, this);
-					lastInternalError = errorMsg.toString();
+					addEquationReferences(normalizedColName, (Equation)rawValue);
+					newValue = evalCachedEquation((Equation)rawValue, key, columnName, normalizedColName);
 				} else {
 					newValue = rawValue;
 				}
@@ -785,6 +948,8 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					return;
 
 				keyToValueMap.remove(key);
+				updateColumnIndex(normalizedColName, key, value, null);
+				equationCache.invalidate(normalizedColName, key);
 			}
 		}
 
@@ -834,28 +999,29 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 	}
 
 	Object getValue(Object key, String columnName) {
-		CyColumn column = getColumn(columnName);
-		Class<?> type = column == null ? null : column.getType();
-		return getValue(key, columnName, type);
+		synchronized (lock) {
+			CyColumn column = getColumn(columnName);
+			Class<?> type = column == null ? null : column.getType();
+			return getValue(key, columnName, type);
+		}
 	}
 
 	private final Object getValue(final Object key, final String columnName, final Class<?> type) {
 		final String normalizedColName = normalizeColumnName(columnName);
 		final VirtualColumn virtColumn = virtualColumnMap.get(normalizedColName);
 		final Object vl = getValueOrEquation(key, columnName, virtColumn);
-		if (virtColumn != null && vl == null)
-			return virtColumn.getValue(key);
+		if (virtColumn != null) {
+			// Values of virtual columns can change without this table being notified.
+			volatileEvaluation = true;
+			if (vl == null)
+				return virtColumn.getValue(key);
+		}
 
 		if (vl == null)
 			return null;
 
 		if (vl instanceof Equation) {
-			final StringBuilder errorMsg = new StringBuilder();
-			final Object value =
-				EqnSupport.evalEquation((Equation)vl, key, interpreter,
-							currentlyActiveAttributes, columnName,
-							errorMsg, this);
-			lastInternalError = errorMsg.toString();
+			final Object value = evalCachedEquation((Equation)vl, key, columnName, normalizedColName);
 			if ( type == null )
 				return value;
 			else if(value != null)
@@ -866,6 +1032,129 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 			return vl;
 	}
 
+	/**
+	 * Evaluates an equation cell, or returns its cached result.  Results are only cached if they
+	 * are scalars and depend on nothing but other cells of the same table, which rules out virtual
+	 * columns.  Must be called while holding the lock.
+	 */
+	private Object evalCachedEquation(final Equation equation, final Object key, final String columnName,
+	                                  final String normalizedColName) {
+		final boolean isVirtual = virtualColumnMap.containsKey(normalizedColName);
+		final Object cached = isVirtual ? null : equationCache.get(normalizedColName, key);
+		if (cached != null) {
+			lastInternalError = "";
+			return cached;
+		}
+
+		final boolean outerVolatile = volatileEvaluation;
+		volatileEvaluation = false;
+
+		final StringBuilder errorMsg = new StringBuilder();
+		final Object value = EqnSupport.evalEquation(equation, key, interpreter, currentlyActiveAttributes,
+		                                             columnName, errorMsg, this);
+		lastInternalError = errorMsg.toString();
+
+		final boolean isVolatile = isVirtual || volatileEvaluation || EquationCache.isVolatile(equation);
+		if (value != null && !isVolatile && !(value instanceof List))
+			equationCache.put(normalizedColName, key, value);
+
+		volatileEvaluation = outerVolatile || isVolatile;
+		return value;
+	}
+
+	private void addEquationReferences(final String normalizedColName, final Equation equation) {
+		for (final String reference : equation.getVariableReferences()) {
+			if (!reference.equals("ID"))
+				equationCache.addReference(normalizedColName, normalizeColumnName(reference));
+		}
+	}
+
+	/**
+	 * Evaluates all equations of a column in one pass and caches their results, after doing the
+	 * same for the columns these equations depend on, in dependency order.
+	 * @param parallel if true, large columns are evaluated on several threads
+	 */
+	public void recomputeColumn(final String columnName, final boolean parallel) {
+		if (columnName == null)
+			throw new NullPointerException("column name is null.");
+
+		synchronized (lock) {
+			final String normalizedColName = normalizeColumnName(columnName);
+			if (!types.containsKey(normalizedColName))
+				throw new IllegalArgumentException("column: '" + columnName + "' does not yet exist.");
+
+			for (final String prerequisite : equationCache.getPrerequisites(normalizedColName))
+				recomputeCells(prerequisite, false);
+			recomputeCells(normalizedColName, parallel);
+		}
+	}
+
+	private void recomputeCells(final String normalizedColName, final boolean parallel) {
+		final CyColumn column = types.get(normalizedColName);
+		final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
+		if (column == null || keyToValueMap == null || virtualColumnMap.containsKey(normalizedColName))
+			return;
+
+		final String columnName = column.getName();
+		final List<Object> keys = new ArrayList<Object>();
+		final List<Equation> equations = new ArrayList<Equation>();
+		for (final Entry<Object, Object> entry : keyToValueMap.entrySet()) {
+			if (entry.getValue() instanceof Equation) {
+				keys.add(entry.getKey());
+				equations.add((Equation)entry.getValue());
+			}
+		}
+
+		equationCache.invalidateColumn(normalizedColName);
+		final int count = keys.size();
+		if (!parallel || count < PARALLEL_RECOMPUTE_THRESHOLD) {
+			for (int i = 0; i < count; i++)
+				evalCachedEquation(equations.get(i), keys.get(i), columnName, normalizedColName);
+			return;
+		}
+
+		// Bind the variables here, since that reads the table, and only run the interpreter in parallel.
+		// Equations calling non-builtin functions may read other state and are evaluated right away.
+		final List<Map<String, IdentDescriptor>> bindings = new ArrayList<Map<String, IdentDescriptor>>(count);
+		final boolean[] cacheable = new boolean[count];
+		final StringBuilder errorMsg = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			final Equation equation = equations.get(i);
+			if (EquationCache.isVolatile(equation)) {
+				evalCachedEquation(equation, keys.get(i), columnName, normalizedColName);
+				bindings.add(null);
+				continue;
+			}
+
+			final boolean outerVolatile = volatileEvaluation;
+			volatileEvaluation = false;
+			currentlyActiveAttributes.add(columnName);
+			final Map<String, IdentDescriptor> binding =
+				EqnSupport.bindVariables(equation, keys.get(i), columnName, errorMsg, this);
+			if (binding == null)
+				currentlyActiveAttributes.clear();
+			else
+				currentlyActiveAttributes.remove(columnName);
+			cacheable[i] = !volatileEvaluation;
+			volatileEvaluation = outerVolatile;
+			bindings.add(binding);
+		}
+
+		final Object[] results = new Object[count];
+		IntStream.range(0, count).parallel().forEach(i -> {
+			final Map<String, IdentDescriptor> binding = bindings.get(i);
+			if (binding != null)
+				results[i] = EqnSupport.execute(equations.get(i), keys.get(i), interpreter, binding,
+				                                columnName, new StringBuilder());
+		});
+
+		for (int i = 0; i < count; i++) {
+			if (results[i] != null && cacheable[i] && !(results[i] instanceof List))
+				equationCache.put(normalizedColName, keys.get(i), results[i]);
+		}
+		lastInternalError = errorMsg.toString();
+	}
+
 	private final <T> T getDefaultValue(final String columnName, final T defaultValue) {
 		if ( defaultValue == null ) {
 			final CyColumn column = this.getColumn(columnName);
@@ -913,12 +1202,7 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 				return getDefaultValue(columnName,defaultValue);
 	
 			if (vl instanceof Equation) {
-				final StringBuilder errorMsg = new StringBuilder();
-				final Object result =
-					EqnSupport.evalEquation((Equation)vl, key, interpreter,
-								currentlyActiveAttributes, columnName,
-								errorMsg, this);
-				lastInternalError = errorMsg.toString();
+				final Object result = evalCachedEquation((Equation)vl, key, columnName, normalizedColName);
 				return (List)result;
 			} else
 				return (List)vl;
@@ -1131,9 +1415,13 @@ public final class CyTableImpl implements CyTable, TableAddedListener {
 					final String normalizedColName = normalizeColumnName(col.getName());
 					final Map<Object, Object> keyToValueMap = attributes.get(normalizedColName);
 					if (keyToValueMap != null) {
-						keyToValueMap.remove(key);
+						updateColumnIndex(normalizedColName, key, keyToValueMap.remove(key), null);
 					}
 				}
+
+				if (ordinals != null)
+					ordinals.release(key);
+				equationCache.invalidateRow(key);
 			}
 		}
 		if(changed)
@@ -57,8 +57,9 @@ abstract class DefaultTablesNetwork extends SimpleNetwork {
 	protected final CyEventHelper eventHelper;
 
 	DefaultTablesNetwork(final long suid, final CyNetworkTableManager tableManager, final CyTableFactory tableFactory,
-			final boolean publicTables, final int tableSizeDeterminer, final CyEventHelper eventHelper) {
-		super(suid);
+			final boolean publicTables, final int tableSizeDeterminer, final CyEventHelper eventHelper,
+			final boolean compactStorage) {
+		super(suid, compactStorage);
 		this.networkTableManager = tableManager;
 		this.publicTables = publicTables;
 		this.tableFactory = tableFactory;
@@ -29,7 +29,7 @@ import org.cytoscape.model.CyEdge;
 
 
 /**
- * Element of the edge linked list used in {@link SimpleNetwork}.
+ * Element of the edge linked list used in {@link PointerAdjacencyStore}.
  * You should only touch this if you know what you're doing.
  */
 final class EdgePointer {
@@ -116,6 +116,29 @@ class EqnSupport {
 		} else
 			currentlyActiveAttributes.add(columnName);
 
+		final Map<String, IdentDescriptor> nameToDescriptorMap =
+			bindVariables(equation, key, columnName, lastInternalError, tableImpl);
+		if (nameToDescriptorMap == null) {
+			currentlyActiveAttributes.clear();
+			return null;
+		}
+
+		final Object result = execute(equation, key, interpreter, nameToDescriptorMap, columnName, lastInternalError);
+		if (result == null)
+			currentlyActiveAttributes.clear();
+		else
+			currentlyActiveAttributes.remove(columnName);
+		return result;
+	}
+
+	/**
+	 *  Looks up the values of all variables referenced by "equation" in the row identified by "key".
+	 *  @return the variable bindings or null if a value is missing or invalid
+	 */
+	static Map<String, IdentDescriptor> bindVariables(final Equation equation, final Object key,
+							  final String columnName, final Appendable lastInternalError,
+							  final CyTableImpl tableImpl)
+	{
 		final Collection<String> attribReferences = equation.getVariableReferences();
 		final Map<String, Object> defaultValues = equation.getDefaultVariableValues();
 
@@ -132,7 +155,6 @@ class EqnSupport {
 				if (defaultValue != null)
 					attribValue = defaultValue;
 				else {
-					currentlyActiveAttributes.clear();
 					try {
 						lastInternalError.append("Missing value for referenced column \"" + attribRef + "\".");
 					} catch (Exception e) {
@@ -146,7 +168,6 @@ class EqnSupport {
 			try {
 				nameToDescriptorMap.put(attribRef, new IdentDescriptor(attribValue));
 			} catch (final Exception e) {
-				currentlyActiveAttributes.clear();
 				try {
 					lastInternalError.append("Bad column reference to \"" + attribRef + "\".");
 				} catch (Exception e2) {
@@ -157,12 +178,21 @@ class EqnSupport {
 			}
 		}
 
+		return nameToDescriptorMap;
+	}
+
+	/**
+	 *  Runs "equation" with variable bindings obtained from bindVariables().  Does not touch the table,
+	 *  so it may be called concurrently as long as the interpreter allows it.
+	 *  @return the result or null if the execution failed
+	 */
+	static Object execute(final Equation equation, final Object key, final Interpreter interpreter,
+			      final Map<String, IdentDescriptor> nameToDescriptorMap,
+			      final String columnName, final Appendable lastInternalError)
+	{
 		try {
-			final Object result = interpreter.execute(equation, nameToDescriptorMap);
-			currentlyActiveAttributes.remove(columnName);
-			return result;
+			return interpreter.execute(equation, nameToDescriptorMap);
 		} catch (final Exception e) {
-			currentlyActiveAttributes.clear();
 			try {
 				lastInternalError.append(e.getMessage());
 			} catch (Exception e2) {
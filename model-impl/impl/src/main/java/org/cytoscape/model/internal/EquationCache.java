@@ -0,0 +1,258 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cytoscape.equations.Equation;
+import org.cytoscape.equations.Function;
+import org.cytoscape.model.internal.tsort.TopoGraphNode;
+import org.cytoscape.model.internal.tsort.TopologicalSort;
+
+
+/**
+ * Caches the results of equation cells of one table.  A column level dependency
+ * graph, built from the variable references of every equation stored in the
+ * table, tells which cached results become stale when a cell is written: since
+ * equations only refer to cells of their own row, a write to (column, key)
+ * invalidates (column, key) and (dependent, key) for all transitive dependents.
+ * <p>
+ * All column names are normalized.  Not thread safe; {@link CyTableImpl}
+ * serializes access.
+ */
+final class EquationCache {
+
+	// Functions whose result may change without any cell of the table changing.
+	private static final Set<String> VOLATILE_BUILTINS = new HashSet<String>(Arrays.asList("NOW", "TODAY"));
+	private static final String BUILTINS_PACKAGE = "org.cytoscape.equations.internal.builtins.";
+
+	private final Map<String, Map<Object, Object>> results = new HashMap<String, Map<Object, Object>>();
+	private final Map<String, Set<String>> references = new HashMap<String, Set<String>>();
+	private final Map<String, Set<String>> referencedBy = new HashMap<String, Set<String>>();
+
+	Object get(final String column, final Object key) {
+		final Map<Object, Object> columnResults = results.get(column);
+		return columnResults == null ? null : columnResults.get(key);
+	}
+
+	void put(final String column, final Object key, final Object result) {
+		Map<Object, Object> columnResults = results.get(column);
+		if (columnResults == null) {
+			columnResults = new HashMap<Object, Object>();
+			results.put(column, columnResults);
+		}
+		columnResults.put(key, result);
+	}
+
+	/**
+	 * Records that an equation stored in column refers to referencedColumn.
+	 */
+	void addReference(final String column, final String referencedColumn) {
+		add(references, column, referencedColumn);
+		add(referencedBy, referencedColumn, column);
+	}
+
+	/**
+	 * Drops the cached results of a cell and of the cells in the same row that depend on it.
+	 */
+	void invalidate(final String column, final Object key) {
+		for (final String stale : withDependents(column)) {
+			final Map<Object, Object> columnResults = results.get(stale);
+			if (columnResults != null)
+				columnResults.remove(key);
+		}
+	}
+
+	/**
+	 * Drops the cached results of a whole column and of the columns depending on it.
+	 */
+	void invalidateColumn(final String column) {
+		for (final String stale : withDependents(column))
+			results.remove(stale);
+	}
+
+	void invalidateRow(final Object key) {
+		for (final Map<Object, Object> columnResults : results.values())
+			columnResults.remove(key);
+	}
+
+	void renameColumn(final String oldColumn, final String newColumn) {
+		results.clear();
+		rename(references, oldColumn, newColumn);
+		rename(referencedBy, oldColumn, newColumn);
+	}
+
+	void removeColumn(final String column) {
+		results.clear();
+		remove(references, column);
+		remove(referencedBy, column);
+	}
+
+	void clear() {
+		results.clear();
+	}
+
+	/**
+	 * @return the columns that equations in "column" depend on, directly or indirectly, in an
+	 *         order in which they can be evaluated; empty if the dependencies are cyclic
+	 */
+	List<String> getPrerequisites(final String column) {
+		final Map<String, ColumnNode> nodes = new HashMap<String, ColumnNode>();
+		final ColumnNode root = node(column, nodes);
+		final Deque<ColumnNode> pending = new ArrayDeque<ColumnNode>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			final ColumnNode n = pending.pop();
+			final Set<String> referenced = references.get(n.column);
+			if (referenced == null)
+				continue;
+			for (final String r : referenced) {
+				final boolean isNew = !nodes.containsKey(r);
+				final ColumnNode m = node(r, nodes);
+				n.prerequisites.add(m);
+				if (isNew)
+					pending.push(m);
+			}
+		}
+
+		final List<TopoGraphNode> order;
+		try {
+			order = TopologicalSort.sort(Collections.<TopoGraphNode>singletonList(root));
+		} catch (final IllegalStateException e) {
+			return Collections.emptyList();
+		}
+
+		final List<String> prerequisites = new ArrayList<String>(order.size());
+		for (final TopoGraphNode n : order) {
+			if (n != root && references.containsKey(((ColumnNode) n).column))
+				prerequisites.add(((ColumnNode) n).column);
+		}
+		return prerequisites;
+	}
+
+	/**
+	 * @return true if the result of the equation may change without any cell it refers to
+	 *         changing, i.e. if it calls a function that is not a deterministic builtin
+	 */
+	static boolean isVolatile(final Equation equation) {
+		for (final Object instrOrArg : equation.getCode()) {
+			if (instrOrArg instanceof Function) {
+				final Function function = (Function) instrOrArg;
+				if (!function.getClass().getName().startsWith(BUILTINS_PACKAGE)
+				    || VOLATILE_BUILTINS.contains(function.getName()))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private Collection<String> withDependents(final String column) {
+		if (!referencedBy.containsKey(column))
+			return Collections.singleton(column);
+
+		final Set<String> visited = new HashSet<String>();
+		final Deque<String> pending = new ArrayDeque<String>();
+		pending.push(column);
+		while (!pending.isEmpty()) {
+			final String c = pending.pop();
+			if (!visited.add(c))
+				continue;
+			final Set<String> dependents = referencedBy.get(c);
+			if (dependents != null)
+				pending.addAll(dependents);
+		}
+		return visited;
+	}
+
+	private static ColumnNode node(final String column, final Map<String, ColumnNode> nodes) {
+		ColumnNode n = nodes.get(column);
+		if (n == null) {
+			n = new ColumnNode(column);
+			nodes.put(column, n);
+		}
+		return n;
+	}
+
+	private static void add(final Map<String, Set<String>> graph, final String from, final String to) {
+		Set<String> targets = graph.get(from);
+		if (targets == null) {
+			targets = new HashSet<String>();
+			graph.put(from, targets);
+		}
+		targets.add(to);
+	}
+
+	private static void rename(final Map<String, Set<String>> graph, final String oldName, final String newName) {
+		final Set<String> targets = graph.remove(oldName);
+		if (targets != null)
+			graph.put(newName, targets);
+		for (final Set<String> t : graph.values()) {
+			if (t.remove(oldName))
+				t.add(newName);
+		}
+	}
+
+	private static void remove(final Map<String, Set<String>> graph, final String name) {
+		graph.remove(name);
+		for (final Set<String> t : graph.values())
+			t.remove(name);
+	}
+
+	/**
+	 * A column in the dependency graph; its {@link #getDependents()} are the columns
+	 * that have to be evaluated before it.
+	 */
+	private static final class ColumnNode implements TopoGraphNode {
+		private final String column;
+		private final Collection<TopoGraphNode> prerequisites = new ArrayList<TopoGraphNode>();
+
+		ColumnNode(final String column) {
+			this.column = column;
+		}
+
+		@Override
+		public Collection<TopoGraphNode> getDependents() {
+			return prerequisites;
+		}
+
+		@Override
+		public String toString() {
+			return column;
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cytoscape.model.CyEdge;
+import org.cytoscape.model.CyNode;
+
+import cern.colt.map.tobject.OpenLongObjectHashMap;
+
+
+/**
+ * The original {@link AdjacencyStore}, which keeps every node and edge as a
+ * {@link NodePointer}/{@link EdgePointer} object linked into doubly linked lists.
+ */
+final class PointerAdjacencyStore implements AdjacencyStore {
+
+	// We use OpenLongObjectHashMap here because we really don't want to
+	// constantly convert the int node/edge index to an Interger 
+	// object necessary for a Map<Integer,NodePointer>. That
+	// allocates a bunch of otherwise unused Integer objects
+	// which also takes extra time.
+	private final OpenLongObjectHashMap nodePointers;
+	private final OpenLongObjectHashMap edgePointers;
+
+	private int nodeCount;
+	private int edgeCount;
+	
+	private NodePointer firstNode;
+
+	PointerAdjacencyStore() {
+		nodeCount = 0;
+		edgeCount = 0;
+		firstNode = null; 
+		nodePointers = new OpenLongObjectHashMap();
+		edgePointers = new OpenLongObjectHashMap();
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	@Override
+	public CyNode getNode(final long n) {
+		final NodePointer np = (NodePointer) nodePointers.get(n);
+		if (np != null)
+			return np.cyNode;
+		else
+			return null;
+	}
+
+	@Override
+	public CyEdge getEdge(final long e) {
+		final EdgePointer ep = (EdgePointer) edgePointers.get(e);
+		if (ep != null)
+			return ep.cyEdge;
+		else
+			return null;
+	}
+
+	@Override
+	public List<CyNode> getNodeList() {
+		final List<CyNode> ret = new ArrayList<>(nodeCount);
+		int numRemaining = nodeCount;
+		NodePointer node = firstNode;
+
+		while (numRemaining > 0) {
+			// possible NPE here if the linked list isn't constructed correctly
+			// this is the correct behavior
+			final CyNode toAdd = node.cyNode;
+			node = node.nextNode;
+			ret.add(toAdd);
+			numRemaining--;
+		}
+
+		return ret;
+	}
+
+	@Override
+	public List<CyEdge> getEdgeList() {
+		final List<CyEdge> ret = new ArrayList<>(edgeCount);
+		EdgePointer edge = null;
+
+		int numRemaining = edgeCount;
+		NodePointer node = firstNode;
+		while (numRemaining > 0) {
+			final CyEdge retEdge;
+
+			if (edge != null) {
+				retEdge = edge.cyEdge;
+			} else {
+				for (edge = node.firstOutEdge; 
+				     edge == null; 
+				     node = node.nextNode, edge = node.firstOutEdge);
+
+				node = node.nextNode;
+				retEdge = edge.cyEdge;
+			}
+
+			edge = edge.nextOutEdge;
+			numRemaining--;
+
+			ret.add(retEdge);
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void addNode(final CyNode node) {
+		final NodePointer n = new NodePointer(node);
+		nodePointers.put(node.getSUID(), n);
+		nodeCount++;
+		firstNode = n.insert(firstNode);
+	}
+
+	@Override
+	public void removeNode(final long nodeSuid) {
+		final NodePointer node = (NodePointer) nodePointers.get(nodeSuid);
+		nodePointers.removeKey(nodeSuid);
+		firstNode = node.remove(firstNode);
+		nodeCount--;
+	}
+
+	@Override
+	public void addEdge(final long sourceSuid, final long targetSuid, final boolean directed, final CyEdge edge) {
+		final NodePointer source = (NodePointer) nodePointers.get(sourceSuid);
+		final NodePointer target = (NodePointer) nodePointers.get(targetSuid);
+
+		final EdgePointer e = new EdgePointer(source, target, directed, edge); 
+		edgePointers.put(edge.getSUID(), e);
+		edgeCount++;
+	}
+
+	@Override
+	public void removeEdge(final long edgeSuid) {
+		final EdgePointer e = (EdgePointer) edgePointers.get(edgeSuid);
+		edgePointers.removeKey(edgeSuid);
+		e.remove();
+		edgeCount--;
+	}
+
+	@Override
+	public int countEdges(final long nodeSuid, final CyEdge.Type edgeType) {
+		final NodePointer n = (NodePointer) nodePointers.get(nodeSuid);
+		assert(n!=null);
+		final boolean undirected = SimpleNetwork.assessUndirected(edgeType);
+		final boolean incoming = SimpleNetwork.assessIncoming(edgeType);
+		final boolean outgoing = SimpleNetwork.assessOutgoing(edgeType);
+
+		int count = 0;
+
+		if (outgoing)
+			count += n.outDegree;
+		if (incoming)
+			count += n.inDegree;
+		if (undirected)
+			count += n.undDegree;
+
+		if (outgoing && incoming)
+			count -= n.selfEdges;
+
+		return count;
+	}
+
+	@Override
+	public AdjacencyCursor newCursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Walks the outgoing list of the node first and then its incoming list.
+	 */
+	private final class Cursor extends AdjacencyCursor {
+
+		private NodePointer node;
+		private boolean outgoing;
+		private boolean incoming;
+		private boolean undirected;
+		private boolean inPhase;
+		private EdgePointer edge;
+		private EdgePointer current;
+
+		@Override
+		protected void start(final long nodeSuid, final boolean outgoing, final boolean incoming,
+		                     final boolean undirected) {
+			node = (NodePointer) nodePointers.get(nodeSuid);
+			assert(node != null);
+			this.outgoing = outgoing;
+			this.incoming = incoming;
+			this.undirected = undirected;
+			current = null;
+
+			if (outgoing || undirected) {
+				inPhase = false;
+				edge = node.firstOutEdge;
+			} else {
+				inPhase = true;
+				edge = node.firstInEdge;
+			}
+		}
+
+		@Override
+		protected boolean moveNext() {
+			while (true) {
+				if (edge == null) {
+					if (inPhase || !(incoming || undirected)) {
+						current = null;
+						return false;
+					}
+					inPhase = true;
+					edge = node.firstInEdge;
+					continue;
+				}
+
+				final EdgePointer candidate = edge;
+
+				if (!inPhase) {
+					edge = candidate.nextOutEdge;
+					// skip the edge if it is NOT either directed when we want
+					// outgoing or undirected when we want undirected
+					if (matchesOutgoing(candidate)) {
+						current = candidate;
+						return true;
+					}
+				} else {
+					edge = candidate.nextInEdge;
+					// skip the edge if it is NOT either directed when we want
+					// incoming or undirected when we want undirected, and skip
+					// self edges that were already reported as outgoing
+					if (((incoming && candidate.directed) || (undirected && !candidate.directed))
+					    && !(candidate.source == candidate.target && matchesOutgoing(candidate))) {
+						current = candidate;
+						return true;
+					}
+				}
+			}
+		}
+
+		private boolean matchesOutgoing(final EdgePointer e) {
+			return (outgoing && e.directed) || (undirected && !e.directed);
+		}
+
+		@Override
+		public long edgeSuid() {
+			return current.index;
+		}
+
+		@Override
+		public long neighborSuid() {
+			return node.index ^ current.source.index ^ current.target.index;
+		}
+
+		@Override
+		public CyEdge edge() {
+			return current.cyEdge;
+		}
+
+		@Override
+		public CyNode neighbor() {
+			return current.source == node ? current.target.cyNode : current.source.cyNode;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package org.cytoscape.model.internal;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import cern.colt.map.tlong.OpenLongIntHashMap;
+
+
+/**
+ * Assigns every primary key of a table a dense, reusable row ordinal.  All
+ * columnar columns of a table share one instance, so the key to slot mapping
+ * is paid for once per table instead of once per column.  Ordinals of deleted
+ * rows are recycled.  Not thread safe; {@link CyTableImpl} serializes access.
+ */
+final class RowOrdinals {
+
+	static final int NONE = -1;
+
+	// Long keys (SUIDs) avoid boxing; stores ordinal + 1 since absent keys map to 0.
+	private final OpenLongIntHashMap longKeys;
+	private final Map<Object, Integer> objectKeys;
+
+	private Object[] keys;
+	private int size;
+	private int[] free;
+	private int freeCount;
+
+	RowOrdinals(final Class<?> primaryKeyType, final int initialCapacity) {
+		final int capacity = Math.max(initialCapacity, 16);
+		if (primaryKeyType == Long.class) {
+			longKeys = new OpenLongIntHashMap(capacity);
+			objectKeys = null;
+		} else {
+			longKeys = null;
+			objectKeys = new HashMap<Object, Integer>(capacity);
+		}
+		keys = new Object[capacity];
+		free = new int[16];
+	}
+
+	/**
+	 * Returns the ordinal of the key or {@link #NONE} if it has none.
+	 */
+	int get(final Object key) {
+		if (longKeys != null)
+			return (key instanceof Long) ? longKeys.get(((Long) key).longValue()) - 1 : NONE;
+
+		final Integer ordinal = objectKeys.get(key);
+		return ordinal == null ? NONE : ordinal.intValue();
+	}
+
+	/**
+	 * Returns the ordinal of the key, allocating one if necessary.
+	 */
+	int getOrAdd(final Object key) {
+		int ordinal = get(key);
+		if (ordinal != NONE)
+			return ordinal;
+
+		if (freeCount > 0) {
+			ordinal = free[--freeCount];
+		} else {
+			ordinal = size++;
+			if (ordinal == keys.length)
+				keys = Arrays.copyOf(keys, grow(keys.length));
+		}
+
+		keys[ordinal] = key;
+		if (longKeys != null)
+			longKeys.put(((Long) key).longValue(), ordinal + 1);
+		else
+			objectKeys.put(key, Integer.valueOf(ordinal));
+
+		return ordinal;
+	}
+
+	/**
+	 * Gives back the ordinal of a deleted row.  The caller must already have
+	 * cleared the row's cells in every column sharing this instance.
+	 */
+	void release(final Object key) {
+		final int ordinal = get(key);
+		if (ordinal == NONE)
+			return;
+
+		if (longKeys != null)
+			longKeys.removeKey(((Long) key).longValue());
+		else
+			objectKeys.remove(key);
+
+		keys[ordinal] = null;
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, grow(free.length));
+		free[freeCount++] = ordinal;
+	}
+
+	Object keyAt(final int ordinal) {
+		return keys[ordinal];
+	}
+
+	/**
+	 * Returns an exclusive upper bound for all ordinals handed out so far.
+	 */
+	int capacity() {
+		return size;
+	}
+
+	static int grow(final int length) {
+		return length + (length >> 1) + 1;
+	}
+}
@@ -26,15 +26,14 @@ package org.cytoscape.model.internal;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
 
 import org.cytoscape.model.CyEdge;
 import org.cytoscape.model.CyNode;
-	
-import cern.colt.map.tobject.OpenLongObjectHashMap;
 
 
 /**
@@ -42,230 +41,219 @@ import cern.colt.map.tobject.OpenLongObjectHashMap;
  * operations not fully represented here are addNode and addEdge.
  * Instead we provide addNodeInternal and addEdgeInternal, which
  * add a provided CyNode/CyEdge object to the network topology. 
+ * The topology itself is kept in an {@link AdjacencyStore}.
+ * <p>
+ * Access to the store is guarded by a {@link StampedLock}: queries share
+ * the read lock (the counts use optimistic reads and don't lock at all),
+ * and only topology changes take the write lock. The lock is not reentrant,
+ * so methods that already hold it must use the unlocked helpers at the
+ * bottom of this class rather than the public accessors.
  */
 class SimpleNetwork {
+
+	/**
+	 * When this system property is set to "true", new root networks keep their
+	 * topology in the compact {@link ArrayAdjacencyStore} rather than in linked
+	 * node and edge pointer objects. Subnetworks follow their root network.
+	 */
+	public static final String COMPACT_STORAGE_PROPERTY = "cytoscape.model.compact.storage";
 	
 	// Unique ID for this
 	private final Long suid;
 
-	// We use OpenLongObjectHashMap here because we really don't want to
-	// constantly convert the int node/edge index to an Interger 
-	// object necessary for a Map<Integer,NodePointer>. That
-	// allocates a bunch of otherwise unused Integer objects
-	// which also takes extra time.
-	private final OpenLongObjectHashMap nodePointers;
-	private final OpenLongObjectHashMap edgePointers;
-
-	private int nodeCount;
-	private int edgeCount;
-	
-	private NodePointer firstNode;
+	private final boolean compactStorage;
+	private final AdjacencyStore store;
 	
-	private Object lock = new Object();
+	private final StampedLock lock = new StampedLock();
 
 	SimpleNetwork(final long suid) {
+		this(suid, Boolean.getBoolean(COMPACT_STORAGE_PROPERTY));
+	}
+
+	SimpleNetwork(final long suid, final boolean compactStorage) {
 		this.suid = suid; 
-		nodeCount = 0;
-		edgeCount = 0;
-		firstNode = null; 
-		nodePointers = new OpenLongObjectHashMap();
-		edgePointers = new OpenLongObjectHashMap();
+		this.compactStorage = compactStorage;
+		store = compactStorage ? new ArrayAdjacencyStore() : new PointerAdjacencyStore();
 	}
 
 	public Long getSUID() {
 		return suid;
 	}
 
+	/**
+	 * Returns true if this network keeps its topology in primitive arrays.
+	 */
+	boolean usesCompactStorage() {
+		return compactStorage;
+	}
+
 	public int getNodeCount() {
-		synchronized (lock) {
-			return nodeCount;
+		final long stamp = lock.tryOptimisticRead();
+		final int count = store.getNodeCount();
+		if (lock.validate(stamp))
+			return count;
+
+		final long readStamp = lock.readLock();
+		try {
+			return store.getNodeCount();
+		} finally {
+			lock.unlockRead(readStamp);
 		}
 	}
 
 	public int getEdgeCount() {
-		synchronized (lock) {
-			return edgeCount;
+		final long stamp = lock.tryOptimisticRead();
+		final int count = store.getEdgeCount();
+		if (lock.validate(stamp))
+			return count;
+
+		final long readStamp = lock.readLock();
+		try {
+			return store.getEdgeCount();
+		} finally {
+			lock.unlockRead(readStamp);
 		}
 	}
 
 	public CyEdge getEdge(final long e) {
-		synchronized (lock) {
-			final EdgePointer ep = (EdgePointer) edgePointers.get(e);
-			if (ep != null)
-				return ep.cyEdge;
-			else
-				return null;
+		final long stamp = lock.readLock();
+		try {
+			return store.getEdge(e);
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
 	public CyNode getNode(final long n) {
-		synchronized (lock) {
-			final NodePointer np = (NodePointer) nodePointers.get(n);
-			if (np != null)
-				return np.cyNode;
-			else
-				return null;
+		final long stamp = lock.readLock();
+		try {
+			return store.getNode(n);
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
 	public List<CyNode> getNodeList() {
-		synchronized (lock) {
-			final List<CyNode> ret = new ArrayList<>(nodeCount);
-			int numRemaining = nodeCount;
-			NodePointer node = firstNode;
-	
-			while (numRemaining > 0) {
-				// possible NPE here if the linked list isn't constructed correctly
-				// this is the correct behavior
-				final CyNode toAdd = node.cyNode;
-				node = node.nextNode;
-				ret.add(toAdd);
-				numRemaining--;
-			}
-	
-			return ret;
+		final long stamp = lock.readLock();
+		try {
+			return store.getNodeList();
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
 	public List<CyEdge> getEdgeList() {
-		synchronized (lock) {
-			final List<CyEdge> ret = new ArrayList<>(edgeCount);
-			EdgePointer edge = null;
-	
-			int numRemaining = edgeCount;
-			NodePointer node = firstNode;
-			while (numRemaining > 0) {
-				final CyEdge retEdge;
-	
-				if (edge != null) {
-					retEdge = edge.cyEdge;
-				} else {
-					for (edge = node.firstOutEdge; 
-					     edge == null; 
-					     node = node.nextNode, edge = node.firstOutEdge);
-	
-					node = node.nextNode;
-					retEdge = edge.cyEdge;
-				}
-	
-				edge = edge.nextOutEdge;
-				numRemaining--;
-	
-				ret.add(retEdge);
-			}
-	
-			return ret;
+		final long stamp = lock.readLock();
+		try {
+			return store.getEdgeList();
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
 	public List<CyNode> getNeighborList(final CyNode n, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(n)) 
+		final long stamp = lock.readLock();
+		try {
+			if (!containsNodeUnlocked(n)) 
 				return Collections.emptyList(); 
 	
-			final NodePointer np = getNodePointer(n);
-			final List<CyNode> ret = new ArrayList<>(countEdges(np, e));
-			final Iterator<EdgePointer> it = edgesAdjacent(np, e);
-			while (it.hasNext()) {
-				final EdgePointer edge = it.next();
-				final long neighborIndex = np.index ^ edge.source.index ^ edge.target.index;
-				ret.add(getNode(neighborIndex));
-			}
+			final long index = n.getSUID();
+			final List<CyNode> ret = new ArrayList<>(store.countEdges(index, e));
+			final AdjacencyCursor cursor = store.newCursor().reset(index, e);
+			while (cursor.advance())
+				ret.add(cursor.neighbor());
 	
 			return ret;
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
 	public List<CyEdge> getAdjacentEdgeList(final CyNode n, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(n)) 
+		final long stamp = lock.readLock();
+		try {
+			if (!containsNodeUnlocked(n)) 
 				return Collections.emptyList(); 
 	
-			final NodePointer np = getNodePointer(n);
-			final List<CyEdge> ret = new ArrayList<>(countEdges(np, e));
-			final Iterator<EdgePointer> it = edgesAdjacent(np, e);
-	
-			while (it.hasNext()) {
-				ret.add(it.next().cyEdge);
-			}
-	
-			return ret;
+			return adjacentEdgesUnlocked(n.getSUID(), e);
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
 	public Iterable<CyEdge> getAdjacentEdgeIterable(final CyNode n, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(n)) 
+		final long stamp = lock.readLock();
+		try {
+			if (!containsNodeUnlocked(n)) 
 				return Collections.emptyList();
 	
-			final NodePointer np = getNodePointer(n);
-			return new IterableEdgeIterator( edgesAdjacent(np, e) ); 
+			return new SnapshotCursor().fill(n.getSUID(), e); 
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
-	private class IterableEdgeIterator implements Iterator<CyEdge>, Iterable<CyEdge> {
-		
-		private final Iterator<EdgePointer> epIterator;
-		
-		IterableEdgeIterator(final Iterator<EdgePointer> epIterator) {
-			this.epIterator = epIterator;
-		}
-		
-		@Override
-		public CyEdge next() {
-			return epIterator.next().cyEdge;
-		}
-
-		@Override
-		public boolean hasNext() {
-			return epIterator.hasNext();
-		}
-
-		@Override
-		public void remove() {
-			epIterator.remove();
-		}
-
-		@Override
-		public Iterator<CyEdge> iterator() {
-			return this;
+	/**
+	 * Returns a cursor over the edges of the given type touching the node, or
+	 * null if the node is not part of this network. The cursor is positioned
+	 * before the first edge and holds a copy of the node's adjacency, taken
+	 * under the read lock, so it can be walked after this method returns.
+	 */
+	public AdjacencyCursor getAdjacencyCursor(final CyNode n, final CyEdge.Type e) {
+		final long stamp = lock.readLock();
+		try {
+			if (!containsNodeUnlocked(n)) 
+				return null;
+	
+			return new SnapshotCursor().fill(n.getSUID(), e); 
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
 	public List<CyEdge> getConnectingEdgeList(final CyNode src, final CyNode trg, final CyEdge.Type e) {
-		synchronized (lock) {
-			if (!containsNode(src)) 
+		final long stamp = lock.readLock();
+		try {
+			if (!containsNodeUnlocked(src)) 
 				return Collections.emptyList(); 
 	
-			if (!containsNode(trg)) 
+			if (!containsNodeUnlocked(trg)) 
 				return Collections.emptyList(); 
 	
-			final NodePointer srcP = getNodePointer(src);
-			final NodePointer trgP = getNodePointer(trg);
+			final long srcIndex = src.getSUID();
+			final long trgIndex = trg.getSUID();
 	
-			final List<CyEdge> ret = new ArrayList<>(Math.min(countEdges(srcP, e), countEdges(trgP, e)));
-			final Iterator<EdgePointer> it = edgesConnecting(srcP, trgP, e);
+			final int srcCount = store.countEdges(srcIndex, e);
+			final int trgCount = store.countEdges(trgIndex, e);
+			final List<CyEdge> ret = new ArrayList<>(Math.min(srcCount, trgCount));
+
+			// walk the smaller adjacency
+			final boolean fromSource = srcCount <= trgCount;
+			final AdjacencyCursor cursor = store.newCursor().reset(fromSource ? srcIndex : trgIndex, e);
+			final long other = fromSource ? trgIndex : srcIndex;
 	
-			while (it.hasNext())
-				ret.add(it.next().cyEdge);
+			while (cursor.advance()) {
+				if (cursor.neighborSuid() == other)
+					ret.add(cursor.edge());
+			}
 	
 			return ret;
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
-	/**
-	 * IMPORTANT: this is not protected by synchronized 
-	 * because caller always uses lock.
-	 */
 	CyNode addNodeInternal(final CyNode node) {
-		// node already exists in this network
-		if (containsNode(node))
-			return node;
-
-		final NodePointer n = new NodePointer(node);
-		nodePointers.put(node.getSUID(), n);
-		nodeCount++;
-		firstNode = n.insert(firstNode);
+		final long stamp = lock.writeLock();
+		try {
+			// node already exists in this network
+			if (containsNodeUnlocked(node))
+				return node;
+
+			store.addNode(node);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
 
 		return node;
 	}
@@ -275,21 +263,22 @@ class SimpleNetwork {
 			return false;
 
 		boolean madeChanges = false;
-		synchronized (lock) {
+		final long stamp = lock.writeLock();
+		try {
 			for ( CyNode n : nodes ) {
-				if (!containsNode(n)) 
+				if (!containsNodeUnlocked(n)) 
 					continue;
 
 				// remove adjacent edges from network
-				removeEdgesInternal(getAdjacentEdgeList(n, CyEdge.Type.ANY));
+				for (CyEdge edge : adjacentEdgesUnlocked(n.getSUID(), CyEdge.Type.ANY))
+					store.removeEdge(edge.getSUID());
 	
-				final NodePointer node = (NodePointer)nodePointers.get(n.getSUID());
-				nodePointers.removeKey(n.getSUID());
-				firstNode = node.remove(firstNode);
+				store.removeNode(n.getSUID());
 	
-				nodeCount--;
 				madeChanges = true;
 			}
+		} finally {
+			lock.unlockWrite(stamp);
 		}
 
 		return madeChanges;
@@ -297,29 +286,23 @@ class SimpleNetwork {
 
 	protected CyEdge addEdgeInternal(final CyNode s, final CyNode t, final boolean directed, final CyEdge edge) {
 
-		final EdgePointer e;
-
-		synchronized (lock) {
+		final long stamp = lock.writeLock();
+		try {
 			// here we check with possible sub node, not just root node
-			if (!containsNode(s))
+			if (!containsNodeUnlocked(s))
 				throw new IllegalArgumentException("source node is not a member of this network");
 
 			// here we check with possible sub node, not just root node
-			if (!containsNode(t))
+			if (!containsNodeUnlocked(t))
 				throw new IllegalArgumentException("target node is not a member of this network");
 
 			// edge already exists in this network
-			if ( containsEdge(edge) )
+			if ( containsEdgeUnlocked(edge) )
 				return edge;
 
-			final NodePointer source = getNodePointer(s);
-			final NodePointer target = getNodePointer(t);
-
-			e = new EdgePointer(source, target, directed, edge); 
-
-			edgePointers.put(edge.getSUID(),e);
-
-			edgeCount++;
+			store.addEdge(s.getSUID(), t.getSUID(), directed, edge);
+		} finally {
+			lock.unlockWrite(stamp);
 		}
 
 		return edge; 
@@ -330,19 +313,18 @@ class SimpleNetwork {
 			return false;
 
 		boolean madeChanges = false;
-		synchronized (lock) {
+		final long stamp = lock.writeLock();
+		try {
 			for (CyEdge edge : edges) {
-				if (!containsEdge(edge))
+				if (!containsEdgeUnlocked(edge))
 					continue;
 	
-				final EdgePointer e = (EdgePointer)edgePointers.get(edge.getSUID());
-				edgePointers.removeKey(edge.getSUID());
-	
-				e.remove();
+				store.removeEdge(edge.getSUID());
 	
-				edgeCount--;
 				madeChanges = true;
 			}
+		} finally {
+			lock.unlockWrite(stamp);
 		}
 
 		return madeChanges;
@@ -352,251 +334,241 @@ class SimpleNetwork {
 		if (node == null)
 			return false;
 
-		final NodePointer thisNode; 
+		final CyNode thisNode; 
 
-		synchronized (lock) {
-			thisNode = (NodePointer)nodePointers.get(node.getSUID());
+		final long stamp = lock.readLock();
+		try {
+			thisNode = store.getNode(node.getSUID());
+		} finally {
+			lock.unlockRead(stamp);
 		}
 
 		if (thisNode == null)
 			return false;
 
-		return thisNode.cyNode.equals(node);
+		return thisNode.equals(node);
 	}
 
 	public boolean containsEdge(final CyEdge edge) {
 		if (edge == null)
 			return false;
 
-		final EdgePointer thisEdge; 
+		final CyEdge thisEdge; 
 
-		synchronized (lock) {
-			thisEdge = (EdgePointer)edgePointers.get(edge.getSUID());
+		final long stamp = lock.readLock();
+		try {
+			thisEdge = store.getEdge(edge.getSUID());
+		} finally {
+			lock.unlockRead(stamp);
 		}
 
 		if (thisEdge == null)
 			return false;
 
-		return thisEdge.cyEdge.equals(edge);
+		return thisEdge.equals(edge);
 	}
 
 	public boolean containsEdge(final CyNode n1, final CyNode n2) {
-		synchronized (lock) {
-			if (!containsNode(n1))
+		final long stamp = lock.readLock();
+		try {
+			if (!containsNodeUnlocked(n1))
 				return false;
 	
-			if (!containsNode(n2))
+			if (!containsNodeUnlocked(n2))
 				return false;
 	
-			final Iterator<EdgePointer> it = edgesConnecting(getNodePointer(n1), getNodePointer(n2), CyEdge.Type.ANY);
-	
-			return it.hasNext();
+			final long index1 = n1.getSUID();
+			final long index2 = n2.getSUID();
+
+			// walk the smaller adjacency
+			final boolean fromFirst = store.countEdges(index1, CyEdge.Type.ANY) <= store.countEdges(index2, CyEdge.Type.ANY);
+			final AdjacencyCursor cursor = store.newCursor().reset(fromFirst ? index1 : index2, CyEdge.Type.ANY);
+			final long other = fromFirst ? index2 : index1;
+
+			while (cursor.advance()) {
+				if (cursor.neighborSuid() == other)
+					return true;
+			}
+
+			return false;
+		} finally {
+			lock.unlockRead(stamp);
 		}
 	}
 
-	private Iterator<EdgePointer> edgesAdjacent(final NodePointer n, final CyEdge.Type edgeType) {
-		assert (n != null);
+	// The helpers below must only be called while holding the lock.
 
-		final EdgePointer[] edgeLists;
+	private boolean containsNodeUnlocked(final CyNode node) {
+		if (node == null)
+			return false;
 
-		final boolean incoming = assessIncoming(edgeType);
-		final boolean outgoing = assessOutgoing(edgeType);
-		final boolean undirected = assessUndirected(edgeType);
+		final CyNode thisNode = store.getNode(node.getSUID());
 
-		if (undirected || (outgoing && incoming)) 
-			edgeLists = new EdgePointer[] { n.firstOutEdge, n.firstInEdge };
-		else if (outgoing) // Cannot also be incoming.
-			edgeLists = new EdgePointer[] { n.firstOutEdge, null };
-		else if (incoming) // Cannot also be outgoing.
-			edgeLists = new EdgePointer[] { null, n.firstInEdge };
-		else // All boolean input parameters are false - can never get here!
-			edgeLists = new EdgePointer[] { null, null };
+		return thisNode != null && thisNode.equals(node);
+	}
 
-		final int inEdgeCount = countEdges(n, edgeType);
-		//System.out.println("edgesAdjacent edgeCount: " + inEdgeCount);
+	private boolean containsEdgeUnlocked(final CyEdge edge) {
+		if (edge == null)
+			return false;
 
-		return new Iterator<EdgePointer>() {
-				private int numRemaining = inEdgeCount;
-				private int edgeListIndex = -1;
-				private EdgePointer edge;
+		final CyEdge thisEdge = store.getEdge(edge.getSUID());
 
-				public boolean hasNext() {
-					return numRemaining > 0;
-				}
+		return thisEdge != null && thisEdge.equals(edge);
+	}
 
-				public void remove() {
-					throw new UnsupportedOperationException();
-				}
+	private List<CyEdge> adjacentEdgesUnlocked(final long index, final CyEdge.Type e) {
+		final List<CyEdge> ret = new ArrayList<>(store.countEdges(index, e));
+		final AdjacencyCursor cursor = store.newCursor().reset(index, e);
 
-				public EdgePointer next() {
-					// get the first non-null edgePointer
-					while (edge == null)
-						edge = edgeLists[++edgeListIndex];
-
-					long returnIndex = -1;
-
-					// look at outgoing edges
-					if (edgeListIndex == 0) {
-						// go to the next edge if the current edge is NOT either
-						// directed when we want outgoing or undirected when we
-						// want undirected
-						while ((edge != null) && 
-						       !((outgoing && edge.directed) || (undirected && !edge.directed))) {
-							edge = edge.nextOutEdge;
-
-							// we've hit the last edge in the list
-							// so increment edgeListIndex so we go to 
-							// incoming, set edge, and break
-							if (edge == null) {
-								edge = edgeLists[++edgeListIndex];
-								break;
-							}
-						}
-					
-						// if we have a non-null outgoing edge set the 
-						// edge and return values
-						// since edgeListIndex is still for outgoing we'll
-						// just directly to the return
-						if ((edge != null) && (edgeListIndex == 0)) {
-							returnIndex = edge.index;
-							edge = edge.nextOutEdge;
-						}
-					}
-	
-					// look at incoming edges
-					if (edgeListIndex == 1) {
-						
-						// Important NOTE!!!
-						// Possible null pointer exception here if numRemaining, 
-						// i.e. edgeCount is wrong. However, this is probably the
-						// correct behavior since it means the linked lists are
-						// messed up and there isn't a graceful way to deal.
-
-
-						// go to the next edge if the edge is a self edge AND 
-						// either directed when we're looking for outgoing or
-						// undirected when we're looking for undirected 
-						// OR 
-						// go to the next edge if the current edge is NOT either
-						// directed when we want incoming or undirected when we
-						// want undirected
-						while (((edge.source.index == edge.target.index)
-						       && ((outgoing && edge.directed) || (undirected && !edge.directed)))
-						       || !((incoming && edge.directed) || (undirected && !edge.directed))) {
-							edge = edge.nextInEdge;
-						}
-
-						returnIndex = edge.index;
-						edge = edge.nextInEdge;
-					}
-
-					numRemaining--;
-					return (EdgePointer)edgePointers.get(returnIndex);
-				}
-			};
-	}
-
-	private Iterator<EdgePointer> edgesConnecting(final NodePointer node0, final NodePointer node1,
-	                                              final CyEdge.Type et) {
-		assert(node0!=null);
-		assert(node1!=null);
-
-		final Iterator<EdgePointer> theAdj;
-		final long nodeZero;
-		final long nodeOne;
-
-		// choose the smaller iterator
-		if (countEdges(node0, et) <= countEdges(node1, et)) {
-			theAdj = edgesAdjacent(node0, et);
-			nodeZero = node0.index;
-			nodeOne = node1.index;
-		} else {
-			theAdj = edgesAdjacent(node1, et);
-			nodeZero = node1.index;
-			nodeOne = node0.index;
-		}
+		while (cursor.advance())
+			ret.add(cursor.edge());
 
-		return new Iterator<EdgePointer>() {
-				private long nextIndex = -1;
+		return ret;
+	}
 
-				private void ensureComputeNext() {
-					if (nextIndex != -1) {
-						return;
-					}
+	static boolean assessUndirected(final CyEdge.Type e) {
+		return e == CyEdge.Type.UNDIRECTED || e == CyEdge.Type.ANY;
+	}
 
-					while (theAdj.hasNext()) {
-						final EdgePointer e = theAdj.next();
+	static boolean assessIncoming(final CyEdge.Type e) {
+		return e == CyEdge.Type.DIRECTED || e == CyEdge.Type.ANY || e == CyEdge.Type.INCOMING;
+	}
 
-						if (nodeOne == (nodeZero ^ e.source.index ^ e.target.index)) {
-							nextIndex = e.index;
+	static boolean assessOutgoing(final CyEdge.Type e) {
+		return e == CyEdge.Type.DIRECTED || e == CyEdge.Type.ANY || e == CyEdge.Type.OUTGOING;
+	}
 
-							return;
-						}
-					}
+	/**
+	 * The buffers of the last cursor that each thread walked to the end, which
+	 * the next cursor created or reset on that thread takes over. A finished
+	 * cursor no longer needs its copy, so nested walks each get their own
+	 * buffers while sequential walks keep reusing the same ones.
+	 */
+	private static final ThreadLocal<Snapshot> SPARE_SNAPSHOT = new ThreadLocal<>();
+
+	/** The copy of one node's adjacency. */
+	private static final class Snapshot {
+		long[] edgeSuids = new long[8];
+		long[] neighborSuids = new long[8];
+		CyEdge[] edges = new CyEdge[8];
+		CyNode[] neighbors = new CyNode[8];
+	}
 
-					nextIndex = -2;
-				}
+	/**
+	 * A cursor that copies the adjacency of a node while holding the read
+	 * lock, so that it never reads the store after the lock is released.
+	 * The store's own cursors may only be used while the lock is held.
+	 * Resetting it takes the read lock again. Once it has returned its last
+	 * edge it hands its buffers to the next cursor of the thread.
+	 */
+	private final class SnapshotCursor extends AdjacencyCursor {
 
-				@Override
-				public void remove() {
-					throw new UnsupportedOperationException();
-				}
+		private final AdjacencyCursor source = store.newCursor();
 
-				@Override
-				public boolean hasNext() {
-					ensureComputeNext();
+		private Snapshot snapshot;
+		private int size;
+		private int current;
 
-					return (nextIndex >= 0);
-				}
+		@Override
+		protected void start(final long nodeSuid, final boolean outgoing, final boolean incoming,
+		                     final boolean undirected) {
+			final long stamp = lock.readLock();
+			try {
+				copy(nodeSuid, outgoing, incoming, undirected);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
 
-				@Override
-				public EdgePointer next() {
-					ensureComputeNext();
+		/**
+		 * Positions the cursor on the node while the caller holds the lock.
+		 */
+		SnapshotCursor fill(final long nodeSuid, final CyEdge.Type e) {
+			copy(nodeSuid, assessOutgoing(e), assessIncoming(e), assessUndirected(e));
+			return this;
+		}
 
-					final long returnIndex = nextIndex;
-					nextIndex = -1;
+		private void copy(final long nodeSuid, final boolean outgoing, final boolean incoming,
+		                  final boolean undirected) {
+			release();
+			current = -1;
 
-					return (EdgePointer)edgePointers.get(returnIndex);
-				}
-			};
-	}
+			// The node may have been removed since the cursor was handed out
+			if (store.getNode(nodeSuid) == null)
+				return;
 
-	private boolean assessUndirected(final CyEdge.Type e) {
-		return e == CyEdge.Type.UNDIRECTED || e == CyEdge.Type.ANY;
-	}
+			Snapshot s = SPARE_SNAPSHOT.get();
+			if (s == null) {
+				s = new Snapshot();
+			} else {
+				SPARE_SNAPSHOT.set(null);
+			}
+			snapshot = s;
 
-	private boolean assessIncoming(final CyEdge.Type e) {
-		return e == CyEdge.Type.DIRECTED || e == CyEdge.Type.ANY || e == CyEdge.Type.INCOMING;
-	}
+			source.start(nodeSuid, outgoing, incoming, undirected);
 
-	private boolean assessOutgoing(final CyEdge.Type e) {
-		return e == CyEdge.Type.DIRECTED || e == CyEdge.Type.ANY || e == CyEdge.Type.OUTGOING;
-	}
+			while (source.moveNext()) {
+				if (size == s.edges.length) {
+					final int capacity = 2 * size;
+					s.edgeSuids = Arrays.copyOf(s.edgeSuids, capacity);
+					s.neighborSuids = Arrays.copyOf(s.neighborSuids, capacity);
+					s.edges = Arrays.copyOf(s.edges, capacity);
+					s.neighbors = Arrays.copyOf(s.neighbors, capacity);
+				}
+
+				s.edgeSuids[size] = source.edgeSuid();
+				s.neighborSuids[size] = source.neighborSuid();
+				s.edges[size] = source.edge();
+				s.neighbors[size] = source.neighbor();
+				size++;
+			}
+		}
 
-	private int countEdges(final NodePointer n, final CyEdge.Type edgeType) {
-		assert(n!=null);
-		final boolean undirected = assessUndirected(edgeType);
-		final boolean incoming = assessIncoming(edgeType);
-		final boolean outgoing = assessOutgoing(edgeType);
+		/**
+		 * Clears the copy and leaves the buffers to the next cursor of this
+		 * thread.
+		 */
+		private void release() {
+			final Snapshot s = snapshot;
+			if (s == null)
+				return;
+
+			Arrays.fill(s.edges, 0, size, null);
+			Arrays.fill(s.neighbors, 0, size, null);
+			snapshot = null;
+			size = 0;
+			SPARE_SNAPSHOT.set(s);
+		}
 
-		int count = 0;
+		@Override
+		protected boolean moveNext() {
+			if (current + 1 >= size) {
+				release();
+				return false;
+			}
+			current++;
+			return true;
+		}
 
-		if (outgoing)
-			count += n.outDegree;
-		if (incoming)
-			count += n.inDegree;
-		if (undirected)
-			count += n.undDegree;
+		@Override
+		public long edgeSuid() {
+			return snapshot.edgeSuids[current];
+		}
 
-		if (outgoing && incoming)
-			count -= n.selfEdges;
+		@Override
+		public long neighborSuid() {
+			return snapshot.neighborSuids[current];
+		}
 
-		return count;
-	}
+		@Override
+		public CyEdge edge() {
+			return snapshot.edges[current];
+		}
 
-	private NodePointer getNodePointer(final CyNode node) {
-		assert(node != null);
-		return (NodePointer)nodePointers.get(node.getSUID());
+		@Override
+		public CyNode neighbor() {
+			return snapshot.neighbors[current];
+		}
 	}
 
 	@Override
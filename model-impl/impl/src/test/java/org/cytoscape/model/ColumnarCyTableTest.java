@@ -0,0 +1,137 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.cytoscape.equations.EquationCompiler;
+import org.cytoscape.equations.Interpreter;
+import org.cytoscape.equations.internal.EquationCompilerImpl;
+import org.cytoscape.equations.internal.EquationParserImpl;
+import org.cytoscape.equations.internal.interpreter.InterpreterImpl;
+import org.cytoscape.event.CyEventHelper;
+import org.cytoscape.event.DummyCyEventHelper;
+import org.cytoscape.model.events.TableAddedEvent;
+import org.cytoscape.model.internal.CyNetworkManagerImpl;
+import org.cytoscape.model.internal.CyNetworkTableManagerImpl;
+import org.cytoscape.model.internal.CyTableImpl;
+import org.cytoscape.model.internal.CyTableManagerImpl;
+import org.cytoscape.service.util.CyServiceRegistrar;
+import org.cytoscape.session.CyNetworkNaming;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the table API tests against tables that keep their scalar columns in
+ * columnar storage.
+ */
+public class ColumnarCyTableTest extends AbstractCyTableTest {
+
+	private CyNetworkNaming namingUtil = mock(CyNetworkNaming.class);
+	private CyServiceRegistrar serviceRegistrar = mock(CyServiceRegistrar.class);
+
+	private final EquationCompiler compiler = new EquationCompilerImpl(new EquationParserImpl());
+
+	@Before
+	public void setUp() {
+		eventHelper = new DummyCyEventHelper();
+
+		when(serviceRegistrar.getService(CyEventHelper.class)).thenReturn(eventHelper);
+		when(serviceRegistrar.getService(CyNetworkNaming.class)).thenReturn(namingUtil);
+
+		final Interpreter interpreter = new InterpreterImpl();
+		table = new CyTableImpl("homer", CyIdentifiable.SUID, Long.class, false, true, SavePolicy.SESSION_FILE,
+					eventHelper, interpreter, 1000, true);
+		attrs = table.getRow(1L);
+		table2 = new CyTableImpl("marge", CyIdentifiable.SUID, Long.class, false, true, SavePolicy.SESSION_FILE,
+					 eventHelper, interpreter, 1000, true);
+
+		CyTableManagerImpl tblMgr = new CyTableManagerImpl(eventHelper,new CyNetworkTableManagerImpl(), new CyNetworkManagerImpl(serviceRegistrar));
+		tblMgr.addTable(table);
+		((CyTableImpl)table).handleEvent(new TableAddedEvent(tblMgr, table));
+		tblMgr.addTable(table2);
+		((CyTableImpl)table2).handleEvent(new TableAddedEvent(tblMgr, table2));
+	}
+
+	@After
+	public void tearDown() {
+		eventHelper = null;
+		table = null;
+		attrs = null;
+	}
+
+	@Test
+	public void testUsesColumnarStorage() {
+		assertTrue(((CyTableImpl)table).usesColumnarStorage());
+	}
+
+	@Test
+	public void testDeletedRowDoesNotLeakIntoReusedSlot() {
+		table.createColumn("count", Integer.class, false);
+		table.createColumn("name", String.class, false);
+		table.createColumn("flag", Boolean.class, false);
+
+		table.getRow(10L).set("count", 5);
+		table.getRow(10L).set("name", "a");
+		table.getRow(10L).set("flag", true);
+		table.deleteRows(Arrays.asList(10L));
+
+		final CyRow row = table.getRow(11L);
+		assertFalse(row.isSet("count"));
+		assertFalse(row.isSet("name"));
+		assertFalse(row.isSet("flag"));
+		assertNull(row.get("name", String.class));
+
+		row.set("name", "b");
+		assertEquals("b", row.get("name", String.class));
+		assertEquals(0, table.countMatchingRows("name", "a"));
+		assertEquals(1, table.countMatchingRows("name", "b"));
+	}
+
+	@Test
+	public void testEquationInPrimitiveColumn() {
+		table.createColumn("someDouble", Double.class, false);
+
+		compiler.compile("=6/3", new HashMap<String, Class<?>>());
+		attrs.set("someDouble", compiler.getEquation());
+		assertEquals(2.0, attrs.get("someDouble", Double.class).doubleValue(), 0.00001);
+
+		attrs.set("someDouble", 7.0);
+		assertEquals(7.0, attrs.get("someDouble", Double.class).doubleValue(), 0.0);
+		assertEquals(1, table.getMatchingRows("someDouble", 7.0).size());
+	}
+}
@@ -0,0 +1,92 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl (model-impl)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2008 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Runs the network API tests against a network that uses the compact,
+ * array based topology storage.
+ */
+public class CompactCyNetworkTest extends AbstractCyNetworkTest {
+	
+	@Before
+	public void setUp() {
+		net = TestCyNetworkFactory.getCompactInstance();
+	}
+
+	@After
+	public void tearDown() {
+		net = null;
+	}
+
+	@Test
+	public void testAdjacencySurvivesCompaction() {
+		final List<CyNode> nodes = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+			nodes.add(net.addNode());
+
+		final CyNode hub = nodes.get(0);
+		final List<CyEdge> kept = new ArrayList<>();
+		final List<CyEdge> removed = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			final CyNode other = nodes.get(1 + (i % 99));
+			final CyEdge e = (i % 2 == 0) ? net.addEdge(hub, other, true) : net.addEdge(other, hub, false);
+			if (i % 3 == 0)
+				kept.add(e);
+			else
+				removed.add(e);
+		}
+
+		assertTrue(net.removeEdges(removed));
+		assertEquals(kept.size(), net.getEdgeCount());
+		assertEquals(new HashSet<>(kept), new HashSet<>(net.getEdgeList()));
+
+		final Set<CyEdge> adjacent = new HashSet<>();
+		for (CyEdge e : net.getAdjacentEdgeIterable(hub, CyEdge.Type.ANY))
+			adjacent.add(e);
+		assertEquals(new HashSet<>(kept), adjacent);
+		assertEquals(kept.size(), net.getAdjacentEdgeList(hub, CyEdge.Type.ANY).size());
+
+		for (CyEdge e : removed)
+			assertFalse(net.containsEdge(e));
+		for (CyEdge e : kept)
+			assertTrue(net.getConnectingEdgeList(e.getSource(), e.getTarget(), CyEdge.Type.ANY).contains(e));
+	}
+}
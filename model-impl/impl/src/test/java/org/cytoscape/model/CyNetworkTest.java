@@ -25,8 +25,27 @@ package org.cytoscape.model;
  */
 
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.internal.AdjacencyCursor;
+import org.cytoscape.model.internal.CySubNetworkImpl;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Test;
 
 
 public class CyNetworkTest extends AbstractCyNetworkTest {
@@ -40,4 +59,95 @@ public class CyNetworkTest extends AbstractCyNetworkTest {
 	public void tearDown() {
 		net = null;
 	}
+
+	@Test
+	public void testConcurrentReadsDuringWrites() throws Exception {
+		final List<CyNode> nodes = new ArrayList<>();
+		for (int i = 0; i < 200; i++)
+			nodes.add(net.addNode());
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		final List<Future<Integer>> futures = new ArrayList<>();
+
+		for (int t = 0; t < 3; t++) {
+			futures.add(executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					final Random rand = new Random();
+					int count = 0;
+					for (int i = 0; i < 5000; i++) {
+						final CyNode n = nodes.get(rand.nextInt(nodes.size()));
+						count += net.getNeighborList(n, CyEdge.Type.ANY).size();
+						count += net.getAdjacentEdgeList(n, CyEdge.Type.ANY).size();
+						net.containsEdge(n, nodes.get(rand.nextInt(nodes.size())));
+					}
+					return count;
+				}
+			}));
+		}
+
+		futures.add(executor.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				final Random rand = new Random(1L);
+				final List<CyEdge> added = new ArrayList<>();
+				for (int i = 0; i < 2000; i++) {
+					added.add(net.addEdge(nodes.get(rand.nextInt(nodes.size())), nodes.get(rand.nextInt(nodes.size())), true));
+					if (added.size() == 50) {
+						net.removeEdges(new ArrayList<>(added.subList(0, 25)));
+						added.subList(0, 25).clear();
+					}
+				}
+				return added.size();
+			}
+		}));
+
+		for (Future<Integer> f : futures)
+			f.get(30, TimeUnit.SECONDS);
+
+		executor.shutdown();
+
+		assertEquals(net.getEdgeList().size(), net.getEdgeCount());
+	}
+
+	@Test
+	public void testAdjacencyCursor() {
+		final CyNode n1 = net.addNode();
+		final CyNode n2 = net.addNode();
+		final CyNode n3 = net.addNode();
+		final CyEdge e1 = net.addEdge(n1, n2, true);
+		final CyEdge e2 = net.addEdge(n3, n1, false);
+		final CyEdge e3 = net.addEdge(n1, n1, true);
+
+		final AdjacencyCursor cursor = ((CySubNetworkImpl) net).getAdjacencyCursor(n1, CyEdge.Type.ANY);
+		final List<CyEdge> edges = new ArrayList<>();
+		while (cursor.advance()) {
+			assertEquals(cursor.edge().getSUID().longValue(), cursor.edgeSuid());
+			assertEquals(cursor.neighbor().getSUID().longValue(), cursor.neighborSuid());
+			edges.add(cursor.edge());
+		}
+		assertEquals(3, edges.size());
+		assertEquals(new HashSet<>(net.getAdjacentEdgeList(n1, CyEdge.Type.ANY)), new HashSet<>(edges));
+
+		cursor.reset(n2.getSUID(), CyEdge.Type.INCOMING);
+		assertTrue(cursor.advance());
+		assertEquals(e1, cursor.edge());
+		assertEquals(n1, cursor.neighbor());
+		assertFalse(cursor.advance());
+
+		cursor.reset(n3.getSUID(), CyEdge.Type.DIRECTED);
+		assertFalse(cursor.hasNext());
+
+		cursor.reset(n3.getSUID(), CyEdge.Type.UNDIRECTED);
+		assertEquals(e2, cursor.next());
+		assertFalse(cursor.hasNext());
+
+		net.removeEdges(Collections.singletonList(e3));
+		cursor.reset(n1.getSUID(), CyEdge.Type.OUTGOING);
+		assertEquals(e1, cursor.next());
+		assertFalse(cursor.hasNext());
+
+		final CyNetwork other = TestCyNetworkFactory.getInstance();
+		assertNull(((CySubNetworkImpl) net).getAdjacencyCursor(other.addNode(), CyEdge.Type.ANY));
+	}
 }
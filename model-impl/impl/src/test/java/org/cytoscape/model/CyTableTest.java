@@ -324,4 +324,37 @@ public class CyTableTest extends AbstractCyTableTest {
 			}
 		}
 	}
+
+	@Test
+	public void testMatchingRowsStayCorrectOnceIndexed() {
+		table.createColumn("selected", Boolean.class, false);
+		for (long i = 0; i < 10; i++)
+			table.getRow(i).set("selected", i % 2 == 0);
+
+		// Repeated lookups switch the column over to a value index.
+		for (int i = 0; i < 3; i++) {
+			assertEquals(5, table.getMatchingRows("selected", true).size());
+			assertEquals(5, table.countMatchingRows("selected", false));
+		}
+
+		table.getRow(1L).set("selected", true);
+		table.getRow(2L).set("selected", null);
+		table.deleteRows(Arrays.asList(4L));
+		table.getRow(20L).set("selected", false);
+
+		assertEquals(4, table.countMatchingRows("selected", true));
+		assertEquals(5, table.countMatchingRows("selected", false));
+		assertTrue(table.getMatchingRows("selected", true).contains(table.getRow(1L)));
+		assertFalse(table.getMatchingRows("selected", true).contains(table.getRow(2L)));
+
+		table.getColumn("selected").setName("chosen");
+		assertEquals(4, table.getMatchingRows("chosen", true).size());
+
+		table.deleteColumn("chosen");
+		table.createColumn("chosen", Boolean.class, false);
+		for (int i = 0; i < 3; i++)
+			assertEquals(0, table.countMatchingRows("chosen", true));
+		table.getRow(3L).set("chosen", true);
+		assertEquals(1, table.countMatchingRows("chosen", true));
+	}
 }
@@ -38,6 +38,7 @@ import java.util.concurrent.Future;
 import org.cytoscape.equations.Equation;
 import org.cytoscape.equations.internal.EquationCompilerImpl;
 import org.cytoscape.equations.internal.EquationParserImpl;
+import org.cytoscape.model.internal.CyTableImpl;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -330,5 +331,68 @@ public class EquationTest {
 		assertEquals(Integer.valueOf(2), row.get("c2", Integer.class));
 		assertEquals(Integer.valueOf(3), row.get("c3", Integer.class));
 	}
+	
+	@Test
+	public void testCachedResultFollowsReferencedCells() {
+		CyTableFactory factory = support.getTableFactory();
+		CyTable table = factory.createTable("MyTable3", "SUID", Long.class, true, true);
+		table.createColumn("c1", Double.class, false);
+		table.createColumn("e1", Double.class, false);
+		table.createColumn("e2", Double.class, false);
+		
+		CyRow row = table.getRow(1L);
+		CyRow other = table.getRow(2L);
+		row.set("c1", 1.0);
+		other.set("c1", 10.0);
+		row.set("e1", parseEquation("=$c1 * 2.0", table));
+		row.set("e2", parseEquation("=$e1 + 1.0", table));
+		other.set("e1", parseEquation("=$c1 * 2.0", table));
+		other.set("e2", parseEquation("=$e1 + 1.0", table));
+		
+		assertEquals(3.0, row.get("e2", Double.class), 0);
+		assertEquals(21.0, other.get("e2", Double.class), 0);
+		
+		// Changing a cell must invalidate everything depending on it in the same row, but only there.
+		row.set("c1", 2.0);
+		assertEquals(4.0, row.get("e1", Double.class), 0);
+		assertEquals(5.0, row.get("e2", Double.class), 0);
+		assertEquals(21.0, other.get("e2", Double.class), 0);
+		
+		row.set("e1", 7.0);
+		assertEquals(8.0, row.get("e2", Double.class), 0);
+		
+		row.set("e1", null);
+		assertNull(row.get("e2", Double.class));
+	}
+	
+	@Test
+	public void testRecomputeColumn() {
+		CyTableFactory factory = support.getTableFactory();
+		CyTable table = factory.createTable("MyTable4", "SUID", Long.class, true, true);
+		table.createColumn("c1", Double.class, false);
+		table.createColumn("e1", Double.class, false);
+		table.createColumn("e2", Double.class, false);
+		
+		Equation e1 = parseEquation("=$c1 + 1.0", table);
+		Equation e2 = parseEquation("=$e1 * 2.0", table);
+		
+		final int N = 5000;
+		for (int i = 1; i <= N; i++) {
+			CyRow row = table.getRow((long)i);
+			row.set("c1", (double)i);
+			row.set("e1", e1);
+			row.set("e2", e2);
+		}
+		
+		for (boolean parallel : new boolean[] { false, true }) {
+			for (int i = 1; i <= N; i++)
+				table.getRow((long)i).set("c1", (double)(i + (parallel ? 1 : 0)));
+			
+			((CyTableImpl)table).recomputeColumn("e2", parallel);
+			for (int i = 1; i <= N; i++) {
+				final double c1 = i + (parallel ? 1 : 0);
+				assertEquals((c1 + 1.0) * 2.0, table.getRow((long)i).get("e2", Double.class), 0);
+			}
+		}
+	}
 }
-
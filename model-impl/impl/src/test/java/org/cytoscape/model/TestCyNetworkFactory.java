@@ -132,6 +132,19 @@ public class TestCyNetworkFactory {
 	}
 	
 	public static CyRootNetwork getPublicRootInstance(DummyCyEventHelper deh, SavePolicy policy) {
+		return getPublicRootInstance(deh, policy, false);
+	}
+
+	public static CyNetwork getCompactInstance() {
+		return getCompactRootInstance().getBaseNetwork();
+	}
+
+	public static CyRootNetwork getCompactRootInstance() {
+		return getPublicRootInstance(new DummyCyEventHelper(), SavePolicy.SESSION_FILE, true);
+	}
+
+	private static CyRootNetwork getPublicRootInstance(DummyCyEventHelper deh, SavePolicy policy,
+			boolean compactStorage) {
 		CyNetworkNaming namingUtil = mock(CyNetworkNaming.class);
 		CyServiceRegistrar serviceRegistrar = mock(CyServiceRegistrar.class);
 		
@@ -144,7 +157,7 @@ public class TestCyNetworkFactory {
 		final Interpreter interp = new InterpreterImpl();
 		
 		final CyTableFactoryImpl tableFactory = new CyTableFactoryImpl(deh, interp, serviceRegistrar);
-		return new CyRootNetworkImpl(deh, tm, ntm, tableFactory, serviceRegistrar, true, policy);
+		return new CyRootNetworkImpl(deh, tm, ntm, tableFactory, serviceRegistrar, true, policy, compactStorage);
 	}
 
 	public static CyRootNetwork getPrivateRootInstance() {	
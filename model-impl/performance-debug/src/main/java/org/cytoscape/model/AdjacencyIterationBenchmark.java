@@ -0,0 +1,143 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cytoscape.model.internal.AdjacencyCursor;
+import org.cytoscape.model.internal.CySubNetworkImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Visits every edge touching every node of a network, the way the renderer
+ * and the layouts do, through the list based accessors and through the
+ * cursor. Run through main() to get the allocation rate of each path
+ * (gc.alloc.rate.norm is the number of bytes allocated per full traversal).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AdjacencyIterationBenchmark {
+
+	private static final String COMPACT_STORAGE_PROPERTY = "cytoscape.model.compact.storage";
+
+	@Param({ "false", "true" })
+	public boolean compactStorage;
+
+	@Param({ "100000" })
+	public int nodeCount;
+
+	@Param({ "500000" })
+	public int edgeCount;
+
+	private CySubNetworkImpl network;
+	private List<CyNode> nodes;
+
+	public static void main(String[] args) throws RunnerException {
+		final Options opt = new OptionsBuilder()
+				.include(AdjacencyIterationBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(opt).run();
+	}
+
+	@Setup
+	public void setUp() {
+		System.setProperty(COMPACT_STORAGE_PROPERTY, Boolean.toString(compactStorage));
+		network = (CySubNetworkImpl) new NetworkTestSupport().getNetwork();
+
+		nodes = new ArrayList<CyNode>(nodeCount);
+		for (int i = 0; i < nodeCount; i++)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(1234L);
+		for (int i = 0; i < edgeCount; i++)
+			network.addEdge(nodes.get(rand.nextInt(nodeCount)), nodes.get(rand.nextInt(nodeCount)), i % 2 == 0);
+	}
+
+	/** The allocating path: a new list per node. */
+	@Benchmark
+	public void adjacentEdgeList(final Blackhole bh) {
+		for (CyNode n : nodes) {
+			for (CyEdge e : network.getAdjacentEdgeList(n, CyEdge.Type.ANY))
+				bh.consume(e);
+		}
+	}
+
+	@Benchmark
+	public void neighborList(final Blackhole bh) {
+		for (CyNode n : nodes) {
+			for (CyNode neighbor : network.getNeighborList(n, CyEdge.Type.ANY))
+				bh.consume(neighbor);
+		}
+	}
+
+	/** A new cursor per node, each reusing the buffers of the one before. */
+	@Benchmark
+	public void adjacentEdgeIterable(final Blackhole bh) {
+		for (CyNode n : nodes) {
+			for (CyEdge e : network.getAdjacentEdgeIterable(n, CyEdge.Type.ANY))
+				bh.consume(e);
+		}
+	}
+
+	/** A single cursor reset for every node, reading the SUIDs it copied. */
+	@Benchmark
+	public void reusedCursor(final Blackhole bh) {
+		final AdjacencyCursor cursor = network.getAdjacencyCursor(nodes.get(0), CyEdge.Type.ANY);
+		for (CyNode n : nodes) {
+			cursor.reset(n.getSUID(), CyEdge.Type.ANY);
+			while (cursor.advance()) {
+				bh.consume(cursor.edgeSuid());
+				bh.consume(cursor.neighborSuid());
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Measures read throughput on a shared network as the number of reader
+ * threads grows, with and without a concurrent writer adding and removing
+ * edges.
+ */
+public class NetworkConcurrencyPerfTest {
+
+	private static final int NODE_COUNT = 50000;
+	private static final int EDGE_COUNT = 250000;
+	private static final long RUN_MILLIS = 3000;
+
+	private final CyNetwork network;
+	private final List<CyNode> nodes;
+
+	public static void main(String[] args) throws InterruptedException {
+		new NetworkConcurrencyPerfTest().runTestLoop();
+	}
+
+	public NetworkConcurrencyPerfTest() {
+		network = new NetworkTestSupport().getNetwork();
+		nodes = new ArrayList<CyNode>(NODE_COUNT);
+		for (int i = 0; i < NODE_COUNT; i++)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(1234L);
+		for (int i = 0; i < EDGE_COUNT; i++)
+			network.addEdge(nodes.get(rand.nextInt(NODE_COUNT)), nodes.get(rand.nextInt(NODE_COUNT)), i % 2 == 0);
+	}
+
+	public void runTestLoop() throws InterruptedException {
+		final int cores = Runtime.getRuntime().availableProcessors();
+		for (boolean withWriter : new boolean[] { false, true }) {
+			System.out.println(withWriter ? "readers + 1 writer:" : "readers only:");
+			for (int readers = 1; readers <= cores; readers *= 2) {
+				final long reads = runTest(readers, withWriter);
+				System.out.println("  " + readers + " reader(s): " + (reads * 1000 / RUN_MILLIS) + " reads/s");
+			}
+		}
+	}
+
+	private long runTest(final int readerCount, final boolean withWriter) throws InterruptedException {
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicLong reads = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<Thread>();
+
+		for (int i = 0; i < readerCount; i++) {
+			final long seed = i;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					final Random rand = new Random(seed);
+					long count = 0;
+					awaitQuietly(start);
+					while (running.get()) {
+						final CyNode n = nodes.get(rand.nextInt(NODE_COUNT));
+						network.getNeighborList(n, CyEdge.Type.ANY);
+						network.getAdjacentEdgeList(n, CyEdge.Type.ANY);
+						network.containsNode(n);
+						network.getNodeCount();
+						count += 4;
+					}
+					reads.addAndGet(count);
+				}
+			});
+		}
+
+		if (withWriter) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					final Random rand = new Random(-1L);
+					final List<CyEdge> added = new ArrayList<CyEdge>();
+					awaitQuietly(start);
+					while (running.get()) {
+						added.add(network.addEdge(nodes.get(rand.nextInt(NODE_COUNT)), nodes.get(rand.nextInt(NODE_COUNT)), true));
+						if (added.size() == 100) {
+							network.removeEdges(added);
+							added.clear();
+						}
+					}
+					network.removeEdges(added);
+				}
+			});
+		}
+
+		for (Thread t : threads)
+			t.start();
+
+		start.countDown();
+		Thread.sleep(RUN_MILLIS);
+		running.set(false);
+
+		for (Thread t : threads)
+			t.join();
+
+		return reads.get();
+	}
+
+	private static void awaitQuietly(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
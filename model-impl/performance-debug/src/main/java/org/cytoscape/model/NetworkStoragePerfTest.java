@@ -0,0 +1,131 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Performance Debug (model-impl-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Compares the memory footprint and the traversal speed of the linked
+ * pointer topology storage with the compact array storage that is enabled
+ * through the "cytoscape.model.compact.storage" system property.
+ */
+public class NetworkStoragePerfTest {
+
+	private static final String COMPACT_STORAGE_PROPERTY = "cytoscape.model.compact.storage";
+
+	private final int nodeCount;
+	private final int edgeCount;
+
+	public static void main(String[] args) {
+		final int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		final int edgeCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		new NetworkStoragePerfTest(nodeCount, edgeCount).runTestLoop();
+	}
+
+	public NetworkStoragePerfTest(final int nodeCount, final int edgeCount) {
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeCount;
+	}
+
+	public void runTestLoop() {
+		System.out.println("nodes: " + nodeCount + ", edges: " + edgeCount);
+
+		// Run both layouts twice so that the second round is JIT compiled.
+		for (int i = 0; i < 2; i++) {
+			runTest(false);
+			runTest(true);
+		}
+	}
+
+	private void runTest(final boolean compact) {
+		System.setProperty(COMPACT_STORAGE_PROPERTY, Boolean.toString(compact));
+		final String label = compact ? "compact array storage" : "linked pointer storage";
+
+		// Node and edge objects and their table rows are the same for both
+		// layouts, so the difference in used heap is the difference in topology.
+		final long memBefore = usedMemory();
+		final long buildStart = System.currentTimeMillis();
+		final CyNetwork network = new NetworkTestSupport().getNetwork();
+		final List<CyNode> nodes = buildNetwork(network);
+		final long buildTime = System.currentTimeMillis() - buildStart;
+		final long memAfter = usedMemory();
+
+		final long neighborStart = System.currentTimeMillis();
+		long neighbors = 0;
+		for (CyNode n : nodes)
+			neighbors += network.getNeighborList(n, CyEdge.Type.ANY).size();
+		final long neighborTime = System.currentTimeMillis() - neighborStart;
+
+		final long iterableStart = System.currentTimeMillis();
+		long adjacent = 0;
+		for (CyNode n : nodes) {
+			for (CyEdge e : network.getAdjacentEdgeIterable(n, CyEdge.Type.ANY)) {
+				if (e != null)
+					adjacent++;
+			}
+		}
+		final long iterableTime = System.currentTimeMillis() - iterableStart;
+
+		final long edgeListStart = System.currentTimeMillis();
+		final int edges = network.getEdgeList().size();
+		final long edgeListTime = System.currentTimeMillis() - edgeListStart;
+
+		System.out.println(label + ":");
+		System.out.println("  build:                      " + buildTime + " ms");
+		System.out.println("  heap used:                  " + ((memAfter - memBefore) / (1024 * 1024)) + " MB");
+		System.out.println("  getNeighborList (all):      " + neighborTime + " ms (" + neighbors + ")");
+		System.out.println("  getAdjacentEdgeIterable:    " + iterableTime + " ms (" + adjacent + ")");
+		System.out.println("  getEdgeList:                " + edgeListTime + " ms (" + edges + ")");
+	}
+
+	private List<CyNode> buildNetwork(final CyNetwork network) {
+		final List<CyNode> nodes = new ArrayList<CyNode>(nodeCount);
+		for (int i = 0; i < nodeCount; i++)
+			nodes.add(network.addNode());
+
+		final Random rand = new Random(1234L);
+		boolean isDirected = true;
+		for (int i = 0; i < edgeCount; i++) {
+			final CyNode source = nodes.get(rand.nextInt(nodeCount));
+			final CyNode target = nodes.get(rand.nextInt(nodeCount));
+			network.addEdge(source, target, isDirected);
+			isDirected = !isDirected;
+		}
+
+		return nodes;
+	}
+
+	private static long usedMemory() {
+		final Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
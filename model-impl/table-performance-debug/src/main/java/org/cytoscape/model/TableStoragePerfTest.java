@@ -0,0 +1,141 @@
+package org.cytoscape.model;
+
+/*
+ * #%L
+ * Cytoscape Model Impl Table Performance Debug (model-impl-table-performance-debug)
+ * $Id:$
+ * $HeadURL:$
+ * %%
+ * Copyright (C) 2006 - 2013 The Cytoscape Consortium
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as 
+ * published by the Free Software Foundation, either version 2.1 of the 
+ * License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Lesser Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Lesser Public 
+ * License along with this program.  If not, see
+ * <http://www.gnu.org/licenses/lgpl-2.1.html>.
+ * #L%
+ */
+
+
+
+import java.util.Random;
+
+
+/**
+ * Compares the memory footprint and the get/set throughput of the hash map
+ * column storage with the columnar storage that is enabled through the
+ * "cytoscape.model.columnar.tables" system property.
+ */
+public class TableStoragePerfTest {
+
+	private static final String COLUMNAR_STORAGE_PROPERTY = "cytoscape.model.columnar.tables";
+
+	private static final Class<?>[] COLUMN_TYPES = new Class<?>[] {
+		Long.class, Double.class, Integer.class, Boolean.class, String.class
+	};
+
+	private final int rowCount;
+	private final int columnCount;
+	private final CyTableFactory tableFactory;
+
+	public static void main(String[] args) {
+		final int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+		final int columnCount = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		new TableStoragePerfTest(rowCount, columnCount).runTestLoop();
+	}
+
+	public TableStoragePerfTest(final int rowCount, final int columnCount) {
+		this.rowCount = rowCount;
+		this.columnCount = columnCount;
+		this.tableFactory = new TableTestSupport().getTableFactory();
+	}
+
+	public void runTestLoop() {
+		System.out.println("rows: " + rowCount + ", columns: " + columnCount);
+
+		// Run both storages twice so that the second round is JIT compiled.
+		for (int i = 0; i < 2; i++) {
+			runTest(false);
+			runTest(true);
+		}
+	}
+
+	private void runTest(final boolean columnar) {
+		System.setProperty(COLUMNAR_STORAGE_PROPERTY, Boolean.toString(columnar));
+		final String label = columnar ? "columnar storage" : "hash map storage";
+
+		final long memBefore = usedMemory();
+		final CyTable table = tableFactory.createTable("perf", "SUID", Long.class, true, true,
+		                                               CyTableFactory.InitialTableSize.LARGE);
+		for (int j = 0; j < columnCount; j++)
+			table.createColumn(columnName(j), columnType(j), false);
+
+		final Random rand = new Random(rowCount);
+		final long setStart = System.currentTimeMillis();
+		for (int i = 0; i < rowCount; i++) {
+			final CyRow row = table.getRow(Long.valueOf(i));
+			for (int j = 0; j < columnCount; j++)
+				row.set(columnName(j), randomValue(columnType(j), rand));
+		}
+		final long setTime = System.currentTimeMillis() - setStart;
+		final long memAfter = usedMemory();
+
+		final long getStart = System.currentTimeMillis();
+		long checksum = 0;
+		for (CyRow row : table.getAllRows()) {
+			for (int j = 0; j < columnCount; j++) {
+				if (row.get(columnName(j), columnType(j)) != null)
+					checksum++;
+			}
+		}
+		final long getTime = System.currentTimeMillis() - getStart;
+
+		final long matchStart = System.currentTimeMillis();
+		long matches = 0;
+		for (int x = 0; x < 20; x++)
+			matches += table.countMatchingRows(columnName(2), Integer.valueOf(x));
+		final long matchTime = System.currentTimeMillis() - matchStart;
+
+		System.out.println(label + ":");
+		System.out.println("  set all cells:              " + setTime + " ms");
+		System.out.println("  heap used:                  " + ((memAfter - memBefore) / (1024 * 1024)) + " MB");
+		System.out.println("  get all cells:              " + getTime + " ms (" + checksum + ")");
+		System.out.println("  countMatchingRows x 20:     " + matchTime + " ms (" + matches + ")");
+	}
+
+	private static String columnName(final int j) {
+		return "column" + j;
+	}
+
+	private static Class<?> columnType(final int j) {
+		return COLUMN_TYPES[j % COLUMN_TYPES.length];
+	}
+
+	private static Object randomValue(final Class<?> c, final Random rand) {
+		if (c == Integer.class)
+			return Integer.valueOf(rand.nextInt(100));
+		else if (c == Long.class)
+			return Long.valueOf(rand.nextLong());
+		else if (c == Double.class)
+			return Double.valueOf(rand.nextDouble());
+		else if (c == Boolean.class)
+			return Boolean.valueOf(rand.nextBoolean());
+		else
+			return "value" + rand.nextInt(1000);
+	}
+
+	private static long usedMemory() {
+		final Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}